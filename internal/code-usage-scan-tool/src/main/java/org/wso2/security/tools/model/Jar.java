@@ -24,6 +24,7 @@ public class Jar {
     private String jarName;
     private String jarHashCode;
     private ArrayList<Class> classes;
+    private ArrayList<String> nestedJarHashCodes;
 
     public ArrayList<Class> getClasses() {
         return classes;
@@ -37,6 +38,15 @@ public class Jar {
         this.jarName = jarName;
         this.jarHashCode = jarHashCode;
         this.classes = new ArrayList<Class>();
+        this.nestedJarHashCodes = new ArrayList<String>();
+    }
+
+    public ArrayList<String> getNestedJarHashCodes() {
+        return nestedJarHashCodes;
+    }
+
+    public void setNestedJarHashCodes(ArrayList<String> nestedJarHashCodes) {
+        this.nestedJarHashCodes = nestedJarHashCodes;
     }
 
     public String getJarName() {
@@ -26,6 +26,7 @@ public class MethodReference {
     private String usageMethod;
     private String usageClass;
     private int usageLineNumber;
+    private String jarHashCode;
 
     public MethodReference(String methodName, String parentClass, String usageMethod, String usageClass, int usageLineNumber) {
         this.methodName = methodName;
@@ -74,4 +75,12 @@ public class MethodReference {
     public void setUsageLineNumber(int usageLineNumber) {
         this.usageLineNumber = usageLineNumber;
     }
+
+    public String getJarHashCode() {
+        return jarHashCode;
+    }
+
+    public void setJarHashCode(String jarHashCode) {
+        this.jarHashCode = jarHashCode;
+    }
 }
@@ -17,12 +17,15 @@
 package org.wso2.security.tools.service;
 
 import org.wso2.msf4j.MicroservicesRunner;
+import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.store.UsageStoreFactory;
 
 /**
  * Application entry point.
  */
 public class Application {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws ScanToolException {
+        UsageStoreFactory.getStore().initialize();
         new MicroservicesRunner()
                 .deploy(new MethodReferenceFinderService())
                 .start();
@@ -22,9 +22,13 @@ import org.slf4j.LoggerFactory;
 import org.wso2.msf4j.formparam.FileInfo;
 import org.wso2.msf4j.formparam.FormDataParam;
 import org.wso2.security.tools.exception.ScanToolException;
-import org.wso2.security.tools.util.DatabaseUtils;
+import org.wso2.security.tools.model.MethodReference;
+import org.wso2.security.tools.model.Product;
+import org.wso2.security.tools.model.ProductVersion;
+import org.wso2.security.tools.store.UsageStoreFactory;
 import org.wso2.security.tools.util.FileHandler;
 import org.wso2.security.tools.util.JarScanner;
+import org.wso2.security.tools.util.ProductScanner;
 
 import java.io.InputStream;
 import java.net.UnknownHostException;
@@ -55,11 +59,8 @@ public class MethodReferenceFinderService {
         String dataFilePath = "Data File Path Not Found";
 
         try {
-            FileHandler.saveUploadedFile(jarFileInputStream, jarFileInfo);
             dataFilePath = FileHandler.saveUploadedFile(jarFileInputStream, jarFileInfo);
-            // the data file path variable with the datafile path should be used instead of the hard coded string.
-            JarScanner jarScanner = new JarScanner("target/scan-tool-0.1-SNAPSHOT.jar"
-                    , productName, version);
+            JarScanner jarScanner = new JarScanner(dataFilePath, productName, version);
             jarScanner.scan();
         } catch (ScanToolException e) {
             log.error("Error occurred while scanning the jar file", e);
@@ -69,6 +70,30 @@ public class MethodReferenceFinderService {
        return dataFilePath;
     }
 
+    @POST
+    @Path("/populate-product-data")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public String populateProductData(@FormDataParam("distribution") FileInfo distributionFileInfo,
+                                      @FormDataParam("distribution") InputStream distributionInputStream,
+                                      @FormDataParam("productName") String productName,
+                                      @FormDataParam("productVersion") int version) {
+
+        String distributionFilePath = "Distribution File Path Not Found";
+
+        try {
+            distributionFilePath = FileHandler.saveUploadedFile(distributionInputStream, distributionFileInfo);
+            ProductScanner productScanner = new ProductScanner(distributionFilePath, productName, version);
+            Product product = productScanner.scan();
+            log.info("Indexed " + product.getProductVersions().get(0).getJars().size() + " jars of " + productName
+                    + " " + version);
+        } catch (ScanToolException e) {
+            log.error("Error occurred while scanning the product distribution", e);
+        } finally {
+            IOUtils.closeQuietly(distributionInputStream);
+        }
+        return distributionFilePath;
+    }
+
     @POST
     @Path("/query-data")
     @Consumes(MediaType.MULTIPART_FORM_DATA)
@@ -77,8 +102,30 @@ public class MethodReferenceFinderService {
                                @FormDataParam("productName") String productName,
                                @FormDataParam("productVersion") int version) throws UnknownHostException {
 
-        new DatabaseUtils().find(productName, version, method, owner);
-        return "Done";
+        StringBuilder matches = new StringBuilder();
+        int i = 1;
+        for (MethodReference ref : UsageStoreFactory.getStore().findMethodReferences(method, owner)) {
+            matches.append("Match: ").append(i++).append(' ').append(ref.getUsageClass()).append(' ')
+                    .append(ref.getUsageMethod()).append(' ').append(ref.getUsageLineNumber()).append(' ')
+                    .append(ref.getJarHashCode()).append('\n');
+        }
+        return matches.toString();
+    }
+
+    @POST
+    @Path("/query-product-versions")
+    @Consumes(MediaType.MULTIPART_FORM_DATA)
+    public String queryProductVersions(@FormDataParam("method") String method,
+                                       @FormDataParam("owner") String owner) {
+
+        StringBuilder productVersions = new StringBuilder();
+        for (Product product : UsageStoreFactory.getStore().findProductVersions(method, owner)) {
+            for (ProductVersion productVersion : product.getProductVersions()) {
+                productVersions.append(product.getProductName()).append(' ')
+                        .append(productVersion.getProductVersion()).append('\n');
+            }
+        }
+        return productVersions.toString();
     }
 
 
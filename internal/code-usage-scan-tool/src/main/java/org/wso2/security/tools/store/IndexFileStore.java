@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.security.tools.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.model.Jar;
+import org.wso2.security.tools.model.MethodReference;
+import org.wso2.security.tools.model.Product;
+import org.wso2.security.tools.model.ProductVersion;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * IndexFileStore - Storage backend that keeps the data in a directory of self-contained files, so that the tool can
+ * run without a database. The method references are buffered in memory, and the references of the jars recorded as
+ * indexed at once are written to a new memory mapped {@link IndexSegment}. The indexed jars and the jars of the
+ * product versions are kept in append-only files, which are loaded in memory when the store is initialized.
+ * <p>
+ * The segments are merged into one when the store is initialized and whenever there are more than
+ * {@value #MAX_SEGMENT_COUNT} of them, so that a lookup searches a few segments. A merged segment is named after the
+ * newest segment it contains, and the older segment files left behind by an interrupted merge are deleted when the
+ * store is initialized.
+ */
+public class IndexFileStore implements UsageStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexFileStore.class);
+
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_EXTENSION = ".idx";
+    private static final String MERGED_SEGMENT_SUFFIX = "-merged";
+    private static final int MAX_SEGMENT_COUNT = 8;
+    private static final String JARS_FILE = "jars.dat";
+    private static final String PRODUCT_JARS_FILE = "product-jars.dat";
+
+    private final Path directory;
+
+    // Segments sorted by name, which are replaced as a whole so that a lookup searches a consistent set.
+    private volatile List<IndexSegment> segments = Collections.emptyList();
+    private long lastSegmentTime;
+    private final Map<String, Jar> indexedJars = new ConcurrentHashMap<>();
+
+    // Product versions that ship each jar, by jar hash code.
+    private final Map<String, Set<ProductVersionKey>> productVersionsByJar = new ConcurrentHashMap<>();
+
+    // Call sites of the jars that are not recorded as indexed yet, by jar hash code, and the strings they refer to.
+    private final Map<String, CallSiteBuffer> pendingCallSites = new HashMap<>();
+    private final Map<String, Integer> pendingStringIds = new HashMap<>();
+    private final List<String> pendingStrings = new ArrayList<>();
+
+    public IndexFileStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized void initialize() throws ScanToolException {
+        try {
+            Files.createDirectories(directory);
+            List<Path> segmentFiles = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                    SEGMENT_FILE_PREFIX + "*" + SEGMENT_FILE_EXTENSION)) {
+                files.forEach(segmentFiles::add);
+            }
+            segmentFiles.sort(Comparator.comparing(IndexFileStore::getSegmentName)
+                    .thenComparing(IndexFileStore::isMergedSegment));
+            deleteMergedSegmentFiles(segmentFiles);
+            List<IndexSegment> openedSegments = new ArrayList<>();
+            for (Path segmentFile : segmentFiles) {
+                openedSegments.add(IndexSegment.open(segmentFile));
+            }
+            segments = Collections.unmodifiableList(openedSegments);
+            loadJars();
+            loadProductJars();
+            if (segments.size() > 1) {
+                mergeSegments();
+            }
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while loading the index directory: " + directory, e);
+        }
+        log.debug("Loaded " + segments.size() + " index segments and " + indexedJars.size() + " jars from "
+                + directory);
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> insertMethodReferences(List<MethodReference> methodReferences) {
+        for (MethodReference ref : methodReferences) {
+            pendingCallSites.computeIfAbsent(ref.getJarHashCode(), jarHashCode -> new CallSiteBuffer())
+                    .add(stringId(ref.getParentClass()), stringId(ref.getMethodName()), stringId(ref.getUsageClass()),
+                            stringId(ref.getUsageMethod()), ref.getUsageLineNumber(),
+                            stringId(ref.getJarHashCode()));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public synchronized void discardMethodReferences(Collection<Jar> jars) {
+        jars.forEach(jar -> pendingCallSites.remove(jar.getJarHashCode()));
+        clearPendingStrings();
+    }
+
+    @Override
+    public boolean isJarIndexed(String jarHashCode) {
+        return indexedJars.containsKey(jarHashCode);
+    }
+
+    @Override
+    public Map<String, Jar> findIndexedJars() {
+        return new HashMap<>(indexedJars);
+    }
+
+    @Override
+    public synchronized void insertIndexedJars(Collection<Jar> jars) throws ScanToolException {
+        try {
+            writeSegment(jars);
+            try (DataOutputStream out = openForAppend(JARS_FILE)) {
+                for (Jar jar : jars) {
+                    out.writeUTF(jar.getJarHashCode());
+                    out.writeUTF(jar.getJarName() == null ? "" : jar.getJarName());
+                    out.writeInt(jar.getNestedJarHashCodes().size());
+                    for (String nestedJarHashCode : jar.getNestedJarHashCodes()) {
+                        out.writeUTF(nestedJarHashCode);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while writing the index of the jars.", e);
+        }
+        jars.forEach(jar -> indexedJars.put(jar.getJarHashCode(), jar));
+        if (segments.size() > MAX_SEGMENT_COUNT) {
+            try {
+                mergeSegments();
+            } catch (IOException e) {
+
+                // The jars are indexed, and the segments are merged again with the next segment or at the next start.
+                log.warn("IOException was thrown while merging the index segments.", e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void insertProductJars(String productName, int productVersion, Collection<Jar> productJars)
+            throws ScanToolException {
+        try (DataOutputStream out = openForAppend(PRODUCT_JARS_FILE)) {
+            for (Jar jar : productJars) {
+                out.writeUTF(productName);
+                out.writeInt(productVersion);
+                out.writeUTF(jar.getJarHashCode());
+            }
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while writing the jars of the product version.", e);
+        }
+        productJars.forEach(jar -> linkProductVersion(jar.getJarHashCode(), productName, productVersion));
+    }
+
+    @Override
+    public List<MethodReference> findMethodReferences(String method, String owner) {
+        List<MethodReference> methodReferences = new ArrayList<>();
+        for (IndexSegment segment : segments) {
+            for (MethodReference methodReference : segment.find(method, owner)) {
+
+                // Leave out the references of a jar whose indexing run crashed before recording it as indexed.
+                if (indexedJars.containsKey(methodReference.getJarHashCode())) {
+                    methodReferences.add(methodReference);
+                }
+            }
+        }
+        return methodReferences;
+    }
+
+    /**
+     * Close the index segments.
+     */
+    public synchronized void close() {
+        List<IndexSegment> closedSegments = segments;
+        segments = Collections.emptyList();
+        closedSegments.forEach(IndexFileStore::closeQuietly);
+    }
+
+    @Override
+    public List<Product> findProductVersions(String method, String owner) {
+        Set<String> jarHashCodes = new LinkedHashSet<>();
+        findMethodReferences(method, owner).forEach(ref -> jarHashCodes.add(ref.getJarHashCode()));
+
+        Map<String, Product> products = new LinkedHashMap<>();
+        Set<ProductVersionKey> productVersions = new LinkedHashSet<>();
+        for (String jarHashCode : jarHashCodes) {
+            for (ProductVersionKey key : productVersionsByJar.getOrDefault(jarHashCode, new LinkedHashSet<>())) {
+                if (productVersions.add(key)) {
+                    products.computeIfAbsent(key.productName, Product::new).getProductVersions()
+                            .add(new ProductVersion(key.productVersion));
+                }
+            }
+        }
+        return new ArrayList<>(products.values());
+    }
+
+    /**
+     * Write the pending call sites of the given jars to a new index segment.
+     *
+     * @param jars jars
+     */
+    private void writeSegment(Collection<Jar> jars) throws IOException {
+        List<CallSiteBuffer> buffers = new ArrayList<>();
+        int callSiteCount = 0;
+        for (Jar jar : jars) {
+            CallSiteBuffer buffer = pendingCallSites.get(jar.getJarHashCode());
+            if (buffer != null) {
+                buffers.add(buffer);
+                callSiteCount += buffer.count;
+            }
+        }
+        if (callSiteCount > 0) {
+
+            // Give the strings used by the call sites of the segment ids of their own.
+            Map<Integer, Integer> segmentStringIds = new HashMap<>();
+            List<String> segmentStrings = new ArrayList<>();
+            int[] callSites = new int[callSiteCount * IndexSegment.CALL_SITE_SIZE];
+            int position = 0;
+            for (CallSiteBuffer buffer : buffers) {
+                for (int i = 0; i < buffer.count * IndexSegment.CALL_SITE_SIZE; i++) {
+                    int value = buffer.callSites[i];
+                    if (i % IndexSegment.CALL_SITE_SIZE != 4) {
+                        value = segmentStringIds.computeIfAbsent(value, id -> {
+                            segmentStrings.add(pendingStrings.get(id));
+                            return segmentStrings.size() - 1;
+                        });
+                    }
+                    callSites[position++] = value;
+                }
+            }
+            lastSegmentTime = Math.max(System.currentTimeMillis(), lastSegmentTime + 1);
+            Path segmentFile = directory.resolve(String.format("%s%013d-%04d%s", SEGMENT_FILE_PREFIX,
+                    lastSegmentTime, segments.size(), SEGMENT_FILE_EXTENSION));
+            IndexSegment.write(segmentFile, segmentStrings, callSites, callSiteCount);
+            List<IndexSegment> newSegments = new ArrayList<>(segments);
+            newSegments.add(IndexSegment.open(segmentFile));
+            segments = Collections.unmodifiableList(newSegments);
+            log.debug("Wrote " + callSiteCount + " method references to " + segmentFile);
+        }
+        jars.forEach(jar -> pendingCallSites.remove(jar.getJarHashCode()));
+        clearPendingStrings();
+    }
+
+    /**
+     * Drop the strings of the pending call sites once there are none left, so that the dictionary does not grow.
+     */
+    private void clearPendingStrings() {
+        if (pendingCallSites.isEmpty()) {
+            pendingStringIds.clear();
+            pendingStrings.clear();
+        }
+    }
+
+    /**
+     * Merge all the segments into one, named after the newest segment, and delete the merged segment files. The
+     * call sites of the jars that are not recorded as indexed are left out.
+     */
+    private void mergeSegments() throws IOException {
+        List<IndexSegment> mergedSegments = segments;
+        String newestSegmentName = getSegmentName(mergedSegments.get(mergedSegments.size() - 1).getFile());
+        Path mergedFile = directory.resolve(newestSegmentName + MERGED_SEGMENT_SUFFIX + SEGMENT_FILE_EXTENSION);
+        IndexSegment.merge(mergedFile, mergedSegments, indexedJars::containsKey);
+        segments = Collections.singletonList(IndexSegment.open(mergedFile));
+
+        // The lookups that are still reading the merged segments keep their mappings, which outlive the channels.
+        for (IndexSegment segment : mergedSegments) {
+            closeQuietly(segment);
+            if (!segment.getFile().equals(mergedFile)) {
+                Files.deleteIfExists(segment.getFile());
+            }
+        }
+        log.debug("Merged " + mergedSegments.size() + " index segments into " + mergedFile);
+    }
+
+    /**
+     * Delete the segment files that are contained in the newest merged segment, which are left behind when the store
+     * stopped in the middle of a merge.
+     *
+     * @param segmentFiles segment files sorted by name, from which the deleted files are removed
+     */
+    private static void deleteMergedSegmentFiles(List<Path> segmentFiles) throws IOException {
+        int mergedIndex = -1;
+        for (int i = 0; i < segmentFiles.size(); i++) {
+            if (isMergedSegment(segmentFiles.get(i))) {
+                mergedIndex = i;
+            }
+        }
+        for (int i = 0; i < mergedIndex; i++) {
+            Files.deleteIfExists(segmentFiles.get(i));
+            log.debug("Deleted the merged segment file " + segmentFiles.get(i));
+        }
+        if (mergedIndex > 0) {
+            segmentFiles.subList(0, mergedIndex).clear();
+        }
+    }
+
+    /**
+     * Get the name of a segment, which orders the segments by the time they were written.
+     *
+     * @param segmentFile segment file
+     * @return segment file name without the extension and the merged segment suffix
+     */
+    private static String getSegmentName(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        name = name.substring(0, name.length() - SEGMENT_FILE_EXTENSION.length());
+        return name.endsWith(MERGED_SEGMENT_SUFFIX) ? name.substring(0, name.length()
+                - MERGED_SEGMENT_SUFFIX.length()) : name;
+    }
+
+    private static boolean isMergedSegment(Path segmentFile) {
+        return segmentFile.getFileName().toString().endsWith(MERGED_SEGMENT_SUFFIX + SEGMENT_FILE_EXTENSION);
+    }
+
+    private static void closeQuietly(IndexSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            log.warn("Unable to close the index segment " + segment.getFile(), e);
+        }
+    }
+
+    private int stringId(String value) {
+        return pendingStringIds.computeIfAbsent(value, string -> {
+            pendingStrings.add(string);
+            return pendingStrings.size() - 1;
+        });
+    }
+
+    private void linkProductVersion(String jarHashCode, String productName, int productVersion) {
+        productVersionsByJar.computeIfAbsent(jarHashCode, hashCode -> ConcurrentHashMap.newKeySet())
+                .add(new ProductVersionKey(productName, productVersion));
+    }
+
+    private void loadJars() throws IOException {
+        loadRecords(JARS_FILE, in -> {
+            String jarHashCode = in.readUTF();
+            String jarName = in.readUTF();
+            Jar jar = new Jar(jarName.isEmpty() ? null : jarName, jarHashCode);
+            int nestedJarCount = in.readInt();
+            for (int i = 0; i < nestedJarCount; i++) {
+                jar.getNestedJarHashCodes().add(in.readUTF());
+            }
+            indexedJars.put(jarHashCode, jar);
+        });
+    }
+
+    private void loadProductJars() throws IOException {
+        loadRecords(PRODUCT_JARS_FILE, in -> {
+            String productName = in.readUTF();
+            int productVersion = in.readInt();
+            linkProductVersion(in.readUTF(), productName, productVersion);
+        });
+    }
+
+    /**
+     * Read the records of an append-only file. A record cut off at the end of the file, when the store stopped in the
+     * middle of an append, is ignored and truncated, so that the next records are appended after the complete ones.
+     *
+     * @param fileName     file name
+     * @param recordReader reader of a record, which only applies the record once it is read completely
+     */
+    private void loadRecords(String fileName, RecordReader recordReader) throws IOException {
+        Path file = directory.resolve(fileName);
+        if (!Files.exists(file)) {
+            return;
+        }
+        byte[] content = Files.readAllBytes(file);
+        ByteArrayInputStream bytes = new ByteArrayInputStream(content);
+        DataInputStream in = new DataInputStream(bytes);
+        int recordsLength = 0;
+        try {
+            while (bytes.available() > 0) {
+                recordsLength = content.length - bytes.available();
+                recordReader.read(in);
+            }
+        } catch (EOFException e) {
+            log.warn("Ignored the incomplete record at the end of " + file);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(recordsLength);
+            }
+        }
+    }
+
+    private DataOutputStream openForAppend(String fileName) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(directory.resolve(fileName),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+    }
+
+    /**
+     * Reader of a record of an append-only file.
+     */
+    @FunctionalInterface
+    private interface RecordReader {
+        void read(DataInputStream in) throws IOException;
+    }
+
+    /**
+     * Growable buffer of call sites, {@value IndexSegment#CALL_SITE_SIZE} ints each.
+     */
+    private static class CallSiteBuffer {
+
+        private int[] callSites = new int[16 * IndexSegment.CALL_SITE_SIZE];
+        private int count;
+
+        private void add(int ownerId, int methodId, int usageClassId, int usageMethodId, int lineNumber,
+                         int jarHashCodeId) {
+            if ((count + 1) * IndexSegment.CALL_SITE_SIZE > callSites.length) {
+                callSites = Arrays.copyOf(callSites, callSites.length * 2);
+            }
+            int position = count * IndexSegment.CALL_SITE_SIZE;
+            callSites[position] = ownerId;
+            callSites[position + 1] = methodId;
+            callSites[position + 2] = usageClassId;
+            callSites[position + 3] = usageMethodId;
+            callSites[position + 4] = lineNumber;
+            callSites[position + 5] = jarHashCodeId;
+            count++;
+        }
+    }
+
+    /**
+     * Product name and version that ship a jar.
+     */
+    private static final class ProductVersionKey {
+
+        private final String productName;
+        private final int productVersion;
+
+        private ProductVersionKey(String productName, int productVersion) {
+            this.productName = productName;
+            this.productVersion = productVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProductVersionKey)) {
+                return false;
+            }
+            ProductVersionKey other = (ProductVersionKey) o;
+            return productVersion == other.productVersion && productName.equals(other.productName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * productName.hashCode() + productVersion;
+        }
+    }
+}
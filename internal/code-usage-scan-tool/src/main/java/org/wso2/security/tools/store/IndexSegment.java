@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.security.tools.store;
+
+import org.wso2.security.tools.model.MethodReference;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+import java.util.function.Predicate;
+
+/**
+ * IndexSegment - An immutable index file of method references, which is memory mapped to be queried.
+ * <p>
+ * The file consists of a header, followed by these sections:
+ * <ul>
+ * <li>String dictionary: the offsets of the strings, followed by their UTF-8 bytes. The class names, method names and
+ * jar hash codes are stored once, sorted by their bytes, and referred to by their position.</li>
+ * <li>Sparse offset table: the owner class, method and position of every {@value #SPARSE_INTERVAL}th key.</li>
+ * <li>Keys: the owner class, method, first posting and posting count of each distinct method, sorted by the owner
+ * class and method.</li>
+ * <li>Postings: the usage class, usage method, line number and jar of each call site of the methods.</li>
+ * </ul>
+ * A lookup binary searches the dictionary for the owner class and method, then the sparse offset table, and scans at
+ * most {@value #SPARSE_INTERVAL} keys to find the postings of the method.
+ */
+public class IndexSegment implements AutoCloseable {
+
+    private static final int MAGIC = 0x43555349;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 7 * Integer.BYTES;
+    private static final int SPARSE_ENTRY_SIZE = 3 * Integer.BYTES;
+    private static final int KEY_SIZE = 4 * Integer.BYTES;
+    private static final int POSTING_SIZE = 4 * Integer.BYTES;
+    private static final int SPARSE_INTERVAL = 64;
+
+    // Number of ints of a call site in the buffers the segments are written from.
+    static final int CALL_SITE_SIZE = 6;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int stringCount;
+    private final int stringOffsetsStart;
+    private final int stringDataStart;
+    private final int sparseCount;
+    private final int sparseStart;
+    private final int keyCount;
+    private final int keysStart;
+    private final int postingsStart;
+    private final int callSiteCount;
+
+    private IndexSegment(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT_VERSION) {
+            channel.close();
+            throw new IOException("Invalid index segment: " + file);
+        }
+        stringCount = buffer.getInt(2 * Integer.BYTES);
+        int stringDataLength = buffer.getInt(3 * Integer.BYTES);
+        sparseCount = buffer.getInt(4 * Integer.BYTES);
+        keyCount = buffer.getInt(5 * Integer.BYTES);
+        callSiteCount = buffer.getInt(6 * Integer.BYTES);
+        stringOffsetsStart = HEADER_SIZE;
+        stringDataStart = stringOffsetsStart + (stringCount + 1) * Integer.BYTES;
+        sparseStart = stringDataStart + stringDataLength;
+        keysStart = sparseStart + sparseCount * SPARSE_ENTRY_SIZE;
+        postingsStart = keysStart + keyCount * KEY_SIZE;
+    }
+
+    /**
+     * Open an index segment.
+     *
+     * @param file index segment file
+     * @return index segment
+     * @throws IOException if the file could not be read or is not an index segment
+     */
+    public static IndexSegment open(Path file) throws IOException {
+        return new IndexSegment(file);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getCallSiteCount() {
+        return callSiteCount;
+    }
+
+    /**
+     * Find the references to a given method in the segment.
+     *
+     * @param method method name
+     * @param owner  owner class of the method
+     * @return method references, with the hash codes of their jars
+     */
+    public List<MethodReference> find(String method, String owner) {
+        int ownerId = findString(owner);
+        int methodId = ownerId < 0 ? -1 : findString(method);
+        if (methodId < 0) {
+            return Collections.emptyList();
+        }
+
+        // Find the last sparse entry that is not after the key, and scan the keys up to the next sparse entry.
+        int low = 0;
+        int high = sparseCount - 1;
+        int sparseIndex = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int position = sparseStart + middle * SPARSE_ENTRY_SIZE;
+            if (compareKey(buffer.getInt(position), buffer.getInt(position + Integer.BYTES), ownerId, methodId) <= 0) {
+                sparseIndex = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        if (sparseIndex < 0) {
+            return Collections.emptyList();
+        }
+        int firstKey = buffer.getInt(sparseStart + sparseIndex * SPARSE_ENTRY_SIZE + 2 * Integer.BYTES);
+        int lastKey = Math.min(firstKey + SPARSE_INTERVAL, keyCount);
+        for (int key = firstKey; key < lastKey; key++) {
+            int position = keysStart + key * KEY_SIZE;
+            int comparison = compareKey(buffer.getInt(position), buffer.getInt(position + Integer.BYTES), ownerId,
+                    methodId);
+            if (comparison == 0) {
+                return readPostings(method, owner, buffer.getInt(position + 2 * Integer.BYTES),
+                        buffer.getInt(position + 3 * Integer.BYTES));
+            } else if (comparison > 0) {
+                break;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private List<MethodReference> readPostings(String method, String owner, int firstPosting, int postingCount) {
+        List<MethodReference> methodReferences = new ArrayList<>(postingCount);
+        for (int posting = firstPosting; posting < firstPosting + postingCount; posting++) {
+            int position = postingsStart + posting * POSTING_SIZE;
+            MethodReference methodReference = new MethodReference(method, owner,
+                    stringAt(buffer.getInt(position + Integer.BYTES)), stringAt(buffer.getInt(position)),
+                    buffer.getInt(position + 2 * Integer.BYTES));
+            methodReference.setJarHashCode(stringAt(buffer.getInt(position + 3 * Integer.BYTES)));
+            methodReferences.add(methodReference);
+        }
+        return methodReferences;
+    }
+
+    private int findString(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = compareString(middle, bytes);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compareString(int id, byte[] bytes) {
+        int start = stringDataStart + buffer.getInt(stringOffsetsStart + id * Integer.BYTES);
+        int length = stringDataStart + buffer.getInt(stringOffsetsStart + (id + 1) * Integer.BYTES) - start;
+        for (int i = 0; i < Math.min(length, bytes.length); i++) {
+            int comparison = Integer.compare(buffer.get(start + i) & 0xff, bytes[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(length, bytes.length);
+    }
+
+    private String stringAt(int id) {
+        int start = stringDataStart + buffer.getInt(stringOffsetsStart + id * Integer.BYTES);
+        int end = stringDataStart + buffer.getInt(stringOffsetsStart + (id + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int compareKey(int ownerId, int methodId, int otherOwnerId, int otherMethodId) {
+        int comparison = Integer.compare(ownerId, otherOwnerId);
+        return comparison != 0 ? comparison : Integer.compare(methodId, otherMethodId);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Write an index segment.
+     *
+     * @param file          index segment file, which is replaced atomically once it is written
+     * @param strings       strings referred to by the call sites, by id
+     * @param callSites     call sites, as the ids of the owner class, method, usage class and usage method, the line
+     *                      number and the id of the jar hash code, {@value #CALL_SITE_SIZE} ints each
+     * @param callSiteCount number of call sites
+     * @throws IOException if the file could not be written
+     */
+    static void write(Path file, List<String> strings, int[] callSites, int callSiteCount) throws IOException {
+
+        // Sort the strings by their bytes, and remap the ids of the call sites to the sorted positions.
+        byte[][] stringBytes = new byte[strings.size()][];
+        Integer[] stringOrder = new Integer[strings.size()];
+        for (int id = 0; id < strings.size(); id++) {
+            stringBytes[id] = strings.get(id).getBytes(StandardCharsets.UTF_8);
+            stringOrder[id] = id;
+        }
+        Arrays.sort(stringOrder, (id, otherId) -> compareBytes(stringBytes[id], stringBytes[otherId]));
+        int[] sortedIds = new int[strings.size()];
+        int stringDataLength = 0;
+        for (int position = 0; position < stringOrder.length; position++) {
+            sortedIds[stringOrder[position]] = position;
+            stringDataLength += stringBytes[stringOrder[position]].length;
+        }
+        int[] sites = new int[callSiteCount * CALL_SITE_SIZE];
+        for (int i = 0; i < sites.length; i++) {
+            sites[i] = (i % CALL_SITE_SIZE) == 4 ? callSites[i] : sortedIds[callSites[i]];
+        }
+
+        // Sort the call sites by the owner class and method, followed by the usage class, method and line.
+        Integer[] siteOrder = new Integer[callSiteCount];
+        for (int i = 0; i < callSiteCount; i++) {
+            siteOrder[i] = i;
+        }
+        Comparator<Integer> bySite = (site, other) -> {
+            for (int field = 0; field < CALL_SITE_SIZE - 1; field++) {
+                int comparison = Integer.compare(sites[site * CALL_SITE_SIZE + field],
+                        sites[other * CALL_SITE_SIZE + field]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        };
+        Arrays.sort(siteOrder, bySite);
+
+        // Group the call sites into keys.
+        List<int[]> keys = new ArrayList<>();
+        for (int i = 0; i < callSiteCount; i++) {
+            int site = siteOrder[i] * CALL_SITE_SIZE;
+            int[] lastKey = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+            if (lastKey != null && lastKey[0] == sites[site] && lastKey[1] == sites[site + 1]) {
+                lastKey[3]++;
+            } else {
+                keys.add(new int[]{sites[site], sites[site + 1], i, 1});
+            }
+        }
+        int sparseCount = (keys.size() + SPARSE_INTERVAL - 1) / SPARSE_INTERVAL;
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(stringDataLength);
+            out.writeInt(sparseCount);
+            out.writeInt(keys.size());
+            out.writeInt(callSiteCount);
+            int offset = 0;
+            for (Integer id : stringOrder) {
+                out.writeInt(offset);
+                offset += stringBytes[id].length;
+            }
+            out.writeInt(offset);
+            for (Integer id : stringOrder) {
+                out.write(stringBytes[id]);
+            }
+            for (int key = 0; key < keys.size(); key += SPARSE_INTERVAL) {
+                out.writeInt(keys.get(key)[0]);
+                out.writeInt(keys.get(key)[1]);
+                out.writeInt(key);
+            }
+            for (int[] key : keys) {
+                for (int field : key) {
+                    out.writeInt(field);
+                }
+            }
+            for (int i = 0; i < callSiteCount; i++) {
+                int site = siteOrder[i] * CALL_SITE_SIZE;
+                out.writeInt(sites[site + 2]);
+                out.writeInt(sites[site + 3]);
+                out.writeInt(sites[site + 4]);
+                out.writeInt(sites[site + 5]);
+            }
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write the call sites of several index segments to a single index segment.
+     *
+     * @param file         index segment file, which is replaced atomically once it is written
+     * @param segments     index segments to merge
+     * @param isJarIndexed whether the call sites of a jar, given by its hash code, are kept
+     * @throws IOException if the file could not be written
+     */
+    static void merge(Path file, List<IndexSegment> segments, Predicate<String> isJarIndexed) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int maxCallSiteCount = 0;
+        for (IndexSegment segment : segments) {
+            maxCallSiteCount += segment.callSiteCount;
+        }
+        int[] callSites = new int[maxCallSiteCount * CALL_SITE_SIZE];
+        int callSiteCount = 0;
+        for (IndexSegment segment : segments) {
+
+            // Map the strings of the segment to the ids of the merged segment, as they are used.
+            int[] mergedIds = new int[segment.stringCount];
+            Arrays.fill(mergedIds, -1);
+            IntUnaryOperator mergedId = id -> {
+                if (mergedIds[id] < 0) {
+                    mergedIds[id] = stringIds.computeIfAbsent(segment.stringAt(id), string -> {
+                        strings.add(string);
+                        return strings.size() - 1;
+                    });
+                }
+                return mergedIds[id];
+            };
+            Map<Integer, Boolean> isJarKept = new HashMap<>();
+            ByteBuffer buffer = segment.buffer;
+            for (int key = 0; key < segment.keyCount; key++) {
+                int keyPosition = segment.keysStart + key * KEY_SIZE;
+                int firstPosting = buffer.getInt(keyPosition + 2 * Integer.BYTES);
+                int postingCount = buffer.getInt(keyPosition + 3 * Integer.BYTES);
+                for (int posting = firstPosting; posting < firstPosting + postingCount; posting++) {
+                    int postingPosition = segment.postingsStart + posting * POSTING_SIZE;
+                    int jarHashCodeId = buffer.getInt(postingPosition + 3 * Integer.BYTES);
+                    if (!isJarKept.computeIfAbsent(jarHashCodeId,
+                            id -> isJarIndexed.test(segment.stringAt(id)))) {
+                        continue;
+                    }
+                    int position = callSiteCount++ * CALL_SITE_SIZE;
+                    callSites[position] = mergedId.applyAsInt(buffer.getInt(keyPosition));
+                    callSites[position + 1] = mergedId.applyAsInt(buffer.getInt(keyPosition + Integer.BYTES));
+                    callSites[position + 2] = mergedId.applyAsInt(buffer.getInt(postingPosition));
+                    callSites[position + 3] = mergedId.applyAsInt(buffer.getInt(postingPosition + Integer.BYTES));
+                    callSites[position + 4] = buffer.getInt(postingPosition + 2 * Integer.BYTES);
+                    callSites[position + 5] = mergedId.applyAsInt(jarHashCodeId);
+                }
+            }
+        }
+        write(file, strings, callSites, callSiteCount);
+    }
+
+    private static int compareBytes(byte[] bytes, byte[] otherBytes) {
+        for (int i = 0; i < Math.min(bytes.length, otherBytes.length); i++) {
+            int comparison = Integer.compare(bytes[i] & 0xff, otherBytes[i] & 0xff);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(bytes.length, otherBytes.length);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.security.tools.store;
+
+import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.model.Jar;
+import org.wso2.security.tools.model.MethodReference;
+import org.wso2.security.tools.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * UsageStore - Storage backend of the method references, the indexed jars and the jars of the product versions.
+ */
+public interface UsageStore {
+
+    /**
+     * Prepare the store to be used, e.g. by creating its indexes.
+     *
+     * @throws ScanToolException if the store could not be initialized
+     */
+    void initialize() throws ScanToolException;
+
+    /**
+     * Insert method references into the store. The method references of a jar are visible to the queries once the
+     * jar is recorded as indexed.
+     *
+     * @param methodReferences method references
+     * @return future that completes once all the method references are written
+     */
+    CompletableFuture<Void> insertMethodReferences(List<MethodReference> methodReferences);
+
+    /**
+     * Discard the method references of jars that are not recorded as indexed, e.g. the references inserted by an
+     * indexing run that failed before the jars were recorded.
+     *
+     * @param jars jars that are not indexed
+     */
+    void discardMethodReferences(Collection<Jar> jars);
+
+    /**
+     * Check whether the method references of a jar are already in the store.
+     *
+     * @param jarHashCode hash code of the jar
+     * @return true if the jar is indexed
+     */
+    boolean isJarIndexed(String jarHashCode);
+
+    /**
+     * Get the jars whose method references are already in the store.
+     *
+     * @return indexed jars, with the hash codes of the jars nested in them, by hash code
+     */
+    Map<String, Jar> findIndexedJars();
+
+    /**
+     * Record jars as indexed, once all their method references are inserted into the store.
+     *
+     * @param indexedJars jars
+     * @throws ScanToolException if the jars could not be recorded
+     */
+    void insertIndexedJars(Collection<Jar> indexedJars) throws ScanToolException;
+
+    /**
+     * Link a product version to the jars shipped in it.
+     *
+     * @param productName    product name
+     * @param productVersion product version
+     * @param productJars    jars of the product version
+     * @throws ScanToolException if the jars could not be linked
+     */
+    void insertProductJars(String productName, int productVersion, Collection<Jar> productJars)
+            throws ScanToolException;
+
+    /**
+     * Find the references to a given method.
+     *
+     * @param method method name
+     * @param owner  owner class of the method
+     * @return method references
+     */
+    List<MethodReference> findMethodReferences(String method, String owner);
+
+    /**
+     * Find the products and the product versions that use a given method.
+     *
+     * @param method method name
+     * @param owner  owner class of the method
+     * @return products with the versions that use the method
+     */
+    List<Product> findProductVersions(String method, String owner);
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.security.tools.store;
+
+import org.wso2.security.tools.util.Constants;
+import org.wso2.security.tools.util.DatabaseUtils;
+
+import java.nio.file.Paths;
+
+/**
+ * UsageStoreFactory - Creates the storage backend selected by the usage.store system property. The MongoDB backend
+ * is used by default, and the index file backend stores the data in the directory given by the usage.index.dir
+ * system property.
+ */
+public class UsageStoreFactory {
+
+    private static volatile UsageStore usageStore;
+
+    private UsageStoreFactory() {
+    }
+
+    public static UsageStore getStore() {
+        if (usageStore == null) {
+            synchronized (UsageStoreFactory.class) {
+                if (usageStore == null) {
+                    String storeType = System.getProperty(Constants.USAGE_STORE_PROPERTY, Constants.MONGO_USAGE_STORE);
+                    if (Constants.FILE_USAGE_STORE.equalsIgnoreCase(storeType)) {
+                        IndexFileStore indexFileStore = new IndexFileStore(Paths.get(System.getProperty(
+                                Constants.INDEX_DIRECTORY_PROPERTY, Constants.DEFAULT_INDEX_DIRECTORY)));
+                        Runtime.getRuntime().addShutdownHook(new Thread(indexFileStore::close,
+                                "IndexFileStoreShutdown"));
+                        usageStore = indexFileStore;
+                    } else {
+                        usageStore = new DatabaseUtils();
+                    }
+                }
+            }
+        }
+        return usageStore;
+    }
+}
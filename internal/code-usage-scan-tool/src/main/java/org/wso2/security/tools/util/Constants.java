@@ -25,4 +25,15 @@ public class Constants {
     public static final String HOST = "localhost";
     public static final int PORT = 27017;
     public static final String OUTPUT_DATA_FILE = "results";
+    public static final String CLASS_FILE_EXTENSION = ".class";
+    public static final String[] ARCHIVE_FILE_EXTENSIONS = {".jar", ".war", ".car"};
+    public static final String JAR_HASH_ALGORITHM = "SHA-256";
+    public static final String DB_WRITE_BATCH_SIZE_PROPERTY = "db.write.batch.size";
+    public static final int DEFAULT_DB_WRITE_BATCH_SIZE = 1000;
+    public static final int DB_WRITER_THREAD_COUNT = 4;
+    public static final String USAGE_STORE_PROPERTY = "usage.store";
+    public static final String MONGO_USAGE_STORE = "mongo";
+    public static final String FILE_USAGE_STORE = "file";
+    public static final String INDEX_DIRECTORY_PROPERTY = "usage.index.dir";
+    public static final String DEFAULT_INDEX_DIRECTORY = "usage-index";
 }
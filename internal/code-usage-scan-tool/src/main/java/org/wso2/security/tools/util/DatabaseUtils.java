@@ -22,25 +22,62 @@ import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
+import com.mongodb.InsertOptions;
 import com.mongodb.MongoClient;
 import com.mongodb.MongoCredential;
 import com.mongodb.ServerAddress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.security.tools.model.Jar;
 import org.wso2.security.tools.model.MethodReference;
+import org.wso2.security.tools.model.Product;
+import org.wso2.security.tools.model.ProductVersion;
+import org.wso2.security.tools.store.UsageStore;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * DatabaseUtils - Handles all the database  related functionality.
+ * DatabaseUtils - Handles all the database  related functionality. A single pooled client is shared by all the
+ * operations, and the method references are written in unordered batches on writer threads of their own, so that
+ * the scanning threads do not wait for the database.
  */
-public class DatabaseUtils {
+public class DatabaseUtils implements UsageStore {
 
     private static final Logger log = LoggerFactory.getLogger(DatabaseUtils.class);
     private static final String USERNAME = "mgdb";
     private static final String PASSWORD = "1234";
 
+    // Number of method references written to the database in a single batch.
+    private static final int WRITE_BATCH_SIZE = Integer.getInteger(Constants.DB_WRITE_BATCH_SIZE_PROPERTY,
+            Constants.DEFAULT_DB_WRITE_BATCH_SIZE);
+
+    private static volatile MongoClient mongoClient;
+
+    private static final ExecutorService writeExecutor = Executors.newFixedThreadPool(Constants.DB_WRITER_THREAD_COUNT,
+            new ThreadFactory() {
+                private final AtomicInteger threadCount = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "DatabaseWriter-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
     private static MongoClient getMongoClient_1() {
         MongoClient mongoClient = new MongoClient(Constants.HOST, Constants.PORT);
         return mongoClient;
@@ -55,12 +92,36 @@ public class DatabaseUtils {
     }
 
     public static MongoClient getMongoClient() {
-        return getMongoClient_1();
-        // You can replace by getMongoClient_2 ()
-        // In case of connection to MongoDB need security.
+        if (mongoClient == null) {
+            synchronized (DatabaseUtils.class) {
+                if (mongoClient == null) {
+                    MongoClient client = getMongoClient_1();
+                    // You can replace by getMongoClient_2 ()
+                    // In case of connection to MongoDB need security.
+                    Runtime.getRuntime().addShutdownHook(new Thread(client::close, "MongoClientShutdown"));
+                    mongoClient = client;
+                }
+            }
+        }
+        return mongoClient;
+    }
+
+    /**
+     * Create the indexes of the collections, if they do not exist. The method references are looked up by their
+     * owner class and method name, and deleted by their jar hash codes, and the jars are looked up by their hash codes.
+     */
+    @Override
+    public void initialize() {
+        DB db = getMongoClient().getDB(Constants.DB_NAME);
+        db.getCollection("Usages").createIndex(new BasicDBObject("owner_class", 1).append("method_name", 1));
+        db.getCollection("Usages").createIndex(new BasicDBObject("jar_hash", 1));
+        db.getCollection("Jars").createIndex(new BasicDBObject("jar_hash", 1));
+        db.getCollection("ProductJars").createIndex(new BasicDBObject("jar_hash", 1));
+        log.debug("Database indexes are created");
     }
 
-    public void find(String productName, int version, String method, String owner) {
+    @Override
+    public List<MethodReference> findMethodReferences(String method, String owner) {
 
         // To connect to mongodb server
         MongoClient mongoClient = DatabaseUtils.getMongoClient();
@@ -71,17 +132,29 @@ public class DatabaseUtils {
         DBObject where = getWhereClause_1(method, owner);
 
         // Query to get the method usages
-        DBCursor cursor = dept.find(where);
-        int i = 1;
-        while (cursor.hasNext()) {
-            System.out.println("Match: " + i);
-            System.out.println(cursor.next());
-            i++;
+        List<MethodReference> methodReferences = new ArrayList<>();
+        try (DBCursor cursor = dept.find(where)) {
+            while (cursor.hasNext()) {
+                DBObject usage = cursor.next();
+                MethodReference methodReference = new MethodReference((String) usage.get("method_name"),
+                        (String) usage.get("owner_class"), (String) usage.get("usage_method"),
+                        (String) usage.get("usage_class"), (Integer) usage.get("line_number"));
+                methodReference.setJarHashCode((String) usage.get("jar_hash"));
+                methodReferences.add(methodReference);
+            }
         }
         log.debug("Querying successful");
+        return methodReferences;
     }
 
-    public void insertIntoDatabase(ArrayList<MethodReference> methodReferences) {
+    /**
+     * Insert method references into the database. The references are written asynchronously in unordered batches.
+     *
+     * @param methodReferences method references
+     * @return future that completes once all the method references are written
+     */
+    @Override
+    public CompletableFuture<Void> insertMethodReferences(List<MethodReference> methodReferences) {
 
         // To connect to mongodb server
         MongoClient mongoClient = DatabaseUtils.getMongoClient();
@@ -93,6 +166,17 @@ public class DatabaseUtils {
         // Not necessarily this 'Collection' must exist in the DB.
         DBCollection usages = db.getCollection("Usages");
 
+        List<CompletableFuture<Void>> batchWrites = new ArrayList<>();
+        for (int from = 0; from < methodReferences.size(); from += WRITE_BATCH_SIZE) {
+            List<MethodReference> batch = methodReferences.subList(from,
+                    Math.min(from + WRITE_BATCH_SIZE, methodReferences.size()));
+            batchWrites.add(CompletableFuture.runAsync(() -> insertBatch(usages, batch), writeExecutor));
+        }
+        return CompletableFuture.allOf(batchWrites.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private static void insertBatch(DBCollection usages, List<MethodReference> methodReferences) {
+        List<DBObject> objs = new ArrayList<>(methodReferences.size());
         for (MethodReference ref : methodReferences) {
             BasicDBObject obj = new BasicDBObject();
             obj.append("method_name", ref.getMethodName());
@@ -100,9 +184,166 @@ public class DatabaseUtils {
             obj.append("usage_class", ref.getUsageClass());
             obj.append("usage_method", ref.getUsageMethod());
             obj.append("line_number", ref.getUsageLineNumber());
-            usages.insert(obj);
+            if (ref.getJarHashCode() != null) {
+                obj.append("jar_hash", ref.getJarHashCode());
+            }
+            objs.add(obj);
+        }
+        usages.insert(objs, new InsertOptions().continueOnError(true));
+    }
+
+    /**
+     * Delete the method references of jars that are not recorded as indexed.
+     *
+     * @param jars jars that are not indexed
+     */
+    @Override
+    public void discardMethodReferences(Collection<Jar> jars) {
+        if (jars.isEmpty()) {
+            return;
         }
 
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        List<String> jarHashCodes = new ArrayList<>(jars.size());
+        jars.forEach(jar -> jarHashCodes.add(jar.getJarHashCode()));
+        db.getCollection("Usages").remove(new BasicDBObject("jar_hash", new BasicDBObject("$in", jarHashCodes)));
+    }
+
+    /**
+     * Check whether the method references of a jar are already in the database.
+     *
+     * @param jarHashCode hash code of the jar
+     * @return true if the jar is indexed
+     */
+    @Override
+    public boolean isJarIndexed(String jarHashCode) {
+
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        return db.getCollection("Jars").findOne(new BasicDBObject("jar_hash", jarHashCode)) != null;
+    }
+
+    /**
+     * Get the jars whose method references are already in the database.
+     *
+     * @return indexed jars, with the hash codes of the jars nested in them, by hash code
+     */
+    @Override
+    public Map<String, Jar> findIndexedJars() {
+
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        DBCollection jars = db.getCollection("Jars");
+
+        Map<String, Jar> indexedJars = new HashMap<>();
+        try (DBCursor cursor = jars.find()) {
+            while (cursor.hasNext()) {
+                DBObject obj = cursor.next();
+                Jar jar = new Jar((String) obj.get("jar_name"), (String) obj.get("jar_hash"));
+                Object nestedJars = obj.get("nested_jar_hashes");
+                if (nestedJars instanceof List) {
+                    for (Object nestedJarHashCode : (List<?>) nestedJars) {
+                        jar.getNestedJarHashCodes().add((String) nestedJarHashCode);
+                    }
+                }
+                indexedJars.put(jar.getJarHashCode(), jar);
+            }
+        }
+        return indexedJars;
+    }
+
+    /**
+     * Record jars as indexed, once all their method references are inserted into the database.
+     *
+     * @param indexedJars jars
+     */
+    @Override
+    public void insertIndexedJars(Collection<Jar> indexedJars) {
+
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        DBCollection jars = db.getCollection("Jars");
+
+        for (Jar jar : indexedJars) {
+            BasicDBObject obj = new BasicDBObject();
+            obj.append("jar_name", jar.getJarName());
+            obj.append("jar_hash", jar.getJarHashCode());
+            obj.append("nested_jar_hashes", jar.getNestedJarHashCodes());
+            jars.update(new BasicDBObject("jar_hash", jar.getJarHashCode()), obj, true, false);
+        }
+    }
+
+    /**
+     * Link a product version to the jars shipped in it. The method references of the jars are shared by all the
+     * product versions that ship the same jars.
+     *
+     * @param productName    product name
+     * @param productVersion product version
+     * @param productJars    jars of the product version
+     */
+    @Override
+    public void insertProductJars(String productName, int productVersion, Collection<Jar> productJars) {
+
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        DBCollection jars = db.getCollection("ProductJars");
+
+        for (Jar jar : productJars) {
+            BasicDBObject obj = new BasicDBObject();
+            obj.append("product_name", productName);
+            obj.append("product_version", productVersion);
+            obj.append("jar_name", jar.getJarName());
+            obj.append("jar_hash", jar.getJarHashCode());
+            jars.update(obj, obj, true, false);
+        }
+    }
+
+    /**
+     * Find the products and the product versions that use a given method.
+     *
+     * @param method method name
+     * @param owner  owner class of the method
+     * @return products with the versions that use the method
+     */
+    @Override
+    public List<Product> findProductVersions(String method, String owner) {
+
+        // To connect to mongodb server
+        MongoClient mongoClient = DatabaseUtils.getMongoClient();
+
+        DB db = mongoClient.getDB(Constants.DB_NAME);
+        DBCollection usages = db.getCollection("Usages");
+        DBCollection productJars = db.getCollection("ProductJars");
+        List<?> jarHashCodes = usages.distinct("jar_hash", getWhereClause_1(method, owner));
+
+        DBObject where = new BasicDBObject("jar_hash", new BasicDBObject("$in", jarHashCodes));
+        DBObject fields = new BasicDBObject("product_name", 1).append("product_version", 1);
+
+        Map<String, Product> products = new LinkedHashMap<>();
+        Set<String> productVersions = new HashSet<>();
+        try (DBCursor cursor = productJars.find(where, fields)) {
+            while (cursor.hasNext()) {
+                DBObject productJar = cursor.next();
+                String productName = (String) productJar.get("product_name");
+                int productVersion = (Integer) productJar.get("product_version");
+                if (productVersions.add(productName + ":" + productVersion)) {
+                    products.computeIfAbsent(productName, Product::new).getProductVersions()
+                            .add(new ProductVersion(productVersion));
+                }
+            }
+        }
+        return new ArrayList<>(products.values());
     }
 
     private static DBObject getWhereClause_1(String methodName, String className) {
@@ -111,7 +352,7 @@ public class DatabaseUtils {
         whereBuilder.append("method_name", methodName);
         whereBuilder.append("owner_class", className);
         DBObject where = whereBuilder.get();
-        System.out.println(where.toString());
+        log.debug("Querying the usages with the clause " + where);
         return where;
     }
 }
@@ -20,55 +20,233 @@ import org.objectweb.asm.ClassReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.model.Jar;
 import org.wso2.security.tools.model.MethodReference;
+import org.wso2.security.tools.store.UsageStore;
+import org.wso2.security.tools.store.UsageStoreFactory;
 import org.wso2.security.tools.visitor.ClassVisitorImpl;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
 
 /**
  * JarScanner - Scans the jar files provided by the user and populates the database with the method references inside
- * the class files.
+ * the class files. The class files of a jar are parsed in parallel on a fork-join pool shared by all the scanners, so
+ * that several jars can be scanned at once.
  */
 public class JarScanner {
 
     private static final Logger log = LoggerFactory.getLogger(JarScanner.class);
+
+    // Maximum number of class files parsed by a single task before it is split.
+    private static final int CLASS_BATCH_SIZE = 32;
+
+    private static final ForkJoinPool scanPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     private String dataFilePath;
     private String product;
     private int version;
 
-    public static ArrayList<MethodReference> methodReferences;
-
     public JarScanner(String dataFilePath, String product, int version) {
         this.dataFilePath = dataFilePath;
         this.product = product;
         this.version = version;
     }
 
+    /**
+     * Scan the jar and link it to the product version. The class files of the jar are parsed only if a jar with the
+     * same content is not indexed already.
+     *
+     * @throws ScanToolException if the jar could not be read
+     */
     public void scan() throws ScanToolException {
+        Jar jar;
+        try {
+            jar = new Jar(new File(dataFilePath).getName(), hashOf(dataFilePath));
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while reading the jar file.", e);
+        }
+        UsageStore usageStore = UsageStoreFactory.getStore();
+        if (usageStore.isJarIndexed(jar.getJarHashCode())) {
+            log.debug("Skipped scanning the jar " + jar.getJarName() + " since it is already indexed");
+        } else {
+            ArrayList<MethodReference> methodReferences = findMethodReferences();
+            setJar(methodReferences, jar);
+            boolean isIndexed = false;
+            try {
 
-        try (JarFile jarFile = new JarFile(dataFilePath)) {
-            Enumeration<JarEntry> entries = jarFile.entries();
-            while (entries.hasMoreElements()) {
-                methodReferences = new ArrayList<>();
-                JarEntry entry = entries.nextElement();
-                if (entry.getName().endsWith(".class")) {
-                    InputStream stream = new BufferedInputStream(jarFile.getInputStream(entry), 1024);
-                    ClassReader reader = new ClassReader(stream);
-                    ClassVisitorImpl cv = new ClassVisitorImpl();
-                    reader.accept(cv, 0);
-                    stream.close();
+                // Drop the method references left over by a run that crashed before recording the jar as indexed.
+                usageStore.discardMethodReferences(Collections.singletonList(jar));
+                usageStore.insertMethodReferences(methodReferences).join();
+                usageStore.insertIndexedJars(Collections.singletonList(jar));
+                isIndexed = true;
+            } catch (CompletionException e) {
+                throw new ScanToolException("Error occurred while inserting the method references of the jar.",
+                        e.getCause());
+            } finally {
+                if (!isIndexed) {
+                    usageStore.discardMethodReferences(Collections.singletonList(jar));
                 }
             }
-            new DatabaseUtils().insertIntoDatabase(methodReferences);
-        } catch (IOException e) {
-          throw new ScanToolException("IOException was thrown while scanning the jar file.", e);
         }
+        usageStore.insertProductJars(product, version, Collections.singletonList(jar));
         log.debug("Successful");
     }
+
+    /**
+     * Find the method references inside the class files of the jar.
+     *
+     * @return method references of the jar
+     * @throws ScanToolException if the jar could not be read
+     */
+    public ArrayList<MethodReference> findMethodReferences() throws ScanToolException {
+        try (JarFile jarFile = new JarFile(dataFilePath)) {
+            List<JarEntry> classEntries = Collections.list(jarFile.entries()).stream()
+                    .filter(entry -> entry.getName().endsWith(Constants.CLASS_FILE_EXTENSION))
+                    .collect(Collectors.toList());
+            return scanPool.invoke(new ClassScanTask<>(classEntries, entry -> {
+                try (InputStream stream = new BufferedInputStream(jarFile.getInputStream(entry), 1024)) {
+                    return new ClassReader(stream);
+                }
+            }));
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while scanning the jar file.", e);
+        } catch (UncheckedIOException e) {
+            throw new ScanToolException("IOException was thrown while scanning the jar file.", e.getCause());
+        }
+    }
+
+    /**
+     * Submit the class files of a jar loaded in memory to be scanned on the scan pool. The method references of the
+     * class files are inserted into the usage store once they are scanned, without holding up the scan pool.
+     *
+     * @param classFiles   content of the class files
+     * @param jar          jar that contains the class files
+     * @param onCompletion action to run once the method references are written, whether it succeeded or not
+     * @return future that completes once the method references are written
+     */
+    static CompletableFuture<Void> submit(List<byte[]> classFiles, Jar jar, Runnable onCompletion) {
+        CompletableFuture<Void> written = CompletableFuture.supplyAsync(() -> {
+            ArrayList<MethodReference> methodReferences = new ClassScanTask<>(classFiles, ClassReader::new).compute();
+            setJar(methodReferences, jar);
+            return methodReferences;
+        }, scanPool).thenCompose(methodReferences ->
+                UsageStoreFactory.getStore().insertMethodReferences(methodReferences));
+        written.whenComplete((result, e) -> onCompletion.run());
+        return written;
+    }
+
+    /**
+     * Record the jar that the method references were found in. The product versions are linked to the jar, so that
+     * the method references of a jar are shared by all the product versions that ship it.
+     *
+     * @param methodReferences method references
+     * @param jar              jar that contains the class files of the method references
+     */
+    private static void setJar(List<MethodReference> methodReferences, Jar jar) {
+        for (MethodReference methodReference : methodReferences) {
+            methodReference.setJarHashCode(jar.getJarHashCode());
+        }
+    }
+
+    /**
+     * Get the message digest that is used as the hash code of the jars.
+     *
+     * @return message digest
+     */
+    static MessageDigest newJarDigest() {
+        try {
+            return MessageDigest.getInstance(Constants.JAR_HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Jar hash algorithm is not supported: " + Constants.JAR_HASH_ALGORITHM,
+                    e);
+        }
+    }
+
+    static String toHashCode(byte[] digest) {
+        return String.format("%0" + (digest.length * 2) + "x", new BigInteger(1, digest));
+    }
+
+    private static String hashOf(String filePath) throws IOException {
+        MessageDigest digest = newJarDigest();
+        try (InputStream stream = new DigestInputStream(Files.newInputStream(Paths.get(filePath)), digest)) {
+            byte[] buffer = new byte[8192];
+            while (stream.read(buffer) != -1) {
+                // Read the whole file through the digest.
+            }
+        }
+        return toHashCode(digest.digest());
+    }
+
+    /**
+     * Reader of a class file from its source.
+     *
+     * @param <T> type of the source of the class file
+     */
+    @FunctionalInterface
+    private interface ClassFileReader<T> {
+        ClassReader read(T source) throws IOException;
+    }
+
+    /**
+     * Task to parse a range of class files. Each task collects the method references into a buffer of its own, and
+     * the buffers are merged as the subtasks are joined.
+     *
+     * @param <T> type of the sources of the class files
+     */
+    private static class ClassScanTask<T> extends RecursiveTask<ArrayList<MethodReference>> {
+
+        private final List<T> classFiles;
+        private final ClassFileReader<T> classFileReader;
+
+        private ClassScanTask(List<T> classFiles, ClassFileReader<T> classFileReader) {
+            this.classFiles = classFiles;
+            this.classFileReader = classFileReader;
+        }
+
+        @Override
+        protected ArrayList<MethodReference> compute() {
+            if (classFiles.size() > CLASS_BATCH_SIZE) {
+                int middle = classFiles.size() / 2;
+                ClassScanTask<T> right = new ClassScanTask<>(classFiles.subList(middle, classFiles.size()),
+                        classFileReader);
+                right.fork();
+                ArrayList<MethodReference> methodReferences =
+                        new ClassScanTask<>(classFiles.subList(0, middle), classFileReader).compute();
+                methodReferences.addAll(right.join());
+                return methodReferences;
+            }
+            ArrayList<MethodReference> methodReferences = new ArrayList<>();
+            for (T classFile : classFiles) {
+                try {
+                    ClassReader reader = classFileReader.read(classFile);
+
+                    // Debug information is kept, since the line numbers of the method references are recorded.
+                    reader.accept(new ClassVisitorImpl(methodReferences), ClassReader.SKIP_FRAMES);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return methodReferences;
+        }
+    }
 }
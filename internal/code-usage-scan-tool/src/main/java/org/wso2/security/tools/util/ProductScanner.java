@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.security.tools.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.model.Jar;
+import org.wso2.security.tools.model.Product;
+import org.wso2.security.tools.model.ProductVersion;
+import org.wso2.security.tools.store.UsageStore;
+import org.wso2.security.tools.store.UsageStoreFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * ProductScanner - Scans a product distribution and populates the database with the method references inside the
+ * class files of the jars shipped in it. The distribution is traversed as a stream, and the archives nested in it,
+ * such as the jars inside .war and .car files, are read in memory without extracting them to the disk.
+ * <p>
+ * Jars are identified by the hash code of their content. A jar that is shipped more than once in the distribution,
+ * or that is already indexed from another distribution, is not scanned again, and the product version is linked to
+ * its existing method references instead.
+ */
+public class ProductScanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductScanner.class);
+
+    // Maximum number of archives held in memory while their class files are scanned.
+    private static final int MAX_PENDING_ARCHIVES = Runtime.getRuntime().availableProcessors() * 2;
+
+    private String distributionFilePath;
+    private String product;
+    private int version;
+
+    private final UsageStore usageStore = UsageStoreFactory.getStore();
+
+    // Jars that are already indexed, by hash code.
+    private Map<String, Jar> indexedJars;
+
+    // Jars of the distribution, by hash code.
+    private final Map<String, Jar> jarsByHashCode = new LinkedHashMap<>();
+
+    // Jars of the distribution that are scanned in this run.
+    private final List<Jar> scannedJars = new ArrayList<>();
+
+    private final List<CompletableFuture<Void>> pendingScans = new ArrayList<>();
+    private final Semaphore pendingArchives = new Semaphore(MAX_PENDING_ARCHIVES);
+
+    public ProductScanner(String distributionFilePath, String product, int version) {
+        this.distributionFilePath = distributionFilePath;
+        this.product = product;
+        this.version = version;
+    }
+
+    /**
+     * Scan the product distribution.
+     *
+     * @return the product, with the version that contains the distinct jars of the distribution
+     * @throws ScanToolException if the distribution could not be read or scanned
+     */
+    public Product scan() throws ScanToolException {
+        indexedJars = usageStore.findIndexedJars();
+        boolean isIndexed = false;
+        try (ZipInputStream distribution = new ZipInputStream(Files.newInputStream(Paths.get(distributionFilePath)))) {
+            traverse(distribution, null);
+            CompletableFuture.allOf(pendingScans.toArray(new CompletableFuture<?>[0])).join();
+
+            // The jars are recorded as indexed only once all their method references are inserted.
+            usageStore.insertIndexedJars(scannedJars);
+            isIndexed = true;
+        } catch (IOException e) {
+            throw new ScanToolException("IOException was thrown while scanning the product distribution.", e);
+        } catch (UncheckedIOException e) {
+            throw new ScanToolException("IOException was thrown while scanning the product distribution.",
+                    e.getCause());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw new ScanToolException("IOException was thrown while scanning the product distribution.",
+                        e.getCause().getCause());
+            }
+            throw new ScanToolException("Error occurred while indexing the product distribution.", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanToolException("Interrupted while scanning the product distribution.", e);
+        } finally {
+            pendingScans.forEach(pendingScan -> pendingScan.cancel(true));
+            if (!isIndexed) {
+
+                // Drop the method references of a failed run, so that a retry does not insert them a second time.
+                usageStore.discardMethodReferences(scannedJars);
+            }
+        }
+        usageStore.insertProductJars(product, version, jarsByHashCode.values());
+
+        ProductVersion productVersion = new ProductVersion(version);
+        productVersion.getJars().addAll(jarsByHashCode.values());
+        Product scannedProduct = new Product(product);
+        scannedProduct.getProductVersions().add(productVersion);
+        log.debug("Scanned " + scannedJars.size() + " of the " + jarsByHashCode.size() + " distinct jars of "
+                + product + " " + version);
+        return scannedProduct;
+    }
+
+    /**
+     * Traverse the entries of an archive. The class files of the archive are submitted to be scanned as the jar, and
+     * the nested archives are traversed recursively unless they are already indexed.
+     *
+     * @param archive archive stream
+     * @param jar     jar of the class files of the archive, or null if the class files are not scanned
+     */
+    private void traverse(ZipInputStream archive, Jar jar) throws IOException, InterruptedException {
+        List<byte[]> classFiles = new ArrayList<>();
+        ZipEntry entry;
+        while ((entry = archive.getNextEntry()) != null) {
+            if (entry.isDirectory()) {
+                continue;
+            }
+            String entryName = entry.getName();
+            if (jar != null && entryName.endsWith(Constants.CLASS_FILE_EXTENSION)) {
+                classFiles.add(readFully(archive, null));
+            } else if (isArchive(entryName)) {
+                MessageDigest digest = JarScanner.newJarDigest();
+                byte[] content = readFully(archive, digest);
+                Jar nestedJar = new Jar(getFileName(entryName), JarScanner.toHashCode(digest.digest()));
+                if (jar != null) {
+                    jar.getNestedJarHashCodes().add(nestedJar.getJarHashCode());
+                }
+                if (jarsByHashCode.containsKey(nestedJar.getJarHashCode())) {
+                    log.debug("Skipped the duplicate jar " + entryName);
+                } else if (indexedJars.containsKey(nestedJar.getJarHashCode())) {
+                    log.debug("Skipped the indexed jar " + entryName);
+                    addIndexedJar(nestedJar);
+                } else {
+                    jarsByHashCode.put(nestedJar.getJarHashCode(), nestedJar);
+                    scannedJars.add(nestedJar);
+
+                    // Drop the method references left over by a run that crashed before recording the jar as indexed.
+                    usageStore.discardMethodReferences(Collections.singletonList(nestedJar));
+                    try (ZipInputStream nestedArchive = new ZipInputStream(new ByteArrayInputStream(content))) {
+                        traverse(nestedArchive, nestedJar);
+                    }
+                }
+            }
+        }
+        if (!classFiles.isEmpty()) {
+            submit(classFiles, jar);
+        }
+    }
+
+    /**
+     * Add an indexed jar and the jars nested in it to the jars of the distribution, without reading them.
+     *
+     * @param jar indexed jar
+     */
+    private void addIndexedJar(Jar jar) {
+        jarsByHashCode.put(jar.getJarHashCode(), jar);
+        for (String nestedJarHashCode : indexedJars.get(jar.getJarHashCode()).getNestedJarHashCodes()) {
+            jar.getNestedJarHashCodes().add(nestedJarHashCode);
+            Jar nestedJar = indexedJars.get(nestedJarHashCode);
+            if (nestedJar != null && !jarsByHashCode.containsKey(nestedJarHashCode)) {
+                addIndexedJar(new Jar(nestedJar.getJarName(), nestedJarHashCode));
+            }
+        }
+    }
+
+    private void submit(List<byte[]> classFiles, Jar jar) throws InterruptedException {
+        pendingArchives.acquire();
+        try {
+            pendingScans.add(JarScanner.submit(classFiles, jar, pendingArchives::release));
+        } catch (RuntimeException e) {
+            pendingArchives.release();
+            throw e;
+        }
+    }
+
+    private static String getFileName(String entryName) {
+        return entryName.substring(entryName.lastIndexOf('/') + 1);
+    }
+
+    private static boolean isArchive(String entryName) {
+        for (String extension : Constants.ARCHIVE_FILE_EXTENSIONS) {
+            if (entryName.endsWith(extension)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] readFully(InputStream stream, MessageDigest digest) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int length;
+        while ((length = stream.read(buffer)) != -1) {
+            content.write(buffer, 0, length);
+            if (digest != null) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        return content.toByteArray();
+    }
+}
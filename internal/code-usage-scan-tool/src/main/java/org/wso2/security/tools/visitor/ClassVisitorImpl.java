@@ -20,27 +20,42 @@ import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.wso2.security.tools.model.MethodReference;
+
+import java.util.List;
 
 import static org.objectweb.asm.Opcodes.ASM6;
 
 /**
- * ClassVisitorImpl - A visitor to visit a Java class.
+ * ClassVisitorImpl - A visitor to visit a Java class. A visitor holds the state of a single class, so a new visitor
+ * must be used for each class that is visited.
  */
 public class ClassVisitorImpl extends ClassVisitor {
 
     private static final Logger log = LoggerFactory.getLogger(ClassVisitorImpl.class);
 
-    private MethodVisitorImpl methodVisitor = new MethodVisitorImpl();
+    private final List<MethodReference> methodReferences;
 
     private String logString;
-    public static String className;
-    public static String source;
+    private String className;
+    private String source;
 
     /**
-     * Constructor to match the super.
+     * Constructor to create a visitor that collects the method references of the class into a given list.
+     *
+     * @param methodReferences the list to add the method references of the class to.
      */
-    public ClassVisitorImpl() {
+    public ClassVisitorImpl(List<MethodReference> methodReferences) {
         super(ASM6);
+        this.methodReferences = methodReferences;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getSource() {
+        return source;
     }
 
     /**
@@ -84,8 +99,7 @@ public class ClassVisitorImpl extends ClassVisitor {
     @Override
     public MethodVisitor visitMethod(int access, String name, String descriptor, String signature,
                                      String[] exceptions) {
-        MethodVisitorImpl.methodName = name;
-        return methodVisitor;
+        return new MethodVisitorImpl(className, name, methodReferences);
     }
 
     /**
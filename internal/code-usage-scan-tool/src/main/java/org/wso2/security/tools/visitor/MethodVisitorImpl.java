@@ -21,7 +21,8 @@ import org.objectweb.asm.MethodVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.security.tools.model.MethodReference;
-import org.wso2.security.tools.util.JarScanner;
+
+import java.util.List;
 
 import static org.objectweb.asm.Opcodes.ASM6;
 
@@ -32,15 +33,24 @@ public class MethodVisitorImpl extends MethodVisitor {
 
     private static final Logger log = LoggerFactory.getLogger(MethodVisitorImpl.class);
 
-    public static String methodName;
+    private final String className;
+    private final String methodName;
+    private final List<MethodReference> methodReferences;
     private String logString;
     private int lineNumber;
 
     /**
-     * Constructor to match the super.
+     * Constructor to create a visitor that collects the method references of a method into a given list.
+     *
+     * @param className        the internal name of the class of the method.
+     * @param methodName       the method's name.
+     * @param methodReferences the list to add the method references of the method to.
      */
-    public MethodVisitorImpl() {
+    public MethodVisitorImpl(String className, String methodName, List<MethodReference> methodReferences) {
         super(ASM6);
+        this.className = className;
+        this.methodName = methodName;
+        this.methodReferences = methodReferences;
     }
 
     /**
@@ -64,8 +74,7 @@ public class MethodVisitorImpl extends MethodVisitor {
     @Override
     public void visitMethodInsn(int opcode, String owner, String name, String descriptor, boolean isInterface) {
 
-        JarScanner.methodReferences.add(new MethodReference(name, owner, MethodVisitorImpl.methodName,
-                ClassVisitorImpl.className, lineNumber));
+        methodReferences.add(new MethodReference(name, owner, methodName, className, lineNumber));
 
     }
 
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.security.tools.store;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.exception.ScanToolException;
+import org.wso2.security.tools.model.Jar;
+import org.wso2.security.tools.model.MethodReference;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test class for the index file store.
+ */
+public class IndexFileStoreTest {
+
+    private static final String OWNER = "org/example/Owner";
+    private static final String METHOD = "method";
+    private static final int JAR_COUNT = 20;
+
+    private Path directory;
+    private IndexFileStore store;
+
+    @BeforeMethod
+    public void setUp() throws IOException, ScanToolException {
+        directory = Files.createTempDirectory("index-file-store-test");
+        store = openStore();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testSegmentsAreMergedAboveTheSegmentCount() throws ScanToolException {
+        for (int i = 0; i < JAR_COUNT; i++) {
+            indexJar(store, "jar" + i);
+        }
+
+        Assert.assertTrue(listSegmentFiles().size() <= 8, "Segment files: " + listSegmentFiles());
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), JAR_COUNT);
+    }
+
+    @Test
+    public void testStoreIsReopenedWithOneSegment() throws ScanToolException {
+        for (int i = 0; i < 3; i++) {
+            indexJar(store, "jar" + i);
+        }
+        store.close();
+        store = openStore();
+
+        Assert.assertEquals(listSegmentFiles().size(), 1);
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), 3);
+        Assert.assertTrue(store.isJarIndexed("jar2"));
+    }
+
+    @Test
+    public void testSegmentsLeftBehindByAnInterruptedMergeAreDeleted() throws ScanToolException, IOException {
+        indexJar(store, "jar0");
+        indexJar(store, "jar1");
+        store.close();
+
+        // Restore a merged segment file, as if the store stopped before deleting the segments it contains.
+        List<Path> segmentFiles = listSegmentFiles();
+        Path backup = directory.resolve("backup");
+        Files.copy(segmentFiles.get(0), backup);
+        store = openStore();
+        store.close();
+        Files.move(backup, segmentFiles.get(0), StandardCopyOption.REPLACE_EXISTING);
+        store = openStore();
+
+        Assert.assertEquals(listSegmentFiles().size(), 1);
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), 2);
+    }
+
+    @Test
+    public void testIncompleteRecordIsIgnored() throws ScanToolException, IOException {
+        indexJar(store, "jar0");
+        indexJar(store, "jar1");
+        store.close();
+        Path jarsFile = directory.resolve("jars.dat");
+        try (FileChannel channel = FileChannel.open(jarsFile, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 1);
+        }
+        store = openStore();
+
+        Assert.assertTrue(store.isJarIndexed("jar0"));
+        Assert.assertFalse(store.isJarIndexed("jar1"));
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), 1);
+
+        // The jar is indexed again after the complete records.
+        indexJar(store, "jar1");
+        store.close();
+        store = openStore();
+        Assert.assertTrue(store.isJarIndexed("jar1"));
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), 2);
+    }
+
+    @Test
+    public void testDiscardedMethodReferencesAreNotIndexed() throws ScanToolException {
+        Jar jar = new Jar("jar0.jar", "jar0");
+        store.insertMethodReferences(Collections.singletonList(buildMethodReference(jar.getJarHashCode())));
+        store.discardMethodReferences(Collections.singletonList(jar));
+        indexJar(store, "jar0");
+
+        Assert.assertEquals(store.findMethodReferences(METHOD, OWNER).size(), 1);
+    }
+
+    private IndexFileStore openStore() throws ScanToolException {
+        IndexFileStore indexFileStore = new IndexFileStore(directory);
+        indexFileStore.initialize();
+        return indexFileStore;
+    }
+
+    private static void indexJar(IndexFileStore indexFileStore, String jarHashCode) throws ScanToolException {
+        Jar jar = new Jar(jarHashCode + ".jar", jarHashCode);
+        indexFileStore.insertMethodReferences(Collections.singletonList(buildMethodReference(jarHashCode)));
+        indexFileStore.insertIndexedJars(Collections.singletonList(jar));
+    }
+
+    private static MethodReference buildMethodReference(String jarHashCode) {
+        MethodReference methodReference = new MethodReference(METHOD, OWNER, "caller", "org/example/Caller", 1);
+        methodReference.setJarHashCode(jarHashCode);
+        return methodReference;
+    }
+
+    private List<Path> listSegmentFiles() {
+        List<Path> segmentFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.idx")) {
+            files.forEach(segmentFiles::add);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        Collections.sort(segmentFiles);
+        return segmentFiles;
+    }
+}
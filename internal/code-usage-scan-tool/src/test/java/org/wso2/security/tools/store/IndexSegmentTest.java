@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://wso2.com) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.security.tools.store;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.model.MethodReference;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test class for writing, merging and querying the memory mapped index segments.
+ */
+public class IndexSegmentTest {
+
+    // Enough methods for several sparse offset table entries, with keys on both sides of their boundaries.
+    private static final int OWNER_COUNT = 7;
+    private static final int METHOD_COUNT = 31;
+    private static final String JAR_HASH_CODE = "jarHash";
+    private static final String OTHER_JAR_HASH_CODE = "otherJarHash";
+
+    private Path directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("index-segment-test");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    public void testEveryMethodIsFoundAfterWrite() throws IOException {
+        Path file = directory.resolve("segment.idx");
+        CallSites callSites = buildCallSites(JAR_HASH_CODE);
+        IndexSegment.write(file, callSites.strings, callSites.values, callSites.count);
+
+        try (IndexSegment segment = IndexSegment.open(file)) {
+            Assert.assertEquals(segment.getCallSiteCount(), callSites.count);
+            for (int owner = 0; owner < OWNER_COUNT; owner++) {
+                for (int method = 0; method < METHOD_COUNT; method++) {
+                    assertReferences(segment.find(methodName(method), ownerName(owner)), owner, method,
+                            Collections.singletonList(JAR_HASH_CODE));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMissingMethodIsNotFound() throws IOException {
+        Path file = directory.resolve("segment.idx");
+        CallSites callSites = buildCallSites(JAR_HASH_CODE);
+        IndexSegment.write(file, callSites.strings, callSites.values, callSites.count);
+
+        try (IndexSegment segment = IndexSegment.open(file)) {
+
+            // Known strings that do not form a key, strings that sort before and after all the keys, and no strings.
+            Assert.assertTrue(segment.find(ownerName(1), ownerName(0)).isEmpty());
+            Assert.assertTrue(segment.find(methodName(0), "a/First").isEmpty());
+            Assert.assertTrue(segment.find(methodName(0), "z/Last").isEmpty());
+            Assert.assertTrue(segment.find("missing", "missing").isEmpty());
+        }
+    }
+
+    @Test
+    public void testEmptySegment() throws IOException {
+        Path file = directory.resolve("segment.idx");
+        IndexSegment.write(file, Collections.emptyList(), new int[0], 0);
+
+        try (IndexSegment segment = IndexSegment.open(file)) {
+            Assert.assertEquals(segment.getCallSiteCount(), 0);
+            Assert.assertTrue(segment.find(methodName(0), ownerName(0)).isEmpty());
+        }
+    }
+
+    @Test
+    public void testMergeKeepsTheCallSitesOfIndexedJars() throws IOException {
+        Path file = directory.resolve("segment-1.idx");
+        Path otherFile = directory.resolve("segment-2.idx");
+        Path droppedFile = directory.resolve("segment-3.idx");
+        Path mergedFile = directory.resolve("segment-merged.idx");
+        CallSites callSites = buildCallSites(JAR_HASH_CODE);
+        CallSites otherCallSites = buildCallSites(OTHER_JAR_HASH_CODE);
+        CallSites droppedCallSites = buildCallSites("droppedJarHash");
+        IndexSegment.write(file, callSites.strings, callSites.values, callSites.count);
+        IndexSegment.write(otherFile, otherCallSites.strings, otherCallSites.values, otherCallSites.count);
+        IndexSegment.write(droppedFile, droppedCallSites.strings, droppedCallSites.values, droppedCallSites.count);
+
+        try (IndexSegment segment = IndexSegment.open(file);
+             IndexSegment otherSegment = IndexSegment.open(otherFile);
+             IndexSegment droppedSegment = IndexSegment.open(droppedFile)) {
+            IndexSegment.merge(mergedFile, Arrays.asList(segment, otherSegment, droppedSegment),
+                    jarHashCode -> !"droppedJarHash".equals(jarHashCode));
+        }
+
+        try (IndexSegment mergedSegment = IndexSegment.open(mergedFile)) {
+            Assert.assertEquals(mergedSegment.getCallSiteCount(), callSites.count + otherCallSites.count);
+            for (int owner = 0; owner < OWNER_COUNT; owner++) {
+                for (int method = 0; method < METHOD_COUNT; method++) {
+                    assertReferences(mergedSegment.find(methodName(method), ownerName(owner)), owner, method,
+                            Arrays.asList(JAR_HASH_CODE, OTHER_JAR_HASH_CODE));
+                }
+            }
+        }
+    }
+
+    /**
+     * Build the call sites of a jar, where the method m of the owner o is called (o + m) % 3 + 1 times, from line
+     * numbers that identify the call site.
+     */
+    private static CallSites buildCallSites(String jarHashCode) {
+        CallSites callSites = new CallSites();
+        int jarHashCodeId = callSites.stringId(jarHashCode);
+        for (int owner = OWNER_COUNT - 1; owner >= 0; owner--) {
+            for (int method = 0; method < METHOD_COUNT; method++) {
+                for (int call = 0; call < callCount(owner, method); call++) {
+                    callSites.add(callSites.stringId(ownerName(owner)), callSites.stringId(methodName(method)),
+                            callSites.stringId(usageClassName(call)), callSites.stringId(methodName(owner)),
+                            lineNumber(owner, method, call), jarHashCodeId);
+                }
+            }
+        }
+        return callSites;
+    }
+
+    private static void assertReferences(List<MethodReference> references, int owner, int method,
+                                         List<String> jarHashCodes) {
+        List<String> expected = new ArrayList<>();
+        for (String jarHashCode : jarHashCodes) {
+            for (int call = 0; call < callCount(owner, method); call++) {
+                expected.add(usageClassName(call) + " " + methodName(owner) + " " + lineNumber(owner, method, call)
+                        + " " + jarHashCode);
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        for (MethodReference reference : references) {
+            Assert.assertEquals(reference.getMethodName(), methodName(method));
+            Assert.assertEquals(reference.getParentClass(), ownerName(owner));
+            actual.add(reference.getUsageClass() + " " + reference.getUsageMethod() + " "
+                    + reference.getUsageLineNumber() + " " + reference.getJarHashCode());
+        }
+        Collections.sort(expected);
+        Collections.sort(actual);
+        Assert.assertEquals(actual, expected, "References of " + ownerName(owner) + "." + methodName(method));
+    }
+
+    private static int callCount(int owner, int method) {
+        return (owner + method) % 3 + 1;
+    }
+
+    private static int lineNumber(int owner, int method, int call) {
+        return owner * 10000 + method * 10 + call;
+    }
+
+    private static String ownerName(int owner) {
+        return "org/example/Owner" + owner;
+    }
+
+    private static String methodName(int method) {
+        return "method" + method;
+    }
+
+    private static String usageClassName(int call) {
+        return "org/example/Caller" + call;
+    }
+
+    /**
+     * Call sites and the strings they refer to, in the layout the segments are written from.
+     */
+    private static final class CallSites {
+
+        private final List<String> strings = new ArrayList<>();
+        private int[] values = new int[0];
+        private int count;
+
+        private int stringId(String value) {
+            int id = strings.indexOf(value);
+            if (id < 0) {
+                strings.add(value);
+                id = strings.size() - 1;
+            }
+            return id;
+        }
+
+        private void add(int... callSite) {
+            values = Arrays.copyOf(values, values.length + IndexSegment.CALL_SITE_SIZE);
+            System.arraycopy(callSite, 0, values, count * IndexSegment.CALL_SITE_SIZE, IndexSegment.CALL_SITE_SIZE);
+            count++;
+        }
+    }
+}
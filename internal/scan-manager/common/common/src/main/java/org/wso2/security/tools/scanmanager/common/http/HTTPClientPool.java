@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import org.wso2.security.tools.scanmanager.common.model.ConnectionPoolStats;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A shared HTTP client backed by a pool of persistent connections, used for the requests to the scan manager, the
+ * scanners and the third party scanner APIs, so that the requests to the same endpoint do not pay for a TCP and TLS
+ * handshake each. The client is created on first use, with the limits and timeouts given to
+ * {@link #configure(int, int, int, int)} or the defaults.
+ */
+public class HTTPClientPool {
+
+    private static final Log log = LogFactory.getLog(HTTPClientPool.class);
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 100;
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final int DEFAULT_CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+    public static final int DEFAULT_SOCKET_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(5);
+
+    // Time to wait for a connection from the pool before failing the request.
+    private static final int CONNECTION_REQUEST_TIMEOUT = (int) TimeUnit.MINUTES.toMillis(1);
+
+    // Keep alive time of the connections when the server does not send a keep alive header.
+    private static final long DEFAULT_KEEP_ALIVE_TIME = TimeUnit.SECONDS.toMillis(30);
+    private static final long IDLE_CONNECTION_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+    private static final int VALIDATE_AFTER_INACTIVITY = (int) TimeUnit.SECONDS.toMillis(5);
+
+    private static final HTTPClientPool httpClientPool = new HTTPClientPool();
+
+    private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int socketTimeout = DEFAULT_SOCKET_TIMEOUT;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+
+    private HTTPClientPool() {
+    }
+
+    public static HTTPClientPool getInstance() {
+        return httpClientPool;
+    }
+
+    /**
+     * Configure the limits and the timeouts of the pool. The connection limits are applied to a pool that is already
+     * in use, while the timeouts only apply to a pool that is created after this call.
+     *
+     * @param maxConnections         maximum number of connections to all the endpoints
+     * @param maxConnectionsPerRoute maximum number of connections to a single endpoint
+     * @param connectTimeout         timeout to establish a connection in milliseconds
+     * @param socketTimeout          timeout to wait for data in milliseconds
+     */
+    public synchronized void configure(int maxConnections, int maxConnectionsPerRoute, int connectTimeout,
+            int socketTimeout) {
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.connectTimeout = connectTimeout;
+        this.socketTimeout = socketTimeout;
+        if (connectionManager != null) {
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            log.warn("HTTP client pool is already in use, the new timeouts are not applied");
+        }
+    }
+
+    /**
+     * Get the shared HTTP client. The entity of each response must be consumed or the response must be closed, so
+     * that its connection is returned to the pool.
+     *
+     * @return shared HTTP client
+     */
+    public synchronized CloseableHttpClient getHttpClient() {
+        if (httpClient == null) {
+            connectionManager = new PoolingHttpClientConnectionManager();
+            connectionManager.setMaxTotal(maxConnections);
+            connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+            connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY);
+
+            RequestConfig requestConfig = RequestConfig.custom()
+                    .setConnectTimeout(connectTimeout)
+                    .setSocketTimeout(socketTimeout)
+                    .setConnectionRequestTimeout(CONNECTION_REQUEST_TIMEOUT)
+                    .build();
+            httpClient = HttpClients.custom()
+                    .setConnectionManager(connectionManager)
+                    .setDefaultRequestConfig(requestConfig)
+                    .setKeepAliveStrategy((response, context) -> {
+                        long keepAliveTime = DefaultConnectionKeepAliveStrategy.INSTANCE
+                                .getKeepAliveDuration(response, context);
+                        return keepAliveTime > 0 ? keepAliveTime : DEFAULT_KEEP_ALIVE_TIME;
+                    })
+                    .evictExpiredConnections()
+                    .evictIdleConnections(IDLE_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+                    .build();
+        }
+        return httpClient;
+    }
+
+    /**
+     * Get a rest template that sends its requests with the shared HTTP client.
+     *
+     * @return shared rest template
+     */
+    public synchronized RestTemplate getRestTemplate() {
+        if (restTemplate == null) {
+            restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(getHttpClient()));
+        }
+        return restTemplate;
+    }
+
+    /**
+     * Get the usage of the pool, i.e. the number of leased, available and pending connections.
+     *
+     * @return statistics of all the routes of the pool
+     */
+    public synchronized PoolStats getTotalStats() {
+        return connectionManager == null ? new PoolStats(0, 0, 0, maxConnections) : connectionManager.getTotalStats();
+    }
+
+    /**
+     * Get the usage of the pool, to be exposed to the monitoring of the service.
+     *
+     * @return number of leased, pending and available connections of all the routes of the pool
+     */
+    public ConnectionPoolStats getStats() {
+        PoolStats poolStats = getTotalStats();
+        return new ConnectionPoolStats(poolStats.getLeased(), poolStats.getPending(), poolStats.getAvailable(),
+                poolStats.getMax());
+    }
+
+    /**
+     * Close the shared HTTP client and its connections.
+     */
+    public synchronized void shutdown() {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("Error occurred while closing the HTTP client pool", e);
+            }
+            httpClient = null;
+            connectionManager = null;
+            restTemplate = null;
+        }
+    }
+}
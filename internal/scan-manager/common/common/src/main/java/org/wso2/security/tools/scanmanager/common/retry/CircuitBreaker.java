@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+/**
+ * Circuit breaker of a single endpoint. After a number of consecutive failures the circuit opens and the attempts to
+ * the endpoint are held back for a while, instead of every caller hammering an endpoint that is down. Once that time
+ * has passed, a single trial attempt is let through, which closes the circuit on success or opens it again on failure.
+ */
+public class CircuitBreaker {
+
+    private final int failureThreshold;
+    private final long openDuration;
+
+    private int consecutiveFailures;
+    private long openedTime = -1;
+    private boolean trialInProgress;
+
+    /**
+     * Create a closed circuit breaker.
+     *
+     * @param failureThreshold number of consecutive failures that opens the circuit
+     * @param openDuration     time to hold back the attempts once the circuit is open, in milliseconds
+     */
+    public CircuitBreaker(int failureThreshold, long openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * Check whether an attempt can be made now. If the circuit is open and its open time has passed, the caller is
+     * given the trial attempt.
+     *
+     * @return 0 if the attempt can be made, otherwise the time to wait before checking again in milliseconds
+     */
+    public synchronized long acquirePermission() {
+        if (openedTime < 0) {
+            return 0;
+        }
+        long remainingOpenTime = openedTime + openDuration - System.currentTimeMillis();
+        if (remainingOpenTime > 0) {
+            return remainingOpenTime;
+        }
+        if (trialInProgress) {
+            return openDuration;
+        }
+        trialInProgress = true;
+        return 0;
+    }
+
+    /**
+     * Record an attempt that reached the endpoint. This closes the circuit.
+     */
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openedTime = -1;
+        trialInProgress = false;
+    }
+
+    /**
+     * Record an attempt that failed with a transient error. This opens the circuit if the trial attempt failed or the
+     * failure threshold is reached.
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (trialInProgress || consecutiveFailures >= failureThreshold) {
+            openedTime = System.currentTimeMillis();
+        }
+        trialInProgress = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return openedTime >= 0;
+    }
+}
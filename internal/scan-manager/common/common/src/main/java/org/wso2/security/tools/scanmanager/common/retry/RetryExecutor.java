@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.security.scanmanager.common.exception.RetryExceededException;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs operations against remote endpoints and retries them on transient errors, following a {@link RetryPolicy}.
+ * The waits between the attempts are scheduled instead of sleeping on a thread, and the attempts to an endpoint go
+ * through the {@link CircuitBreaker} of that endpoint, so that an endpoint that is down is probed by one caller at a
+ * time. The result of an operation is given as a future, which fails with a {@link RetryExceededException} once the
+ * retry policy gives up.
+ */
+public class RetryExecutor {
+
+    private static final Log log = LogFactory.getLog(RetryExecutor.class);
+
+    private static final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_BREAKER_OPEN_DURATION = TimeUnit.SECONDS.toMillis(30);
+
+    private static final RetryExecutor retryExecutor = new RetryExecutor();
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryScheduler;
+    private final ExecutorService attemptExecutor;
+
+    private RetryExecutor() {
+        retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "RetryScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        attemptExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "RetryExecutor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static RetryExecutor getInstance() {
+        return retryExecutor;
+    }
+
+    /**
+     * Run an operation, retrying it while it fails with a {@link RetryableException}. Any other exception fails the
+     * operation without retrying. Cancelling the returned future stops the retries.
+     *
+     * @param endpoint    endpoint the operation calls, e.g. scheme://host:port, used to pick the circuit breaker
+     * @param retryPolicy retry policy
+     * @param operation   operation to run
+     * @param <T>         type of the result of the operation
+     * @return future of the result of the operation
+     */
+    public <T> CompletableFuture<T> execute(String endpoint, RetryPolicy retryPolicy, Callable<T> operation) {
+        return execute(endpoint, retryPolicy, operation, null);
+    }
+
+    /**
+     * Run an operation, retrying it while it fails with a {@link RetryableException}. A result produced by an attempt
+     * that completes after the returned future is cancelled is handed to the given consumer, so that resources held
+     * by the result can be released.
+     *
+     * @param endpoint    endpoint the operation calls, e.g. scheme://host:port, used to pick the circuit breaker
+     * @param retryPolicy retry policy
+     * @param operation   operation to run
+     * @param onDiscard   consumer of the results that are discarded, or null
+     * @param <T>         type of the result of the operation
+     * @return future of the result of the operation
+     */
+    public <T> CompletableFuture<T> execute(String endpoint, RetryPolicy retryPolicy, Callable<T> operation,
+                                            Consumer<T> onDiscard) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptExecutor.execute(new Attempt<>(endpoint, retryPolicy, operation, onDiscard, result));
+        return result;
+    }
+
+    /**
+     * Get the circuit breaker of an endpoint.
+     *
+     * @param endpoint endpoint, e.g. scheme://host:port
+     * @return circuit breaker
+     */
+    public CircuitBreaker getCircuitBreaker(String endpoint) {
+        return circuitBreakers.computeIfAbsent(endpoint,
+                key -> new CircuitBreaker(CIRCUIT_BREAKER_FAILURE_THRESHOLD, CIRCUIT_BREAKER_OPEN_DURATION));
+    }
+
+    /**
+     * The attempts of an operation, rescheduled on the retry scheduler until the operation completes or the retry
+     * policy gives up.
+     *
+     * @param <T> type of the result of the operation
+     */
+    private final class Attempt<T> implements Runnable {
+
+        private final String endpoint;
+        private final RetryPolicy retryPolicy;
+        private final Callable<T> operation;
+        private final Consumer<T> onDiscard;
+        private final CompletableFuture<T> result;
+        private final long startTime = System.currentTimeMillis();
+        private int retryCount;
+
+        private Attempt(String endpoint, RetryPolicy retryPolicy, Callable<T> operation, Consumer<T> onDiscard,
+                        CompletableFuture<T> result) {
+            this.endpoint = endpoint;
+            this.retryPolicy = retryPolicy;
+            this.operation = operation;
+            this.onDiscard = onDiscard;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                return;
+            }
+            CircuitBreaker circuitBreaker = getCircuitBreaker(endpoint);
+            long remainingOpenTime = circuitBreaker.acquirePermission();
+            if (remainingOpenTime > 0) {
+                scheduleRetry(Math.max(remainingOpenTime, retryPolicy.getDelay(retryCount)),
+                        new RetryableException("Circuit breaker of the endpoint " + endpoint + " is open"));
+                return;
+            }
+            try {
+                T value = operation.call();
+                circuitBreaker.recordSuccess();
+                if (!result.complete(value) && onDiscard != null) {
+                    onDiscard.accept(value);
+                }
+            } catch (RetryableException e) {
+                circuitBreaker.recordFailure();
+                retryCount++;
+                long delay = e.getRetryAfter() >= 0 ? e.getRetryAfter() : retryPolicy.getDelay(retryCount);
+                scheduleRetry(delay, e);
+            } catch (Exception e) {
+
+                // The endpoint answered, even though the operation failed.
+                circuitBreaker.recordSuccess();
+                result.completeExceptionally(e);
+            } catch (Throwable e) {
+                circuitBreaker.recordSuccess();
+                result.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        private void scheduleRetry(long delay, RetryableException cause) {
+            long elapsedTime = System.currentTimeMillis() - startTime;
+            if (elapsedTime + delay > retryPolicy.getMaxElapsedTime()) {
+                result.completeExceptionally(new RetryExceededException("Unable to reach the endpoint " + endpoint
+                        + ". Retried " + retryCount + " times for " + elapsedTime + " ms", cause));
+                return;
+            }
+            log.info("Endpoint " + endpoint + " is not currently available (" + cause.getMessage()
+                    + ") and will retry after " + delay + " ms");
+            retryScheduler.schedule(() -> attemptExecutor.execute(this), delay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
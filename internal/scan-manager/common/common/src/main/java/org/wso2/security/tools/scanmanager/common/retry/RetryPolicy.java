@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+import org.apache.http.client.utils.DateUtils;
+
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter. The delay before a retry doubles with each attempt up to a maximum delay, and a
+ * random half of it is added to a fixed half, so that the clients that failed together do not retry together. The
+ * retries stop once the maximum elapsed time since the first attempt would be exceeded.
+ */
+public class RetryPolicy {
+
+    private static final double BACKOFF_MULTIPLIER = 2;
+
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+    private static final int HTTP_BAD_GATEWAY = 502;
+    private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+    private static final int HTTP_GATEWAY_TIMEOUT = 504;
+
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long maxElapsedTime;
+
+    /**
+     * Create a retry policy.
+     *
+     * @param initialDelay   delay before the first retry in milliseconds
+     * @param maxDelay       maximum delay between two attempts in milliseconds
+     * @param maxElapsedTime maximum time to keep retrying, measured from the first attempt, in milliseconds
+     */
+    public RetryPolicy(long initialDelay, long maxDelay, long maxElapsedTime) {
+        this.initialDelay = Math.max(1, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.maxElapsedTime = maxElapsedTime;
+    }
+
+    /**
+     * Get the delay before a given retry.
+     *
+     * @param retryCount number of the retry, starting from 1
+     * @return delay in milliseconds
+     */
+    public long getDelay(int retryCount) {
+        double exponentialDelay = initialDelay * Math.pow(BACKOFF_MULTIPLIER, Math.max(0, retryCount - 1));
+        long cappedDelay = (long) Math.min(maxDelay, exponentialDelay);
+        return cappedDelay / 2 + ThreadLocalRandom.current().nextLong(cappedDelay / 2 + 1);
+    }
+
+    public long getMaxElapsedTime() {
+        return maxElapsedTime;
+    }
+
+    /**
+     * Check whether a request that failed with a given HTTP status code is worth retrying. Request timeouts, rate
+     * limiting and the server errors that signal a temporary unavailability are retried, while the other client and
+     * server errors are final, as the endpoint would answer the same to a retry.
+     *
+     * @param statusCode HTTP status code of the response
+     * @return true if the request should be retried
+     */
+    public static boolean isRetryableStatus(int statusCode) {
+        switch (statusCode) {
+            case HTTP_REQUEST_TIMEOUT:
+            case HTTP_TOO_MANY_REQUESTS:
+            case HTTP_INTERNAL_SERVER_ERROR:
+            case HTTP_BAD_GATEWAY:
+            case HTTP_SERVICE_UNAVAILABLE:
+            case HTTP_GATEWAY_TIMEOUT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Parse the value of a Retry-After header, which is either a number of seconds or an HTTP date.
+     *
+     * @param retryAfterHeader value of the header, may be null
+     * @return time to wait in milliseconds, or -1 if the header is missing or invalid
+     */
+    public static long parseRetryAfter(String retryAfterHeader) {
+        if (retryAfterHeader == null || retryAfterHeader.trim().isEmpty()) {
+            return -1;
+        }
+        String value = retryAfterHeader.trim();
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            Date retryDate = DateUtils.parseDate(value);
+            return retryDate == null ? -1 : Math.max(0, retryDate.getTime() - System.currentTimeMillis());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+/**
+ * Thrown by an operation run through the {@link RetryExecutor} when it failed with a transient error and can be
+ * retried. The endpoint can ask for the time to wait before the next attempt, e.g. through a Retry-After header.
+ */
+public class RetryableException extends Exception {
+
+    private final long retryAfter;
+
+    /**
+     * Constructor to create a new RetryableException with the specified detail message.
+     *
+     * @param message The detail message of the exception.
+     */
+    public RetryableException(String message) {
+        this(message, null, -1);
+    }
+
+    /**
+     * Constructor to create a new RetryableException with the specified detail message and cause.
+     *
+     * @param message The detail message of the exception.
+     * @param e       The cause of the exception.
+     */
+    public RetryableException(String message, Throwable e) {
+        this(message, e, -1);
+    }
+
+    /**
+     * Constructor to create a new RetryableException with the time requested by the endpoint to wait before retrying.
+     *
+     * @param message    The detail message of the exception.
+     * @param retryAfter Time to wait before retrying in milliseconds, or a negative value to use the retry policy.
+     */
+    public RetryableException(String message, long retryAfter) {
+        this(message, null, retryAfter);
+    }
+
+    private RetryableException(String message, Throwable e, long retryAfter) {
+        super(message, e);
+        this.retryAfter = retryAfter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
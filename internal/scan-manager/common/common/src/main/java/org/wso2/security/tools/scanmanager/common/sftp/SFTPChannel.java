@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.sftp;
+
+import com.jcraft.jsch.ChannelSftp;
+
+/**
+ * An SFTP channel borrowed from the {@link SFTPSessionPool}. Closing the channel disconnects it and returns its
+ * session to the pool.
+ */
+public class SFTPChannel implements AutoCloseable {
+
+    private final SFTPSessionPool pool;
+    private final SFTPSessionPool.PooledSession pooledSession;
+    private final ChannelSftp channelSftp;
+    private boolean closed;
+
+    SFTPChannel(SFTPSessionPool pool, SFTPSessionPool.PooledSession pooledSession, ChannelSftp channelSftp) {
+        this.pool = pool;
+        this.pooledSession = pooledSession;
+        this.channelSftp = channelSftp;
+    }
+
+    public ChannelSftp getChannel() {
+        return channelSftp;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            channelSftp.disconnect();
+            pool.release(pooledSession);
+        }
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.sftp;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSch;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of authenticated SFTP sessions, keyed by the user, host and port of the SFTP server. Each session is shared
+ * by up to a fixed number of concurrently open channels, so that transfers to the same server do not pay for an SSH
+ * handshake per file. The number of sessions per server is bounded as well, and borrowers wait for a free channel
+ * once all the sessions are in full use. Sessions that have been idle for a while are health checked before they are
+ * borrowed, and sessions without open channels are closed after an idle timeout.
+ */
+public class SFTPSessionPool {
+
+    private static final Log log = LogFactory.getLog(SFTPSessionPool.class);
+
+    private static final String SFTP_CHANNEL_TYPE = "sftp";
+    private static final String STRICT_HOST_KEY_CHECKING_CONFIG_NAME = "StrictHostKeyChecking";
+    private static final String PREFERRED_AUTHENTICATIONS_CONFIG_NAME = "PreferredAuthentications";
+
+    // OpenSSH servers accept 10 channels per session by default.
+    private static final int DEFAULT_MAX_CHANNELS_PER_SESSION = 8;
+    private static final int DEFAULT_MAX_SESSIONS_PER_SERVER = 4;
+    private static final int MAX_BORROW_ATTEMPTS = 3;
+    private static final long BORROW_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+    private static final int TRANSFER_THREAD_COUNT = 8;
+    private static final long TRANSFER_THREAD_KEEP_ALIVE = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(2);
+    private static final long HEALTH_CHECK_IDLE_TIME = TimeUnit.SECONDS.toMillis(15);
+    private static final long EVICTION_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final int CONNECT_TIMEOUT = (int) TimeUnit.SECONDS.toMillis(30);
+
+    private static final SFTPSessionPool sftpSessionPool = new SFTPSessionPool(DEFAULT_MAX_CHANNELS_PER_SESSION,
+            DEFAULT_MAX_SESSIONS_PER_SERVER, DEFAULT_IDLE_TIMEOUT);
+
+    private final int maxChannelsPerSession;
+    private final int maxSessionsPerServer;
+    private final long idleTimeout;
+    private final JSch jsch = new JSch();
+    private final Map<String, List<PooledSession>> sessionsByKey = new HashMap<>();
+
+    // Number of sessions being opened per key, which count towards the session limit of the server.
+    private final Map<String, Integer> openingSessionCounts = new HashMap<>();
+    private ScheduledExecutorService evictionExecutor;
+    private ExecutorService transferExecutor;
+    private boolean shutdown;
+
+    SFTPSessionPool(int maxChannelsPerSession, int maxSessionsPerServer, long idleTimeout) {
+        this.maxChannelsPerSession = maxChannelsPerSession;
+        this.maxSessionsPerServer = maxSessionsPerServer;
+        this.idleTimeout = idleTimeout;
+    }
+
+    public static SFTPSessionPool getInstance() {
+        return sftpSessionPool;
+    }
+
+    /**
+     * Borrow an SFTP channel to a given server. The channel must be closed after use, so that its session can be
+     * shared with other transfers.
+     *
+     * @param host     SFTP server host
+     * @param port     SFTP server port
+     * @param username SFTP server username
+     * @param password SFTP server password, only used when a new session needs to be opened
+     * @return connected SFTP channel
+     * @throws JSchException when unable to open a session or a channel to the SFTP server
+     */
+    public SFTPChannel borrow(String host, int port, String username, char[] password) throws JSchException {
+        String key = username + "@" + host + ":" + port;
+        JSchException channelFailure = null;
+        int attempt = 0;
+        while (true) {
+            PooledSession pooledSession = leaseSession(key);
+            if (pooledSession == null) {
+                pooledSession = openSession(key, host, port, username, password);
+            } else if (!isHealthy(pooledSession)) {
+                discard(pooledSession);
+                continue;
+            }
+            try {
+                ChannelSftp channelSftp = (ChannelSftp) pooledSession.session.openChannel(SFTP_CHANNEL_TYPE);
+                channelSftp.connect(CONNECT_TIMEOUT);
+                return new SFTPChannel(this, pooledSession, channelSftp);
+            } catch (JSchException e) {
+
+                // The server may have closed the session or refused another channel on it, e.g. when it allows
+                // fewer channels per session than the pool. The session is not leased beyond the channels it has
+                // open, and the channel is tried on another session.
+                refuseChannel(pooledSession);
+                if (channelFailure == null) {
+                    channelFailure = e;
+                }
+                if (++attempt >= MAX_BORROW_ATTEMPTS) {
+                    throw channelFailure;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Unable to open an SFTP channel on a session to " + key + ". Retrying", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Upload files in parallel to a directory of a given server. Each file is uploaded over its own channel, and the
+     * channels share the pooled sessions of the server.
+     *
+     * @param host            SFTP server host
+     * @param port            SFTP server port
+     * @param username        SFTP server username
+     * @param password        SFTP server password
+     * @param remoteDirectory directory to upload the files to
+     * @param files           map of the remote file names to the paths of the local files
+     * @param progressMonitor monitor notified of the uploaded bytes, or null
+     * @throws JSchException when unable to open a session or a channel to the SFTP server
+     * @throws SftpException when unable to upload a file
+     */
+    public void uploadFiles(String host, int port, String username, char[] password, String remoteDirectory,
+                            Map<String, String> files, SftpProgressMonitor progressMonitor)
+            throws JSchException, SftpException {
+        List<Future<Void>> uploads = new ArrayList<>();
+        for (Map.Entry<String, String> file : files.entrySet()) {
+            uploads.add(getTransferExecutor().submit(() -> {
+                try (SFTPChannel sftpChannel = borrow(host, port, username, password)) {
+                    sftpChannel.getChannel().cd(remoteDirectory);
+                    sftpChannel.getChannel().put(file.getValue(), file.getKey(), progressMonitor);
+                }
+                return null;
+            }));
+        }
+        awaitAll(uploads);
+    }
+
+    /**
+     * Close all the pooled sessions. Channels that are still open are closed along with their sessions.
+     */
+    public void shutdown() {
+        List<PooledSession> sessions = new ArrayList<>();
+        synchronized (this) {
+            shutdown = true;
+            sessionsByKey.values().forEach(sessions::addAll);
+            sessionsByKey.clear();
+            notifyAll();
+            if (evictionExecutor != null) {
+                evictionExecutor.shutdownNow();
+            }
+            if (transferExecutor != null) {
+                transferExecutor.shutdownNow();
+            }
+        }
+        sessions.forEach(pooledSession -> pooledSession.session.disconnect());
+    }
+
+    synchronized void release(PooledSession pooledSession) {
+        pooledSession.leasedChannels--;
+        pooledSession.lastUsedTime = System.currentTimeMillis();
+        if (!pooledSession.session.isConnected()) {
+            removeSession(pooledSession);
+        }
+        notifyAll();
+    }
+
+    private void refuseChannel(PooledSession pooledSession) {
+        synchronized (this) {
+            int otherChannels = pooledSession.leasedChannels - 1;
+            if (otherChannels > 0) {
+                pooledSession.maxChannels = Math.min(pooledSession.maxChannels, otherChannels);
+                release(pooledSession);
+                return;
+            }
+        }
+
+        // A session that cannot open a single channel is of no use.
+        discard(pooledSession);
+    }
+
+    /**
+     * Lease a channel slot of a pooled session of a given server. If no session has a free slot and the session
+     * limit of the server is not reached, a slot for a new session is reserved and the caller has to open the
+     * session. Otherwise the caller waits until a slot is freed.
+     *
+     * @param key server key
+     * @return leased session or null if the caller has to open a new session
+     * @throws JSchException when the pool has been shut down or no slot was freed in time
+     */
+    private synchronized PooledSession leaseSession(String key) throws JSchException {
+        long deadline = System.currentTimeMillis() + BORROW_TIMEOUT;
+        while (true) {
+            if (shutdown) {
+                throw new JSchException("SFTP session pool has been shut down");
+            }
+            List<PooledSession> sessions = sessionsByKey.get(key);
+            if (sessions != null) {
+                for (PooledSession pooledSession : sessions) {
+                    if (pooledSession.leasedChannels < pooledSession.maxChannels) {
+                        pooledSession.leasedChannels++;
+                        return pooledSession;
+                    }
+                }
+            }
+            int openingSessionCount = openingSessionCounts.getOrDefault(key, 0);
+            if ((sessions == null ? 0 : sessions.size()) + openingSessionCount < maxSessionsPerServer) {
+                openingSessionCounts.put(key, openingSessionCount + 1);
+                return null;
+            }
+            long remainingTime = deadline - System.currentTimeMillis();
+            if (remainingTime <= 0) {
+                throw new JSchException("Timed out waiting for a free SFTP channel to " + key);
+            }
+            try {
+                wait(remainingTime);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new JSchException("Interrupted while waiting for a free SFTP channel to " + key, e);
+            }
+        }
+    }
+
+    private PooledSession openSession(String key, String host, int port, String username, char[] password)
+            throws JSchException {
+        PooledSession pooledSession = null;
+        try {
+            Session session = jsch.getSession(username, host, port);
+            session.setConfig(STRICT_HOST_KEY_CHECKING_CONFIG_NAME, "no");
+            session.setConfig(PREFERRED_AUTHENTICATIONS_CONFIG_NAME, "password");
+            byte[] passwordBytes = toBytes(password);
+            try {
+                session.setPassword(passwordBytes);
+                session.connect(CONNECT_TIMEOUT);
+            } finally {
+                Arrays.fill(passwordBytes, (byte) 0);
+            }
+            pooledSession = new PooledSession(key, session, maxChannelsPerSession);
+            pooledSession.leasedChannels++;
+        } finally {
+            synchronized (this) {
+                openingSessionCounts.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+                if (pooledSession != null) {
+                    if (shutdown) {
+                        pooledSession.session.disconnect();
+                        throw new JSchException("SFTP session pool has been shut down");
+                    }
+                    sessionsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(pooledSession);
+                    startEviction();
+                }
+                notifyAll();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Opened a new SFTP session to " + key);
+        }
+        return pooledSession;
+    }
+
+    private boolean isHealthy(PooledSession pooledSession) {
+        if (!pooledSession.session.isConnected()) {
+            return false;
+        }
+        if (System.currentTimeMillis() - pooledSession.lastUsedTime > HEALTH_CHECK_IDLE_TIME) {
+            try {
+                pooledSession.session.sendKeepAliveMsg();
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void discard(PooledSession pooledSession) {
+        synchronized (this) {
+            removeSession(pooledSession);
+            notifyAll();
+        }
+        pooledSession.session.disconnect();
+    }
+
+    private void removeSession(PooledSession pooledSession) {
+        List<PooledSession> sessions = sessionsByKey.get(pooledSession.key);
+        if (sessions != null) {
+            sessions.remove(pooledSession);
+            if (sessions.isEmpty()) {
+                sessionsByKey.remove(pooledSession.key);
+            }
+        }
+    }
+
+    private void evictIdleSessions() {
+        List<PooledSession> evictedSessions = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            for (Iterator<List<PooledSession>> keyIterator = sessionsByKey.values().iterator();
+                 keyIterator.hasNext(); ) {
+                List<PooledSession> sessions = keyIterator.next();
+                for (Iterator<PooledSession> iterator = sessions.iterator(); iterator.hasNext(); ) {
+                    PooledSession pooledSession = iterator.next();
+                    if (pooledSession.leasedChannels == 0 && (now - pooledSession.lastUsedTime > idleTimeout ||
+                            !pooledSession.session.isConnected())) {
+                        iterator.remove();
+                        evictedSessions.add(pooledSession);
+                    }
+                }
+                if (sessions.isEmpty()) {
+                    keyIterator.remove();
+                }
+            }
+            if (!evictedSessions.isEmpty()) {
+                notifyAll();
+            }
+        }
+        evictedSessions.forEach(pooledSession -> pooledSession.session.disconnect());
+    }
+
+    private void startEviction() {
+        if (evictionExecutor == null) {
+            evictionExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SFTPSessionEvictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            evictionExecutor.scheduleWithFixedDelay(this::evictIdleSessions, EVICTION_INTERVAL, EVICTION_INTERVAL,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized ExecutorService getTransferExecutor() throws JSchException {
+        if (shutdown) {
+            throw new JSchException("SFTP session pool has been shut down");
+        }
+        if (transferExecutor == null) {
+
+            // Bounded, as the transfers beyond the channels of the pool would only wait for a free channel.
+            AtomicInteger threadIndex = new AtomicInteger();
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(TRANSFER_THREAD_COUNT,
+                    TRANSFER_THREAD_COUNT, TRANSFER_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "SFTPTransfer-" + threadIndex.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            transferExecutor = threadPoolExecutor;
+        }
+        return transferExecutor;
+    }
+
+    private static void awaitAll(List<Future<Void>> transfers) throws JSchException, SftpException {
+        Exception failure = null;
+        for (Future<Void> transfer : transfers) {
+            try {
+                transfer.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                transfers.forEach(pendingTransfer -> pendingTransfer.cancel(true));
+                throw new JSchException("Interrupted while waiting for the SFTP transfers", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+        if (failure instanceof SftpException) {
+            throw (SftpException) failure;
+        } else if (failure instanceof JSchException) {
+            throw (JSchException) failure;
+        } else if (failure != null) {
+            throw new JSchException("Error occurred during the SFTP transfers", failure);
+        }
+    }
+
+    private static byte[] toBytes(char[] chars) {
+        ByteBuffer byteBuffer = StandardCharsets.UTF_8.encode(CharBuffer.wrap(chars));
+        byte[] bytes = Arrays.copyOfRange(byteBuffer.array(), byteBuffer.position(), byteBuffer.limit());
+        Arrays.fill(byteBuffer.array(), (byte) 0);
+        return bytes;
+    }
+
+    /**
+     * A pooled SFTP session and the number of channels currently open on it.
+     */
+    static class PooledSession {
+
+        private final String key;
+        private final Session session;
+        private int maxChannels;
+        private int leasedChannels;
+        private long lastUsedTime = System.currentTimeMillis();
+
+        private PooledSession(String key, Session session, int maxChannels) {
+            this.key = key;
+            this.session = session;
+            this.maxChannels = maxChannels;
+        }
+    }
+}
@@ -20,26 +20,35 @@ package org.wso2.security.tools.scanmanager.common.util;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.Consts;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
+import org.apache.http.NoHttpResponseException;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectTimeoutException;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.util.EntityUtils;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.RestClientException;
-
-import org.springframework.web.client.RestTemplate;
 import org.wso2.security.scanmanager.common.exception.RetryExceededException;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
 import org.wso2.security.tools.scanmanager.common.model.HTTPRequest;
+import org.wso2.security.tools.scanmanager.common.retry.RetryExecutor;
+import org.wso2.security.tools.scanmanager.common.retry.RetryPolicy;
+import org.wso2.security.tools.scanmanager.common.retry.RetryableException;
 
 import java.io.IOException;
+import java.net.ConnectException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -49,6 +58,7 @@ public class HTTPUtil {
 
     private static final Log log = LogFactory.getLog(HTTPUtil.class);
     private static final int NO_OF_RETRY_LIMIT = 6;
+    private static final long INITIAL_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
 
     /**
      * Send a POST Request.
@@ -59,7 +69,7 @@ public class HTTPUtil {
      */
     public static ResponseEntity<String> sendPOST(HTTPRequest httpRequest) throws RestClientException {
         HttpEntity<?> request = new HttpEntity<>(httpRequest.getRequestParams(), httpRequest.getRequestHeaders());
-        ResponseEntity<String> response = new RestTemplate()
+        ResponseEntity<String> response = HTTPClientPool.getInstance().getRestTemplate()
                 .exchange(httpRequest.getUrl(), HttpMethod.POST, request, String.class);
         return response;
     }
@@ -73,7 +83,7 @@ public class HTTPUtil {
      */
     public static ResponseEntity<String> sendGET(HTTPRequest httpRequest) throws RestClientException {
         HttpEntity<?> request = new HttpEntity<>(httpRequest.getRequestParams(), httpRequest.getRequestHeaders());
-        ResponseEntity<String> response = new RestTemplate()
+        ResponseEntity<String> response = HTTPClientPool.getInstance().getRestTemplate()
                 .exchange(httpRequest.getUrl(), HttpMethod.GET, request, String.class);
         return response;
     }
@@ -87,7 +97,7 @@ public class HTTPUtil {
      */
     public static ResponseEntity<String> sendDELETE(HTTPRequest httpRequest) throws RestClientException {
         HttpEntity<?> request = new HttpEntity<>(httpRequest.getRequestParams(), httpRequest.getRequestHeaders());
-        ResponseEntity<String> response = new RestTemplate()
+        ResponseEntity<String> response = HTTPClientPool.getInstance().getRestTemplate()
                 .exchange(httpRequest.getUrl(), HttpMethod.DELETE, request, String.class);
         return response;
     }
@@ -98,7 +108,7 @@ public class HTTPUtil {
      * @param url               url
      * @param requestBody       http post request body
      * @param basicAuth         basic authentication base 64 encoded string
-     * @param retryTimeInterval time interval to retry http request invocation
+     * @param retryTimeInterval maximum time between two attempts to invoke the http request in minutes
      * @return response response of HTTP Post Request
      * @throws IOException            error occurred while processing the http post request
      * @throws InterruptedException   error occurred while processing the http post request
@@ -106,6 +116,21 @@ public class HTTPUtil {
      */
     public static HttpResponse sendPOST(String url, String requestBody, char[] basicAuth, long retryTimeInterval)
             throws IOException, InterruptedException, RetryExceededException {
+        return awaitResponse(sendPOSTAsync(url, requestBody, basicAuth, retryTimeInterval));
+    }
+
+    /**
+     * Perform a http post request without blocking the calling thread.
+     *
+     * @param url               url
+     * @param requestBody       http post request body
+     * @param basicAuth         basic authentication base 64 encoded string
+     * @param retryTimeInterval maximum time between two attempts to invoke the http request in minutes
+     * @return future of the response, completed exceptionally with an {@link IOException} or a
+     * {@link RetryExceededException} if the request fails
+     */
+    public static CompletableFuture<HttpResponse> sendPOSTAsync(String url, String requestBody, char[] basicAuth,
+                                                                long retryTimeInterval) {
         HttpPost postRequest = new HttpPost(url);
         postRequest.addHeader("Authorization", "Basic " + new String(basicAuth));
         StringEntity entity;
@@ -121,7 +146,7 @@ public class HTTPUtil {
      *
      * @param url               url
      * @param basicAuth         basic authentication base 64 encoded string
-     * @param retryTimeInterval time interval to retry http request invocation
+     * @param retryTimeInterval maximum time between two attempts to invoke the http request in minutes
      * @return response
      * @throws IOException            error occurred while processing the http get request
      * @throws InterruptedException   error occurred while processing the http get request
@@ -129,77 +154,114 @@ public class HTTPUtil {
      */
     public static HttpResponse sendGET(String url, char[] basicAuth, Long retryTimeInterval)
             throws IOException, InterruptedException, RetryExceededException {
-        HttpResponse response;
+        return awaitResponse(sendGETAsync(url, basicAuth, retryTimeInterval));
+    }
+
+    /**
+     * Perform a http get request without blocking the calling thread.
+     *
+     * @param url               url
+     * @param basicAuth         basic authentication base 64 encoded string
+     * @param retryTimeInterval maximum time between two attempts to invoke the http request in minutes
+     * @return future of the response, completed exceptionally with an {@link IOException} or a
+     * {@link RetryExceededException} if the request fails
+     */
+    public static CompletableFuture<HttpResponse> sendGETAsync(String url, char[] basicAuth, Long retryTimeInterval) {
         HttpGet getRequest = new HttpGet(url);
         getRequest.addHeader("Authorization", "Basic " + new String(basicAuth));
         getRequest.addHeader("Accept", "application/xml");
-        response = executeHTTPRequest(getRequest, retryTimeInterval);
-        return response;
+        return executeHTTPRequest(getRequest, retryTimeInterval);
     }
 
     /**
-     * Execute provide request and retry if it is required.
+     * Execute provide request and retry if it is required. The request is retried on the retry executor with an
+     * exponential, jittered backoff starting from {@link #INITIAL_RETRY_DELAY} and capped at the given retry interval,
+     * for at most {@link #NO_OF_RETRY_LIMIT} times the retry interval. A Retry-After header sent by the endpoint is
+     * honoured.
      *
      * @param request           POST request or GET request
-     * @param retryTimeInterval retry interval time
-     * @return return http response if it is successful only
-     * @throws IOException            error occurred while performing the request
-     * @throws RetryExceededException Retry limit is exceeded
-     * @throws InterruptedException   error occurred while waiting for retrying
+     * @param retryTimeInterval maximum time between two attempts in minutes
+     * @return future of the http response, which is completed only if the request is successful
      */
-    private static HttpResponse executeHTTPRequest(HttpUriRequest request, Long retryTimeInterval)
-            throws IOException, RetryExceededException, InterruptedException {
-        int noOfRetry = 0;
-        HttpResponse response;
-        HttpClient client = HttpClientBuilder.create().build();
-        response = client.execute(request);
-        while (isRetryRequired(response)) {
-            noOfRetry += 1;
-            log.info("Endpoint is not currently available and will retry after " + retryTimeInterval + " Seconds");
-            awaitForRetry(retryTimeInterval, noOfRetry);
-            response = client.execute(request);
-        }
-        return response;
+    private static CompletableFuture<HttpResponse> executeHTTPRequest(HttpUriRequest request,
+                                                                      Long retryTimeInterval) {
+        HttpClient client = HTTPClientPool.getInstance().getHttpClient();
+        long maxRetryDelay = Math.max(INITIAL_RETRY_DELAY, TimeUnit.MINUTES.toMillis(retryTimeInterval));
+        RetryPolicy retryPolicy = new RetryPolicy(INITIAL_RETRY_DELAY, maxRetryDelay,
+                maxRetryDelay * NO_OF_RETRY_LIMIT);
+        String endpoint = request.getURI().getScheme() + "://" + request.getURI().getAuthority();
+
+        return RetryExecutor.getInstance().execute(endpoint, retryPolicy, () -> {
+            HttpResponse response;
+            try {
+                response = client.execute(request);
+            } catch (ConnectException | ConnectTimeoutException | NoHttpResponseException e) {
+                throw new RetryableException(e.getMessage(), e);
+            }
+            int responseCode = response.getStatusLine().getStatusCode();
+            if (responseCode != HttpStatus.OK.value()) {
+
+                // Consume the discarded response, so that its connection is returned to the pool.
+                EntityUtils.consumeQuietly(response.getEntity());
+                if (!RetryPolicy.isRetryableStatus(responseCode)) {
+
+                    // Client errors other than request timeouts and rate limiting are final, as the endpoint would
+                    // answer the same to a retry.
+                    throw new HttpResponseException(responseCode, response.getStatusLine().getReasonPhrase());
+                }
+                Header retryAfterHeader = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+                throw new RetryableException("Response code " + responseCode,
+                        RetryPolicy.parseRetryAfter(retryAfterHeader == null ? null : retryAfterHeader.getValue()));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("HTTP connection pool usage: " + HTTPClientPool.getInstance().getTotalStats());
+            }
+            return response;
+        }, HTTPUtil::discard);
     }
 
     /**
-     * Check whether retry required or not based on response code.
+     * Wait for the response of a request sent with {@link #sendPOSTAsync} or {@link #sendGETAsync}.
      *
-     * @param response HTTP response
-     * @return true if retrying http request required
-     * @throws HttpResponseException http response exception
+     * @param result future of the response
+     * @return http response
+     * @throws IOException            error occurred while performing the request
+     * @throws RetryExceededException Retry limit is exceeded
+     * @throws InterruptedException   the calling thread is interrupted while waiting for the response
      */
-    private static boolean isRetryRequired(HttpResponse response) throws HttpResponseException {
-        int responseCode = response.getStatusLine().getStatusCode();
-        if (responseCode == HttpStatus.OK.value()) {
-            return false;
-        } else if (HttpStatus.NOT_FOUND.value() == responseCode
-                || HttpStatus.INTERNAL_SERVER_ERROR.value() == responseCode
-                || HttpStatus.REQUEST_TIMEOUT.value() == responseCode
-                || HttpStatus.SERVICE_UNAVAILABLE.value() == responseCode) {
-            return true;
-        } else {
-            throw new HttpResponseException(response.getStatusLine().getStatusCode(),
-                    response.getStatusLine().getReasonPhrase());
+    private static HttpResponse awaitResponse(CompletableFuture<HttpResponse> result)
+            throws IOException, RetryExceededException, InterruptedException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+
+            // A response that completes after the cancellation is discarded by the retry executor, while a response
+            // that completed before it is never read by the caller.
+            if (!result.cancel(true) && !result.isCompletedExceptionally()) {
+                discard(result.getNow(null));
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RetryExceededException) {
+                throw (RetryExceededException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Error occurred while performing the request", cause);
         }
     }
 
     /**
-     * Wait to retry http request invocation.
+     * Consume a response that is not read, so that its connection is returned to the pool.
      *
-     * @param retryTimeInterval retry interval time
-     * @param noOfRetry         no of retry
-     * @throws InterruptedException   error occurred while waiting for retrying
-     * @throws RetryExceededException Retry limit is exceeded
+     * @param response HTTP response
      */
-    private static void awaitForRetry(Long retryTimeInterval, int noOfRetry)
-            throws InterruptedException, RetryExceededException {
-        if (noOfRetry < NO_OF_RETRY_LIMIT) {
-            TimeUnit.MINUTES.sleep(retryTimeInterval);
-        } else {
-            throw new RetryExceededException(
-                    "Unable to reach Endpoint. Retried for " + NO_OF_RETRY_LIMIT + " times with the the interval "
-                            + retryTimeInterval.toString());
+    private static void discard(HttpResponse response) {
+        if (response != null) {
+            EntityUtils.consumeQuietly(response.getEntity());
         }
     }
 }
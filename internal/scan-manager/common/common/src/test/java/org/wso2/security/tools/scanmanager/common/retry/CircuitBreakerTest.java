@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the circuit breaker.
+ */
+public class CircuitBreakerTest {
+
+    private static final int FAILURE_THRESHOLD = 3;
+    private static final long OPEN_DURATION = 200;
+
+    @Test
+    public void testOpenAfterConsecutiveFailures() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(FAILURE_THRESHOLD, TimeUnit.MINUTES.toMillis(1));
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            Assert.assertEquals(circuitBreaker.acquirePermission(), 0);
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertFalse(circuitBreaker.isOpen());
+
+        // A success resets the consecutive failures.
+        circuitBreaker.recordSuccess();
+        for (int i = 0; i < FAILURE_THRESHOLD - 1; i++) {
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertFalse(circuitBreaker.isOpen());
+        circuitBreaker.recordFailure();
+        Assert.assertTrue(circuitBreaker.isOpen());
+        Assert.assertTrue(circuitBreaker.acquirePermission() > 0);
+    }
+
+    @Test
+    public void testSingleTrialAttemptOnceOpenDurationPassed() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN_DURATION + 50);
+
+        Assert.assertEquals(circuitBreaker.acquirePermission(), 0);
+        Assert.assertEquals(circuitBreaker.acquirePermission(), OPEN_DURATION);
+        circuitBreaker.recordSuccess();
+        Assert.assertFalse(circuitBreaker.isOpen());
+        Assert.assertEquals(circuitBreaker.acquirePermission(), 0);
+    }
+
+    @Test
+    public void testFailedTrialAttemptOpensAgain() throws InterruptedException {
+        CircuitBreaker circuitBreaker = openCircuitBreaker();
+        TimeUnit.MILLISECONDS.sleep(OPEN_DURATION + 50);
+
+        Assert.assertEquals(circuitBreaker.acquirePermission(), 0);
+        circuitBreaker.recordFailure();
+        Assert.assertTrue(circuitBreaker.isOpen());
+        long remainingOpenTime = circuitBreaker.acquirePermission();
+        Assert.assertTrue(remainingOpenTime > 0 && remainingOpenTime <= OPEN_DURATION,
+                "Remaining open time " + remainingOpenTime);
+    }
+
+    private static CircuitBreaker openCircuitBreaker() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(FAILURE_THRESHOLD, OPEN_DURATION);
+        for (int i = 0; i < FAILURE_THRESHOLD; i++) {
+            circuitBreaker.recordFailure();
+        }
+        Assert.assertTrue(circuitBreaker.isOpen());
+        return circuitBreaker;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.common.retry;
+
+import org.apache.http.client.utils.DateUtils;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the retry policy.
+ */
+public class RetryPolicyTest {
+
+    private static final long INITIAL_DELAY = 1000;
+    private static final long MAX_DELAY = 10000;
+
+    @Test
+    public void testDelayIsExponentialJitteredAndCapped() {
+        RetryPolicy retryPolicy = new RetryPolicy(INITIAL_DELAY, MAX_DELAY, TimeUnit.MINUTES.toMillis(1));
+        for (int retryCount = 1; retryCount <= 10; retryCount++) {
+            long cappedDelay = Math.min(MAX_DELAY, INITIAL_DELAY << (retryCount - 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = retryPolicy.getDelay(retryCount);
+                Assert.assertTrue(delay >= cappedDelay / 2 && delay <= cappedDelay,
+                        "Delay " + delay + " of the retry " + retryCount + " is out of range");
+            }
+        }
+    }
+
+    @Test
+    public void testRetryableStatus() {
+        for (int statusCode : new int[]{408, 429, 500, 502, 503, 504}) {
+            Assert.assertTrue(RetryPolicy.isRetryableStatus(statusCode), "Status " + statusCode);
+        }
+        for (int statusCode : new int[]{200, 400, 401, 403, 404, 501, 505}) {
+            Assert.assertFalse(RetryPolicy.isRetryableStatus(statusCode), "Status " + statusCode);
+        }
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        Assert.assertEquals(RetryPolicy.parseRetryAfter("5"), TimeUnit.SECONDS.toMillis(5));
+        Assert.assertEquals(RetryPolicy.parseRetryAfter(" 0 "), 0);
+        Assert.assertEquals(RetryPolicy.parseRetryAfter(null), -1);
+        Assert.assertEquals(RetryPolicy.parseRetryAfter(""), -1);
+        Assert.assertEquals(RetryPolicy.parseRetryAfter("soon"), -1);
+
+        long retryAfter = RetryPolicy.parseRetryAfter(DateUtils.formatDate(
+                new Date(System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(2))));
+        Assert.assertTrue(retryAfter > TimeUnit.MINUTES.toMillis(1) && retryAfter <= TimeUnit.MINUTES.toMillis(2),
+                "Retry after " + retryAfter);
+        Assert.assertEquals(RetryPolicy.parseRetryAfter(DateUtils.formatDate(new Date(0))), 0);
+    }
+}
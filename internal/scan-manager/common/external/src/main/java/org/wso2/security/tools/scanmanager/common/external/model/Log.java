@@ -29,6 +29,7 @@ import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
@@ -37,7 +38,9 @@ import javax.persistence.Table;
  * Model class to represent a Logs in the scan containers.
  */
 @Entity
-@Table(name = "LOG")
+@Table(name = "LOG", indexes = {
+        @Index(name = "LOG_JOB_ID_TIME_CREATED_INDEX", columnList = "JOB_ID, TIME_CREATED, ID")
+})
 public class Log {
 
     @Id
@@ -31,6 +31,7 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
@@ -40,7 +41,9 @@ import javax.persistence.Table;
  * Model class to represent a scan.
  */
 @Entity
-@Table(name = "SCAN")
+@Table(name = "SCAN", indexes = {
+        @Index(name = "SCAN_SUBMITTED_TIMESTAMP_INDEX", columnList = "SUBMITTED_TIMESTAMP, JOB_ID")
+})
 public class Scan {
 
     @Id
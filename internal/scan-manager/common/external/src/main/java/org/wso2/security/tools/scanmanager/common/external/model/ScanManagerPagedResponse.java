@@ -18,7 +18,8 @@
 package org.wso2.security.tools.scanmanager.common.external.model;
 
 /**
- * Model class to represent a paged response from scan manager.
+ * Model class to represent a paged response from scan manager. Pages read by a cursor carry the cursor of the next
+ * page instead of the page counts.
  */
 public class ScanManagerPagedResponse {
 
@@ -29,6 +30,7 @@ public class ScanManagerPagedResponse {
     private boolean hasPreviousPage;
     private boolean isFirstPage;
     private boolean isLastPage;
+    private String nextCursor;
 
     public ScanManagerPagedResponse(Integer totalPages, Integer currentPage, Integer pageSize, boolean hasNextPage,
                                     boolean hasPreviousPage, boolean isFirstPage, boolean isLastPage) {
@@ -99,4 +101,12 @@ public class ScanManagerPagedResponse {
     public void setLastPage(boolean lastPage) {
         isLastPage = lastPage;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
 }
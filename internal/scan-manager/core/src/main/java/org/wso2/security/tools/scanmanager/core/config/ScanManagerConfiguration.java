@@ -21,8 +21,24 @@ import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
 
 import java.util.Map;
 
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_CONTAINER_HOST_PORT_RANGE_END;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_CONTAINER_HOST_PORT_RANGE_START;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_CONTAINER_INDEX_RECONCILIATION_INTERVAL;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_DISPATCHER_THREAD_COUNT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_HTTP_CONNECT_TIMEOUT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_HTTP_MAX_CONNECTIONS;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_HTTP_SOCKET_TIMEOUT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_LOG_BATCH_FLUSH_INTERVAL;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_LOG_BATCH_SIZE;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_LOG_BUFFER_CAPACITY;
 import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_LOG_PAGE_SIZE;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_OCCUPANCY_RECONCILIATION_INTERVAL;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_SCANNER_READINESS_TIMEOUT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_SCANNER_START_THREAD_COUNT;
 import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_SCAN_PAGE_SIZE;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_WARM_POOL_SIZE;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.DEFAULT_WARM_POOL_THREAD_COUNT;
 
 /**
  * Scan Manager configuration model class.
@@ -35,6 +51,22 @@ public class ScanManagerConfiguration {
     private String scannerServiceHost;
     private Integer scanPageSize;
     private Integer logPageSize;
+    private Integer dispatcherThreadCount;
+    private Integer scannerStartThreadCount;
+    private Integer scannerReadinessTimeout;
+    private Integer warmPoolSize;
+    private Integer warmPoolThreadCount;
+    private Integer containerIndexReconciliationInterval;
+    private Integer containerHostPortRangeStart;
+    private Integer containerHostPortRangeEnd;
+    private Integer logBufferCapacity;
+    private Integer logBatchSize;
+    private Integer logBatchFlushInterval;
+    private Integer occupancyReconciliationInterval;
+    private Integer httpMaxConnections;
+    private Integer httpMaxConnectionsPerRoute;
+    private Integer httpConnectTimeout;
+    private Integer httpSocketTimeout;
 
     private static final String SCAN_MANAGER_HOST_KEY = "scanManagerHost";
     private static final String SCAN_MANAGER_PORT_KEY = "scanManagerPort";
@@ -42,6 +74,22 @@ public class ScanManagerConfiguration {
     private static final String SCANNER_SERVICE_PORT_KEY = "scannerServicePort";
     private static final String SCAN_PAGE_SIZE = "scanPageSize";
     private static final String LOG_PAGE_SIZE = "logPageSize";
+    private static final String DISPATCHER_THREAD_COUNT = "dispatcherThreadCount";
+    private static final String SCANNER_START_THREAD_COUNT = "scannerStartThreadCount";
+    private static final String SCANNER_READINESS_TIMEOUT = "scannerReadinessTimeout";
+    private static final String WARM_POOL_SIZE = "warmPoolSize";
+    private static final String WARM_POOL_THREAD_COUNT = "warmPoolThreadCount";
+    private static final String CONTAINER_INDEX_RECONCILIATION_INTERVAL = "containerIndexReconciliationInterval";
+    private static final String CONTAINER_HOST_PORT_RANGE_START = "containerHostPortRangeStart";
+    private static final String CONTAINER_HOST_PORT_RANGE_END = "containerHostPortRangeEnd";
+    private static final String LOG_BUFFER_CAPACITY = "logBufferCapacity";
+    private static final String LOG_BATCH_SIZE = "logBatchSize";
+    private static final String LOG_BATCH_FLUSH_INTERVAL = "logBatchFlushInterval";
+    private static final String OCCUPANCY_RECONCILIATION_INTERVAL = "occupancyReconciliationInterval";
+    private static final String HTTP_MAX_CONNECTIONS = "httpMaxConnections";
+    private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "httpMaxConnectionsPerRoute";
+    private static final String HTTP_CONNECT_TIMEOUT = "httpConnectTimeout";
+    private static final String HTTP_SOCKET_TIMEOUT = "httpSocketTimeout";
 
     private static final ScanManagerConfiguration scanManagerConfiguration = new ScanManagerConfiguration();
 
@@ -88,6 +136,23 @@ public class ScanManagerConfiguration {
         // Not mandatory as there are default values.
         this.scanPageSize = (Integer) configObjectMap.get(SCAN_PAGE_SIZE);
         this.logPageSize = (Integer) configObjectMap.get(LOG_PAGE_SIZE);
+        this.dispatcherThreadCount = (Integer) configObjectMap.get(DISPATCHER_THREAD_COUNT);
+        this.scannerStartThreadCount = (Integer) configObjectMap.get(SCANNER_START_THREAD_COUNT);
+        this.scannerReadinessTimeout = (Integer) configObjectMap.get(SCANNER_READINESS_TIMEOUT);
+        this.warmPoolSize = (Integer) configObjectMap.get(WARM_POOL_SIZE);
+        this.warmPoolThreadCount = (Integer) configObjectMap.get(WARM_POOL_THREAD_COUNT);
+        this.containerIndexReconciliationInterval =
+                (Integer) configObjectMap.get(CONTAINER_INDEX_RECONCILIATION_INTERVAL);
+        this.containerHostPortRangeStart = (Integer) configObjectMap.get(CONTAINER_HOST_PORT_RANGE_START);
+        this.containerHostPortRangeEnd = (Integer) configObjectMap.get(CONTAINER_HOST_PORT_RANGE_END);
+        this.logBufferCapacity = (Integer) configObjectMap.get(LOG_BUFFER_CAPACITY);
+        this.logBatchSize = (Integer) configObjectMap.get(LOG_BATCH_SIZE);
+        this.logBatchFlushInterval = (Integer) configObjectMap.get(LOG_BATCH_FLUSH_INTERVAL);
+        this.occupancyReconciliationInterval = (Integer) configObjectMap.get(OCCUPANCY_RECONCILIATION_INTERVAL);
+        this.httpMaxConnections = (Integer) configObjectMap.get(HTTP_MAX_CONNECTIONS);
+        this.httpMaxConnectionsPerRoute = (Integer) configObjectMap.get(HTTP_MAX_CONNECTIONS_PER_ROUTE);
+        this.httpConnectTimeout = (Integer) configObjectMap.get(HTTP_CONNECT_TIMEOUT);
+        this.httpSocketTimeout = (Integer) configObjectMap.get(HTTP_SOCKET_TIMEOUT);
     }
 
     public String getScanManagerHost() {
@@ -119,4 +184,116 @@ public class ScanManagerConfiguration {
         }
         return logPageSize;
     }
+
+    public Integer getDispatcherThreadCount() {
+        if (dispatcherThreadCount == null) {
+            return DEFAULT_DISPATCHER_THREAD_COUNT;
+        }
+        return dispatcherThreadCount;
+    }
+
+    public Integer getScannerStartThreadCount() {
+        if (scannerStartThreadCount == null) {
+            return DEFAULT_SCANNER_START_THREAD_COUNT;
+        }
+        return scannerStartThreadCount;
+    }
+
+    public Integer getScannerReadinessTimeout() {
+        if (scannerReadinessTimeout == null) {
+            return DEFAULT_SCANNER_READINESS_TIMEOUT;
+        }
+        return scannerReadinessTimeout;
+    }
+
+    public Integer getWarmPoolSize() {
+        if (warmPoolSize == null) {
+            return DEFAULT_WARM_POOL_SIZE;
+        }
+        return warmPoolSize;
+    }
+
+    public Integer getWarmPoolThreadCount() {
+        if (warmPoolThreadCount == null) {
+            return DEFAULT_WARM_POOL_THREAD_COUNT;
+        }
+        return warmPoolThreadCount;
+    }
+
+    public Integer getContainerIndexReconciliationInterval() {
+        if (containerIndexReconciliationInterval == null) {
+            return DEFAULT_CONTAINER_INDEX_RECONCILIATION_INTERVAL;
+        }
+        return containerIndexReconciliationInterval;
+    }
+
+    public Integer getContainerHostPortRangeStart() {
+        if (containerHostPortRangeStart == null) {
+            return DEFAULT_CONTAINER_HOST_PORT_RANGE_START;
+        }
+        return containerHostPortRangeStart;
+    }
+
+    public Integer getContainerHostPortRangeEnd() {
+        if (containerHostPortRangeEnd == null) {
+            return DEFAULT_CONTAINER_HOST_PORT_RANGE_END;
+        }
+        return containerHostPortRangeEnd;
+    }
+
+    public Integer getLogBufferCapacity() {
+        if (logBufferCapacity == null) {
+            return DEFAULT_LOG_BUFFER_CAPACITY;
+        }
+        return logBufferCapacity;
+    }
+
+    public Integer getLogBatchSize() {
+        if (logBatchSize == null) {
+            return DEFAULT_LOG_BATCH_SIZE;
+        }
+        return logBatchSize;
+    }
+
+    public Integer getLogBatchFlushInterval() {
+        if (logBatchFlushInterval == null) {
+            return DEFAULT_LOG_BATCH_FLUSH_INTERVAL;
+        }
+        return logBatchFlushInterval;
+    }
+
+    public Integer getOccupancyReconciliationInterval() {
+        if (occupancyReconciliationInterval == null) {
+            return DEFAULT_OCCUPANCY_RECONCILIATION_INTERVAL;
+        }
+        return occupancyReconciliationInterval;
+    }
+
+    public Integer getHttpMaxConnections() {
+        if (httpMaxConnections == null) {
+            return DEFAULT_HTTP_MAX_CONNECTIONS;
+        }
+        return httpMaxConnections;
+    }
+
+    public Integer getHttpMaxConnectionsPerRoute() {
+        if (httpMaxConnectionsPerRoute == null) {
+            return DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+        }
+        return httpMaxConnectionsPerRoute;
+    }
+
+    public Integer getHttpConnectTimeout() {
+        if (httpConnectTimeout == null) {
+            return DEFAULT_HTTP_CONNECT_TIMEOUT;
+        }
+        return httpConnectTimeout;
+    }
+
+    public Integer getHttpSocketTimeout() {
+        if (httpSocketTimeout == null) {
+            return DEFAULT_HTTP_SOCKET_TIMEOUT;
+        }
+        return httpSocketTimeout;
+    }
 }
@@ -20,10 +20,18 @@ package org.wso2.security.tools.scanmanager.core.config;
 import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
+import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.handler.WarmContainerPool;
 import org.wso2.security.tools.scanmanager.core.service.ScanEngineService;
+import org.wso2.security.tools.scanmanager.core.service.ScanService;
+import org.wso2.security.tools.scanmanager.core.service.ScannerService;
 
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * This class defines start up methods of the application.
@@ -34,10 +42,17 @@ public class StartUpInit {
     private static final Logger logger = Logger.getLogger(StartUpInit.class);
 
     private ScanEngineService scanEngineService;
+    private ScannerService scannerService;
+    private ScanService scanService;
+    private WarmContainerPool warmContainerPool;
 
     @Autowired
-    public StartUpInit(ScanEngineService scanEngineService) {
+    public StartUpInit(ScanEngineService scanEngineService, ScannerService scannerService, ScanService scanService,
+                       WarmContainerPool warmContainerPool) {
         this.scanEngineService = scanEngineService;
+        this.scannerService = scannerService;
+        this.scanService = scanService;
+        this.warmContainerPool = warmContainerPool;
     }
 
     @PostConstruct
@@ -45,6 +60,14 @@ public class StartUpInit {
         try {
             ScanManagerConfiguration.getInstance()
                     .initScanConfiguration(ScanMangerConfigurationBuilder.getConfiguration());
+            ScanManagerConfiguration configuration = ScanManagerConfiguration.getInstance();
+            HTTPClientPool.getInstance().configure(configuration.getHttpMaxConnections(),
+                    configuration.getHttpMaxConnectionsPerRoute(),
+                    (int) TimeUnit.SECONDS.toMillis(configuration.getHttpConnectTimeout()),
+                    (int) TimeUnit.SECONDS.toMillis(configuration.getHttpSocketTimeout()));
+
+            // Adopting the warm scanner containers of the previous run and filling the warm pools.
+            warmContainerPool.initialize(scannerService.getAll(), this::isActiveScanJob);
 
             // Starting all pending scans during the application startup.
             scanEngineService.beginPendingScans();
@@ -52,4 +75,15 @@ public class StartUpInit {
             logger.error("Error occurred while initializing", e);
         }
     }
+
+    private boolean isActiveScanJob(String jobId) {
+        Scan scan = scanService.getByJobId(jobId);
+        return scan != null && scan.getStatus() != ScanStatus.COMPLETED && scan.getStatus() != ScanStatus.ERROR &&
+                scan.getStatus() != ScanStatus.CANCELED;
+    }
+
+    @PreDestroy
+    public void destroy() {
+        HTTPClientPool.getInstance().shutdown();
+    }
 }
@@ -64,11 +64,10 @@ public class CallbackController {
     @PostMapping(value = "persist-scan-log")
     @ResponseBody
     public ResponseEntity persistScanLog(@RequestBody ScanLogRequest scanLogRequest) throws InvalidRequestException {
-        if (scanService.getByJobId(scanLogRequest.getJobId()) == null) {
+        if (!logService.insert(new Scan(scanLogRequest.getJobId()), scanLogRequest.getType(),
+                scanLogRequest.getTimestamp(), scanLogRequest.getMessage())) {
             throw new InvalidRequestException("Invalid job id");
         }
-        logService.insert(new Scan(scanLogRequest.getJobId()), scanLogRequest.getType(), scanLogRequest.getTimestamp(),
-                scanLogRequest.getMessage());
         return new ResponseEntity(HttpStatus.OK);
     }
 
@@ -17,22 +17,32 @@
  */
 package org.wso2.security.tools.scanmanager.core.controller;
 
+import org.apache.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.wso2.security.tools.scanmanager.common.external.model.Log;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.external.model.ScanManagerLogResponse;
+import org.wso2.security.tools.scanmanager.common.internal.model.ScanLogRequest;
 import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.exception.ResourceNotFoundException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
 import org.wso2.security.tools.scanmanager.core.service.LogService;
 import org.wso2.security.tools.scanmanager.core.service.ScanService;
 
+import java.util.List;
+
 /**
  * Web controller which defines the routines for managing scanners.
  */
@@ -40,6 +50,8 @@ import org.wso2.security.tools.scanmanager.core.service.ScanService;
 @RequestMapping("scan-manager")
 public class LogController {
 
+    private static final Logger logger = Logger.getLogger(LogController.class);
+
     private LogService logService;
     private ScanService scanService;
 
@@ -50,22 +62,34 @@ public class LogController {
     }
 
     /**
-     * Get logs by scan.
+     * Get logs by scan. When a cursor is given, the logs are read by keyset pagination, which does not slow down for
+     * deep pages. An empty cursor requests the first page, and each page carries the cursor of the next page.
      *
-     * @param jobId job id of the scan
-     * @param page  required page number
+     * @param jobId  job id of the scan
+     * @param page   required page number
+     * @param cursor cursor of the required page
      * @return a list of logs for the given scan
      * @throws ResourceNotFoundException if the scan cannot be found for the given job id
+     * @throws InvalidRequestException   if the cursor is invalid
      */
     @GetMapping(value = "logs")
     public ResponseEntity<ScanManagerLogResponse> getLogs(@RequestParam("jobId") String jobId,
-                                                          @RequestParam(name = "page", required = false) Integer page)
-            throws ResourceNotFoundException {
+                                                          @RequestParam(name = "page", required = false) Integer page,
+                                                          @RequestParam(name = "cursor", required = false)
+                                                                  String cursor)
+            throws ResourceNotFoundException, InvalidRequestException {
         Integer logPageSize = ScanManagerConfiguration.getInstance().getLogPageSize();
         if (page == null) {
             page = 1;  // Initialize to first page if no page number is defined.
         }
         Scan scan = scanService.getByJobId(jobId);
+        if (scan != null && cursor != null) {
+            CursorPage<Log> logsPage = logService.getByScanAndCursor(scan, cursor, logPageSize);
+            ScanManagerLogResponse logResponse = new ScanManagerLogResponse(logsPage.getContent(), null, null,
+                    logPageSize, logsPage.hasNext(), !cursor.isEmpty(), cursor.isEmpty(), !logsPage.hasNext());
+            logResponse.setNextCursor(logsPage.getNextCursor());
+            return new ResponseEntity<>(logResponse, HttpStatus.OK);
+        }
 
         //internal page indexing starts at 0
         Page<Log> logs = logService.getByScan(scan, page - 1, logPageSize);
@@ -77,4 +101,28 @@ public class LogController {
             throw new ResourceNotFoundException("Unable to find logs for the given job Id: " + jobId);
         }
     }
+
+    /**
+     * Persist a batch of logs sent by the scanner services. Logs of unknown scans are skipped, so that a single
+     * invalid log does not cause the whole batch to be retried.
+     *
+     * @param scanLogRequests scan log requests
+     * @return success response once the logs are accepted
+     */
+    @PostMapping(value = "logs", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity persistLogs(@RequestBody List<ScanLogRequest> scanLogRequests) {
+        int skippedLogCount = 0;
+        for (ScanLogRequest scanLogRequest : scanLogRequests) {
+            if (scanLogRequest.getType() == null || !logService.insert(new Scan(scanLogRequest.getJobId()),
+                    scanLogRequest.getType(), scanLogRequest.getTimestamp(), scanLogRequest.getMessage())) {
+                skippedLogCount++;
+            }
+        }
+        if (skippedLogCount > 0) {
+            logger.warn("Skipped " + skippedLogCount + " of " + scanLogRequests.size() + " logs as they are " +
+                    "invalid or do not belong to a known scan");
+        }
+        return new ResponseEntity(HttpStatus.OK);
+    }
 }
@@ -31,6 +31,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.external.model.ScanExternal;
 import org.wso2.security.tools.scanmanager.common.external.model.ScanFile;
@@ -47,11 +48,13 @@ import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
 import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.exception.ResourceNotFoundException;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
 import org.wso2.security.tools.scanmanager.core.service.LogService;
 import org.wso2.security.tools.scanmanager.core.service.ScanEngineService;
 import org.wso2.security.tools.scanmanager.core.service.ScanService;
 import org.wso2.security.tools.scanmanager.core.service.ScannerService;
 import org.wso2.security.tools.scanmanager.core.service.UserService;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
 
 import java.sql.Timestamp;
 import java.util.HashSet;
@@ -77,15 +80,18 @@ public class ScanController {
     private LogService logService;
     private ScanEngineService scanEngineService;
     private UserService userService;
+    private ScanEventBroadcaster scanEventBroadcaster;
 
     @Autowired
     public ScanController(ScannerService scannerService, ScanService scanService, LogService logService,
-                          ScanEngineService scanEngineService, UserService userService) {
+                          ScanEngineService scanEngineService, UserService userService,
+                          ScanEventBroadcaster scanEventBroadcaster) {
         this.scannerService = scannerService;
         this.scanService = scanService;
         this.logService = logService;
         this.scanEngineService = scanEngineService;
         this.userService = userService;
+        this.scanEventBroadcaster = scanEventBroadcaster;
     }
 
     /**
@@ -130,8 +136,8 @@ public class ScanController {
         scan.setUserId(user.getId());
         scan = scanService.insert(scan);
 
-        // Starting the pending scans.
-        new Thread(() -> scanEngineService.beginPendingScans(), "BeginPendingScansFromStartScanRequest").start();
+        // Queue the scan to be dispatched to a free scanner app.
+        scanEngineService.queueScan(scan);
         return new ResponseEntity<>(new ScanExternal(scan), HttpStatus.ACCEPTED);
     }
 
@@ -164,16 +170,33 @@ public class ScanController {
     }
 
     /**
-     * Get the list of available scans by page.
+     * Get the list of available scans by page. When a cursor is given, the scans are read by keyset pagination,
+     * which does not slow down for deep pages. An empty cursor requests the first page, and each page carries the
+     * cursor of the next page.
      *
-     * @param page required page number
+     * @param page   required page number
+     * @param cursor cursor of the required page
      * @return the requested scans page
+     * @throws InvalidRequestException when the cursor is invalid
      */
     @GetMapping(path = "scans")
     @ResponseBody
     public ResponseEntity<ScanManagerScansResponse> getScans(@RequestParam(name = "page", required = false)
-                                                                     Integer page) {
+                                                                     Integer page,
+                                                             @RequestParam(name = "cursor", required = false)
+                                                                     String cursor)
+            throws InvalidRequestException {
         Integer scanPageSize = ScanManagerConfiguration.getInstance().getScanPageSize();
+        if (cursor != null) {
+            CursorPage<Scan> scansPage = scanService.getAllByCursor(cursor, scanPageSize);
+            List<ScanExternal> scanExternalList = scansPage.getContent().stream()
+                    .map(ScanExternal::new)
+                    .collect(Collectors.toList());
+            ScanManagerScansResponse scansResponse = new ScanManagerScansResponse(scanExternalList, null, null,
+                    scanPageSize, scansPage.hasNext(), !cursor.isEmpty(), cursor.isEmpty(), !scansPage.hasNext());
+            scansResponse.setNextCursor(scansPage.getNextCursor());
+            return new ResponseEntity<>(scansResponse, HttpStatus.OK);
+        }
         if (page == null) {
             page = 1;  // Initialize to first page if no page number is defined.
         }
@@ -207,6 +230,24 @@ public class ScanController {
         }
     }
 
+    /**
+     * Stream the logs and the status transitions of a scan as server-sent events. The current status of the scan is
+     * sent as the first event and the stream is completed once the scan reaches a final status.
+     *
+     * @param jobId job id of the scan
+     * @return emitter of the events of the scan
+     * @throws ResourceNotFoundException when the requested scan is not found
+     */
+    @GetMapping(value = "scans/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @ResponseBody
+    public SseEmitter streamScanEvents(@PathVariable("id") String jobId) throws ResourceNotFoundException {
+        Scan scan = scanService.getByJobId(jobId);
+        if (scan == null) {
+            throw new ResourceNotFoundException("Unable to find a scan for the given job Id: " + jobId);
+        }
+        return scanEventBroadcaster.subscribe(jobId, scan.getStatus());
+    }
+
     /**
      * Submit cancel scan request.
      *
@@ -267,6 +308,12 @@ public class ScanController {
             scanService.updatePriority(jobId, scanPriorityUpdateRequest.getPriority());
             logService.insert(scan, LogType.INFO, "Updated scan priority: " +
                     scanPriorityUpdateRequest.getPriority());
+
+            // Re-queue a pending scan so that its position in the pool reflects the new priority.
+            if (scan.getStatus() == ScanStatus.SUBMIT_PENDING) {
+                scan.setPriority(scanPriorityUpdateRequest.getPriority().getValue());
+                scanEngineService.queueScan(scan);
+            }
             return new ResponseEntity(HttpStatus.OK);
         } else {
             throw new ResourceNotFoundException("Unable to find a scan for the given job Id: " + jobId);
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.dao;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.wso2.security.tools.scanmanager.common.external.model.Log;
+
+import java.util.List;
+import javax.sql.DataSource;
+
+/**
+ * The DAO class that inserts the scan logs in JDBC batches. The log entity uses an identity id, which prevents the
+ * JPA provider from batching the inserts.
+ */
+@Repository
+public class LogBatchDAO {
+
+    private static final String INSERT_LOG_QUERY = "INSERT INTO LOG (JOB_ID, TYPE, TIME_CREATED, MESSAGE) " +
+            "VALUES (?, ?, ?, ?)";
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public LogBatchDAO(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Insert a list of logs in a single batch and transaction.
+     *
+     * @param logs logs to be inserted
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertAll(List<Log> logs) {
+        jdbcTemplate.batchUpdate(INSERT_LOG_QUERY, logs, logs.size(), (preparedStatement, log) -> {
+            preparedStatement.setString(1, log.getScan().getJobId());
+            preparedStatement.setString(2, log.getType().name());
+            preparedStatement.setTimestamp(3, log.getTimeStamp());
+            preparedStatement.setString(4, log.getMessage());
+        });
+    }
+}
@@ -19,11 +19,17 @@ package org.wso2.security.tools.scanmanager.core.dao;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.wso2.security.tools.scanmanager.common.external.model.Log;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 
+import java.math.BigInteger;
+import java.sql.Timestamp;
+import java.util.List;
+
 /**
  * The DAO class that manage the persistence methods of the scan logs.
  */
@@ -38,4 +44,27 @@ public interface LogDAO extends PagingAndSortingRepository<Log, Integer> {
      * @return list of logs for a given scan
      */
     public Page<Log> getByScanOrderByTimeStampDesc(Scan scan, Pageable pageable);
+
+    /**
+     * Get the first keyset page of the logs of a scan, without counting all the logs.
+     *
+     * @param scan     scan details
+     * @param pageable page request object, limiting the number of logs
+     * @return list of the latest logs of the scan
+     */
+    public List<Log> getByScanOrderByTimeStampDescIdDesc(Scan scan, Pageable pageable);
+
+    /**
+     * Get a keyset page of the logs of a scan that were written before a given log, without counting all the logs.
+     *
+     * @param scan      scan details
+     * @param timeStamp timestamp of the last log of the previous page
+     * @param id        id of the last log of the previous page
+     * @param pageable  page request object, limiting the number of logs
+     * @return list of logs of the scan written before the given log
+     */
+    @Query("select o from Log o where o.scan = :scan and (o.timeStamp < :timeStamp or " +
+            "(o.timeStamp = :timeStamp and o.id < :id)) order by o.timeStamp desc, o.id desc")
+    public List<Log> getByScanBefore(@Param("scan") Scan scan, @Param("timeStamp") Timestamp timeStamp,
+                                     @Param("id") BigInteger id, Pageable pageable);
 }
@@ -28,6 +28,7 @@ import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 
+import java.sql.Timestamp;
 import java.util.List;
 
 /**
@@ -44,6 +45,40 @@ public interface ScanDAO extends PagingAndSortingRepository<Scan, String> {
      */
     public Page<Scan> getAllByOrderBySubmittedTimestampDesc(Pageable pageable);
 
+    /**
+     * Get the first keyset page of the scans, without counting all the scans.
+     *
+     * @param pageable page request object, limiting the number of scans
+     * @return list of the latest scans
+     */
+    public List<Scan> getAllByOrderBySubmittedTimestampDescJobIdDesc(Pageable pageable);
+
+    /**
+     * Get a keyset page of the scans that were submitted before a given scan, without counting all the scans. Scans
+     * without a submitted timestamp are ordered after all the other scans.
+     *
+     * @param submittedTimestamp submitted timestamp of the last scan of the previous page
+     * @param jobId              job id of the last scan of the previous page
+     * @param pageable           page request object, limiting the number of scans
+     * @return list of scans submitted before the given scan
+     */
+    @Query("select o from Scan o where o.submittedTimestamp < :submittedTimestamp or " +
+            "(o.submittedTimestamp = :submittedTimestamp and o.jobId < :jobId) or o.submittedTimestamp is null " +
+            "order by o.submittedTimestamp desc, o.jobId desc")
+    public List<Scan> getAllSubmittedBefore(@Param("submittedTimestamp") Timestamp submittedTimestamp,
+                                            @Param("jobId") String jobId, Pageable pageable);
+
+    /**
+     * Get a keyset page of the scans without a submitted timestamp that come after a given scan without a submitted
+     * timestamp, without counting all the scans.
+     *
+     * @param jobId    job id of the last scan of the previous page
+     * @param pageable page request object, limiting the number of scans
+     * @return list of scans without a submitted timestamp, ordered after the given scan
+     */
+    @Query("select o from Scan o where o.submittedTimestamp is null and o.jobId < :jobId order by o.jobId desc")
+    public List<Scan> getAllNotSubmittedBefore(@Param("jobId") String jobId, Pageable pageable);
+
     /**
      * Get scan by job id.
      *
@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.dispatcher;
+
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+
+/**
+ * This interface is used by the scan dispatcher to hand over a pending scan to the scan engine.
+ */
+@FunctionalInterface
+public interface ScanDispatchHandler {
+
+    /**
+     * Dispatch a pending scan. This is always called while holding the lock of the pool the scan belongs to.
+     *
+     * @param scan pending scan
+     * @return true if the scan was consumed and can be removed from the pool, false if there is no free scanner app
+     * for the scan and the pool should wait for the next event
+     */
+    public boolean dispatch(Scan scan);
+}
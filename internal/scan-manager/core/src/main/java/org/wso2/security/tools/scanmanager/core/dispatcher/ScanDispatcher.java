@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.dispatcher;
+
+import org.apache.log4j.Logger;
+import org.springframework.stereotype.Component;
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PreDestroy;
+
+/**
+ * Event driven dispatcher of pending scans. Pending scans are kept in one in-memory priority queue per scanner and
+ * product pool. A pool is dispatched whenever a scan is queued to it or a scan of it releases a scanner app, on a
+ * single bounded executor shared by all the pools. Slow work that must not hold a pool lock, such as creating and
+ * starting a scanner container and waiting for it to become ready, is handed over to a separate executor.
+ */
+@Component
+public class ScanDispatcher {
+
+    private static final Logger logger = Logger.getLogger(ScanDispatcher.class);
+
+    private static final int DISPATCH_QUEUE_CAPACITY = 1000;
+    private static final long EXECUTOR_SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final Map<String, ScanPool> pools = new ConcurrentHashMap<>();
+    private volatile ScanDispatchHandler dispatchHandler;
+    private volatile ThreadPoolExecutor executor;
+    private volatile ThreadPoolExecutor asyncExecutor;
+    private ScheduledExecutorService reconciliationExecutor;
+
+    /**
+     * Set the handler that is used to dispatch the scans.
+     *
+     * @param dispatchHandler scan dispatch handler
+     */
+    public void setDispatchHandler(ScanDispatchHandler dispatchHandler) {
+        this.dispatchHandler = dispatchHandler;
+    }
+
+    /**
+     * Get the pool of a given scan. The pool is created if it does not exist.
+     *
+     * @param scan scan object
+     * @return the pool the scan belongs to
+     */
+    public ScanPool getPool(Scan scan) {
+        String key = ScanPool.buildKey(scan.getScanner().getId(), scan.getProduct());
+        return pools.computeIfAbsent(key, ScanPool::new);
+    }
+
+    /**
+     * Get the lock that guards the state transitions of the scans in the pool of a given scan.
+     *
+     * @param scan scan object
+     * @return pool lock
+     */
+    public ReentrantLock getPoolLock(Scan scan) {
+        return getPool(scan).getLock();
+    }
+
+    /**
+     * Add a scan to its pool without dispatching it.
+     *
+     * @param scan pending scan
+     */
+    public void enqueue(Scan scan) {
+        getPool(scan).offer(scan);
+    }
+
+    /**
+     * Add a scan to its pool and schedule the pool to be dispatched.
+     *
+     * @param scan pending scan
+     */
+    public void submit(Scan scan) {
+        ScanPool pool = getPool(scan);
+        pool.offer(scan);
+        schedule(pool);
+    }
+
+    /**
+     * Remove a pending scan from its pool.
+     *
+     * @param scan scan to be removed
+     */
+    public void remove(Scan scan) {
+        getPool(scan).remove(scan.getJobId());
+    }
+
+    /**
+     * Release the scanner app of a given scan and schedule the pool of the scan to be dispatched. This is called
+     * when a scan of the pool releases its scanner app.
+     *
+     * @param scan scan object
+     */
+    public void release(Scan scan) {
+        ScanPool pool = getPool(scan);
+        pool.releaseApp(scan.getScannerAppId());
+        schedule(pool);
+    }
+
+    /**
+     * Periodically discard the scanner app occupancy tracked by the pools and dispatch them again, so that the
+     * occupancy is reloaded from the database. This recovers the pools from app releases that were missed.
+     */
+    public synchronized void startOccupancyReconciliation() {
+        if (reconciliationExecutor == null) {
+            long interval = ScanManagerConfiguration.getInstance().getOccupancyReconciliationInterval();
+            reconciliationExecutor = Executors.newSingleThreadScheduledExecutor(
+                    buildThreadFactory("ScanPoolReconciler-"));
+            reconciliationExecutor.scheduleWithFixedDelay(this::reconcileOccupancy, interval, interval,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    private void reconcileOccupancy() {
+        for (ScanPool pool : pools.values()) {
+            pool.getLock().lock();
+            try {
+                pool.invalidateOccupancy();
+            } finally {
+                pool.getLock().unlock();
+            }
+            if (pool.size() > 0) {
+                schedule(pool);
+            }
+        }
+    }
+
+    /**
+     * Dispatch all the pools on the calling thread.
+     */
+    public void dispatchAll() {
+        pools.values().forEach(this::dispatch);
+    }
+
+    /**
+     * Run a task outside of the pool locks, on the executor reserved for starting scanner containers.
+     *
+     * @param task task to be executed
+     */
+    public void executeAsync(Runnable task) {
+        getAsyncExecutor().execute(task);
+    }
+
+    private void schedule(ScanPool pool) {
+        if (pool.markScheduled()) {
+            getExecutor().execute(() -> {
+                pool.clearScheduled();
+                dispatch(pool);
+            });
+        }
+    }
+
+    private void dispatch(ScanPool pool) {
+        ScanDispatchHandler handler = dispatchHandler;
+        if (handler == null) {
+            logger.warn("Scan dispatch handler is not set. Unable to dispatch the scan pool: " + pool.getKey());
+            return;
+        }
+        pool.getLock().lock();
+        try {
+            Scan scan;
+            while ((scan = pool.peek()) != null) {
+                if (!handler.dispatch(scan)) {
+
+                    // No free scanner app in this pool. The pool is dispatched again once a scan releases an app.
+                    break;
+                }
+                pool.poll(scan);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Error occurred while dispatching the scan pool: " + pool.getKey(), e);
+        } finally {
+            pool.getLock().unlock();
+        }
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+
+                    // Created lazily as the scan manager configuration is loaded after the beans are constructed.
+                    int threadCount = ScanManagerConfiguration.getInstance().getDispatcherThreadCount();
+                    executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(DISPATCH_QUEUE_CAPACITY), buildThreadFactory("ScanDispatcher-"),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+                }
+            }
+        }
+        return executor;
+    }
+
+    private ThreadPoolExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            synchronized (this) {
+                if (asyncExecutor == null) {
+
+                    // Unbounded queue as the number of tasks in flight is limited by the number of scanner apps.
+                    int threadCount = ScanManagerConfiguration.getInstance().getScannerStartThreadCount();
+                    asyncExecutor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(), buildThreadFactory("ScannerStarter-"));
+                }
+            }
+        }
+        return asyncExecutor;
+    }
+
+    private static ThreadFactory buildThreadFactory(String threadNamePrefix) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return runnable -> new Thread(runnable, threadNamePrefix + threadIndex.incrementAndGet());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        synchronized (this) {
+            if (reconciliationExecutor != null) {
+                reconciliationExecutor.shutdownNow();
+            }
+        }
+        shutdown(executor);
+        shutdown(asyncExecutor);
+    }
+
+    private static void shutdown(ThreadPoolExecutor threadPoolExecutor) {
+        if (threadPoolExecutor != null) {
+            threadPoolExecutor.shutdown();
+            try {
+                if (!threadPoolExecutor.awaitTermination(EXECUTOR_SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    threadPoolExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                threadPoolExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
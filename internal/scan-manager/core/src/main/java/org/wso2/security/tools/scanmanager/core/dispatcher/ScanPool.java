@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.dispatcher;
+
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A pool of pending scans that compete for the scanner apps of a single scanner and product. Each pool has its own
+ * lock so that scans of independent scanner and product combinations can be dispatched in parallel. The pool also
+ * tracks the scanner apps occupied by its scans, so that a free app can be found without querying the scans.
+ */
+public class ScanPool {
+
+    private static final int INITIAL_QUEUE_CAPACITY = 16;
+
+    // Same ordering as ScanDAO.getByStatusOrderByPriorityAscSubmittedTimestampAsc.
+    private static final Comparator<Scan> SCAN_ORDER = Comparator.comparingInt(Scan::getPriority)
+            .thenComparing(Scan::getSubmittedTimestamp, Comparator.nullsLast(Timestamp::compareTo))
+            .thenComparing(Scan::getJobId);
+
+    private final String key;
+    private final PriorityBlockingQueue<Scan> pendingScans = new PriorityBlockingQueue<>(INITIAL_QUEUE_CAPACITY,
+            SCAN_ORDER);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean dispatchScheduled = new AtomicBoolean(false);
+
+    // Null until the occupied apps are loaded from the database.
+    private volatile Set<String> occupiedAppIds;
+
+    public ScanPool(String key) {
+        this.key = key;
+    }
+
+    /**
+     * Build the pool key for a given scanner id and product.
+     *
+     * @param scannerId scanner id
+     * @param product   product name
+     * @return pool key
+     */
+    public static String buildKey(String scannerId, String product) {
+        return scannerId + ":" + product;
+    }
+
+    /**
+     * Add a scan to the pool. If the scan is already queued, it is replaced so that the ordering reflects the
+     * latest priority of the scan.
+     *
+     * @param scan scan to be queued
+     */
+    public void offer(Scan scan) {
+        remove(scan.getJobId());
+        pendingScans.offer(scan);
+    }
+
+    /**
+     * Remove a queued scan from the pool.
+     *
+     * @param jobId job id of the scan to be removed
+     * @return true if a scan was removed
+     */
+    public boolean remove(String jobId) {
+        return pendingScans.removeIf(queuedScan -> queuedScan.getJobId().equals(jobId));
+    }
+
+    /**
+     * Get the scan at the head of the pool without removing it.
+     *
+     * @return the next scan to be dispatched or null if the pool is empty
+     */
+    public Scan peek() {
+        return pendingScans.peek();
+    }
+
+    /**
+     * Remove a given scan instance from the head of the pool once it has been dispatched.
+     *
+     * @param scan dispatched scan
+     */
+    public void poll(Scan scan) {
+        pendingScans.remove(scan);
+    }
+
+    /**
+     * Mark the pool as scheduled for dispatching.
+     *
+     * @return true if the pool was not already scheduled
+     */
+    boolean markScheduled() {
+        return dispatchScheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * Clear the scheduled flag so that events received during a dispatch run schedule another run.
+     */
+    void clearScheduled() {
+        dispatchScheduled.set(false);
+    }
+
+    public boolean isOccupancyLoaded() {
+        return occupiedAppIds != null;
+    }
+
+    /**
+     * Set the scanner apps occupied by the scans of the pool, as loaded from the database.
+     *
+     * @param appIds ids of the occupied scanner apps
+     */
+    public void loadOccupancy(Collection<String> appIds) {
+        Set<String> loadedAppIds = ConcurrentHashMap.newKeySet();
+        appIds.stream().filter(appId -> appId != null).forEach(loadedAppIds::add);
+        occupiedAppIds = loadedAppIds;
+    }
+
+    /**
+     * Discard the tracked scanner app occupancy, so that it is loaded again from the database on the next dispatch.
+     */
+    public void invalidateOccupancy() {
+        occupiedAppIds = null;
+    }
+
+    public boolean isAppOccupied(String appId) {
+        Set<String> appIds = occupiedAppIds;
+        return appIds != null && appIds.contains(appId);
+    }
+
+    public void occupyApp(String appId) {
+        Set<String> appIds = occupiedAppIds;
+        if (appIds != null && appId != null) {
+            appIds.add(appId);
+        }
+    }
+
+    public void releaseApp(String appId) {
+        Set<String> appIds = occupiedAppIds;
+        if (appIds != null && appId != null) {
+            appIds.remove(appId);
+        }
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public ReentrantLock getLock() {
+        return lock;
+    }
+
+    public int size() {
+        return pendingScans.size();
+    }
+}
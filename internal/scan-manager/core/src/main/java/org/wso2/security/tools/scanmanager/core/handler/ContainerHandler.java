@@ -60,6 +60,15 @@ public interface ContainerHandler {
      */
     public void clean(String containerId) throws ScanManagerException;
 
+    /**
+     * Rename a container.
+     *
+     * @param containerId container id
+     * @param name        new container name
+     * @throws ScanManagerException when an error occurs while renaming the container
+     */
+    public void rename(String containerId, String name) throws ScanManagerException;
+
     /**
      * Inspect a container.
      *
@@ -76,4 +85,23 @@ public interface ContainerHandler {
      * @throws ScanManagerException when an error occurs while getting the list of containers
      */
     public List<Container> list() throws ScanManagerException;
+
+    /**
+     * Find a container by the value of a label.
+     *
+     * @param labelName  label name
+     * @param labelValue label value
+     * @return container or null if there is no container with the given label value
+     * @throws ScanManagerException when an error occurs while looking up the container
+     */
+    public Container findByLabel(String labelName, String labelValue) throws ScanManagerException;
+
+    /**
+     * Find a container by its name.
+     *
+     * @param name container name
+     * @return container or null if there is no container with the given name
+     * @throws ScanManagerException when an error occurs while looking up the container
+     */
+    public Container findByName(String name) throws ScanManagerException;
 }
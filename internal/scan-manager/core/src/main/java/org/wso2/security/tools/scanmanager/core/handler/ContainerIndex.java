@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import org.wso2.security.tools.scanmanager.core.model.Container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of the containers, keyed by container id, container name and the values of a given set of labels.
+ * Updates are serialized while lookups do not take any lock. When the index is rebuilt, the new content is published
+ * at once, so that a lookup never sees a partially rebuilt index. The index keeps its own copies of the containers,
+ * so that changes made by the callers to the returned objects do not corrupt the index.
+ */
+public class ContainerIndex {
+
+    private final List<String> indexedLabels;
+    private volatile IndexMaps maps;
+
+    public ContainerIndex(String... indexedLabels) {
+        this.indexedLabels = Arrays.asList(indexedLabels);
+        this.maps = new IndexMaps(this.indexedLabels);
+    }
+
+    /**
+     * Add or replace a container in the index.
+     *
+     * @param container container
+     */
+    public synchronized void put(Container container) {
+        put(maps, container);
+    }
+
+    /**
+     * Remove a container from the index.
+     *
+     * @param containerId container id
+     * @return the removed container or null if the container was not indexed
+     */
+    public synchronized Container remove(String containerId) {
+        return remove(maps, containerId);
+    }
+
+    /**
+     * Replace the content of the index with a given set of containers.
+     *
+     * @param containers containers
+     * @return the indexed containers that are not in the given set of containers
+     */
+    public synchronized List<Container> replaceAll(Collection<Container> containers) {
+        Map<String, Container> removedContainers = new HashMap<>(maps.containersById);
+        containers.forEach(container -> removedContainers.remove(container.getId()));
+        IndexMaps newMaps = new IndexMaps(indexedLabels);
+        containers.forEach(container -> put(newMaps, container));
+        maps = newMaps;
+        return new ArrayList<>(removedContainers.values());
+    }
+
+    public Container getById(String containerId) {
+        return lookup(maps, containerId);
+    }
+
+    public Container getByName(String name) {
+        IndexMaps currentMaps = maps;
+        return lookup(currentMaps, currentMaps.containerIdsByName.get(name));
+    }
+
+    /**
+     * Get a container by the value of a label. Labels that are not indexed are looked up by scanning all the
+     * containers.
+     *
+     * @param labelName  label name
+     * @param labelValue label value
+     * @return container or null if there is no container with the given label value
+     */
+    public Container getByLabel(String labelName, String labelValue) {
+        IndexMaps currentMaps = maps;
+        Map<String, String> idsByValue = currentMaps.containerIdsByLabel.get(labelName);
+        if (idsByValue != null) {
+            return lookup(currentMaps, idsByValue.get(labelValue));
+        }
+        return currentMaps.containersById.values().stream()
+                .filter(container -> container.getLabels() != null &&
+                        labelValue.equals(container.getLabels().get(labelName)))
+                .findFirst()
+                .map(ContainerIndex::copyOf)
+                .orElse(null);
+    }
+
+    public List<Container> getAll() {
+        List<Container> containers = new ArrayList<>();
+        maps.containersById.values().forEach(container -> containers.add(copyOf(container)));
+        return containers;
+    }
+
+    private void put(IndexMaps indexMaps, Container container) {
+        remove(indexMaps, container.getId());
+        container = copyOf(container);
+        indexMaps.containersById.put(container.getId(), container);
+        if (container.getName() != null) {
+            indexMaps.containerIdsByName.put(container.getName(), container.getId());
+        }
+        if (container.getLabels() != null) {
+            for (String labelName : indexedLabels) {
+                String labelValue = container.getLabels().get(labelName);
+                if (labelValue != null) {
+                    indexMaps.containerIdsByLabel.get(labelName).put(labelValue, container.getId());
+                }
+            }
+        }
+    }
+
+    private Container remove(IndexMaps indexMaps, String containerId) {
+        Container container = indexMaps.containersById.remove(containerId);
+        if (container != null) {
+            if (container.getName() != null) {
+                indexMaps.containerIdsByName.remove(container.getName(), containerId);
+            }
+            if (container.getLabels() != null) {
+                for (String labelName : indexedLabels) {
+                    String labelValue = container.getLabels().get(labelName);
+                    if (labelValue != null) {
+                        indexMaps.containerIdsByLabel.get(labelName).remove(labelValue, containerId);
+                    }
+                }
+            }
+        }
+        return container;
+    }
+
+    private static Container lookup(IndexMaps indexMaps, String containerId) {
+        Container container = containerId == null ? null : indexMaps.containersById.get(containerId);
+        return container == null ? null : copyOf(container);
+    }
+
+    private static Container copyOf(Container container) {
+        Container copy = new Container(container.getId(), container.isRunning(),
+                container.getPortMappings() == null ? null : new HashMap<>(container.getPortMappings()),
+                container.getCommands(), container.getEnvVariables(),
+                container.getLabels() == null ? null : new HashMap<>(container.getLabels()));
+        copy.setName(container.getName());
+        return copy;
+    }
+
+    /**
+     * Maps of the index, replaced as a whole when the index is rebuilt.
+     */
+    private static class IndexMaps {
+
+        private final Map<String, Container> containersById = new ConcurrentHashMap<>();
+        private final Map<String, String> containerIdsByName = new ConcurrentHashMap<>();
+        private final Map<String, Map<String, String>> containerIdsByLabel = new ConcurrentHashMap<>();
+
+        private IndexMaps(List<String> indexedLabels) {
+            for (String labelName : indexedLabels) {
+                containerIdsByLabel.put(labelName, new ConcurrentHashMap<>());
+            }
+        }
+    }
+}
@@ -19,13 +19,18 @@ package org.wso2.security.tools.scanmanager.core.handler;
 
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.EventStream;
+import com.spotify.docker.client.exceptions.ContainerNotFoundException;
 import com.spotify.docker.client.exceptions.DockerCertificateException;
 import com.spotify.docker.client.exceptions.DockerException;
 import com.spotify.docker.client.messages.ContainerConfig;
 import com.spotify.docker.client.messages.ContainerCreation;
 import com.spotify.docker.client.messages.ContainerInfo;
+import com.spotify.docker.client.messages.Event;
 import com.spotify.docker.client.messages.HostConfig;
 import com.spotify.docker.client.messages.PortBinding;
+import org.apache.log4j.Logger;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
 import org.wso2.security.tools.scanmanager.core.model.Container;
 
@@ -34,29 +39,54 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_APP_LABEL_NAME;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_SCAN_JOB_ID_LABEL_NAME;
 
 /**
- * This class provides the implementation for the Docker containers.
+ * This class provides the implementation for the Docker containers. A single Docker client with a pooled connection
+ * manager is shared by all the operations. The containers are kept in an in-memory index that is updated by the
+ * operations of this class, by the Docker events stream and by a periodic reconciliation with the Docker daemon.
+ * Host ports are claimed from a {@link HostPortAllocator} when a container is created and released when the container
+ * is removed.
  */
 public class DockerContainerHandler implements ContainerHandler {
 
+    private static final Logger logger = Logger.getLogger(DockerContainerHandler.class);
+
     private static final int SECONDS_TO_WAIT_BEFORE_KILLING_CONTAINER = 5;
-    private static final int CONTAINER_HOST_PORT_MINIMUM_VALUE = 20000;
+    private static final int DOCKER_CONNECTION_POOL_SIZE = 50;
+    private static final long EVENTS_RECONNECT_WAIT_SECONDS = 5;
+
+    private final ContainerIndex containerIndex = new ContainerIndex(CONTAINER_SCAN_JOB_ID_LABEL_NAME,
+            CONTAINER_APP_LABEL_NAME);
+    private volatile DockerClient dockerClient;
+    private volatile HostPortAllocator hostPortAllocator;
+    private volatile boolean isIndexInitialized = false;
+    private volatile boolean isClosed = false;
+    private Thread eventsListenerThread;
+    private ScheduledExecutorService reconciliationExecutor;
+    private final ReadWriteLock reconciliationLock = new ReentrantReadWriteLock();
 
     @Override
     public Container create(String imageName, String ipAddress, Integer containerPort,
                             Map<String, String> labels, List<String> commands,
                             String[] environmentVariables) throws ScanManagerException {
-        try (DockerClient dockerClient = getNewDockerClient()) {
-            if (containerPort == null) {
-                throw new ScanManagerException("Error occurred while reading the container port that is required " +
-                        "for binding to the host port");
-            }
+        if (containerPort == null) {
+            throw new ScanManagerException("Error occurred while reading the container port that is required " +
+                    "for binding to the host port");
+        }
+        Integer hostPort = claimHostPort();
+        try {
+            DockerClient dockerClient = getDockerClient();
             String[] exposedPorts = {containerPort.toString()};
             HashMap<String, List<PortBinding>> portBindings = new HashMap<>();
 
-            Integer hostPort = generateHostPort();
             Map<Integer, Integer> portMapping = new HashMap<>();
             portMapping.put(containerPort, hostPort);
 
@@ -76,39 +106,35 @@ public class DockerContainerHandler implements ContainerHandler {
                     .labels(labels)
                     .env(environmentVariables)
                     .build();
-            ContainerCreation containerCreation = dockerClient.createContainer(containerConfig);
-            return new Container(containerCreation.id(), false, portMapping, commands,
-                    Arrays.asList(environmentVariables), labels);
-        } catch (DockerCertificateException | DockerException | InterruptedException e) {
+
+            // Hold off the reconciliation until the new container is indexed, so that its host port is not
+            // released by a container listing taken before the container was created.
+            reconciliationLock.readLock().lock();
+            try {
+                ContainerCreation containerCreation = dockerClient.createContainer(containerConfig);
+                Container container = new Container(containerCreation.id(), false, portMapping, commands,
+                        Arrays.asList(environmentVariables), labels);
+                containerIndex.put(container);
+                return container;
+            } finally {
+                reconciliationLock.readLock().unlock();
+            }
+        } catch (DockerCertificateException | DockerException | InterruptedException | RuntimeException e) {
+            hostPortAllocator.release(hostPort);
             throw new ScanManagerException("Error occurred while creating the docker container", e);
         }
     }
 
     /**
-     * Generates a host port by checking the ports used by existing containers.
+     * Claim a free host port. The allocator is loaded with the ports of the existing containers when the container
+     * index is initialized.
      *
      * @return port
-     * @throws ScanManagerException when an error occurs when checking the ports used by existing containers
+     * @throws ScanManagerException when there is no free host port or the container index cannot be initialized
      */
-    private Integer generateHostPort() throws ScanManagerException {
-        List<Integer> allocatedHostPorts = findAllocatedHostPorts();
-        Integer newHostPort = CONTAINER_HOST_PORT_MINIMUM_VALUE;
-        do {
-            newHostPort++;
-        } while (allocatedHostPorts.contains(newHostPort));
-        return newHostPort;
-    }
-
-    private List<Integer> findAllocatedHostPorts() throws ScanManagerException {
-        List<Integer> allocatedHostPorts = new ArrayList<>();
-        try (DockerClient dockerClient = getNewDockerClient()) {
-            dockerClient.listContainers()
-                    .forEach(container -> container.ports()
-                            .forEach(portMapping -> allocatedHostPorts.add(portMapping.publicPort())));
-        } catch (DockerCertificateException | InterruptedException | DockerException e) {
-            throw new ScanManagerException("Unable to identify the allocated ports", e);
-        }
-        return allocatedHostPorts;
+    private Integer claimHostPort() throws ScanManagerException {
+        ensureIndexInitialized();
+        return hostPortAllocator.claim();
     }
 
     private boolean pullImage(DockerClient dockerClient, String imageName) throws DockerException,
@@ -128,8 +154,13 @@ public class DockerContainerHandler implements ContainerHandler {
 
     @Override
     public void start(String containerId) throws ScanManagerException {
-        try (DockerClient dockerClient = getNewDockerClient()) {
-            dockerClient.startContainer(containerId);
+        try {
+            getDockerClient().startContainer(containerId);
+            Container container = containerIndex.getById(containerId);
+            if (container != null) {
+                container.setRunning(true);
+                containerIndex.put(container);
+            }
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
             throw new ScanManagerException("Error occurred while starting the docker container with container id: " +
                     containerId, e);
@@ -140,8 +171,8 @@ public class DockerContainerHandler implements ContainerHandler {
     public Container inspect(String containerId) throws ScanManagerException {
         ContainerInfo containerInfo = null;
 
-        try (DockerClient dockerClient = getNewDockerClient()) {
-            containerInfo = dockerClient.inspectContainer(containerId);
+        try {
+            containerInfo = getDockerClient().inspectContainer(containerId);
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
             throw new ScanManagerException("Error occurred while starting the docker container with container id: " +
                     containerId, e);
@@ -149,15 +180,7 @@ public class DockerContainerHandler implements ContainerHandler {
 
         // Extracting data from the docker container and populating scan manager container.
         if (containerInfo != null) {
-            Map<Integer, Integer> portMappings = new HashMap<>();
-            for (Map.Entry<String, List<PortBinding>> entry : containerInfo.hostConfig().portBindings().entrySet()) {
-                if (!entry.getValue().isEmpty()) {
-                    portMappings.put(Integer.parseInt(entry.getKey()),
-                            Integer.parseInt(entry.getValue().get(0).hostPort()));
-                }
-            }
-            return new Container(containerInfo.id(), containerInfo.state().running(), portMappings,
-                    containerInfo.config().cmd(), containerInfo.config().env(), containerInfo.config().labels());
+            return buildContainer(containerInfo);
         } else {
             return null;
         }
@@ -165,38 +188,260 @@ public class DockerContainerHandler implements ContainerHandler {
 
     @Override
     public void clean(String containerId) throws ScanManagerException {
-        try (DockerClient dockerClient = getNewDockerClient()) {
+        try {
+            DockerClient dockerClient = getDockerClient();
             if (dockerClient.inspectContainer(containerId).state().running()) {
                 dockerClient.stopContainer(containerId, SECONDS_TO_WAIT_BEFORE_KILLING_CONTAINER);
             }
             dockerClient.removeContainer(containerId);
+            releaseHostPorts(containerIndex.remove(containerId));
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
             throw new ScanManagerException("Error occurred while cleaning the docker container with container id: " +
                     containerId, e);
         }
     }
 
+    @Override
+    public void rename(String containerId, String name) throws ScanManagerException {
+        try {
+            getDockerClient().renameContainer(containerId, name);
+            Container container = containerIndex.getById(containerId);
+            if (container != null) {
+                container.setName(name);
+                containerIndex.put(container);
+            }
+        } catch (DockerCertificateException | DockerException | InterruptedException e) {
+            throw new ScanManagerException("Error occurred while renaming the docker container with container id: " +
+                    containerId, e);
+        }
+    }
+
     @Override
     public List<Container> list() throws ScanManagerException {
-        List<Container> containers = new ArrayList<>();
-        try (DockerClient dockerClient = getNewDockerClient()) {
-            for (com.spotify.docker.client.messages.Container container : dockerClient.listContainers()) {
-                Map<Integer, Integer> portMappings = container.ports().stream()
-                        .collect(Collectors.toMap(com.spotify.docker.client.messages.Container.PortMapping::privatePort,
-                                com.spotify.docker.client.messages.Container.PortMapping::publicPort));
-                ContainerInfo containerInfo = dockerClient.inspectContainer(container.id());
-                Container scanManagerContainer = new Container(container.id(),
-                        containerInfo.state().running(), portMappings, containerInfo.config().cmd(),
-                        containerInfo.config().env(), container.labels());
+        ensureIndexInitialized();
+        return containerIndex.getAll();
+    }
+
+    @Override
+    public Container findByLabel(String labelName, String labelValue) throws ScanManagerException {
+        ensureIndexInitialized();
+        return containerIndex.getByLabel(labelName, labelValue);
+    }
+
+    @Override
+    public Container findByName(String name) throws ScanManagerException {
+        ensureIndexInitialized();
+        return containerIndex.getByName(name);
+    }
+
+    /**
+     * Stop listening to the Docker events and close the Docker client.
+     */
+    public synchronized void close() {
+        isClosed = true;
+        if (reconciliationExecutor != null) {
+            reconciliationExecutor.shutdownNow();
+        }
+        if (eventsListenerThread != null) {
+            eventsListenerThread.interrupt();
+        }
+        if (dockerClient != null) {
+            dockerClient.close();
+        }
+    }
+
+    /**
+     * Load the container index from the Docker daemon and start keeping it up to date. This is done lazily, as the
+     * scan manager configuration is loaded after the beans are constructed.
+     *
+     * @throws ScanManagerException when the containers cannot be loaded from the Docker daemon
+     */
+    private void ensureIndexInitialized() throws ScanManagerException {
+        if (!isIndexInitialized) {
+            synchronized (containerIndex) {
+                if (!isIndexInitialized) {
+                    hostPortAllocator = new HostPortAllocator(
+                            ScanManagerConfiguration.getInstance().getContainerHostPortRangeStart(),
+                            ScanManagerConfiguration.getInstance().getContainerHostPortRangeEnd());
+                    reconcile();
+                    eventsListenerThread = new Thread(this::listenToEvents, "DockerEventsListener");
+                    eventsListenerThread.setDaemon(true);
+                    eventsListenerThread.start();
+
+                    long reconciliationInterval = ScanManagerConfiguration.getInstance()
+                            .getContainerIndexReconciliationInterval();
+                    reconciliationExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "DockerContainerReconciliation");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    reconciliationExecutor.scheduleWithFixedDelay(() -> {
+                        try {
+                            reconcile();
+                        } catch (ScanManagerException e) {
+                            logger.error("Error occurred while reconciling the docker containers", e);
+                        }
+                    }, reconciliationInterval, reconciliationInterval, TimeUnit.SECONDS);
+                    isIndexInitialized = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Rebuild the container index from the container list of the Docker daemon. Commands and environment variables
+     * are not part of the container list, hence they are kept from the indexed containers. The host ports of the
+     * listed containers are marked as allocated and the host ports of the containers that no longer exist are
+     * released.
+     *
+     * @throws ScanManagerException when the containers cannot be listed
+     */
+    private void reconcile() throws ScanManagerException {
+        reconciliationLock.writeLock().lock();
+        try {
+            List<Container> containers = new ArrayList<>();
+            for (com.spotify.docker.client.messages.Container container :
+                    getDockerClient().listContainers(DockerClient.ListContainersParam.allContainers())) {
+                Map<Integer, Integer> portMappings = new HashMap<>();
+                if (container.ports() != null) {
+                    container.ports().forEach(portMapping -> portMappings.put(portMapping.privatePort(),
+                            portMapping.publicPort()));
+                }
+                boolean isRunning = "running".equals(container.state());
+                Container indexedContainer = containerIndex.getById(container.id());
+                if (!isRunning && portMappings.isEmpty()) {
+
+                    // The ports of the containers that are not running are not listed, but their host ports stay
+                    // bound until the containers are removed.
+                    if (indexedContainer != null && indexedContainer.getPortMappings() != null) {
+                        portMappings.putAll(indexedContainer.getPortMappings());
+                    } else {
+                        try {
+                            portMappings.putAll(buildContainer(getDockerClient().inspectContainer(container.id()))
+                                    .getPortMappings());
+                        } catch (ContainerNotFoundException e) {
+
+                            // Removed after it was listed.
+                            continue;
+                        }
+                    }
+                }
+                Container scanManagerContainer = new Container(container.id(), isRunning,
+                        portMappings, indexedContainer != null ? indexedContainer.getCommands() : null,
+                        indexedContainer != null ? indexedContainer.getEnvVariables() : null, container.labels());
+                if (container.names() != null && !container.names().isEmpty()) {
+                    scanManagerContainer.setName(stripNamePrefix(container.names().get(0)));
+                }
                 containers.add(scanManagerContainer);
             }
+            containers.forEach(container -> container.getPortMappings().values()
+                    .forEach(hostPortAllocator::markAllocated));
+            containerIndex.replaceAll(containers).forEach(this::releaseHostPorts);
         } catch (DockerCertificateException | DockerException | InterruptedException e) {
-            throw new ScanManagerException("Error occurred while getting the running containers list", e);
+            throw new ScanManagerException("Error occurred while getting the containers list", e);
+        } finally {
+            reconciliationLock.writeLock().unlock();
+        }
+    }
+
+    private void listenToEvents() {
+        while (!isClosed) {
+            try (EventStream events = getDockerClient().events(
+                    DockerClient.EventsParam.type(Event.Type.CONTAINER))) {
+
+                // Reconcile after (re)connecting, as the events received while disconnected are lost.
+                reconcile();
+                while (!isClosed && events.hasNext()) {
+                    handleEvent(events.next());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DockerCertificateException | DockerException | ScanManagerException | RuntimeException e) {
+                if (isClosed) {
+                    return;
+                }
+                logger.warn("Docker events stream is disconnected. Reconnecting in " +
+                        EVENTS_RECONNECT_WAIT_SECONDS + " seconds", e);
+                try {
+                    TimeUnit.SECONDS.sleep(EVENTS_RECONNECT_WAIT_SECONDS);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void handleEvent(Event event) throws DockerCertificateException, InterruptedException {
+        if (event.actor() == null || event.action() == null) {
+            return;
+        }
+        String containerId = event.actor().id();
+        switch (event.action()) {
+            case "destroy":
+                releaseHostPorts(containerIndex.remove(containerId));
+                break;
+            case "create":
+            case "start":
+            case "die":
+            case "rename":
+                try {
+                    containerIndex.put(buildContainer(getDockerClient().inspectContainer(containerId)));
+                } catch (ContainerNotFoundException e) {
+                    releaseHostPorts(containerIndex.remove(containerId));
+                } catch (DockerException e) {
+                    logger.warn("Unable to inspect the docker container: " + containerId, e);
+                }
+                break;
+            default:
+                break;
         }
-        return containers;
     }
 
-    private DockerClient getNewDockerClient() throws DockerCertificateException {
-        return DefaultDockerClient.fromEnv().build();
+    private Container buildContainer(ContainerInfo containerInfo) {
+        Map<Integer, Integer> portMappings = new HashMap<>();
+        if (containerInfo.hostConfig() != null && containerInfo.hostConfig().portBindings() != null) {
+            for (Map.Entry<String, List<PortBinding>> entry :
+                    containerInfo.hostConfig().portBindings().entrySet()) {
+                if (!entry.getValue().isEmpty()) {
+
+                    // Port binding keys may carry the protocol, e.g. 8080/tcp.
+                    portMappings.put(Integer.parseInt(entry.getKey().split("/")[0]),
+                            Integer.parseInt(entry.getValue().get(0).hostPort()));
+                }
+            }
+        }
+        Container scanManagerContainer = new Container(containerInfo.id(), containerInfo.state().running(),
+                portMappings, containerInfo.config().cmd(), containerInfo.config().env(),
+                containerInfo.config().labels());
+        scanManagerContainer.setName(stripNamePrefix(containerInfo.name()));
+        return scanManagerContainer;
+    }
+
+    private void releaseHostPorts(Container container) {
+        if (container != null && container.getPortMappings() != null) {
+            container.getPortMappings().values().forEach(hostPortAllocator::release);
+        }
+    }
+
+    // Docker reports the container names with a leading slash.
+    private String stripNamePrefix(String name) {
+        if (name != null && name.startsWith("/")) {
+            return name.substring(1);
+        }
+        return name;
+    }
+
+    private DockerClient getDockerClient() throws DockerCertificateException {
+        if (dockerClient == null) {
+            synchronized (this) {
+                if (dockerClient == null) {
+                    dockerClient = DefaultDockerClient.fromEnv().connectionPoolSize(DOCKER_CONNECTION_POOL_SIZE)
+                            .build();
+                }
+            }
+        }
+        return dockerClient;
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free allocator of the host ports bound to the scanner containers. The allocation state of a configured port
+ * range is kept in a bitmap, where each port is claimed and released with a compare-and-set on its word, so that
+ * containers can be created in parallel without handing out the same port twice.
+ */
+public class HostPortAllocator {
+
+    private static final int BITS_PER_WORD = Long.SIZE;
+
+    private final int minPort;
+    private final int maxPort;
+    private final AtomicLongArray bitmap;
+
+    // Word to start the next search from, so that the claims do not always contend on the first words.
+    private final AtomicInteger nextWordHint = new AtomicInteger();
+
+    public HostPortAllocator(int minPort, int maxPort) throws ScanManagerException {
+        if (minPort <= 0 || maxPort < minPort) {
+            throw new ScanManagerException("Invalid container host port range: " + minPort + " - " + maxPort);
+        }
+        this.minPort = minPort;
+        this.maxPort = maxPort;
+        int portCount = maxPort - minPort + 1;
+        this.bitmap = new AtomicLongArray((portCount + BITS_PER_WORD - 1) / BITS_PER_WORD);
+
+        // Mark the unused bits of the last word as allocated, so that ports outside the range are never claimed.
+        int usedBitsInLastWord = portCount % BITS_PER_WORD;
+        if (usedBitsInLastWord != 0) {
+            bitmap.set(bitmap.length() - 1, -1L << usedBitsInLastWord);
+        }
+    }
+
+    /**
+     * Claim a free host port.
+     *
+     * @return claimed host port
+     * @throws ScanManagerException when all the ports in the range are allocated
+     */
+    public int claim() throws ScanManagerException {
+        int wordCount = bitmap.length();
+        int startWord = Math.floorMod(nextWordHint.get(), wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            int wordIndex = (startWord + i) % wordCount;
+            long word;
+            while ((word = bitmap.get(wordIndex)) != -1L) {
+                long freeBit = Long.lowestOneBit(~word);
+                if (bitmap.compareAndSet(wordIndex, word, word | freeBit)) {
+                    nextWordHint.set(wordIndex);
+                    return minPort + wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(freeBit);
+                }
+            }
+        }
+        throw new ScanManagerException("No free host port is available in the range " + minPort + " - " + maxPort);
+    }
+
+    /**
+     * Release a host port so that it can be claimed again. Ports outside the range are ignored.
+     *
+     * @param port host port
+     */
+    public void release(Integer port) {
+        if (isInRange(port)) {
+            int offset = port - minPort;
+            long mask = 1L << (offset % BITS_PER_WORD);
+            int wordIndex = offset / BITS_PER_WORD;
+            long word;
+            do {
+                word = bitmap.get(wordIndex);
+            } while ((word & mask) != 0 && !bitmap.compareAndSet(wordIndex, word, word & ~mask));
+        }
+    }
+
+    /**
+     * Mark a host port that is already in use, e.g. by an existing container, as allocated. Ports outside the range
+     * are ignored.
+     *
+     * @param port host port
+     */
+    public void markAllocated(Integer port) {
+        if (isInRange(port)) {
+            int offset = port - minPort;
+            long mask = 1L << (offset % BITS_PER_WORD);
+            int wordIndex = offset / BITS_PER_WORD;
+            long word;
+            do {
+                word = bitmap.get(wordIndex);
+            } while ((word & mask) == 0 && !bitmap.compareAndSet(wordIndex, word, word | mask));
+        }
+    }
+
+    public boolean isAllocated(Integer port) {
+        if (!isInRange(port)) {
+            return false;
+        }
+        int offset = port - minPort;
+        return (bitmap.get(offset / BITS_PER_WORD) & (1L << (offset % BITS_PER_WORD))) != 0;
+    }
+
+    private boolean isInRange(Integer port) {
+        return port != null && port >= minPort && port <= maxPort;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.log4j.Logger;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.wso2.security.tools.scanmanager.common.model.HTTPRequest;
+import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * This class checks whether the scanner service of a started container is ready to accept requests by polling its
+ * health endpoint with exponential backoff. The scanner service is ready once it responds and the scan capacity it
+ * advertises has a free slot, so that a reused container still busy with earlier scans does not reject the scan.
+ */
+@Component
+public class ScannerReadinessProbe {
+
+    private static final Logger logger = Logger.getLogger(ScannerReadinessProbe.class);
+
+    private static final long INITIAL_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 5000;
+
+    private static final String MAX_CONCURRENT_SCANS = "maxConcurrentScans";
+    private static final String ACTIVE_SCANS = "activeScans";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Wait until the scanner service responds to the health endpoint or the deadline is reached.
+     *
+     * @param healthURL      health endpoint URL of the scanner service
+     * @param timeoutSeconds maximum time to wait for the scanner service
+     * @return true if the scanner service is ready, false if the deadline was reached
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public boolean awaitReady(String healthURL, long timeoutSeconds) throws InterruptedException {
+        return awaitReady(healthURL, timeoutSeconds, () -> false);
+    }
+
+    /**
+     * Wait until the scanner service responds to the health endpoint, the deadline is reached or the wait is
+     * cancelled. The cancellation is checked before each poll of the health endpoint.
+     *
+     * @param healthURL      health endpoint URL of the scanner service
+     * @param timeoutSeconds maximum time to wait for the scanner service
+     * @param cancelled      returns true once the scanner service is no longer needed
+     * @return true if the scanner service is ready, false if the deadline was reached or the wait was cancelled
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    public boolean awaitReady(String healthURL, long timeoutSeconds, BooleanSupplier cancelled)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        long backoffMillis = INITIAL_BACKOFF_MILLIS;
+        HTTPRequest healthRequest = new HTTPRequest(healthURL, null, null);
+
+        while (true) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            if (isReady(healthRequest)) {
+                return true;
+            }
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(Math.min(backoffMillis, remainingMillis));
+            backoffMillis = Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+        }
+    }
+
+    private boolean isReady(HTTPRequest healthRequest) {
+        try {
+            ResponseEntity<String> response = HTTPUtil.sendGET(healthRequest);
+            if (response == null || !response.getStatusCode().is2xxSuccessful()) {
+                return false;
+            }
+            if (!hasFreeCapacity(response.getBody())) {
+                logger.debug("Scanner service has no free scan capacity yet: " + healthRequest.getUrl());
+                return false;
+            }
+            return true;
+        } catch (RestClientException e) {
+
+            // The scanner service is not accepting connections yet.
+            logger.debug("Scanner service is not ready yet: " + healthRequest.getUrl());
+            return false;
+        }
+    }
+
+    /**
+     * Check whether the scan capacity advertised by the health endpoint of a scanner service has a free slot. Scanner
+     * services that do not advertise their capacity are considered to have one.
+     *
+     * @param healthResponse body of the health endpoint response
+     * @return true unless the scanner service is already running its maximum number of concurrent scans
+     */
+    static boolean hasFreeCapacity(String healthResponse) {
+        if (healthResponse == null || healthResponse.trim().isEmpty()) {
+            return true;
+        }
+        JsonNode capacity;
+        try {
+            capacity = objectMapper.readTree(healthResponse);
+        } catch (IOException e) {
+            logger.warn("Unable to read the scan capacity of the scanner service: " + healthResponse);
+            return true;
+        }
+        JsonNode maxConcurrentScans = capacity.get(MAX_CONCURRENT_SCANS);
+        JsonNode activeScans = capacity.get(ACTIVE_SCANS);
+        if (maxConcurrentScans == null || activeScans == null) {
+            return true;
+        }
+        return activeScans.asInt() < maxConcurrentScans.asInt();
+    }
+}
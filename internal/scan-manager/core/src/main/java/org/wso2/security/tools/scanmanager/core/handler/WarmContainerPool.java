@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.client.RestClientException;
+import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
+import org.wso2.security.tools.scanmanager.common.model.HTTPRequest;
+import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.Container;
+import org.wso2.security.tools.scanmanager.core.util.ContainerUtil;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.PreDestroy;
+
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_SCANNER_LABEL_NAME;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_WARM_POOL_LABEL_NAME;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.SCANNER_HEALTH_ENDPOINT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.SCANNER_RESET_ENDPOINT;
+
+/**
+ * Pool of pre-started scanner containers per scanner. Warm containers are identified by the warm pool container
+ * label. A container leased to a scan is renamed after the scan job id, so that it can be found again after a
+ * restart of the scan manager, and it is reset and returned to the pool once the scan is finished. Containers are
+ * booted and reset on an executor of the pool's own, so that slow resets do not hold up the threads that start
+ * scans.
+ */
+@Component
+public class WarmContainerPool {
+
+    private static final Logger logger = Logger.getLogger(WarmContainerPool.class);
+
+    private static final String LEASED_CONTAINER_NAME_PREFIX = "scan-";
+    private static final String IDLE_CONTAINER_NAME_PREFIX = "warm-";
+    private static final int SHORT_CONTAINER_ID_LENGTH = 12;
+    private static final int RESET_ATTEMPTS = 5;
+    private static final long RESET_RETRY_WAIT_SECONDS = 5;
+    private static final long EXECUTOR_SHUTDOWN_WAIT_SECONDS = 30;
+
+    private final ContainerHandler containerHandler;
+    private final ScannerReadinessProbe scannerReadinessProbe;
+    private volatile ThreadPoolExecutor executor;
+
+    // Idle containers and the number of containers being booted, per scanner id.
+    private final Map<String, Deque<Container>> idleContainers = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> bootingContainerCounts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WarmContainerPool(ContainerHandler containerHandler, ScannerReadinessProbe scannerReadinessProbe) {
+        this.containerHandler = containerHandler;
+        this.scannerReadinessProbe = scannerReadinessProbe;
+    }
+
+    /**
+     * Build the name of a container leased to a given scan.
+     *
+     * @param jobId scan job id
+     * @return container name
+     */
+    public static String buildLeasedContainerName(String jobId) {
+        return LEASED_CONTAINER_NAME_PREFIX + jobId;
+    }
+
+    /**
+     * Check whether a given container belongs to the warm pool.
+     *
+     * @param containerInfo container
+     * @return true if the container is a warm container
+     */
+    public static boolean isWarmContainer(Container containerInfo) {
+        return containerInfo.getLabels() != null &&
+                containerInfo.getLabels().containsKey(CONTAINER_WARM_POOL_LABEL_NAME);
+    }
+
+    public boolean isEnabled() {
+        return ScanManagerConfiguration.getInstance().getWarmPoolSize() > 0;
+    }
+
+    /**
+     * Adopt the warm containers left by a previous run of the scan manager and fill the pools of the given scanners.
+     * Idle containers are reset and returned to the pools. Containers leased to a scan that is still active are left
+     * untouched, as they are released when the scan is finished, while the containers of the scans that finished
+     * while the scan manager was down are reclaimed.
+     *
+     * @param scanners        scanners to keep warm containers for
+     * @param isActiveScanJob tells whether the scan of a given job id is still using its container
+     */
+    public void initialize(List<Scanner> scanners, Predicate<String> isActiveScanJob) {
+        if (!isEnabled()) {
+            return;
+        }
+        Map<String, Scanner> scannersById = new HashMap<>();
+        scanners.forEach(scanner -> scannersById.put(scanner.getId(), scanner));
+        try {
+            for (Container containerInfo : containerHandler.list()) {
+                if (!isWarmContainer(containerInfo)) {
+                    continue;
+                }
+                Scanner scanner = scannersById.get(containerInfo.getLabels().get(CONTAINER_WARM_POOL_LABEL_NAME));
+                if (isLeased(containerInfo)) {
+                    String jobId = containerInfo.getName().substring(LEASED_CONTAINER_NAME_PREFIX.length());
+                    if (!isActiveScanJob.test(jobId)) {
+                        logger.info("Reclaiming the warm scanner container of the finished scan " + jobId +
+                                ". Container id: " + containerInfo.getId());
+                        if (scanner != null && containerInfo.isRunning()) {
+                            release(scanner, containerInfo);
+                        } else {
+                            cleanQuietly(containerInfo);
+                        }
+                    }
+                } else if (scanner != null && containerInfo.isRunning() && resetScanner(containerInfo)) {
+                    getIdleContainers(scanner.getId()).offer(containerInfo);
+                } else {
+                    cleanQuietly(containerInfo);
+                }
+            }
+        } catch (ScanManagerException e) {
+            logger.error("Error occurred while loading the existing warm scanner containers", e);
+        }
+        scanners.forEach(this::replenish);
+    }
+
+    /**
+     * Lease an idle warm container to a scan.
+     *
+     * @param scanner scanner of the scan
+     * @param jobId   scan job id
+     * @return leased container or null if there is no idle warm container for the scanner
+     */
+    public Container lease(Scanner scanner, String jobId) {
+        if (!isEnabled()) {
+            return null;
+        }
+        Container containerInfo;
+        try {
+            while ((containerInfo = getIdleContainers(scanner.getId()).poll()) != null) {
+                try {
+                    String leasedName = buildLeasedContainerName(jobId);
+                    containerHandler.rename(containerInfo.getId(), leasedName);
+                    containerInfo.setName(leasedName);
+                    return containerInfo;
+                } catch (ScanManagerException e) {
+                    logger.error("Unable to lease the warm scanner container: " + containerInfo.getId(), e);
+                    cleanQuietly(containerInfo);
+                }
+            }
+            return null;
+        } finally {
+            replenish(scanner);
+        }
+    }
+
+    /**
+     * Return a leased container to the pool once its scan is finished. The scanner service is reset before the
+     * container is reused, and the container is replaced if the reset fails.
+     *
+     * @param scanner       scanner of the finished scan
+     * @param containerInfo leased container
+     */
+    public void release(Scanner scanner, Container containerInfo) {
+        getExecutor().execute(() -> {
+            Deque<Container> pool = getIdleContainers(scanner.getId());
+            if (isEnabled() && pool.size() < ScanManagerConfiguration.getInstance().getWarmPoolSize() &&
+                    resetScanner(containerInfo)) {
+                try {
+                    String idleName = IDLE_CONTAINER_NAME_PREFIX + containerInfo.getId()
+                            .substring(0, Math.min(SHORT_CONTAINER_ID_LENGTH, containerInfo.getId().length()));
+                    containerHandler.rename(containerInfo.getId(), idleName);
+                    containerInfo.setName(idleName);
+                    pool.offer(containerInfo);
+                    logger.info("Scanner container returned to the warm pool: " + containerInfo.getId());
+                    return;
+                } catch (ScanManagerException e) {
+                    logger.error("Unable to return the scanner container to the warm pool: " +
+                            containerInfo.getId(), e);
+                }
+            }
+            cleanQuietly(containerInfo);
+            replenish(scanner);
+        });
+    }
+
+    /**
+     * Remove a leased container that could not be used and replace it with a new one.
+     *
+     * @param scanner       scanner of the container
+     * @param containerInfo leased container
+     */
+    public void discard(Scanner scanner, Container containerInfo) {
+        cleanQuietly(containerInfo);
+        replenish(scanner);
+    }
+
+    /**
+     * Boot new warm containers for a scanner until the configured pool size is reached.
+     *
+     * @param scanner scanner
+     */
+    public void replenish(Scanner scanner) {
+        if (!isEnabled()) {
+            return;
+        }
+        int poolSize = ScanManagerConfiguration.getInstance().getWarmPoolSize();
+        AtomicInteger bootingCount = bootingContainerCounts.computeIfAbsent(scanner.getId(),
+                scannerId -> new AtomicInteger());
+        while (true) {
+            int booting = bootingCount.get();
+            if (getIdleContainers(scanner.getId()).size() + booting >= poolSize) {
+                return;
+            }
+            if (bootingCount.compareAndSet(booting, booting + 1)) {
+                getExecutor().execute(() -> {
+                    try {
+                        bootContainer(scanner);
+                    } finally {
+                        bootingCount.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    private void bootContainer(Scanner scanner) {
+        Container containerInfo = null;
+        try {
+            Map<String, String> labels = new HashMap<>();
+            labels.put(CONTAINER_WARM_POOL_LABEL_NAME, scanner.getId());
+            labels.put(CONTAINER_SCANNER_LABEL_NAME, scanner.getName());
+            containerInfo = containerHandler.create(scanner.getImage(),
+                    ScanManagerConfiguration.getInstance().getScannerServiceHost(),
+                    ScanManagerConfiguration.getInstance().getScannerServicePort(), labels, new ArrayList<>(),
+                    ContainerUtil.buildScannerEnvironment());
+            containerHandler.start(containerInfo.getId());
+
+            int readinessTimeout = ScanManagerConfiguration.getInstance().getScannerReadinessTimeout();
+            if (!scannerReadinessProbe.awaitReady(ContainerUtil.buildScannerServiceURI(containerInfo,
+                    SCANNER_HEALTH_ENDPOINT).toString(), readinessTimeout)) {
+                throw new ScanManagerException("Scanner service did not become ready within " + readinessTimeout +
+                        " seconds. Container id: " + containerInfo.getId());
+            }
+            getIdleContainers(scanner.getId()).offer(containerInfo);
+            logger.info("Warm scanner container started for the scanner " + scanner.getId() + ". Container id: " +
+                    containerInfo.getId());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.error("Interrupted while starting a warm scanner container for the scanner " +
+                    scanner.getId(), e);
+            if (containerInfo != null) {
+                cleanQuietly(containerInfo);
+            }
+        } catch (ScanManagerException e) {
+            logger.error("Error occurred while starting a warm scanner container for the scanner " +
+                    scanner.getId(), e);
+            if (containerInfo != null) {
+                cleanQuietly(containerInfo);
+            }
+        }
+    }
+
+    private boolean resetScanner(Container containerInfo) {
+        for (int attempt = 1; attempt <= RESET_ATTEMPTS; attempt++) {
+            try {
+                HTTPRequest resetRequest = new HTTPRequest(ContainerUtil.buildScannerServiceURI(containerInfo,
+                        SCANNER_RESET_ENDPOINT).toString(), new LinkedMultiValueMap<>(), new HashMap<>());
+                ResponseEntity response = HTTPUtil.sendPOST(resetRequest);
+                if (response.getStatusCode().is2xxSuccessful()) {
+                    return true;
+                }
+            } catch (RestClientException | ScanManagerException e) {
+
+                // The scanner might still be finishing the previous scan.
+                logger.debug("Unable to reset the scanner container: " + containerInfo.getId());
+            }
+            if (attempt < RESET_ATTEMPTS) {
+                try {
+                    TimeUnit.SECONDS.sleep(RESET_RETRY_WAIT_SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isLeased(Container containerInfo) {
+        return containerInfo.getName() != null && containerInfo.getName().startsWith(LEASED_CONTAINER_NAME_PREFIX);
+    }
+
+    private Deque<Container> getIdleContainers(String scannerId) {
+        return idleContainers.computeIfAbsent(scannerId, id -> new ConcurrentLinkedDeque<>());
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+
+                    // The queue is not bounded as the tasks in flight are limited by the warm pool size and the
+                    // number of leased containers, while the threads are bounded so that resets do not pile up.
+                    int threadCount = ScanManagerConfiguration.getInstance().getWarmPoolThreadCount();
+                    AtomicInteger threadIndex = new AtomicInteger();
+                    executor = new ThreadPoolExecutor(threadCount, threadCount, 0L, TimeUnit.MILLISECONDS,
+                            new LinkedBlockingQueue<>(),
+                            runnable -> new Thread(runnable, "WarmContainerPool-" + threadIndex.incrementAndGet()));
+                }
+            }
+        }
+        return executor;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ThreadPoolExecutor threadPoolExecutor = executor;
+        if (threadPoolExecutor != null) {
+            threadPoolExecutor.shutdown();
+            try {
+                if (!threadPoolExecutor.awaitTermination(EXECUTOR_SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS)) {
+                    threadPoolExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                threadPoolExecutor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void cleanQuietly(Container containerInfo) {
+        try {
+            containerHandler.clean(containerInfo.getId());
+        } catch (ScanManagerException e) {
+            logger.error("Error occurred while removing the scanner container: " + containerInfo.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.log;
+
+import org.apache.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.wso2.security.tools.scanmanager.common.external.model.Log;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.dao.LogBatchDAO;
+import org.wso2.security.tools.scanmanager.core.dao.LogDAO;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+
+/**
+ * Asynchronous ingestion pipeline of the scan logs. Logs are buffered in a bounded queue and written by a single
+ * background thread in JDBC batches, which are flushed when either the batch size is reached or the flush interval
+ * has elapsed since the first log of the batch was taken. Written logs are published to the subscribers of their
+ * scans.
+ */
+@Component
+public class LogIngestionPipeline {
+
+    private static final Logger logger = Logger.getLogger(LogIngestionPipeline.class);
+
+    private static final long WRITER_SHUTDOWN_WAIT_MILLIS = 30000;
+
+    private LogBatchDAO logBatchDAO;
+    private LogDAO logDAO;
+    private ScanEventBroadcaster scanEventBroadcaster;
+
+    private volatile BlockingQueue<Log> buffer;
+    private volatile Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    @Autowired
+    public LogIngestionPipeline(LogBatchDAO logBatchDAO, LogDAO logDAO, ScanEventBroadcaster scanEventBroadcaster) {
+        this.logBatchDAO = logBatchDAO;
+        this.logDAO = logDAO;
+        this.scanEventBroadcaster = scanEventBroadcaster;
+    }
+
+    /**
+     * Add a log to the buffer, to be written by the background writer. The log is written on the calling thread
+     * when the buffer is full or the pipeline is stopped, which also slows down the log producers.
+     *
+     * @param log log to be written
+     */
+    public void submit(Log log) {
+        if (stopped || !getBuffer().offer(log)) {
+            flush(Collections.singletonList(log));
+        }
+    }
+
+    private BlockingQueue<Log> getBuffer() {
+        if (buffer == null) {
+            synchronized (this) {
+                if (buffer == null && !stopped) {
+
+                    // Created lazily as the scan manager configuration is loaded after the beans are constructed.
+                    ScanManagerConfiguration configuration = ScanManagerConfiguration.getInstance();
+                    BlockingQueue<Log> logBuffer = new ArrayBlockingQueue<>(configuration.getLogBufferCapacity());
+                    int batchSize = configuration.getLogBatchSize();
+                    long flushIntervalMillis = configuration.getLogBatchFlushInterval();
+
+                    running = true;
+                    writerThread = new Thread(() -> write(logBuffer, batchSize, flushIntervalMillis), "LogWriter");
+                    writerThread.setDaemon(true);
+                    writerThread.start();
+                    buffer = logBuffer;
+                }
+            }
+        }
+        return buffer;
+    }
+
+    private void write(BlockingQueue<Log> logBuffer, int batchSize, long flushIntervalMillis) {
+        List<Log> batch = new ArrayList<>(batchSize);
+        while (running || !logBuffer.isEmpty()) {
+            try {
+                Log log = logBuffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (log == null) {
+                    continue;
+                }
+                batch.add(log);
+                long flushDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    logBuffer.drainTo(batch, batchSize - batch.size());
+                    long remainingNanos = flushDeadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remainingNanos <= 0 || !running) {
+                        break;
+                    }
+                    log = logBuffer.poll(remainingNanos, TimeUnit.NANOSECONDS);
+                    if (log == null) {
+                        break;
+                    }
+                    batch.add(log);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Log> batch) {
+        try {
+            logBatchDAO.insertAll(batch);
+            scanEventBroadcaster.publishLogs(batch);
+        } catch (RuntimeException e) {
+            logger.error("Error occurred while writing a batch of " + batch.size() + " scan logs. Writing the logs " +
+                    "one by one", e);
+
+            // Write the logs separately, so that a single invalid log does not discard the whole batch.
+            for (Log log : batch) {
+                try {
+                    logDAO.save(log);
+                    scanEventBroadcaster.publishLogs(Collections.singletonList(log));
+                } catch (RuntimeException saveException) {
+                    logger.error("Unable to write the scan log of the scan: " + log.getScan().getJobId(),
+                            saveException);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop accepting logs and wait for the buffered logs to be written.
+     */
+    @PreDestroy
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            stopped = true;
+            running = false;
+            thread = writerThread;
+        }
+        if (thread != null) {
+            try {
+                thread.join(WRITER_SHUTDOWN_WAIT_MILLIS);
+                if (thread.isAlive()) {
+                    logger.warn("Timed out while writing the buffered scan logs");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
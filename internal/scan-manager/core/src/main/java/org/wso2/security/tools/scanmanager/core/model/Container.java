@@ -26,6 +26,7 @@ import java.util.Map;
 public class Container {
 
     private String id;
+    private String name;
     private boolean isRunning;
     private Map<Integer, Integer> portMappings;
     private List<String> commands;
@@ -53,6 +54,14 @@ public class Container {
         this.id = id;
     }
 
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
     public boolean isRunning() {
         return isRunning;
     }
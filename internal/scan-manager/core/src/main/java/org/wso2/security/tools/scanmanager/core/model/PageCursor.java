@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.model;
+
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Position of a keyset page, given by the timestamp and the unique key of the last entity of the previous page. The
+ * timestamp is null when the last entity has no timestamp. Cursors are passed to the clients as opaque tokens.
+ */
+public class PageCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private Timestamp timestamp;
+    private String key;
+
+    public PageCursor(Timestamp timestamp, String key) {
+        this.timestamp = timestamp == null ? null : new Timestamp(timestamp.getTime());
+        this.key = key;
+    }
+
+    public Timestamp getTimestamp() {
+        return timestamp == null ? null : new Timestamp(timestamp.getTime());
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Encode the cursor as an opaque token.
+     *
+     * @return cursor token
+     */
+    public String encode() {
+        String value = (timestamp == null ? "" : String.valueOf(timestamp.getTime())) + SEPARATOR + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a cursor token.
+     *
+     * @param token cursor token
+     * @return decoded cursor
+     * @throws InvalidRequestException when the token is not a valid cursor
+     */
+    public static PageCursor decode(String token) throws InvalidRequestException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = value.indexOf(SEPARATOR);
+            if (separatorIndex < 0 || separatorIndex == value.length() - 1) {
+                throw new InvalidRequestException("Invalid page cursor: " + token);
+            }
+            Timestamp timestamp = separatorIndex == 0 ? null :
+                    new Timestamp(Long.parseLong(value.substring(0, separatorIndex)));
+            return new PageCursor(timestamp, value.substring(separatorIndex + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Invalid page cursor: " + token, e);
+        }
+    }
+}
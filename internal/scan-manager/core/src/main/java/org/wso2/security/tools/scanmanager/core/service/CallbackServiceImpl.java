@@ -22,10 +22,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
+import org.wso2.security.tools.scanmanager.core.dispatcher.ScanDispatcher;
 import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
-import org.wso2.security.tools.scanmanager.core.util.Constants;
 
 import java.sql.Timestamp;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Service class that manage the method implementations of the callback endpoint.
@@ -35,20 +36,26 @@ public class CallbackServiceImpl implements CallbackService {
 
     private ScanEngineService scanEngineService;
     private ScanService scanService;
+    private ScanDispatcher scanDispatcher;
 
     @Autowired
-    public CallbackServiceImpl(ScanEngineService scanEngineService, ScanService scanService) {
+    public CallbackServiceImpl(ScanEngineService scanEngineService, ScanService scanService,
+                               ScanDispatcher scanDispatcher) {
         this.scanEngineService = scanEngineService;
         this.scanService = scanService;
+        this.scanDispatcher = scanDispatcher;
     }
 
     @Override
     public void updateScan(Scan scan, ScanStatus scanStatus, String scannerScanId, String scanReportPath)
             throws InvalidRequestException {
-        synchronized (Constants.LOCK) {
+        ReentrantLock poolLock = scanDispatcher.getPoolLock(scan);
+        poolLock.lock();
+        Scan releasedScan = null;
+        try {
 
-            // Get the scan details again from database as the scan details might have been changed before entering the
-            // synchronized block.
+            // Get the scan details again from database as the scan details might have been changed before acquiring
+            // the pool lock.
             Scan newScanObject = scanService.getByJobId(scan.getJobId());
             switch (scanStatus) {
                 case RUNNING:
@@ -71,18 +78,29 @@ public class CallbackServiceImpl implements CallbackService {
                     }
                     newScanObject.setStatus(scanStatus);
                     scanEngineService.removeContainer(newScanObject);
-                    new Thread(() -> scanEngineService.beginPendingScans(), "BeginPendingScansFromCallback").start();
+                    releasedScan = newScanObject;
                     break;
                 case ERROR:
                 case CANCELED:
                     newScanObject.setStatus(scanStatus);
                     scanEngineService.removeContainer(newScanObject);
-                    new Thread(() -> scanEngineService.beginPendingScans(), "BeginPendingScansFromCallback").start();
+                    releasedScan = newScanObject;
                     break;
                 default:
                     throw new InvalidRequestException("Unsupported scan status: " + scanStatus);
             }
             scanService.update(newScanObject);
+        } finally {
+
+            // The scanner app is released only after the terminal status is saved, so that the next scan of the
+            // pool is not dispatched while this scan still occupies the app in the database.
+            try {
+                if (releasedScan != null) {
+                    scanDispatcher.release(releasedScan);
+                }
+            } finally {
+                poolLock.unlock();
+            }
         }
     }
 }
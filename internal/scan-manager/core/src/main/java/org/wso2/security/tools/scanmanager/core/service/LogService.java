@@ -21,6 +21,8 @@ import org.springframework.data.domain.Page;
 import org.wso2.security.tools.scanmanager.common.external.model.Log;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.model.LogType;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
 
 import java.sql.Timestamp;
 
@@ -68,4 +70,16 @@ public interface LogService {
      * @return requested page containing the logs
      */
     public Page<Log> getByScan(Scan scan, Integer pageNumber, Integer pageSize);
+
+    /**
+     * Get logs for a given scan by keyset page, latest first.
+     *
+     * @param scan     scan object
+     * @param cursor   cursor token returned with the previous page, or null for the first page
+     * @param pageSize required page size
+     * @return requested page containing the logs
+     * @throws InvalidRequestException when the cursor token is invalid
+     */
+    public CursorPage<Log> getByScanAndCursor(Scan scan, String cursor, Integer pageSize)
+            throws InvalidRequestException;
 }
@@ -31,11 +31,23 @@ import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.model.LogType;
 import org.wso2.security.tools.scanmanager.core.dao.LogDAO;
 import org.wso2.security.tools.scanmanager.core.dao.ScanDAO;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
+import org.wso2.security.tools.scanmanager.core.log.LogIngestionPipeline;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
+import org.wso2.security.tools.scanmanager.core.model.PageCursor;
 
+import java.math.BigInteger;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * The service class that manage the method implementations of the Scan logs.
+ * The service class that manage the method implementations of the Scan logs. Logs are handed over to the log
+ * ingestion pipeline to be written in batches, and the job ids of the scans that are known to exist are cached so
+ * that the scan is not queried for each log.
  */
 @Service
 @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
@@ -43,34 +55,53 @@ public class LogServiceImpl implements LogService {
 
     private static final Logger logger = Logger.getLogger(LogServiceImpl.class);
 
+    static final int KNOWN_JOB_IDS_CAPACITY = 10000;
+
     private LogDAO logDAO;
     private ScanDAO scanDAO;
+    private LogIngestionPipeline logIngestionPipeline;
+
+    // Least recently used job ids are evicted once the capacity is reached. Accesses reorder the entries, hence the
+    // map is synchronized for reads as well.
+    private final Map<String, Boolean> knownJobIds = Collections.synchronizedMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > KNOWN_JOB_IDS_CAPACITY;
+                }
+            });
 
     @Autowired
-    public LogServiceImpl(LogDAO logDAO, ScanDAO scanDAO) {
+    public LogServiceImpl(LogDAO logDAO, ScanDAO scanDAO, LogIngestionPipeline logIngestionPipeline) {
         this.logDAO = logDAO;
         this.scanDAO = scanDAO;
+        this.logIngestionPipeline = logIngestionPipeline;
     }
 
+    // Logs are written by the log ingestion pipeline in transactions of its own, so inserting a log does not need a
+    // transaction.
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean insertError(Scan scan, Throwable e) {
         logger.error("An error occurred", e);
 
         boolean isScanFound = false;
-        if (scanDAO.getByJobId(scan.getJobId()) != null) {
-            Log log = new Log(scan, LogType.ERROR, new Timestamp(System.currentTimeMillis()), getFullErrorMessage(e));
-            logDAO.save(log);
+        if (isScanExists(scan.getJobId())) {
+            logIngestionPipeline.submit(new Log(scan, LogType.ERROR, new Timestamp(System.currentTimeMillis()),
+                    getFullErrorMessage(e)));
             isScanFound = true;
         }
         return isScanFound;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean insert(Scan scan, LogType type, String message) {
         return insert(scan, type, new Timestamp(System.currentTimeMillis()), message);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean insert(Scan scan, LogType type, Timestamp timestamp, String message) {
         switch (type) {
             case ERROR:
@@ -88,9 +119,8 @@ public class LogServiceImpl implements LogService {
         }
 
         boolean isScanFound = false;
-        if (scanDAO.getByJobId(scan.getJobId()) != null) {
-            Log log = new Log(scan, type, timestamp, message);
-            logDAO.save(log);
+        if (isScanExists(scan.getJobId())) {
+            logIngestionPipeline.submit(new Log(scan, type, timestamp, message));
             isScanFound = true;
         }
         return isScanFound;
@@ -102,6 +132,56 @@ public class LogServiceImpl implements LogService {
         return logDAO.getByScanOrderByTimeStampDesc(scan, pageable);
     }
 
+    @Override
+    public CursorPage<Log> getByScanAndCursor(Scan scan, String cursor, Integer pageSize)
+            throws InvalidRequestException {
+
+        // One extra log is read to find out whether there is a next page.
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Log> logs;
+        if (cursor == null || cursor.isEmpty()) {
+            logs = logDAO.getByScanOrderByTimeStampDescIdDesc(scan, pageable);
+        } else {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+
+            // Logs always have a timestamp, hence a log cursor without one was not issued by this service.
+            if (pageCursor.getTimestamp() == null) {
+                throw new InvalidRequestException("Invalid page cursor: " + cursor);
+            }
+            BigInteger id;
+            try {
+                id = new BigInteger(pageCursor.getKey());
+            } catch (NumberFormatException e) {
+                throw new InvalidRequestException("Invalid page cursor: " + cursor, e);
+            }
+            logs = logDAO.getByScanBefore(scan, pageCursor.getTimestamp(), id, pageable);
+        }
+
+        String nextCursor = null;
+        if (logs.size() > pageSize) {
+            logs = logs.subList(0, pageSize);
+            Log lastLog = logs.get(pageSize - 1);
+            nextCursor = new PageCursor(lastLog.getTimeStamp(), lastLog.getId().toString()).encode();
+        }
+        return new CursorPage<>(new ArrayList<>(logs), nextCursor);
+    }
+
+    private boolean isScanExists(String jobId) {
+        if (jobId == null) {
+            return false;
+        }
+        if (knownJobIds.get(jobId) != null) {
+            return true;
+        }
+        if (scanDAO.getByJobId(jobId) == null) {
+            return false;
+        }
+
+        // Scans are never deleted, so the cache only has to be bounded, not invalidated.
+        knownJobIds.put(jobId, Boolean.TRUE);
+        return true;
+    }
+
     private String getFullErrorMessage(Throwable e) {
         if (e.getCause() == null) {
             return e.getMessage();
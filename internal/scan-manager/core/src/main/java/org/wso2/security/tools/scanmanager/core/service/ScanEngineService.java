@@ -27,10 +27,17 @@ import org.wso2.security.tools.scanmanager.core.model.Container;
 public interface ScanEngineService {
 
     /**
-     * Begin all pending scans.
+     * Load all pending scans from the database and begin them.
      */
     public void beginPendingScans();
 
+    /**
+     * Queue a pending scan to be dispatched to a free scanner app.
+     *
+     * @param scan pending scan
+     */
+    public void queueScan(Scan scan);
+
     /**
      * Cancel a given scan.
      *
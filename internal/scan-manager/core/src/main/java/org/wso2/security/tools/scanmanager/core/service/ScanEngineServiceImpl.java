@@ -17,7 +17,6 @@
  */
 package org.wso2.security.tools.scanmanager.core.service;
 
-import org.apache.http.client.utils.URIBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
@@ -34,27 +33,32 @@ import org.wso2.security.tools.scanmanager.common.model.LogType;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
 import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.dispatcher.ScanDispatcher;
+import org.wso2.security.tools.scanmanager.core.dispatcher.ScanPool;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
 import org.wso2.security.tools.scanmanager.core.handler.ContainerHandler;
+import org.wso2.security.tools.scanmanager.core.handler.ScannerReadinessProbe;
+import org.wso2.security.tools.scanmanager.core.handler.WarmContainerPool;
 import org.wso2.security.tools.scanmanager.core.model.Container;
-import org.wso2.security.tools.scanmanager.core.util.Constants;
+import org.wso2.security.tools.scanmanager.core.util.ContainerUtil;
 
 import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_APP_LABEL_NAME;
-import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_HOST;
-import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_PORT;
 import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_SCANNER_LABEL_NAME;
 import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_SCAN_JOB_ID_LABEL_NAME;
-import static org.wso2.security.tools.scanmanager.core.util.Constants.SCHEME;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.SCANNER_HEALTH_ENDPOINT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.SCANNER_SCAN_ENDPOINT;
 
 /**
  * Scan engine service class that holds the scan engine service method implementations.
@@ -66,80 +70,98 @@ public class ScanEngineServiceImpl implements ScanEngineService {
     private ScannerService scannerService;
     private LogService logService;
     private ContainerHandler dockerHandler;
+    private ScanDispatcher scanDispatcher;
+    private ScannerReadinessProbe scannerReadinessProbe;
+    private WarmContainerPool warmContainerPool;
 
     private static final String PROPERTY_MAP_PARAMETER_NAME = "propertyMap";
     private static final String FILE_MAP_PARAMETER_NAME = "fileMap";
     private static final String JOB_ID_PARAMETER_NAME = "jobId";
     private static final String SCANNER_APP_ID_PARAMETER_NAME = "appId";
-    private static final String SCANNER_SCAN_ENDPOINT = "/scanner/scan";
-    private static final Integer SCANNER_SERVICE_WAIT_TIME = 10000;
+
+    // Job ids of the scans that have reserved a scanner app, but have not been submitted to the scanner service yet.
+    private final Set<String> startingScanJobIds = ConcurrentHashMap.newKeySet();
 
     @Autowired
     public ScanEngineServiceImpl(ScanService scanService, ScannerService scannerService, LogService logService,
-                                 ContainerHandler dockerHandler) {
+                                 ContainerHandler dockerHandler, ScanDispatcher scanDispatcher,
+                                 ScannerReadinessProbe scannerReadinessProbe, WarmContainerPool warmContainerPool) {
         this.scanService = scanService;
         this.scannerService = scannerService;
         this.logService = logService;
         this.dockerHandler = dockerHandler;
+        this.scanDispatcher = scanDispatcher;
+        this.scannerReadinessProbe = scannerReadinessProbe;
+        this.warmContainerPool = warmContainerPool;
+        this.scanDispatcher.setDispatchHandler(this::beginScan);
     }
 
     @Override
     public void beginPendingScans() {
-        scanService.getPendingScans(ScanStatus.SUBMIT_PENDING).forEach(scan -> beginScan(scan));
+
+        // Reload the pending scans from the database, as scans may have been submitted while the scan manager was
+        // down, and dispatch all the pools.
+        scanService.getPendingScans(ScanStatus.SUBMIT_PENDING).forEach(scanDispatcher::enqueue);
+        scanDispatcher.startOccupancyReconciliation();
+        scanDispatcher.dispatchAll();
     }
 
-    private void beginScan(Scan scan) {
-        synchronized (Constants.LOCK) {
+    @Override
+    public void queueScan(Scan scan) {
+        scanDispatcher.submit(scan);
+    }
 
-            // Check if the scan status have been changed before entering the synchronized block.
-            Scan newScanObject = scanService.getByJobId(scan.getJobId());
-            if (newScanObject.getStatus() == ScanStatus.SUBMIT_PENDING) {
-                try {
+    /**
+     * Try to begin a pending scan. This is called by the scan dispatcher while holding the lock of the scan pool.
+     *
+     * @param scan pending scan
+     * @return true if the scan no longer needs to be dispatched, false if there is no free scanner app for the scan
+     */
+    private boolean beginScan(Scan scan) {
+
+        // Check if the scan status have been changed after the scan was queued.
+        Scan newScanObject = scanService.getByJobId(scan.getJobId());
+        if (newScanObject == null || newScanObject.getStatus() != ScanStatus.SUBMIT_PENDING) {
+            return true;
+        }
 
-                    // There can be multiple scanner apps for a given product in a particular scanner. We need to
-                    // identify the currently occupied apps and check for any available free app to start the scan.
-                    List<String> occupiedApps = getOccupiedApps(newScanObject.getScanner(),
-                            newScanObject.getProduct());
-                    List<ScannerApp> scannerApps =
-                            scannerService.getAppsByScannerAndAssignedProduct(newScanObject.getScanner(),
-                                    newScanObject.getProduct());
-
-                    logService.insert(newScanObject, LogType.INFO,
-                            "Checking for a free scanner application for the scan: " + scan.getJobId());
-                    boolean freeAppFound = false;
-                    for (ScannerApp scannerApp : scannerApps) {
-                        if (!occupiedApps.contains(scannerApp.getAppId())) {
-                            freeAppFound = true;
-
-                            logService.insert(newScanObject, LogType.INFO,
-                                    "Free scanner app found. Initiating the scan with the scanner app id: " +
-                                            scannerApp.getAppId());
-
-                            // Initiating the scan request to create a scanner container and send the start scan request
-                            // to the container micro service.
-                            initiateScanRequest(newScanObject, scannerApp);
-
-                            newScanObject.setStatus(ScanStatus.SUBMITTED);
-                            newScanObject.setScannerAppId(scannerApp.getAppId());
-                            scanService.update(newScanObject);
-                            logService.insert(newScanObject, LogType.INFO, "Scan submitted");
-                            break;
-                        }
-                    }
-                    if (!freeAppFound) {
-                        logService.insert(newScanObject, LogType.WARN,
-                                "Unable to find a free application for scan: " + newScanObject.getJobId());
-                    }
-                } catch (ScanManagerException e) {
-                    logService.insertError(newScanObject, e);
-                    try {
-                        scanService.updateStatus(newScanObject.getJobId(), ScanStatus.ERROR);
-                    } catch (ScanManagerException scanUpdateException) {
-                        logService.insertError(newScanObject, scanUpdateException);
-                    }
-                }
+        // There can be multiple scanner apps for a given product in a particular scanner. We need to
+        // identify the currently occupied apps and check for any available free app to start the scan. The
+        // occupied apps are tracked by the scan pool and only loaded from the database when not known.
+        ScanPool pool = scanDispatcher.getPool(newScanObject);
+        if (!pool.isOccupancyLoaded()) {
+            pool.loadOccupancy(getOccupiedApps(newScanObject.getScanner(), newScanObject.getProduct()));
+        }
+        List<ScannerApp> scannerApps =
+                scannerService.getAppsByScannerAndAssignedProduct(newScanObject.getScanner(),
+                        newScanObject.getProduct());
+
+        logService.insert(newScanObject, LogType.INFO,
+                "Checking for a free scanner application for the scan: " + scan.getJobId());
+        for (ScannerApp scannerApp : scannerApps) {
+            if (!pool.isAppOccupied(scannerApp.getAppId())) {
+                logService.insert(newScanObject, LogType.INFO,
+                        "Free scanner app found. Initiating the scan with the scanner app id: " +
+                                scannerApp.getAppId());
+
+                // Reserve the scanner app while holding the pool lock so that it is marked as occupied before
+                // the next scan of the pool is dispatched.
+                newScanObject.setStatus(ScanStatus.SUBMITTED);
+                newScanObject.setScannerAppId(scannerApp.getAppId());
+                scanService.update(newScanObject);
+                pool.occupyApp(scannerApp.getAppId());
+                startingScanJobIds.add(newScanObject.getJobId());
+
+                // Starting the container, waiting for the scanner service and sending the start scan request
+                // are done outside the pool lock, so that a slow docker call does not block the other scans of
+                // the pool.
+                scanDispatcher.executeAsync(() -> startReservedScan(newScanObject, scannerApp));
+                return true;
             }
         }
+        logService.insert(newScanObject, LogType.WARN,
+                "Unable to find a free application for scan: " + newScanObject.getJobId());
+        return false;
     }
 
     private List<String> getOccupiedApps(Scanner scanner, String product) {
@@ -151,10 +173,12 @@ public class ScanEngineServiceImpl implements ScanEngineService {
 
     @Override
     public void cancelScan(Scan scan) throws ScanManagerException {
-        synchronized (Constants.LOCK) {
+        ReentrantLock poolLock = scanDispatcher.getPoolLock(scan);
+        poolLock.lock();
+        try {
 
-            // Get the scan details again from database as the scan details might have been changed before entering the
-            // synchronized block.
+            // Get the scan details again from database as the scan details might have been changed before acquiring
+            // the pool lock.
             Scan newScanObject = scanService.getByJobId(scan.getJobId());
 
             // A scan can be cancelled only if the scan is any of the following status.
@@ -162,40 +186,44 @@ public class ScanEngineServiceImpl implements ScanEngineService {
                     newScanObject.getStatus() == ScanStatus.SUBMITTED ||
                     newScanObject.getStatus() == ScanStatus.RUNNING) {
                 try {
-                    List<Container> containerInfos = dockerHandler.list();
-                    boolean isContainerFound = false;
-                    for (Container containerInfo : containerInfos) {
-                        Map<String, String> labels = containerInfo.getLabels();
-                        if (labels != null && labels.containsKey(CONTAINER_SCAN_JOB_ID_LABEL_NAME) &&
-                                labels.get(CONTAINER_SCAN_JOB_ID_LABEL_NAME).equals(scan.getJobId())) {
-                            isContainerFound = true;
-
-                            // A container is running for this particular scan. Hence we need to send a cancel scan
-                            // request to the container.
-                            URI uri = buildScannerScanURI(containerInfo);
-                            Map<String, Object> requestParams = new HashMap<>();
-                            requestParams.put(JOB_ID_PARAMETER_NAME, scan.getJobId());
-                            requestParams.put(SCANNER_APP_ID_PARAMETER_NAME, labels.get(CONTAINER_APP_LABEL_NAME));
-                            MultiValueMap<String, String> requestHeaders = new LinkedMultiValueMap<>();
-                            HTTPRequest scanCancelRequest = new HTTPRequest(uri.toString(), requestHeaders,
-                                    requestParams);
-                            ResponseEntity response = HTTPUtil.sendDELETE(scanCancelRequest);
-                            if (response.getStatusCode().isError()) {
-                                throw new ScanManagerException("Unable to submit the cancel scan request");
-                            }
-
-                            // Cannot update the status to canceled from here as the scanner microservice needs to
-                            // conduct the actual scan cancellation and update the status as cancelled. Hence,
-                            // updating the status to cancel pending.
-                            scanService.updateStatus(scan.getJobId(), ScanStatus.CANCEL_PENDING);
-                            logService.insert(newScanObject, LogType.INFO, "Cancel scan request submitted");
-                            break;
+                    Container containerInfo = findScanContainer(scan.getJobId());
+                    if (newScanObject.getStatus() == ScanStatus.SUBMITTED &&
+                            startingScanJobIds.remove(scan.getJobId())) {
+
+                        // The scanner service of the scan is not ready yet and would not accept a cancel scan
+                        // request. Hence, the scan is cancelled here. The task starting the scan stops waiting for
+                        // the scanner service and removes the container.
+                        scanService.updateStatus(scan.getJobId(), ScanStatus.CANCELED);
+                        scanDispatcher.release(newScanObject);
+                        logService.insert(newScanObject, LogType.INFO,
+                                "Scan cancelled before the scanner service was ready");
+                    } else if (containerInfo != null) {
+
+                        // A container is running for this particular scan. Hence we need to send a cancel scan
+                        // request to the container.
+                        URI uri = buildScannerScanURI(containerInfo);
+                        Map<String, Object> requestParams = new HashMap<>();
+                        requestParams.put(JOB_ID_PARAMETER_NAME, scan.getJobId());
+                        requestParams.put(SCANNER_APP_ID_PARAMETER_NAME, newScanObject.getScannerAppId());
+                        MultiValueMap<String, String> requestHeaders = new LinkedMultiValueMap<>();
+                        HTTPRequest scanCancelRequest = new HTTPRequest(uri.toString(), requestHeaders,
+                                requestParams);
+                        ResponseEntity response = HTTPUtil.sendDELETE(scanCancelRequest);
+                        if (response.getStatusCode().isError()) {
+                            throw new ScanManagerException("Unable to submit the cancel scan request");
                         }
-                    }
-                    if (!isContainerFound) {
+
+                        // Cannot update the status to canceled from here as the scanner microservice needs to
+                        // conduct the actual scan cancellation and update the status as cancelled. Hence,
+                        // updating the status to cancel pending.
+                        scanService.updateStatus(scan.getJobId(), ScanStatus.CANCEL_PENDING);
+                        logService.insert(newScanObject, LogType.INFO, "Cancel scan request submitted");
+                    } else {
 
                         // No container has been found for this scan. Hence, we can change the status to canceled.
+                        scanDispatcher.remove(newScanObject);
                         scanService.updateStatus(scan.getJobId(), ScanStatus.CANCELED);
+                        scanDispatcher.release(newScanObject);
                         logService.insert(newScanObject, LogType.INFO, "Scan cancelled");
                     }
                 } catch (RestClientException | ScanManagerException e) {
@@ -203,20 +231,29 @@ public class ScanEngineServiceImpl implements ScanEngineService {
                     throw new ScanManagerException("Error occurred while cancelling the scan", e);
                 }
             }
+        } finally {
+            poolLock.unlock();
         }
     }
 
     private URI buildScannerScanURI(Container containerInfo) throws ScanManagerException {
-        try {
-            return (new URIBuilder())
-                    .setHost(ScanManagerConfiguration.getInstance().getScannerServiceHost())
-                    .setPort(containerInfo.getPortMappings().get(ScanManagerConfiguration.getInstance()
-                            .getScannerServicePort()))
-                    .setScheme(SCHEME).setPath(SCANNER_SCAN_ENDPOINT)
-                    .build();
-        } catch (URISyntaxException e) {
-            throw new ScanManagerException("Error occurred while building the scan URI", e);
+        return ContainerUtil.buildScannerServiceURI(containerInfo, SCANNER_SCAN_ENDPOINT);
+    }
+
+    /**
+     * Find the container of a scan. A container created for the scan is labelled with the scan job id, while a warm
+     * container leased to the scan is named after the scan job id.
+     *
+     * @param jobId scan job id
+     * @return container of the scan or null if there is no container for the scan
+     * @throws ScanManagerException when an error occurs while looking up the container
+     */
+    private Container findScanContainer(String jobId) throws ScanManagerException {
+        Container containerInfo = dockerHandler.findByLabel(CONTAINER_SCAN_JOB_ID_LABEL_NAME, jobId);
+        if (containerInfo == null) {
+            containerInfo = dockerHandler.findByName(WarmContainerPool.buildLeasedContainerName(jobId));
         }
+        return containerInfo;
     }
 
     @Override
@@ -225,15 +262,20 @@ public class ScanEngineServiceImpl implements ScanEngineService {
 
         try {
             logService.insert(scan, LogType.INFO, "Removing the scanner container for the scan: " + scan.getJobId());
-            for (Container containerInfo : dockerHandler.list()) {
-                Map<String, String> labels = containerInfo.getLabels();
-                if (labels.get(CONTAINER_SCAN_JOB_ID_LABEL_NAME).equals(scan.getJobId())) {
+            Container containerInfo = findScanContainer(scan.getJobId());
+            if (containerInfo != null) {
+                if (WarmContainerPool.isWarmContainer(containerInfo)) {
+
+                    // Warm containers are reset and reused for the next scans of the scanner.
+                    warmContainerPool.release(scan.getScanner(), containerInfo);
+                    logService.insert(scan, LogType.INFO,
+                            "Scanner container released to the warm pool. Container id: " + containerInfo.getId());
+                } else {
                     dockerHandler.clean(containerInfo.getId());
-                    removedContainerInfo = containerInfo;
                     logService.insert(scan, LogType.INFO,
                             "Scanner container successfully removed. Container id: " + containerInfo.getId());
-                    break;
                 }
+                removedContainerInfo = containerInfo;
             }
         } catch (ScanManagerException e) {
             logService.insertError(scan, e);
@@ -241,7 +283,17 @@ public class ScanEngineServiceImpl implements ScanEngineService {
         return removedContainerInfo;
     }
 
-    private void initiateScanRequest(Scan scan, ScannerApp scannerApp) throws ScanManagerException {
+    private Container acquireScannerContainer(Scan scan, ScannerApp scannerApp) throws ScanManagerException {
+        Container containerInfo = warmContainerPool.lease(scan.getScanner(), scan.getJobId());
+        if (containerInfo != null) {
+            logService.insert(scan, LogType.INFO,
+                    "Leased a warm scanner container. Container id: " + containerInfo.getId());
+            return containerInfo;
+        }
+        return startScannerContainer(scan, scannerApp);
+    }
+
+    private Container startScannerContainer(Scan scan, ScannerApp scannerApp) throws ScanManagerException {
         Container containerInfo = null;
         try {
             logService.insert(scan, LogType.INFO, "Creating a container for the scan");
@@ -251,13 +303,8 @@ public class ScanEngineServiceImpl implements ScanEngineService {
             dockerHandler.start(containerInfo.getId());
             logService.insert(scan, LogType.INFO,
                     "Scanner container started. Container id: " + containerInfo.getId());
-
-            // Sleep till the scanner service is started.
-            Thread.sleep(SCANNER_SERVICE_WAIT_TIME);
-
-            // Send the start scan request to the scanner container.
-            sendStartScanRequest(containerInfo, scannerApp, scan);
-        } catch (InterruptedException | ScanManagerException e) {
+            return containerInfo;
+        } catch (ScanManagerException e) {
             logService.insertError(scan, e);
             if (containerInfo != null) {
                 dockerHandler.clean(containerInfo.getId());
@@ -266,6 +313,115 @@ public class ScanEngineServiceImpl implements ScanEngineService {
         }
     }
 
+    /**
+     * Acquire a scanner container for a scan that has reserved a scanner app and start the scan on it. This is
+     * executed outside the pool lock. The reservation is committed if the scan is still submitted once the container
+     * is started, and rolled back if the container cannot be started.
+     *
+     * @param scan       submitted scan
+     * @param scannerApp scanner app reserved for the scan
+     */
+    private void startReservedScan(Scan scan, ScannerApp scannerApp) {
+        Container containerInfo;
+        try {
+            containerInfo = acquireScannerContainer(scan, scannerApp);
+        } catch (ScanManagerException e) {
+            handleScanStartFailure(scan, null, e);
+            return;
+        }
+        ReentrantLock poolLock = scanDispatcher.getPoolLock(scan);
+        poolLock.lock();
+        try {
+
+            // The scan might have been cancelled while the container was starting. The cancellation has already
+            // released the scanner app, hence only the container needs to be removed.
+            Scan newScanObject = scanService.getByJobId(scan.getJobId());
+            if (newScanObject == null || newScanObject.getStatus() != ScanStatus.SUBMITTED) {
+                startingScanJobIds.remove(scan.getJobId());
+                discardContainer(scan, containerInfo);
+                return;
+            }
+        } finally {
+            poolLock.unlock();
+        }
+        sendStartScanRequestWhenReady(scan, scannerApp, containerInfo);
+    }
+
+    /**
+     * Wait till the scanner service of the container is ready and send the start scan request. This is executed
+     * outside the pool lock.
+     *
+     * @param scan          submitted scan
+     * @param scannerApp    scanner app assigned to the scan
+     * @param containerInfo started scanner container
+     */
+    private void sendStartScanRequestWhenReady(Scan scan, ScannerApp scannerApp, Container containerInfo) {
+        try {
+            int readinessTimeout = ScanManagerConfiguration.getInstance().getScannerReadinessTimeout();
+            URI healthURI = ContainerUtil.buildScannerServiceURI(containerInfo, SCANNER_HEALTH_ENDPOINT);
+            boolean ready = scannerReadinessProbe.awaitReady(healthURI.toString(), readinessTimeout,
+                    () -> !startingScanJobIds.contains(scan.getJobId()));
+            ReentrantLock poolLock = scanDispatcher.getPoolLock(scan);
+            poolLock.lock();
+            try {
+
+                // The scan might have been cancelled while waiting for the scanner service.
+                Scan newScanObject = scanService.getByJobId(scan.getJobId());
+                if (newScanObject == null || newScanObject.getStatus() != ScanStatus.SUBMITTED) {
+                    startingScanJobIds.remove(scan.getJobId());
+                    discardContainer(scan, containerInfo);
+                    return;
+                }
+                if (!ready) {
+                    throw new ScanManagerException("Scanner service did not become ready within " +
+                            readinessTimeout + " seconds. Container id: " + containerInfo.getId());
+                }
+                sendStartScanRequest(containerInfo, scannerApp, newScanObject);
+                startingScanJobIds.remove(scan.getJobId());
+                logService.insert(newScanObject, LogType.INFO, "Scan submitted");
+            } finally {
+                poolLock.unlock();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            handleScanStartFailure(scan, containerInfo, e);
+        } catch (ScanManagerException e) {
+            handleScanStartFailure(scan, containerInfo, e);
+        }
+    }
+
+    private void handleScanStartFailure(Scan scan, Container containerInfo, Exception e) {
+        logService.insertError(scan, e);
+        if (containerInfo != null) {
+            discardContainer(scan, containerInfo);
+        }
+
+        // A scan cancelled while it was starting has already released its scanner app.
+        if (!startingScanJobIds.remove(scan.getJobId())) {
+            return;
+        }
+        try {
+            scanService.updateStatus(scan.getJobId(), ScanStatus.ERROR);
+        } catch (ScanManagerException scanUpdateException) {
+            logService.insertError(scan, scanUpdateException);
+        }
+
+        // The scanner app is free again. Hence, dispatching the next pending scan of the pool.
+        scanDispatcher.release(scan);
+    }
+
+    private void discardContainer(Scan scan, Container containerInfo) {
+        if (WarmContainerPool.isWarmContainer(containerInfo)) {
+            warmContainerPool.discard(scan.getScanner(), containerInfo);
+        } else {
+            try {
+                dockerHandler.clean(containerInfo.getId());
+            } catch (ScanManagerException containerCleanException) {
+                logService.insertError(scan, containerCleanException);
+            }
+        }
+    }
+
     private void sendStartScanRequest(Container containerInfo, ScannerApp scannerApp, Scan scan)
             throws ScanManagerException {
         try {
@@ -302,11 +458,7 @@ public class ScanEngineServiceImpl implements ScanEngineService {
         labels.put(CONTAINER_APP_LABEL_NAME, scannerApp.getAppId());
         labels.put(CONTAINER_SCANNER_LABEL_NAME, scannerApp.getScanner().getName());
 
-        String[] envVariables =
-                new String[]{CONTAINER_ENV_NAME_SCAN_MANAGER_HOST + "=" + ScanManagerConfiguration.getInstance()
-                        .getScanManagerHost(), CONTAINER_ENV_NAME_SCAN_MANAGER_PORT + "=" + ScanManagerConfiguration
-                        .getInstance().getScanManagerPort()};
         return dockerHandler.create(scannerApp.getScanner().getImage(), containerHost, containerPort, labels,
-                new ArrayList<>(), envVariables);
+                new ArrayList<>(), ContainerUtil.buildScannerEnvironment());
     }
 }
@@ -21,7 +21,9 @@ import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
 import org.wso2.security.tools.scanmanager.common.model.ScanPriority;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
 
 import java.util.List;
 
@@ -55,6 +57,16 @@ public interface ScanService {
      */
     public Page<Scan> getAll(Integer pageNumber, Integer pageSize);
 
+    /**
+     * Get all scans by keyset page, latest first.
+     *
+     * @param cursor   cursor token returned with the previous page, or null for the first page
+     * @param pageSize size of the page
+     * @return a page containing the requested scans
+     * @throws InvalidRequestException when the cursor token is invalid
+     */
+    public CursorPage<Scan> getAllByCursor(String cursor, Integer pageSize) throws InvalidRequestException;
+
     /**
      * Get scan by job id.
      *
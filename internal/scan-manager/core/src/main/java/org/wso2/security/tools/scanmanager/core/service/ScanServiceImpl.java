@@ -24,13 +24,20 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
 import org.wso2.security.tools.scanmanager.common.model.ScanPriority;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.core.dao.ScanDAO;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
+import org.wso2.security.tools.scanmanager.core.model.PageCursor;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -41,20 +48,26 @@ import java.util.List;
 public class ScanServiceImpl implements ScanService {
 
     private ScanDAO scanDAO;
+    private ScanEventBroadcaster scanEventBroadcaster;
 
     @Autowired
-    public ScanServiceImpl(ScanDAO scanDAO) {
+    public ScanServiceImpl(ScanDAO scanDAO, ScanEventBroadcaster scanEventBroadcaster) {
         this.scanDAO = scanDAO;
+        this.scanEventBroadcaster = scanEventBroadcaster;
     }
 
     @Override
     public Scan update(Scan scan) {
-        return scanDAO.save(scan);
+        Scan updatedScan = scanDAO.save(scan);
+        publishStatus(scan.getJobId(), scan.getStatus());
+        return updatedScan;
     }
 
     @Override
     public Scan insert(Scan scan) {
-        return scanDAO.save(scan);
+        Scan insertedScan = scanDAO.save(scan);
+        publishStatus(scan.getJobId(), scan.getStatus());
+        return insertedScan;
     }
 
     @Override
@@ -63,6 +76,32 @@ public class ScanServiceImpl implements ScanService {
         return scanDAO.getAllByOrderBySubmittedTimestampDesc(pageable);
     }
 
+    @Override
+    public CursorPage<Scan> getAllByCursor(String cursor, Integer pageSize) throws InvalidRequestException {
+
+        // One extra scan is read to find out whether there is a next page.
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<Scan> scans;
+        if (cursor == null || cursor.isEmpty()) {
+            scans = scanDAO.getAllByOrderBySubmittedTimestampDescJobIdDesc(pageable);
+        } else {
+            PageCursor pageCursor = PageCursor.decode(cursor);
+            if (pageCursor.getTimestamp() == null) {
+                scans = scanDAO.getAllNotSubmittedBefore(pageCursor.getKey(), pageable);
+            } else {
+                scans = scanDAO.getAllSubmittedBefore(pageCursor.getTimestamp(), pageCursor.getKey(), pageable);
+            }
+        }
+
+        String nextCursor = null;
+        if (scans.size() > pageSize) {
+            scans = scans.subList(0, pageSize);
+            Scan lastScan = scans.get(pageSize - 1);
+            nextCursor = new PageCursor(lastScan.getSubmittedTimestamp(), lastScan.getJobId()).encode();
+        }
+        return new CursorPage<>(new ArrayList<>(scans), nextCursor);
+    }
+
     @Override
     public Scan getByJobId(String jobId) {
         return scanDAO.getByJobId(jobId);
@@ -74,6 +113,7 @@ public class ScanServiceImpl implements ScanService {
         if (updatedRows != 1) {
             throw new ScanManagerException("Error occurred while updating scan status of the scan: " + jobId);
         }
+        publishStatus(jobId, status);
     }
 
     @Override
@@ -106,4 +146,23 @@ public class ScanServiceImpl implements ScanService {
     public List<Scan> getByStatusesAndScannerAndProduct(List<ScanStatus> statuses, Scanner scanner, String product) {
         return scanDAO.getByStatusInAndScannerAndProduct(statuses, scanner, product);
     }
+
+    /**
+     * Publish a status of a scan to its subscribers once the current transaction is committed.
+     *
+     * @param jobId  job id of the scan
+     * @param status status of the scan
+     */
+    private void publishStatus(String jobId, ScanStatus status) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    scanEventBroadcaster.publishStatus(jobId, status);
+                }
+            });
+        } else {
+            scanEventBroadcaster.publishStatus(jobId, status);
+        }
+    }
 }
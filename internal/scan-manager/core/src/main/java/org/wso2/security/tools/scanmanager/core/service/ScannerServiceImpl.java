@@ -22,16 +22,22 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
 import org.wso2.security.tools.scanmanager.common.external.model.ScannerApp;
 import org.wso2.security.tools.scanmanager.core.dao.ScannerAppDAO;
 import org.wso2.security.tools.scanmanager.core.dao.ScannerDAO;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Scanner Service class that manage the method implementations of the scanners.
+ * Scanner Service class that manage the method implementations of the scanners. The scanners and their apps rarely
+ * change, hence they are cached on read and the cache is invalidated whenever a scanner is written.
  */
 @Service
 @Transactional(propagation = Propagation.REQUIRES_NEW, isolation = Isolation.READ_COMMITTED)
@@ -40,6 +46,14 @@ public class ScannerServiceImpl implements ScannerService {
     private ScannerDAO scannerDAO;
     private ScannerAppDAO scannerAppDAO;
 
+    private final Object cacheLock = new Object();
+    private final Map<String, Scanner> scannersById = new ConcurrentHashMap<>();
+    private final Map<String, List<ScannerApp>> appsByScannerAndProduct = new ConcurrentHashMap<>();
+    private volatile List<Scanner> allScanners;
+
+    // Incremented on each invalidation, so that values read from the database before an invalidation are not cached.
+    private long cacheVersion;
+
     @Autowired
     public ScannerServiceImpl(ScannerDAO scannerDAO, ScannerAppDAO scannerAppDAO) {
         this.scannerDAO = scannerDAO;
@@ -48,34 +62,113 @@ public class ScannerServiceImpl implements ScannerService {
 
     @Override
     public Scanner insert(Scanner scanner) {
-        return scannerDAO.saveAndFlush(scanner);
+        try {
+            return scannerDAO.saveAndFlush(scanner);
+        } finally {
+            invalidateCache();
+        }
     }
 
     @Override
     public Scanner update(Scanner scanner) {
-        return scannerDAO.saveAndFlush(scanner);
+        try {
+            return scannerDAO.saveAndFlush(scanner);
+        } finally {
+            invalidateCache();
+        }
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Scanner getById(String scannerId) {
-        return scannerDAO.getScannerById(scannerId);
+        Scanner scanner = scannersById.get(scannerId);
+        if (scanner == null) {
+            long version = getCacheVersion();
+            scanner = scannerDAO.getScannerById(scannerId);
+            if (scanner != null) {
+                Scanner loadedScanner = scanner;
+                cache(version, () -> scannersById.put(scannerId, loadedScanner));
+            }
+        }
+        return scanner;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Scanner> getAll() {
-        return scannerDAO.findAll();
+        List<Scanner> scanners = allScanners;
+        if (scanners == null) {
+            long version = getCacheVersion();
+            List<Scanner> loadedScanners = Collections.unmodifiableList(scannerDAO.findAll());
+            cache(version, () -> allScanners = loadedScanners);
+            scanners = loadedScanners;
+        }
+        return scanners;
     }
 
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<ScannerApp> getAppsByScannerAndAssignedProduct(Scanner scanner, String productName) {
-        return scannerAppDAO.getByScannerAndAssignedProduct(scanner, productName);
+        String key = scanner.getId() + ":" + productName;
+        List<ScannerApp> scannerApps = appsByScannerAndProduct.get(key);
+        if (scannerApps == null) {
+            long version = getCacheVersion();
+            List<ScannerApp> loadedScannerApps = Collections.unmodifiableList(
+                    scannerAppDAO.getByScannerAndAssignedProduct(scanner, productName));
+            cache(version, () -> appsByScannerAndProduct.put(key, loadedScannerApps));
+            scannerApps = loadedScannerApps;
+        }
+        return scannerApps;
     }
 
     @Override
     public void removeByScannerId(String scannerId) throws ScanManagerException {
-        Integer updatedRows = scannerDAO.removeById(scannerId);
+        Integer updatedRows;
+        try {
+            updatedRows = scannerDAO.removeById(scannerId);
+        } finally {
+            invalidateCache();
+        }
         if (updatedRows != 1) {
             throw new ScanManagerException("Error occurred while removing scanner: " + scannerId);
         }
     }
+
+    private long getCacheVersion() {
+        synchronized (cacheLock) {
+            return cacheVersion;
+        }
+    }
+
+    private void cache(long version, Runnable cacheUpdate) {
+        synchronized (cacheLock) {
+            if (version == cacheVersion) {
+                cacheUpdate.run();
+            }
+        }
+    }
+
+    private void invalidateCache() {
+        clearCache();
+
+        // Cleared again once the transaction completes, as the cache could be refilled from the database before the
+        // changes are committed.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    clearCache();
+                }
+            });
+        }
+    }
+
+    private void clearCache() {
+        synchronized (cacheLock) {
+            cacheVersion++;
+            scannersById.clear();
+            appsByScannerAndProduct.clear();
+            allScanners = null;
+        }
+    }
 }
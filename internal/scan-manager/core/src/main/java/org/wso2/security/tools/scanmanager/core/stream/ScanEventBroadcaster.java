@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.stream;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.wso2.security.tools.scanmanager.common.external.model.Log;
+import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+
+/**
+ * Broadcasts the logs and the status transitions of the scans to the clients subscribed to them as server-sent
+ * events. Events are published from the write paths of the logs and the scans, after they are persisted, and are
+ * sent on a separate thread so that slow clients do not hold up the writers. When the clients fall behind, the oldest
+ * events are dropped, but the subscriptions of a finished scan are always completed.
+ */
+@Component
+public class ScanEventBroadcaster {
+
+    public static final String LOG_EVENT_NAME = "log";
+    public static final String STATUS_EVENT_NAME = "status";
+
+    private static final long EMITTER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(30);
+    private static final int PUBLISH_QUEUE_CAPACITY = 10000;
+
+    private final Map<String, Set<SseEmitter>> emittersByJobId = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor publishExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PUBLISH_QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "ScanEventBroadcaster");
+                thread.setDaemon(true);
+                return thread;
+            }, new DiscardOldestEventPolicy());
+
+    /**
+     * Subscribe to the events of a scan. The current status of the scan is sent as the first event.
+     *
+     * @param jobId         job id of the scan
+     * @param currentStatus current status of the scan
+     * @return emitter of the events of the scan
+     */
+    public SseEmitter subscribe(String jobId, ScanStatus currentStatus) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MILLIS);
+
+        // The emitter is added inside compute, so that it is not added to a set that a concurrent unsubscribe has
+        // just removed from the map.
+        emittersByJobId.compute(jobId, (key, emitters) -> {
+            Set<SseEmitter> jobEmitters = emitters == null ? new CopyOnWriteArraySet<>() : emitters;
+            jobEmitters.add(emitter);
+            return jobEmitters;
+        });
+        emitter.onCompletion(() -> unsubscribe(jobId, emitter));
+        emitter.onTimeout(() -> unsubscribe(jobId, emitter));
+        emitter.onError(e -> unsubscribe(jobId, emitter));
+        publishStatus(jobId, currentStatus);
+        return emitter;
+    }
+
+    /**
+     * Publish a list of persisted logs.
+     *
+     * @param logs persisted logs
+     */
+    public void publishLogs(Collection<Log> logs) {
+        if (emittersByJobId.isEmpty()) {
+            return;
+        }
+        List<Log> subscribedLogs = new ArrayList<>();
+        for (Log log : logs) {
+            if (log.getScan() != null && emittersByJobId.containsKey(log.getScan().getJobId())) {
+                subscribedLogs.add(log);
+            }
+        }
+        if (!subscribedLogs.isEmpty()) {
+            publishExecutor.execute(() -> subscribedLogs.forEach(log ->
+                    send(log.getScan().getJobId(), () -> SseEmitter.event().name(LOG_EVENT_NAME)
+                            .data(log, MediaType.APPLICATION_JSON))));
+        }
+    }
+
+    /**
+     * Publish a persisted status transition of a scan. The subscriptions of the scan are completed if the scan has
+     * reached a final status.
+     *
+     * @param jobId  job id of the scan
+     * @param status new status of the scan
+     */
+    public void publishStatus(String jobId, ScanStatus status) {
+        if (jobId == null || status == null || !emittersByJobId.containsKey(jobId)) {
+            return;
+        }
+        Runnable publishTask = () -> {
+            send(jobId, () -> SseEmitter.event().name(STATUS_EVENT_NAME).data(status.name()));
+            if (isFinalStatus(status)) {
+                Set<SseEmitter> emitters = emittersByJobId.remove(jobId);
+                if (emitters != null) {
+                    emitters.forEach(SseEmitter::complete);
+                }
+            }
+        };
+        publishExecutor.execute(isFinalStatus(status) ? new CompletionTask(publishTask) : publishTask);
+    }
+
+    private void send(String jobId, Supplier<SseEmitter.SseEventBuilder> eventBuilder) {
+        Set<SseEmitter> emitters = emittersByJobId.get(jobId);
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            try {
+
+                // A new event is built for each emitter, as the event builder cannot be reused.
+                emitter.send(eventBuilder.get());
+            } catch (IOException | IllegalStateException e) {
+
+                // The client has disconnected or the emitter has already completed.
+                unsubscribe(jobId, emitter);
+            }
+        }
+    }
+
+    private void unsubscribe(String jobId, SseEmitter emitter) {
+        emittersByJobId.computeIfPresent(jobId, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static boolean isFinalStatus(ScanStatus status) {
+        return status == ScanStatus.COMPLETED || status == ScanStatus.CANCELED || status == ScanStatus.ERROR;
+    }
+
+    /**
+     * Task that completes the subscriptions of a finished scan, which must not be dropped.
+     */
+    private static class CompletionTask implements Runnable {
+
+        private final Runnable task;
+
+        private CompletionTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+
+    /**
+     * Drops the oldest queued event that does not complete any subscriptions to make room for a new event. A
+     * completion task is run on the publishing thread if there is no event to drop.
+     */
+    private static class DiscardOldestEventPolicy implements RejectedExecutionHandler {
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                return;
+            }
+            Iterator<Runnable> queuedTasks = executor.getQueue().iterator();
+            while (queuedTasks.hasNext()) {
+                Runnable queuedTask = queuedTasks.next();
+                if (!(queuedTask instanceof CompletionTask) && executor.getQueue().remove(queuedTask)) {
+                    executor.execute(task);
+                    return;
+                }
+            }
+            if (task instanceof CompletionTask) {
+                task.run();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        publishExecutor.shutdownNow();
+        emittersByJobId.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        emittersByJobId.clear();
+    }
+}
@@ -22,8 +22,6 @@ package org.wso2.security.tools.scanmanager.core.util;
  */
 public class Constants {
 
-    public static final Object LOCK = new Object();
-
     public static final String SCAN_URL = "scanURL";
     public static final String SCAN_ARTIFACT = "scanArtifact";
     public static final String SCHEME = "http";
@@ -31,10 +29,31 @@ public class Constants {
     public static final String CONTAINER_APP_LABEL_NAME = "appId";
     public static final String CONTAINER_SCANNER_LABEL_NAME = "scanner";
     public static final String CONTAINER_SCAN_JOB_ID_LABEL_NAME = "scanJobId";
+    public static final String CONTAINER_WARM_POOL_LABEL_NAME = "warmPoolScannerId";
 
     public static final String CONTAINER_ENV_NAME_SCAN_MANAGER_HOST = "SCAN_MANAGER_HOST";
     public static final String CONTAINER_ENV_NAME_SCAN_MANAGER_PORT = "SCAN_MANAGER_PORT";
 
+    public static final String SCANNER_SCAN_ENDPOINT = "/scanner/scan";
+    public static final String SCANNER_HEALTH_ENDPOINT = "/scanner/health";
+    public static final String SCANNER_RESET_ENDPOINT = "/scanner/reset";
+
     public static final Integer DEFAULT_SCAN_PAGE_SIZE = 10;
     public static final Integer DEFAULT_LOG_PAGE_SIZE = 10;
+    public static final Integer DEFAULT_DISPATCHER_THREAD_COUNT = 4;
+    public static final Integer DEFAULT_SCANNER_START_THREAD_COUNT = 20;
+    public static final Integer DEFAULT_SCANNER_READINESS_TIMEOUT = 120;
+    public static final Integer DEFAULT_WARM_POOL_SIZE = 0;
+    public static final Integer DEFAULT_WARM_POOL_THREAD_COUNT = 4;
+    public static final Integer DEFAULT_CONTAINER_INDEX_RECONCILIATION_INTERVAL = 60;
+    public static final Integer DEFAULT_CONTAINER_HOST_PORT_RANGE_START = 20001;
+    public static final Integer DEFAULT_CONTAINER_HOST_PORT_RANGE_END = 29999;
+    public static final Integer DEFAULT_LOG_BUFFER_CAPACITY = 10000;
+    public static final Integer DEFAULT_LOG_BATCH_SIZE = 500;
+    public static final Integer DEFAULT_LOG_BATCH_FLUSH_INTERVAL = 1000;
+    public static final Integer DEFAULT_OCCUPANCY_RECONCILIATION_INTERVAL = 60;
+    public static final Integer DEFAULT_HTTP_MAX_CONNECTIONS = 100;
+    public static final Integer DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final Integer DEFAULT_HTTP_CONNECT_TIMEOUT = 30;
+    public static final Integer DEFAULT_HTTP_SOCKET_TIMEOUT = 300;
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.util;
+
+import org.apache.http.client.utils.URIBuilder;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.Container;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_HOST;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_PORT;
+import static org.wso2.security.tools.scanmanager.core.util.Constants.SCHEME;
+
+/**
+ * Utility methods related to the scanner containers.
+ */
+public class ContainerUtil {
+
+    private ContainerUtil() {
+    }
+
+    /**
+     * Build the URI of an endpoint of the scanner service running in a given container.
+     *
+     * @param containerInfo scanner container
+     * @param path          endpoint path
+     * @return scanner service endpoint URI
+     * @throws ScanManagerException when an error occurs while building the URI
+     */
+    public static URI buildScannerServiceURI(Container containerInfo, String path) throws ScanManagerException {
+        try {
+            return (new URIBuilder())
+                    .setHost(ScanManagerConfiguration.getInstance().getScannerServiceHost())
+                    .setPort(containerInfo.getPortMappings().get(ScanManagerConfiguration.getInstance()
+                            .getScannerServicePort()))
+                    .setScheme(SCHEME).setPath(path)
+                    .build();
+        } catch (URISyntaxException e) {
+            throw new ScanManagerException("Error occurred while building the scan URI", e);
+        }
+    }
+
+    /**
+     * Build the environment variables that are passed to a scanner container.
+     *
+     * @return environment variables in the NAME=value format
+     */
+    public static String[] buildScannerEnvironment() {
+        return new String[]{CONTAINER_ENV_NAME_SCAN_MANAGER_HOST + "=" + ScanManagerConfiguration.getInstance()
+                .getScanManagerHost(), CONTAINER_ENV_NAME_SCAN_MANAGER_PORT + "=" + ScanManagerConfiguration
+                .getInstance().getScanManagerPort()};
+    }
+}
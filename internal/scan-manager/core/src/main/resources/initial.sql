@@ -107,3 +107,21 @@ CREATE TABLE IF NOT EXISTS LOG(
             PRIMARY KEY (ID),
             FOREIGN KEY (JOB_ID) REFERENCES SCAN(JOB_ID)
 )ENGINE INNODB;
+
+-- Indexes are created separately from the tables, so that running this script again adds the missing indexes to an
+-- existing database. MySQL has no CREATE INDEX IF NOT EXISTS, hence each index is looked up first.
+SET @CREATE_INDEX = (SELECT IF(COUNT(*) = 0,
+            'CREATE INDEX SCAN_SUBMITTED_TIMESTAMP_INDEX ON SCAN (SUBMITTED_TIMESTAMP, JOB_ID)', 'DO 0')
+            FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'SCAN'
+            AND INDEX_NAME = 'SCAN_SUBMITTED_TIMESTAMP_INDEX');
+PREPARE CREATE_INDEX_STATEMENT FROM @CREATE_INDEX;
+EXECUTE CREATE_INDEX_STATEMENT;
+DEALLOCATE PREPARE CREATE_INDEX_STATEMENT;
+
+SET @CREATE_INDEX = (SELECT IF(COUNT(*) = 0,
+            'CREATE INDEX LOG_JOB_ID_TIME_CREATED_INDEX ON LOG (JOB_ID, TIME_CREATED, ID)', 'DO 0')
+            FROM INFORMATION_SCHEMA.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'LOG'
+            AND INDEX_NAME = 'LOG_JOB_ID_TIME_CREATED_INDEX');
+PREPARE CREATE_INDEX_STATEMENT FROM @CREATE_INDEX;
+EXECUTE CREATE_INDEX_STATEMENT;
+DEALLOCATE PREPARE CREATE_INDEX_STATEMENT;
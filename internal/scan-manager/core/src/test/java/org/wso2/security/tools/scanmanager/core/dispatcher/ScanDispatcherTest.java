@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.dispatcher;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+import org.wso2.security.tools.scanmanager.common.external.model.Scanner;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the per scanner and product pool scan dispatcher.
+ */
+public class ScanDispatcherTest {
+
+    private static final String TEST_SCANNER_ID = "testScannerId";
+    private static final String TEST_PRODUCT = "testProduct";
+    private static final String OTHER_TEST_PRODUCT = "otherTestProduct";
+
+    private ScanDispatcher scanDispatcher;
+
+    @BeforeMethod
+    public void setUp() {
+        scanDispatcher = new ScanDispatcher();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        scanDispatcher.shutdown();
+    }
+
+    @Test
+    public void testScansAreDispatchedInPriorityOrder() {
+        List<String> dispatchedJobIds = new ArrayList<>();
+        scanDispatcher.setDispatchHandler(scan -> dispatchedJobIds.add(scan.getJobId()));
+
+        scanDispatcher.enqueue(buildScan("job3", TEST_PRODUCT, 2, 1000));
+        scanDispatcher.enqueue(buildScan("job2", TEST_PRODUCT, 1, 2000));
+        scanDispatcher.enqueue(buildScan("job1", TEST_PRODUCT, 1, 1000));
+        scanDispatcher.dispatchAll();
+
+        Assert.assertEquals(dispatchedJobIds, Arrays.asList("job1", "job2", "job3"));
+        Assert.assertEquals(scanDispatcher.getPool(buildScan("job1", TEST_PRODUCT, 1, 1000)).size(), 0);
+    }
+
+    @Test
+    public void testBlockedPoolDoesNotHoldUpOtherPools() {
+        List<String> dispatchedJobIds = new ArrayList<>();
+        scanDispatcher.setDispatchHandler(scan -> {
+            if (TEST_PRODUCT.equals(scan.getProduct())) {
+                return false;
+            }
+            dispatchedJobIds.add(scan.getJobId());
+            return true;
+        });
+
+        Scan blockedScan = buildScan("job1", TEST_PRODUCT, 1, 1000);
+        scanDispatcher.enqueue(blockedScan);
+        scanDispatcher.enqueue(buildScan("job2", TEST_PRODUCT, 1, 2000));
+        scanDispatcher.enqueue(buildScan("job3", OTHER_TEST_PRODUCT, 1, 3000));
+        scanDispatcher.dispatchAll();
+
+        Assert.assertEquals(dispatchedJobIds, Collections.singletonList("job3"));
+        ScanPool blockedPool = scanDispatcher.getPool(blockedScan);
+        Assert.assertEquals(blockedPool.size(), 2);
+        Assert.assertEquals(blockedPool.peek().getJobId(), "job1");
+    }
+
+    @Test
+    public void testRequeuedScanReflectsLatestPriority() {
+        List<String> dispatchedJobIds = new ArrayList<>();
+        scanDispatcher.setDispatchHandler(scan -> dispatchedJobIds.add(scan.getJobId()));
+
+        scanDispatcher.enqueue(buildScan("job1", TEST_PRODUCT, 1, 1000));
+        scanDispatcher.enqueue(buildScan("job2", TEST_PRODUCT, 2, 2000));
+        scanDispatcher.enqueue(buildScan("job2", TEST_PRODUCT, 0, 2000));
+        scanDispatcher.remove(buildScan("job1", TEST_PRODUCT, 1, 1000));
+        scanDispatcher.enqueue(buildScan("job3", TEST_PRODUCT, 1, 3000));
+        scanDispatcher.dispatchAll();
+
+        Assert.assertEquals(dispatchedJobIds, Arrays.asList("job2", "job3"));
+    }
+
+    @Test
+    public void testReleaseDispatchesWaitingScan() throws InterruptedException {
+        Scan runningScan = buildScan("job1", TEST_PRODUCT, 1, 1000);
+        runningScan.setScannerAppId("app1");
+        ScanPool pool = scanDispatcher.getPool(runningScan);
+        pool.loadOccupancy(Collections.singletonList("app1"));
+
+        CountDownLatch dispatched = new CountDownLatch(1);
+        scanDispatcher.setDispatchHandler(scan -> {
+            if (pool.isAppOccupied("app1")) {
+                return false;
+            }
+            pool.occupyApp("app1");
+            dispatched.countDown();
+            return true;
+        });
+
+        scanDispatcher.submit(buildScan("job2", TEST_PRODUCT, 1, 2000));
+        Assert.assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(pool.size(), 1);
+
+        scanDispatcher.release(runningScan);
+        Assert.assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(pool.isAppOccupied("app1"));
+    }
+
+    private static Scan buildScan(String jobId, String product, int priority, long submittedTime) {
+        Scan scan = new Scan(jobId);
+        scan.setScanner(new Scanner(TEST_SCANNER_ID));
+        scan.setProduct(product);
+        scan.setPriority(priority);
+        scan.setSubmittedTimestamp(new Timestamp(submittedTime));
+        return scan;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test class for the host port allocator.
+ */
+public class HostPortAllocatorTest {
+
+    private static final int MIN_PORT = 20001;
+    private static final int MAX_PORT = 20100;
+    private static final int PORT_COUNT = MAX_PORT - MIN_PORT + 1;
+
+    @Test
+    public void testClaimSkipsAllocatedPorts() throws ScanManagerException {
+        HostPortAllocator hostPortAllocator = new HostPortAllocator(MIN_PORT, MAX_PORT);
+        hostPortAllocator.markAllocated(MIN_PORT);
+
+        int claimedPort = hostPortAllocator.claim();
+        Assert.assertEquals(claimedPort, MIN_PORT + 1);
+        Assert.assertTrue(hostPortAllocator.isAllocated(claimedPort));
+
+        hostPortAllocator.release(claimedPort);
+        Assert.assertFalse(hostPortAllocator.isAllocated(claimedPort));
+    }
+
+    @Test(expectedExceptions = ScanManagerException.class)
+    public void testClaimWhenRangeIsExhausted() throws ScanManagerException {
+        HostPortAllocator hostPortAllocator = new HostPortAllocator(MIN_PORT, MAX_PORT);
+        for (int i = 0; i < PORT_COUNT; i++) {
+            int claimedPort = hostPortAllocator.claim();
+            Assert.assertTrue(claimedPort >= MIN_PORT && claimedPort <= MAX_PORT);
+        }
+        hostPortAllocator.claim();
+    }
+
+    @Test
+    public void testConcurrentClaimsAreUnique() throws Exception {
+        HostPortAllocator hostPortAllocator = new HostPortAllocator(MIN_PORT, MAX_PORT);
+        Set<Integer> claimedPorts = ConcurrentHashMap.newKeySet();
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < PORT_COUNT; i++) {
+                futures.add(executorService.submit(hostPortAllocator::claim));
+            }
+            for (Future<Integer> future : futures) {
+                Assert.assertTrue(claimedPorts.add(future.get()));
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        Assert.assertEquals(claimedPorts.size(), PORT_COUNT);
+    }
+}
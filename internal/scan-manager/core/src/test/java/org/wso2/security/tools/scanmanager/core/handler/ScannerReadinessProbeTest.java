@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.handler;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for the scanner readiness probe.
+ */
+public class ScannerReadinessProbeTest {
+
+    @Test
+    public void testHasFreeCapacity() {
+        Assert.assertTrue(ScannerReadinessProbe.hasFreeCapacity("{\"maxConcurrentScans\":4,\"activeScans\":3}"));
+        Assert.assertFalse(ScannerReadinessProbe.hasFreeCapacity("{\"maxConcurrentScans\":4,\"activeScans\":4}"));
+        Assert.assertFalse(ScannerReadinessProbe.hasFreeCapacity("{\"maxConcurrentScans\":1,\"activeScans\":2}"));
+    }
+
+    @Test
+    public void testHasFreeCapacityWithoutAdvertisedCapacity() {
+        Assert.assertTrue(ScannerReadinessProbe.hasFreeCapacity(null));
+        Assert.assertTrue(ScannerReadinessProbe.hasFreeCapacity(""));
+        Assert.assertTrue(ScannerReadinessProbe.hasFreeCapacity("{}"));
+        Assert.assertTrue(ScannerReadinessProbe.hasFreeCapacity("OK"));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.core.log;
+
+import org.mockito.Mockito;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.scanmanager.common.external.model.Log;
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+import org.wso2.security.tools.scanmanager.common.model.LogType;
+import org.wso2.security.tools.scanmanager.core.dao.LogBatchDAO;
+import org.wso2.security.tools.scanmanager.core.dao.LogDAO;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for the log ingestion pipeline.
+ */
+public class LogIngestionPipelineTest {
+
+    private static final int LOG_COUNT = 25;
+    private static final long VERIFICATION_TIMEOUT_MILLIS = 10000;
+
+    @Test
+    public void testSubmittedLogsAreWrittenInBatches() {
+        LogBatchDAO logBatchDAO = Mockito.mock(LogBatchDAO.class);
+        AtomicInteger writtenLogCount = new AtomicInteger();
+        Mockito.doAnswer(invocation -> {
+            writtenLogCount.addAndGet(((List) invocation.getArguments()[0]).size());
+            return null;
+        }).when(logBatchDAO).insertAll(Mockito.anyList());
+        ScanEventBroadcaster scanEventBroadcaster = Mockito.mock(ScanEventBroadcaster.class);
+        LogIngestionPipeline logIngestionPipeline = new LogIngestionPipeline(logBatchDAO, Mockito.mock(LogDAO.class),
+                scanEventBroadcaster);
+
+        for (int i = 0; i < LOG_COUNT; i++) {
+            logIngestionPipeline.submit(buildLog(i));
+        }
+        logIngestionPipeline.shutdown();
+
+        Assert.assertEquals(writtenLogCount.get(), LOG_COUNT);
+        Mockito.verify(logBatchDAO, Mockito.atMost(LOG_COUNT - 1)).insertAll(Mockito.anyList());
+        Mockito.verify(scanEventBroadcaster, Mockito.atLeastOnce()).publishLogs(Mockito.anyList());
+    }
+
+    @Test
+    public void testLogIsWrittenOnCallerWhenStopped() {
+        LogBatchDAO logBatchDAO = Mockito.mock(LogBatchDAO.class);
+        LogIngestionPipeline logIngestionPipeline = new LogIngestionPipeline(logBatchDAO, Mockito.mock(LogDAO.class),
+                Mockito.mock(ScanEventBroadcaster.class));
+        logIngestionPipeline.shutdown();
+
+        logIngestionPipeline.submit(buildLog(0));
+        Mockito.verify(logBatchDAO, Mockito.times(1)).insertAll(Mockito.anyList());
+    }
+
+    @Test
+    public void testLogsAreWrittenSeparatelyWhenBatchFails() {
+        LogBatchDAO logBatchDAO = Mockito.mock(LogBatchDAO.class);
+        LogDAO logDAO = Mockito.mock(LogDAO.class);
+        Mockito.doThrow(new IllegalStateException("Batch insert failed")).when(logBatchDAO)
+                .insertAll(Mockito.anyList());
+        LogIngestionPipeline logIngestionPipeline = new LogIngestionPipeline(logBatchDAO, logDAO,
+                Mockito.mock(ScanEventBroadcaster.class));
+
+        logIngestionPipeline.submit(buildLog(0));
+        Mockito.verify(logDAO, Mockito.timeout(VERIFICATION_TIMEOUT_MILLIS)).save(Mockito.any(Log.class));
+        logIngestionPipeline.shutdown();
+    }
+
+    private static Log buildLog(int index) {
+        return new Log(new Scan("jobId"), LogType.INFO, new Timestamp(System.currentTimeMillis()), "message " + index);
+    }
+}
@@ -18,14 +18,17 @@ package org.wso2.security.tools.scanmanager.core.service;
 
 import org.junit.Assert;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
+import org.wso2.security.tools.scanmanager.core.dispatcher.ScanDispatcher;
 import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.model.Container;
 
@@ -40,6 +43,9 @@ public class CallbackServiceImplTest {
     @Mock
     private ScanService scanService;
 
+    @Spy
+    private ScanDispatcher scanDispatcher = new ScanDispatcher();
+
     @InjectMocks
     private CallbackServiceImpl callbackService;
 
@@ -70,7 +76,7 @@ public class CallbackServiceImplTest {
     @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
     public void testUpdateScanWithCompletedStatus(Scan scan, Container container) throws InvalidRequestException {
         Mockito.when(scanService.getByJobId(scan.getJobId())).thenReturn(scan);
-        Mockito.doNothing().when(scanEngineService).beginPendingScans();
+        Mockito.doNothing().when(scanDispatcher).release(scan);
         Mockito.when(scanEngineService.removeContainer(scan)).thenReturn(container);
         Mockito.when(scanService.update(Mockito.any(Scan.class))).thenReturn(scan);
 
@@ -82,12 +88,16 @@ public class CallbackServiceImplTest {
         Assert.assertNotNull(updatedScan);
         Assert.assertEquals(ScanStatus.COMPLETED, updatedScan.getStatus());
         Assert.assertEquals(TEST_SCAN_REPORT_PATH, updatedScan.getReportPath());
+
+        InOrder inOrder = Mockito.inOrder(scanService, scanDispatcher);
+        inOrder.verify(scanService, Mockito.atLeastOnce()).update(scan);
+        inOrder.verify(scanDispatcher, Mockito.atLeastOnce()).release(scan);
     }
 
     @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
     public void testUpdateScanWithErrorStatus(Scan scan, Container container) throws InvalidRequestException {
         Mockito.when(scanService.getByJobId(scan.getJobId())).thenReturn(scan);
-        Mockito.doNothing().when(scanEngineService).beginPendingScans();
+        Mockito.doNothing().when(scanDispatcher).release(scan);
         Mockito.when(scanEngineService.removeContainer(scan)).thenReturn(container);
         Mockito.when(scanService.update(Mockito.any(Scan.class))).thenReturn(scan);
 
@@ -103,7 +113,7 @@ public class CallbackServiceImplTest {
     @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
     public void testUpdateScanWithCanceledStatus(Scan scan, Container container) throws InvalidRequestException {
         Mockito.when(scanService.getByJobId(scan.getJobId())).thenReturn(scan);
-        Mockito.doNothing().when(scanEngineService).beginPendingScans();
+        Mockito.doNothing().when(scanDispatcher).release(scan);
         Mockito.when(scanEngineService.removeContainer(scan)).thenReturn(container);
         Mockito.when(scanService.update(Mockito.any(Scan.class))).thenReturn(scan);
 
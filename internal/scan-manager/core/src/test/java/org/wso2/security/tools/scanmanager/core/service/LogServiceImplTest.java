@@ -27,11 +27,23 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.security.tools.scanmanager.common.external.model.Log;
+import org.wso2.security.tools.scanmanager.common.external.model.Scan;
+import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
+import org.wso2.security.tools.scanmanager.core.dao.LogBatchDAO;
 import org.wso2.security.tools.scanmanager.core.dao.LogDAO;
 import org.wso2.security.tools.scanmanager.core.dao.ScanDAO;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
+import org.wso2.security.tools.scanmanager.core.log.LogIngestionPipeline;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
+import org.wso2.security.tools.scanmanager.core.model.PageCursor;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
 
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Test class for log service methods.
@@ -44,6 +56,9 @@ public class LogServiceImplTest {
     @Mock
     private ScanDAO mockScanDAO;
 
+    @Mock
+    private LogIngestionPipeline mockLogIngestionPipeline;
+
     @InjectMocks
     private LogServiceImpl logService;
 
@@ -90,4 +105,100 @@ public class LogServiceImplTest {
         Assert.assertFalse(retrievedLogs.isEmpty());
         Assert.assertEquals(log.getScan(), retrievedLogs.get(0).getScan());
     }
+
+    @Test(dataProvider = "getLogData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testInsertQueriesScanOnce(Log log) {
+        ScanDAO scanDAO = Mockito.mock(ScanDAO.class);
+        LogIngestionPipeline logIngestionPipeline = Mockito.mock(LogIngestionPipeline.class);
+        Mockito.when(scanDAO.getByJobId(log.getScan().getJobId())).thenReturn(log.getScan());
+        LogServiceImpl logServiceImpl = new LogServiceImpl(mockLogDAO, scanDAO, logIngestionPipeline);
+
+        Assert.assertTrue(logServiceImpl.insert(log.getScan(), log.getType(), log.getMessage()));
+        Assert.assertTrue(logServiceImpl.insert(log.getScan(), log.getType(), log.getMessage()));
+        Mockito.verify(scanDAO, Mockito.times(1)).getByJobId(log.getScan().getJobId());
+        Mockito.verify(logIngestionPipeline, Mockito.times(2)).submit(Mockito.any(Log.class));
+    }
+
+    @Test(dataProvider = "getLogData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testInsertWhenBufferIsFull(Log log) throws InterruptedException {
+        LogBatchDAO logBatchDAO = Mockito.mock(LogBatchDAO.class);
+        Thread insertingThread = Thread.currentThread();
+        CountDownLatch writerReleased = new CountDownLatch(1);
+        AtomicBoolean isWrittenOnInsertingThread = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            if (Thread.currentThread() == insertingThread) {
+                isWrittenOnInsertingThread.set(true);
+            } else {
+
+                // Hold the background writer, so that the buffer fills up.
+                writerReleased.await();
+            }
+            return null;
+        }).when(logBatchDAO).insertAll(Mockito.anyList());
+        Mockito.when(mockScanDAO.getByJobId(log.getScan().getJobId())).thenReturn(log.getScan());
+        LogIngestionPipeline logIngestionPipeline = new LogIngestionPipeline(logBatchDAO, Mockito.mock(LogDAO.class),
+                Mockito.mock(ScanEventBroadcaster.class));
+        LogServiceImpl logServiceImpl = new LogServiceImpl(mockLogDAO, mockScanDAO, logIngestionPipeline);
+
+        try {
+            int maxLogCount = ScanManagerConfiguration.getInstance().getLogBufferCapacity() +
+                    ScanManagerConfiguration.getInstance().getLogBatchSize() + 1;
+            for (int i = 0; i < maxLogCount && !isWrittenOnInsertingThread.get(); i++) {
+                Assert.assertTrue(logServiceImpl.insert(log.getScan(), log.getType(), log.getMessage()));
+            }
+            Assert.assertTrue(isWrittenOnInsertingThread.get());
+        } finally {
+            writerReleased.countDown();
+            logIngestionPipeline.shutdown();
+        }
+    }
+
+    @Test(dataProvider = "getLogData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testInsertKeepsRecentlyUsedJobIds(Log log) {
+        ScanDAO scanDAO = Mockito.mock(ScanDAO.class);
+        Mockito.when(scanDAO.getByJobId(Mockito.anyString())).thenAnswer(
+                invocation -> new Scan((String) invocation.getArguments()[0]));
+        LogServiceImpl logServiceImpl = new LogServiceImpl(mockLogDAO, scanDAO,
+                Mockito.mock(LogIngestionPipeline.class));
+        Scan scan = log.getScan();
+
+        // Fill the cache, use the job id of the scan again and add one more job id to evict an entry.
+        logServiceImpl.insert(scan, log.getType(), log.getMessage());
+        for (int i = 1; i < LogServiceImpl.KNOWN_JOB_IDS_CAPACITY; i++) {
+            logServiceImpl.insert(new Scan(scan.getJobId() + "-" + i), log.getType(), log.getMessage());
+        }
+        logServiceImpl.insert(scan, log.getType(), log.getMessage());
+        logServiceImpl.insert(new Scan(scan.getJobId() + "-evicting"), log.getType(), log.getMessage());
+        logServiceImpl.insert(scan, log.getType(), log.getMessage());
+
+        Mockito.verify(scanDAO, Mockito.times(1)).getByJobId(scan.getJobId());
+        logServiceImpl.insert(new Scan(scan.getJobId() + "-1"), log.getType(), log.getMessage());
+        Mockito.verify(scanDAO, Mockito.times(2)).getByJobId(scan.getJobId() + "-1");
+    }
+
+    @Test(dataProvider = "getLogData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testGetByScanAndCursor(Log log) throws InvalidRequestException {
+        Log olderLog = new Log(log.getScan(), log.getType(), log.getTimeStamp(), log.getMessage());
+        log.setId(BigInteger.valueOf(2));
+        olderLog.setId(BigInteger.ONE);
+        Mockito.when(mockLogDAO.getByScanOrderByTimeStampDescIdDesc(log.getScan(), PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(log, olderLog));
+        Mockito.when(mockLogDAO.getByScanBefore(log.getScan(), log.getTimeStamp(), log.getId(), PageRequest.of(0, 2)))
+                .thenReturn(Collections.singletonList(olderLog));
+
+        CursorPage<Log> firstPage = logService.getByScanAndCursor(log.getScan(), null, 1);
+        Assert.assertEquals(firstPage.getContent(), Collections.singletonList(log));
+        Assert.assertTrue(firstPage.hasNext());
+        Assert.assertEquals(PageCursor.decode(firstPage.getNextCursor()).getKey(), log.getId().toString());
+
+        CursorPage<Log> lastPage = logService.getByScanAndCursor(log.getScan(), firstPage.getNextCursor(), 1);
+        Assert.assertEquals(lastPage.getContent(), Collections.singletonList(olderLog));
+        Assert.assertFalse(lastPage.hasNext());
+    }
+
+    @Test(dataProvider = "getLogData", dataProviderClass = ServiceTestDataProvider.class,
+            expectedExceptions = InvalidRequestException.class)
+    public void testGetByScanAndInvalidCursor(Log log) throws InvalidRequestException {
+        logService.getByScanAndCursor(log.getScan(), "invalid-cursor", 1);
+    }
 }
@@ -23,6 +23,7 @@ import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.powermock.api.mockito.PowerMockito;
 import org.powermock.core.classloader.annotations.PowerMockIgnore;
 import org.powermock.core.classloader.annotations.PrepareForTest;
@@ -40,8 +41,11 @@ import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
 import org.wso2.security.tools.scanmanager.core.config.ScanManagerConfiguration;
 import org.wso2.security.tools.scanmanager.core.config.ScanMangerConfigurationBuilder;
+import org.wso2.security.tools.scanmanager.core.dispatcher.ScanDispatcher;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
 import org.wso2.security.tools.scanmanager.core.handler.ContainerHandler;
+import org.wso2.security.tools.scanmanager.core.handler.ScannerReadinessProbe;
+import org.wso2.security.tools.scanmanager.core.handler.WarmContainerPool;
 import org.wso2.security.tools.scanmanager.core.model.Container;
 
 import java.util.ArrayList;
@@ -49,6 +53,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
 
 import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_HOST;
 import static org.wso2.security.tools.scanmanager.core.util.Constants.CONTAINER_ENV_NAME_SCAN_MANAGER_PORT;
@@ -76,10 +84,20 @@ public class ScanEngineServiceImplTest {
     @Mock
     private LogService logService;
 
+    @Mock
+    private ScannerReadinessProbe scannerReadinessProbe;
+
+    @Mock
+    private WarmContainerPool warmContainerPool;
+
+    @Spy
+    private ScanDispatcher scanDispatcher = new ScanDispatcher();
+
     @InjectMocks
     private ScanEngineServiceImpl scanEngineService;
 
     private static final String OCCUPIED_SCANNER_APP_ID = "testScannerApp1";
+    private static final String STARTING_CONTAINER_ID = "startingContainer";
     private static final String JOB_ID_PARAMETER_NAME = "jobId";
     private static final String SCANNER_APP_ID_PARAMETER_NAME = "appId";
     private static final String PROPERTY_MAP_PARAMETER_NAME = "propertyMap";
@@ -127,6 +145,12 @@ public class ScanEngineServiceImplTest {
                                 CONTAINER_ENV_NAME_SCAN_MANAGER_PORT + "=" + ScanManagerConfiguration
                                         .getInstance().getScanManagerPort()})).thenReturn(container);
                 Mockito.doNothing().when(containerHandler).start(container.getId());
+                Mockito.when(scannerReadinessProbe.awaitReady(Mockito.anyString(), Mockito.anyLong(),
+                        Mockito.any(BooleanSupplier.class))).thenReturn(true);
+
+                // Run the start scan request on the calling thread.
+                Mockito.doAnswer(invocation -> Executors.callable((Runnable) invocation.getArguments()[0]).call())
+                        .when(scanDispatcher).executeAsync(Mockito.any(Runnable.class));
 
                 PowerMockito.mockStatic(HTTPUtil.class);
                 PowerMockito.when(HTTPUtil.sendPOST(Matchers.any(HTTPRequest.class)))
@@ -156,11 +180,116 @@ public class ScanEngineServiceImplTest {
             } else {
                 throw new ScanManagerException("Unable to get the scan test data");
             }
-        } catch (ScanManagerException e) {
+        } catch (ScanManagerException | InterruptedException e) {
             Assert.fail(e.getMessage());
         }
     }
 
+    @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testStartScannerContainerOutsidePoolLock(Object scanDataObject, Object containerDataObject)
+            throws ScanManagerException {
+        Scan scan = ServiceTestDataProvider.parseScanObject(scanDataObject);
+        Assert.assertNotNull(scan);
+        scan.setStatus(ScanStatus.SUBMIT_PENDING);
+        scanDispatcher.getPool(scan).invalidateOccupancy();
+        Mockito.when(scanService.getPendingScans(ScanStatus.SUBMIT_PENDING))
+                .thenReturn(Collections.singletonList(scan));
+        Mockito.when(scanService.getByJobId(scan.getJobId())).thenReturn(scan);
+        Mockito.when(scanService.getByStatusesAndScannerAndProduct(Matchers.anyListOf(ScanStatus.class),
+                Matchers.eq(scan.getScanner()), Matchers.eq(scan.getProduct()))).thenReturn(Collections.emptyList());
+        Mockito.when(scannerService.getAppsByScannerAndAssignedProduct(scan.getScanner(), scan.getProduct()))
+                .thenReturn(Collections.singletonList(new ScannerApp(scan.getScanner(), SCANNER_APP_ID,
+                        SCANNER_APP_NAME, scan.getProduct())));
+
+        // Keep the container start tasks to run them after the pool has been dispatched.
+        List<Runnable> asyncTasks = new ArrayList<>();
+        Mockito.doAnswer(invocation -> asyncTasks.add((Runnable) invocation.getArguments()[0]))
+                .when(scanDispatcher).executeAsync(Mockito.any(Runnable.class));
+
+        ReentrantLock poolLock = scanDispatcher.getPoolLock(scan);
+        AtomicBoolean createdUnderPoolLock = new AtomicBoolean();
+        Mockito.when(containerHandler.create(Matchers.anyString(), Matchers.anyString(), Matchers.anyInt(),
+                Matchers.anyMapOf(String.class, String.class), Matchers.anyList(), Matchers.any(String[].class)))
+                .thenAnswer(invocation -> {
+                    createdUnderPoolLock.set(poolLock.isLocked());
+                    throw new ScanManagerException("Unable to create the scanner container");
+                });
+
+        scanEngineService.beginPendingScans();
+
+        // The scanner app is reserved while dispatching, but the container is not created yet.
+        Assert.assertEquals(ScanStatus.SUBMITTED, scan.getStatus());
+        Assert.assertEquals(SCANNER_APP_ID, scan.getScannerAppId());
+        Assert.assertTrue(scanDispatcher.getPool(scan).isAppOccupied(SCANNER_APP_ID));
+        Assert.assertEquals(1, asyncTasks.size());
+
+        asyncTasks.forEach(Runnable::run);
+
+        // The container could not be created. Hence, the reservation is rolled back.
+        Assert.assertFalse(createdUnderPoolLock.get());
+        Mockito.verify(scanService).updateStatus(scan.getJobId(), ScanStatus.ERROR);
+        Assert.assertFalse(scanDispatcher.getPool(scan).isAppOccupied(SCANNER_APP_ID));
+    }
+
+    @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testCancelScanWhileScannerIsStarting(Object scanDataObject, Object containerDataObject)
+            throws ScanManagerException, InterruptedException {
+        Scan scan = ServiceTestDataProvider.parseScanObject(scanDataObject);
+        Container dataContainer = ServiceTestDataProvider.parseContainerObject(containerDataObject);
+        Assert.assertNotNull(scan);
+        Assert.assertNotNull(dataContainer);
+        Container container = new Container(STARTING_CONTAINER_ID, true, dataContainer.getPortMappings(),
+                dataContainer.getCommands(), dataContainer.getEnvVariables(), dataContainer.getLabels());
+        scan.setStatus(ScanStatus.SUBMIT_PENDING);
+        scanDispatcher.getPool(scan).invalidateOccupancy();
+        Mockito.when(scanService.getPendingScans(ScanStatus.SUBMIT_PENDING))
+                .thenReturn(Collections.singletonList(scan));
+        Mockito.when(scanService.getByJobId(scan.getJobId())).thenReturn(scan);
+        Mockito.when(scanService.getByStatusesAndScannerAndProduct(Matchers.anyListOf(ScanStatus.class),
+                Matchers.eq(scan.getScanner()), Matchers.eq(scan.getProduct()))).thenReturn(Collections.emptyList());
+        Mockito.when(scannerService.getAppsByScannerAndAssignedProduct(scan.getScanner(), scan.getProduct()))
+                .thenReturn(Collections.singletonList(new ScannerApp(scan.getScanner(), SCANNER_APP_ID,
+                        SCANNER_APP_NAME, scan.getProduct())));
+        Mockito.doAnswer(invocation -> {
+            scan.setStatus(ScanStatus.CANCELED);
+            return null;
+        }).when(scanService).updateStatus(scan.getJobId(), ScanStatus.CANCELED);
+
+        List<Runnable> asyncTasks = new ArrayList<>();
+        Mockito.doAnswer(invocation -> asyncTasks.add((Runnable) invocation.getArguments()[0]))
+                .when(scanDispatcher).executeAsync(Mockito.any(Runnable.class));
+        Mockito.when(containerHandler.create(Matchers.anyString(), Matchers.anyString(), Matchers.anyInt(),
+                Matchers.anyMapOf(String.class, String.class), Matchers.anyList(), Matchers.any(String[].class)))
+                .thenReturn(container);
+        PowerMockito.when(containerHandler.findByLabel(CONTAINER_SCAN_JOB_ID_LABEL_NAME, scan.getJobId()))
+                .thenReturn(container);
+        PowerMockito.mockStatic(HTTPUtil.class);
+
+        // Cancel the scan while waiting for the scanner service, then let a real probe wait for it.
+        Mockito.when(scannerReadinessProbe.awaitReady(Mockito.anyString(), Mockito.anyLong(),
+                Mockito.any(BooleanSupplier.class))).thenAnswer(invocation -> {
+                    scanEngineService.cancelScan(scan);
+                    return new ScannerReadinessProbe().awaitReady((String) invocation.getArguments()[0],
+                            (Long) invocation.getArguments()[1], (BooleanSupplier) invocation.getArguments()[2]);
+                });
+
+        scanEngineService.beginPendingScans();
+        asyncTasks.forEach(Runnable::run);
+
+        Assert.assertEquals(ScanStatus.CANCELED, scan.getStatus());
+        Assert.assertFalse(scanDispatcher.getPool(scan).isAppOccupied(SCANNER_APP_ID));
+        Mockito.verify(containerHandler).clean(STARTING_CONTAINER_ID);
+
+        // The probe stops waiting once the scan is cancelled. As the scanner service was not listening yet, no
+        // cancel or start scan request is sent to it either.
+        PowerMockito.verifyStatic(Mockito.never());
+        HTTPUtil.sendGET(Matchers.any(HTTPRequest.class));
+        PowerMockito.verifyStatic(Mockito.never());
+        HTTPUtil.sendDELETE(Matchers.any(HTTPRequest.class));
+        PowerMockito.verifyStatic(Mockito.never());
+        HTTPUtil.sendPOST(Matchers.any(HTTPRequest.class));
+    }
+
     @Test(dataProvider = "getScanEngineData", dataProviderClass = ServiceTestDataProvider.class)
     public void testCancelScan(Object scanDataObject, Object containerDataObject) {
         try {
@@ -171,7 +300,8 @@ public class ScanEngineServiceImplTest {
                 PowerMockito.mockStatic(HTTPUtil.class);
                 PowerMockito.when(HTTPUtil.sendDELETE(Matchers.any(HTTPRequest.class)))
                         .thenReturn(new ResponseEntity(HttpStatus.OK));
-                PowerMockito.when(containerHandler.list()).thenReturn(Collections.singletonList(container));
+                PowerMockito.when(containerHandler.findByLabel(CONTAINER_SCAN_JOB_ID_LABEL_NAME, scan.getJobId()))
+                        .thenReturn(container);
                 Mockito.doNothing().when(scanService).updateStatus(scan.getJobId(), ScanStatus.CANCEL_PENDING);
 
                 scanEngineService.cancelScan(scan);
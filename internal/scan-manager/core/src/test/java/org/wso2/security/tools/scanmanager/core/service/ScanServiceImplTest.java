@@ -30,8 +30,14 @@ import org.wso2.security.tools.scanmanager.common.external.model.Scan;
 import org.wso2.security.tools.scanmanager.common.model.ScanPriority;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.core.dao.ScanDAO;
+import org.wso2.security.tools.scanmanager.core.exception.InvalidRequestException;
 import org.wso2.security.tools.scanmanager.core.exception.ScanManagerException;
+import org.wso2.security.tools.scanmanager.core.model.CursorPage;
+import org.wso2.security.tools.scanmanager.core.model.PageCursor;
+import org.wso2.security.tools.scanmanager.core.stream.ScanEventBroadcaster;
 
+import java.sql.Timestamp;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -45,6 +51,9 @@ public class ScanServiceImplTest {
     @Mock
     private ScanDAO mockScanDAO;
 
+    @Mock
+    private ScanEventBroadcaster mockScanEventBroadcaster;
+
     @InjectMocks
     private ScanServiceImpl scanService;
 
@@ -90,6 +99,14 @@ public class ScanServiceImplTest {
         Assert.assertEquals(scan.getJobId(), retrievedScan.getJobId());
     }
 
+    @Test(dataProvider = "getScanData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testUpdateStatusPublishesStatus(Scan scan) throws ScanManagerException {
+        Mockito.when(mockScanDAO.updateStatus(ScanStatus.RUNNING, scan.getJobId())).thenReturn(1);
+
+        scanService.updateStatus(scan.getJobId(), ScanStatus.RUNNING);
+        Mockito.verify(mockScanEventBroadcaster).publishStatus(scan.getJobId(), ScanStatus.RUNNING);
+    }
+
     @Test(dataProvider = "getScanData", dataProviderClass = ServiceTestDataProvider.class, expectedExceptions =
             ScanManagerException.class)
     public void testUpdateStatusException(Scan scan) throws ScanManagerException {
@@ -147,4 +164,41 @@ public class ScanServiceImplTest {
         Assert.assertFalse(retrievedScans.isEmpty());
         Assert.assertEquals(scan.getStatus(), retrievedScans.get(0).getStatus());
     }
+
+    @Test(dataProvider = "getScanData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testGetAllByCursor(Scan scan) throws InvalidRequestException {
+        scan.setSubmittedTimestamp(new Timestamp(System.currentTimeMillis()));
+        Scan notSubmittedScan = new Scan("notSubmittedScan2");
+        Scan olderNotSubmittedScan = new Scan("notSubmittedScan1");
+        Mockito.when(mockScanDAO.getAllByOrderBySubmittedTimestampDescJobIdDesc(PageRequest.of(0, 2)))
+                .thenReturn(Arrays.asList(scan, notSubmittedScan));
+        Mockito.when(mockScanDAO.getAllSubmittedBefore(scan.getSubmittedTimestamp(), scan.getJobId(),
+                PageRequest.of(0, 2))).thenReturn(Arrays.asList(notSubmittedScan, olderNotSubmittedScan));
+        Mockito.when(mockScanDAO.getAllNotSubmittedBefore(notSubmittedScan.getJobId(), PageRequest.of(0, 2)))
+                .thenReturn(Collections.singletonList(olderNotSubmittedScan));
+
+        CursorPage<Scan> firstPage = scanService.getAllByCursor(null, 1);
+        Assert.assertEquals(firstPage.getContent(), Collections.singletonList(scan));
+        Assert.assertTrue(firstPage.hasNext());
+        PageCursor firstPageCursor = PageCursor.decode(firstPage.getNextCursor());
+        Assert.assertEquals(firstPageCursor.getTimestamp(), scan.getSubmittedTimestamp());
+        Assert.assertEquals(firstPageCursor.getKey(), scan.getJobId());
+
+        // The last scan of the second page has no submitted timestamp.
+        CursorPage<Scan> secondPage = scanService.getAllByCursor(firstPage.getNextCursor(), 1);
+        Assert.assertEquals(secondPage.getContent(), Collections.singletonList(notSubmittedScan));
+        Assert.assertTrue(secondPage.hasNext());
+        PageCursor secondPageCursor = PageCursor.decode(secondPage.getNextCursor());
+        Assert.assertNull(secondPageCursor.getTimestamp());
+        Assert.assertEquals(secondPageCursor.getKey(), notSubmittedScan.getJobId());
+
+        CursorPage<Scan> lastPage = scanService.getAllByCursor(secondPage.getNextCursor(), 1);
+        Assert.assertEquals(lastPage.getContent(), Collections.singletonList(olderNotSubmittedScan));
+        Assert.assertFalse(lastPage.hasNext());
+    }
+
+    @Test(expectedExceptions = InvalidRequestException.class)
+    public void testGetAllByInvalidCursor() throws InvalidRequestException {
+        scanService.getAllByCursor("invalid-cursor", 1);
+    }
 }
@@ -105,6 +105,23 @@ public class ScannerServiceImplTest {
         Assert.assertEquals(TEST_PRODUCT_ID, returnedScannerApps.get(0).getAssignedProduct());
     }
 
+    @Test(dataProvider = "getScannerData", dataProviderClass = ServiceTestDataProvider.class)
+    public void testGetByIdIsCachedUntilUpdate(Scanner testScanner) {
+        ScannerDAO scannerDAO = Mockito.mock(ScannerDAO.class);
+        ScannerServiceImpl cachingScannerService = new ScannerServiceImpl(scannerDAO,
+                Mockito.mock(ScannerAppDAO.class));
+        Mockito.when(scannerDAO.getScannerById(TEST_SCANNER_ID)).thenReturn(testScanner);
+        Mockito.when(scannerDAO.saveAndFlush(testScanner)).thenReturn(testScanner);
+
+        cachingScannerService.getById(TEST_SCANNER_ID);
+        cachingScannerService.getById(TEST_SCANNER_ID);
+        Mockito.verify(scannerDAO, Mockito.times(1)).getScannerById(TEST_SCANNER_ID);
+
+        cachingScannerService.update(testScanner);
+        Assert.assertEquals(TEST_SCANNER_ID, cachingScannerService.getById(TEST_SCANNER_ID).getId());
+        Mockito.verify(scannerDAO, Mockito.times(2)).getScannerById(TEST_SCANNER_ID);
+    }
+
     @Test(expectedExceptions = ScanManagerException.class)
     public void testRemoveByScannerIdException() throws ScanManagerException {
         Mockito.when(mockScannerDAO.removeById(TEST_SCANNER_ID)).thenReturn(-1);
@@ -39,11 +39,26 @@ public final class ScannerConstants {
     public static final String FTP_PASSWORD = "ftp_password";
     public static final String FTP_HOST = "ftp_host";
     public static final String FTP_PORT = "ftp_port";
-    public static final String SFTP = "sftp";
+
+    // Artifact cache config.
+    public static final String ARTIFACT_CACHE_PATH = "artifact_cache_path";
+    public static final String ARTIFACT_CACHE_MAX_SIZE_MB = "artifact_cache_max_size_mb";
+
+    // Scan concurrency config.
+    public static final String MAX_CONCURRENT_SCANS = "max_concurrent_scans";
+
+    // HTTP client pool config.
+    public static final String HTTP_MAX_CONNECTIONS = "http_max_connections";
+    public static final String HTTP_MAX_CONNECTIONS_PER_ROUTE = "http_max_connections_per_route";
+    public static final String HTTP_CONNECT_TIMEOUT_SECONDS = "http_connect_timeout_seconds";
+    public static final String HTTP_SOCKET_TIMEOUT_SECONDS = "http_socket_timeout_seconds";
 
     // Scan manager config.
     public static final String SCAN_MANAGER_CALLBACK_URL_ENDPOINT = "scan_manager_callback_url_endpoint";
     public static final String SCAN_MANAGER_CALLBACK_STATUS = "scan_manager_callback_status";
+    public static final String SCAN_MANAGER_LOG_ENDPOINT = "scan_manager_log_endpoint";
+
+    // Deprecated single log callback endpoint, read only when the bulk log endpoint is not configured.
     public static final String SCAN_MANAGER_CALLBACK_LOG = "scan_manager_callback_log";
     public static final String SCAN_MANAGER_HOST = "SCAN_MANAGER_HOST";
     public static final String SCAN_MANAGER_PORT = "SCAN_MANAGER_PORT";
@@ -26,19 +26,30 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
 import org.wso2.security.tools.scanmanager.common.internal.model.ScannerScanRequest;
+import org.wso2.security.tools.scanmanager.common.model.ConnectionPoolStats;
 import org.wso2.security.tools.scanmanager.common.model.ErrorMessage;
+import org.wso2.security.tools.scanmanager.scanners.common.model.ScannerCapacity;
 import org.wso2.security.tools.scanmanager.scanners.common.service.Scanner;
 
 import java.io.IOException;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Web controller which defines the routines for initiating scanner operations.
+ * Web controller which defines the routines for initiating scanner operations. The container runs up to a configured
+ * number of scans concurrently, each started on a start scan thread of its own, and the scans are tracked by their job
+ * ids until they reach a final status.
  */
 @Controller
 @RequestMapping("scanner")
@@ -47,16 +58,52 @@ public class ScannerController {
     private static final Logger log = LogManager.getLogger(ScannerController.class);
     Scanner scanner;
 
-    // Scan task thread.
-    Thread startScanThread;
+    // Maximum number of scans run concurrently in the container.
+    private final int maxConcurrentScans;
 
-    // This represents if a scan is started.
-    private boolean hasScanStarted = false;
+    // Scan jobs that are submitted or whose scans have not reached a final status yet, by job id.
+    private final Map<String, ScanJob> scanJobs = new ConcurrentHashMap<>();
+
+    // Start scan threads, bounded by the maximum number of concurrent scans.
+    private final ExecutorService startScanExecutor;
+
+    // Cancel scan threads, which wait for the start scan threads of the cancelled scans to finish.
+    private final ExecutorService cancelScanExecutor;
 
     @Autowired
     public ScannerController(Scanner scanner) throws IOException {
         log.info("Scanner Service is initialised in the container...");
         this.scanner = scanner;
+        this.maxConcurrentScans = Math.max(1, scanner.getMaxConcurrentScans());
+        AtomicInteger startThreadCount = new AtomicInteger();
+        this.startScanExecutor = Executors.newFixedThreadPool(maxConcurrentScans,
+                runnable -> new Thread(runnable, "StartScanThread-" + startThreadCount.incrementAndGet()));
+        AtomicInteger cancelThreadCount = new AtomicInteger();
+        this.cancelScanExecutor = Executors.newCachedThreadPool(
+                runnable -> new Thread(runnable, "CancelScanThread-" + cancelThreadCount.incrementAndGet()));
+        log.info("Scanner Service accepts up to " + maxConcurrentScans + " concurrent scans.");
+    }
+
+    /**
+     * Check whether the scanner service is ready to accept scan requests.
+     *
+     * @return OK once the scanner service is initialised, with the scan capacity of the container
+     */
+    @GetMapping("health")
+    @ResponseBody
+    public ResponseEntity health() {
+        return new ResponseEntity<>(new ScannerCapacity(maxConcurrentScans, scanJobs.size()), HttpStatus.OK);
+    }
+
+    /**
+     * Get the usage of the HTTP connection pool used for the callbacks and the requests to the scanner APIs.
+     *
+     * @return number of leased, pending and available connections of the pool
+     */
+    @GetMapping("metrics/http-pool")
+    @ResponseBody
+    public ResponseEntity<ConnectionPoolStats> getHTTPPoolStats() {
+        return new ResponseEntity<>(HTTPClientPool.getInstance().getStats(), HttpStatus.OK);
     }
 
     /**
@@ -67,15 +114,15 @@ public class ScannerController {
      */
     @PostMapping("scan")
     @ResponseBody
-    public ResponseEntity startScan(@RequestBody ScannerScanRequest scannerScanRequest) {
+    public synchronized ResponseEntity startScan(@RequestBody ScannerScanRequest scannerScanRequest) {
         ResponseEntity responseEntity;
         responseEntity = validateStartScanReq(scannerScanRequest);
         if (responseEntity.getStatusCode().equals(HttpStatus.ACCEPTED)) {
             if (scanner.validateStartScan(scannerScanRequest)) {
                 log.info("Invoking start scan API.");
-                startScanThread = new Thread(() -> scanner.startScan(scannerScanRequest), "StartScanThread");
-                startScanThread.start();
-                hasScanStarted = true;
+                ScanJob scanJob = new ScanJob(scannerScanRequest);
+                scanJobs.put(scannerScanRequest.getJobId(), scanJob);
+                startScanExecutor.execute(scanJob);
             } else {
                 String message = "Start scan request validation is failed.";
                 log.error(message);
@@ -88,8 +135,9 @@ public class ScannerController {
 
     private ResponseEntity validateStartScanReq(ScannerScanRequest scannerScanRequest) {
         ResponseEntity responseEntity;
-        if (hasScanStarted) {
-            String message = "Cannot start a new scan since another scan is in progress.";
+        if (scanJobs.size() >= maxConcurrentScans) {
+            String message = "Cannot start a new scan since the container is already running " + scanJobs.size() +
+                    " scans.";
             log.error(message);
             responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
                     message), HttpStatus.BAD_REQUEST);
@@ -105,6 +153,11 @@ public class ScannerController {
                     log.error(message);
                     responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
                             message), HttpStatus.BAD_REQUEST);
+                } else if (scanJobs.containsKey(scannerScanRequest.getJobId())) {
+                    String message = "A scan is already in progress for the job " + scannerScanRequest.getJobId();
+                    log.error(message);
+                    responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
+                            message), HttpStatus.BAD_REQUEST);
                 } else {
                     responseEntity = new ResponseEntity<>(HttpStatus.ACCEPTED);
                 }
@@ -114,7 +167,7 @@ public class ScannerController {
     }
 
     /**
-     * Stop the scan.
+     * Stop the scan of a job.
      *
      * @param scanRequest Object that represent the required information for the scanner operation
      * @return whether the cancel scan request is accepted
@@ -124,46 +177,104 @@ public class ScannerController {
     public ResponseEntity cancelScan(@RequestBody ScannerScanRequest scanRequest) {
         ResponseEntity responseEntity;
 
-        if (hasScanStarted) {
+        if (StringUtils.isEmpty(scanRequest.getJobId())) {
+            String message = "Job Id is missing in the request.";
+            log.error(message);
+            responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
+                    message), HttpStatus.BAD_REQUEST);
+        } else if (scanner.validateCancelScan(scanRequest)) {
             log.info("Invoking cancel scan API.");
-            if (scanner.validateCancelScan(scanRequest)) {
-                if (startScanThread != null) {
-                    startScanThread.interrupt();
-                } else {
-                    log.info("There is no running scan thread to cancel.");
-                }
-
-                new Thread(() -> {
-                    stopStartScanThread();
-                    scanner.cancelScan(scanRequest);
-                }, "CancelScanThread").start();
-
-                responseEntity = new ResponseEntity<>(HttpStatus.ACCEPTED);
+            CompletableFuture<Void> startScanCompletion;
+            ScanJob scanJob = scanJobs.get(scanRequest.getJobId());
+            if (scanJob != null) {
+                scanJob.cancel();
+                startScanCompletion = scanJob.completion;
             } else {
-                String message = "Cancel scan request validation is failed.";
-                log.error(message);
-                responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
-                        message), HttpStatus.BAD_REQUEST);
+                log.info("There is no running scan thread to cancel.");
+                startScanCompletion = CompletableFuture.completedFuture(null);
             }
+
+            // Cancel the scan in the scanner once the start scan thread of the job is finished.
+            startScanCompletion.thenRunAsync(() -> scanner.cancelScan(scanRequest), cancelScanExecutor);
+            responseEntity = new ResponseEntity<>(HttpStatus.ACCEPTED);
         } else {
-            String message = "No scan running to perform cancellation.";
+            String message = "Cancel scan request validation is failed.";
             log.error(message);
-            responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.NOT_ACCEPTABLE.value(),
+            responseEntity = new ResponseEntity<>(new ErrorMessage(HttpStatus.BAD_REQUEST.value(),
                     message), HttpStatus.BAD_REQUEST);
         }
         return responseEntity;
     }
 
-    private boolean stopStartScanThread() {
-        while (startScanThread.isAlive()) {
-            // run until the start scan thread is dead.
+    /**
+     * Reset the scanner so that the container can be reused for other scans.
+     *
+     * @return whether the scanner was reset
+     */
+    @PostMapping("reset")
+    @ResponseBody
+    public synchronized ResponseEntity resetScanner() {
+        if (!scanJobs.isEmpty() || !scanner.resetScan()) {
+            String message = "Cannot reset the scanner since a scan is in progress.";
+            log.warn(message);
+            return new ResponseEntity<>(new ErrorMessage(HttpStatus.CONFLICT.value(), message),
+                    HttpStatus.CONFLICT);
+        }
+        log.info("Scanner is reset and ready for the next scan.");
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Scan of a job, started on a start scan thread. The job is removed from the scan jobs once its thread is finished
+     * and the scan has reached a final status.
+     */
+    private final class ScanJob implements Runnable {
+
+        private final ScannerScanRequest scanRequest;
+
+        // Completed once the start scan thread of the job is finished.
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private Thread scanThread;
+        private boolean isCancelled;
+
+        private ScanJob(ScannerScanRequest scanRequest) {
+            this.scanRequest = scanRequest;
+        }
+
+        @Override
+        public void run() {
+            CompletableFuture<Void> scanCompletion = null;
             try {
-                TimeUnit.SECONDS.sleep(10);
-            } catch (InterruptedException e) {
-                log.error("Interrupted exception occured while waiting till the start scan thread is dead. \n" +
-                        e.getMessage());
+                if (setScanThread(Thread.currentThread())) {
+                    scanCompletion = scanner.startScan(scanRequest);
+                }
+            } catch (RuntimeException e) {
+                log.error("Error occurred while running the scan of the job " + scanRequest.getJobId(), e);
+            } finally {
+                setScanThread(null);
+
+                // Clear the interrupt of a cancelled scan, so that it does not leak into the next scan of the thread.
+                Thread.interrupted();
+                completion.complete(null);
+                if (scanCompletion == null) {
+                    scanJobs.remove(scanRequest.getJobId(), this);
+                } else {
+                    scanCompletion.whenComplete((result, e) -> scanJobs.remove(scanRequest.getJobId(), this));
+                }
+            }
+        }
+
+        private synchronized boolean setScanThread(Thread thread) {
+            scanThread = thread;
+            return !isCancelled;
+        }
+
+        private synchronized void cancel() {
+            isCancelled = true;
+            if (scanThread != null) {
+                scanThread.interrupt();
             }
         }
-        return true;
     }
 }
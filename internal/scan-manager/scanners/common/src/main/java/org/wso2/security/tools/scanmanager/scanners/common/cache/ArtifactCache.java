@@ -0,0 +1,296 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.cache;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Host level cache of the scan artifacts, kept in a directory that is shared by the scanner containers of a host.
+ * Downloaded artifacts are stored by the SHA-256 digest of their content and referenced by a key of their source,
+ * e.g. the FTP path, size and modification time of a product pack, or the digest of the artifact it was derived from.
+ * <p>
+ * Entries are written to a temporary location and published with an atomic rename, so that the scanners never see
+ * a partially written entry. The least recently used entries are evicted when the cache grows beyond its size limit,
+ * except for entries that were used recently and may still be read by a running scan.
+ */
+public class ArtifactCache {
+
+    private static final Logger log = LogManager.getLogger(ArtifactCache.class);
+
+    private static final String ARTIFACTS_DIRECTORY_NAME = "artifacts";
+    private static final String REFERENCES_DIRECTORY_NAME = "refs";
+    private static final String TEMP_DIRECTORY_NAME = "tmp";
+    private static final String LOCK_FILE_NAME = ".lock";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int DIGEST_BUFFER_SIZE = 64 * 1024;
+    private static final long EVICTION_GRACE_PERIOD = TimeUnit.MINUTES.toMillis(30);
+    private static final long TEMP_ENTRY_MAX_AGE = TimeUnit.HOURS.toMillis(6);
+
+    private final Path artifactsDirectory;
+    private final Path referencesDirectory;
+    private final Path tempDirectory;
+    private final Path lockFile;
+    private final long maxSize;
+
+    /**
+     * Create a cache in a given directory.
+     *
+     * @param cacheDirectory directory of the cache
+     * @param maxSize        maximum total size of the cached artifacts in bytes
+     * @throws IOException when unable to create the cache directories
+     */
+    public ArtifactCache(Path cacheDirectory, long maxSize) throws IOException {
+        this.artifactsDirectory = Files.createDirectories(cacheDirectory.resolve(ARTIFACTS_DIRECTORY_NAME));
+        this.referencesDirectory = Files.createDirectories(cacheDirectory.resolve(REFERENCES_DIRECTORY_NAME));
+        this.tempDirectory = Files.createDirectories(cacheDirectory.resolve(TEMP_DIRECTORY_NAME));
+        this.lockFile = cacheDirectory.resolve(LOCK_FILE_NAME);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the digest of the cached artifact of a given source.
+     *
+     * @param sourceKey key of the artifact source
+     * @return digest of the artifact or null if the artifact of the source is not cached
+     * @throws IOException when unable to read the cache
+     */
+    public String getDigest(String sourceKey) throws IOException {
+        Path reference = referencesDirectory.resolve(digestOf(sourceKey));
+        try {
+            String digest = new String(Files.readAllBytes(reference), StandardCharsets.UTF_8);
+            return Files.exists(artifactsDirectory.resolve(digest)) ? digest : null;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Get a cached artifact.
+     *
+     * @param digest digest of the artifact
+     * @return cached artifact file, which must not be modified, or null if the artifact is not cached
+     * @throws IOException when unable to read the cache
+     */
+    public File getArtifact(String digest) throws IOException {
+        return touch(artifactsDirectory.resolve(digest));
+    }
+
+    /**
+     * Add an artifact to the cache and reference it by a given source.
+     *
+     * @param sourceKey key of the artifact source
+     * @param artifact  artifact file
+     * @return digest of the artifact
+     * @throws IOException when unable to add the artifact to the cache
+     */
+    public String putArtifact(String sourceKey, File artifact) throws IOException {
+        String digest;
+        try (InputStream inputStream = Files.newInputStream(artifact.toPath())) {
+            digest = digestOf(inputStream);
+        }
+        Path tempArtifact = newTempPath();
+        linkOrCopy(artifact.toPath(), tempArtifact);
+        publish(tempArtifact, artifactsDirectory.resolve(digest));
+
+        Path tempReference = newTempPath();
+        Files.write(tempReference, digest.getBytes(StandardCharsets.UTF_8));
+        Files.move(tempReference, referencesDirectory.resolve(digestOf(sourceKey)), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        evict();
+        return digest;
+    }
+
+    /**
+     * Compute the hex encoded SHA-256 digest of a stream.
+     *
+     * @param inputStream input stream
+     * @return hex encoded digest
+     * @throws IOException when unable to read the stream
+     */
+    public static String digestOf(InputStream inputStream) throws IOException {
+        MessageDigest messageDigest = newMessageDigest();
+        byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+        int readCount;
+        while ((readCount = inputStream.read(buffer)) != -1) {
+            messageDigest.update(buffer, 0, readCount);
+        }
+        return toHex(messageDigest.digest());
+    }
+
+    /**
+     * Hard link a file to a new location, or copy it if the locations are on different file systems.
+     *
+     * @param source source file
+     * @param target target file, which must not exist
+     * @throws IOException when unable to link or copy the file
+     */
+    public static void linkOrCopy(Path source, Path target) throws IOException {
+        try {
+            Files.createLink(target, source);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(source, target);
+        }
+    }
+
+    private void publish(Path tempEntry, Path entry) throws IOException {
+        try {
+            Files.move(tempEntry, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+
+            // Another scanner published the same entry first.
+            delete(tempEntry);
+        }
+    }
+
+    /**
+     * Evict the least recently used entries until the cache fits its size limit. The eviction is serialized across
+     * the scanners sharing the cache with a file lock.
+     *
+     * @throws IOException when unable to evict the entries
+     */
+    private synchronized void evict() throws IOException {
+        try (FileChannel lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+             FileLock ignored = lockChannel.lock()) {
+            long now = System.currentTimeMillis();
+            deleteOlderThan(tempDirectory, now - TEMP_ENTRY_MAX_AGE);
+
+            List<CacheEntry> entries = new ArrayList<>();
+            long totalSize = 0;
+            try (Stream<Path> paths = Files.list(artifactsDirectory)) {
+                for (Path path : (Iterable<Path>) paths::iterator) {
+                    CacheEntry entry = new CacheEntry(path, Files.size(path),
+                            Files.getLastModifiedTime(path).toMillis());
+                    entries.add(entry);
+                    totalSize += entry.size;
+                }
+            }
+            if (totalSize <= maxSize) {
+                return;
+            }
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUsedTime));
+            for (CacheEntry entry : entries) {
+                if (totalSize <= maxSize || now - entry.lastUsedTime < EVICTION_GRACE_PERIOD) {
+                    break;
+                }
+
+                // Move the entry out of the cache before deleting it, so that it is never seen partially deleted.
+                Path evictedEntry = newTempPath();
+                Files.move(entry.path, evictedEntry, StandardCopyOption.ATOMIC_MOVE);
+                delete(evictedEntry);
+                totalSize -= entry.size;
+                log.info("Evicted " + entry.path + " from the artifact cache");
+            }
+        }
+    }
+
+    private File touch(Path entry) throws IOException {
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return entry.toFile();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private Path newTempPath() {
+        return tempDirectory.resolve(UUID.randomUUID().toString());
+    }
+
+    private static void deleteOlderThan(Path directory, long time) throws IOException {
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (Files.getLastModifiedTime(path).toMillis() < time) {
+                    delete(path);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path pathToDelete : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(pathToDelete);
+            }
+        }
+    }
+
+    private static String digestOf(String value) {
+        return toHex(newMessageDigest().digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(DIGEST_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte value : bytes) {
+            hex.append(Character.forDigit((value >> 4) & 0xF, 16)).append(Character.forDigit(value & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * An artifact in the cache.
+     */
+    private static class CacheEntry {
+
+        private final Path path;
+        private final long size;
+        private final long lastUsedTime;
+
+        private CacheEntry(Path path, long size, long lastUsedTime) {
+            this.path = path;
+            this.size = size;
+            this.lastUsedTime = lastUsedTime;
+        }
+    }
+}
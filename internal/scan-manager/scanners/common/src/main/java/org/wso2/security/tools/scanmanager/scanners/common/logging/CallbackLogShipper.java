@@ -0,0 +1,263 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.logging;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
+import org.wso2.security.tools.scanmanager.common.internal.model.ScanLogRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Ships the scan logs to the scan manager in batches, on a background thread. Logs are buffered in a bounded queue,
+ * so that logging never blocks the scan execution. Logs that do not fit in the queue, or that are rejected by the
+ * scan manager, are dropped and counted. Failed batches are retried with a capped exponential backoff. When only the
+ * single log callback endpoint of the scan manager is configured, the logs of a batch are posted one by one.
+ */
+public class CallbackLogShipper {
+
+    private static final Logger log = LogManager.getLogger(CallbackLogShipper.class);
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int BATCH_SIZE = 200;
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 60000;
+    private static final long SHUTDOWN_FLUSH_WAIT_MILLIS = 10000;
+
+    // The shared rest template is resolved on the first post, so that the logs of the container startup do not
+    // create the HTTP client pool before the scanner configures it.
+    private static final CallbackLogShipper callbackLogShipper =
+            new CallbackLogShipper(() -> HTTPClientPool.getInstance().getRestTemplate(), QUEUE_CAPACITY);
+
+    private final BlockingQueue<ScanLogRequest> queue;
+    private final AtomicLong droppedLogCount = new AtomicLong();
+    private final AtomicLong shippedLogCount = new AtomicLong();
+    private final Supplier<RestTemplate> restTemplateSupplier;
+
+    private volatile String logURL;
+    private volatile boolean isBatchEndpoint = true;
+    private volatile long retryIntervalMillis = FLUSH_INTERVAL_MILLIS;
+    private volatile boolean running;
+    private Thread flusherThread;
+
+    // Accessed only by the flusher thread.
+    private long reportedDroppedLogCount;
+
+    CallbackLogShipper(RestTemplate restTemplate, int queueCapacity) {
+        this(() -> restTemplate, queueCapacity);
+    }
+
+    private CallbackLogShipper(Supplier<RestTemplate> restTemplateSupplier, int queueCapacity) {
+        this.restTemplateSupplier = restTemplateSupplier;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public static CallbackLogShipper getInstance() {
+        return callbackLogShipper;
+    }
+
+    /**
+     * Set the scan manager endpoint the logs are shipped to. Logs that are added before the endpoint is set are kept
+     * in the queue.
+     *
+     * @param logURL               URL of the scan manager endpoint that persists the logs
+     * @param isBatchEndpoint      true if the endpoint accepts a batch of logs, false if it accepts a single log
+     * @param retryIntervalSeconds initial interval to retry a failed batch
+     */
+    public void configure(String logURL, boolean isBatchEndpoint, Long retryIntervalSeconds) {
+        this.isBatchEndpoint = isBatchEndpoint;
+        this.logURL = logURL;
+        if (retryIntervalSeconds != null && retryIntervalSeconds > 0) {
+            this.retryIntervalMillis = TimeUnit.SECONDS.toMillis(retryIntervalSeconds);
+        }
+    }
+
+    /**
+     * Add a log to the queue. This never blocks, the log is dropped if the queue is full.
+     *
+     * @param scanLogRequest log to be shipped
+     */
+    public void ship(ScanLogRequest scanLogRequest) {
+        startIfRequired();
+        enqueue(scanLogRequest);
+    }
+
+    void enqueue(ScanLogRequest scanLogRequest) {
+        if (!queue.offer(scanLogRequest)) {
+            droppedLogCount.incrementAndGet();
+        }
+    }
+
+    public long getDroppedLogCount() {
+        return droppedLogCount.get();
+    }
+
+    public long getShippedLogCount() {
+        return shippedLogCount.get();
+    }
+
+    private synchronized void startIfRequired() {
+        if (flusherThread == null) {
+            running = true;
+            flusherThread = new Thread(this::flushContinuously, "CallbackLogShipper");
+            flusherThread.setDaemon(true);
+            flusherThread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "CallbackLogShipperShutdown"));
+        }
+    }
+
+    private void flushContinuously() {
+        List<ScanLogRequest> batch = new ArrayList<>(BATCH_SIZE);
+        long backoffMillis = 0;
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (backoffMillis > 0) {
+                    TimeUnit.MILLISECONDS.sleep(backoffMillis);
+                }
+                if (batch.isEmpty()) {
+                    ScanLogRequest scanLogRequest = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (scanLogRequest == null) {
+                        continue;
+                    }
+                    batch.add(scanLogRequest);
+                }
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+            } catch (InterruptedException e) {
+
+                // Interrupted while shutting down. Make a last attempt to ship the logs without waiting.
+                running = false;
+                backoffMillis = 0;
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+            }
+
+            if (send(batch)) {
+                batch.clear();
+                backoffMillis = 0;
+            } else if (!running) {
+                droppedLogCount.addAndGet(batch.size() + queue.size());
+                queue.clear();
+                batch.clear();
+            } else {
+                backoffMillis = getNextBackoffMillis(backoffMillis, retryIntervalMillis);
+                log.warn("Unable to ship the scan logs to the scan manager. Retrying in " + backoffMillis + " ms");
+            }
+        }
+    }
+
+    /**
+     * Get the time to wait before retrying a failed batch. The backoff starts at the retry interval and is doubled
+     * after each failure, up to a minute.
+     *
+     * @param backoffMillis       backoff of the previous attempt, 0 if the previous attempt succeeded
+     * @param retryIntervalMillis initial retry interval
+     * @return backoff of the next attempt
+     */
+    static long getNextBackoffMillis(long backoffMillis, long retryIntervalMillis) {
+        return backoffMillis == 0 ? Math.min(retryIntervalMillis, MAX_BACKOFF_MILLIS) :
+                Math.min(backoffMillis * 2, MAX_BACKOFF_MILLIS);
+    }
+
+    /**
+     * Send a batch of logs to the scan manager. When the logs are posted one by one, the logs that were sent are
+     * removed from the batch before a failed batch is retried.
+     *
+     * @param batch logs to be sent
+     * @return false if the batch has to be retried
+     */
+    private boolean send(List<ScanLogRequest> batch) {
+        String url = logURL;
+        if (url == null) {
+            return false;
+        }
+        if (isBatchEndpoint) {
+            return post(url, batch, batch.size());
+        }
+        while (!batch.isEmpty()) {
+            if (!post(url, batch.get(0), 1)) {
+                return false;
+            }
+            batch.remove(0);
+        }
+        return true;
+    }
+
+    /**
+     * Post logs to the scan manager.
+     *
+     * @param url      URL of the scan manager endpoint
+     * @param request  request body
+     * @param logCount number of logs in the request body
+     * @return false if the request has to be retried
+     */
+    private boolean post(String url, Object request, int logCount) {
+        try {
+            restTemplateSupplier.get().postForEntity(url, request, String.class);
+            shippedLogCount.addAndGet(logCount);
+            reportDroppedLogs();
+            return true;
+        } catch (HttpStatusCodeException e) {
+            if (e.getStatusCode() == HttpStatus.NOT_FOUND || e.getStatusCode().is5xxServerError()) {
+                return false;
+            }
+
+            // The scan manager rejected the logs, retrying does not help.
+            droppedLogCount.addAndGet(logCount);
+            log.error("Scan manager rejected " + logCount + " scan logs with the response code : " +
+                    e.getRawStatusCode());
+            return true;
+        } catch (RestClientException e) {
+            return false;
+        }
+    }
+
+    private void reportDroppedLogs() {
+        long droppedLogs = droppedLogCount.get();
+        if (droppedLogs > reportedDroppedLogCount) {
+            log.warn((droppedLogs - reportedDroppedLogCount) + " scan logs were dropped as they could not be " +
+                    "shipped to the scan manager");
+            reportedDroppedLogCount = droppedLogs;
+        }
+    }
+
+    private void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = flusherThread;
+        }
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(SHUTDOWN_FLUSH_WAIT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
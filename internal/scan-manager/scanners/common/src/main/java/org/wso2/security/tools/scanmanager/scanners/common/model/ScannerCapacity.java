@@ -0,0 +1,50 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.model;
+
+/**
+ * Model to represent the scan capacity of a scanner container, which is advertised to the scan manager.
+ */
+public class ScannerCapacity {
+    private int maxConcurrentScans;
+    private int activeScans;
+
+    public ScannerCapacity() {
+    }
+
+    public ScannerCapacity(int maxConcurrentScans, int activeScans) {
+        this.maxConcurrentScans = maxConcurrentScans;
+        this.activeScans = activeScans;
+    }
+
+    public int getMaxConcurrentScans() {
+        return maxConcurrentScans;
+    }
+
+    public void setMaxConcurrentScans(int maxConcurrentScans) {
+        this.maxConcurrentScans = maxConcurrentScans;
+    }
+
+    public int getActiveScans() {
+        return activeScans;
+    }
+
+    public void setActiveScans(int activeScans) {
+        this.activeScans = activeScans;
+    }
+}
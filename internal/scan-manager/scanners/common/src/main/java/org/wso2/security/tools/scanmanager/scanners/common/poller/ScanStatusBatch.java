@@ -0,0 +1,70 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.poller;
+
+import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Statuses of a batch of scans retrieved from a {@link ScanStatusSource}. A scan of the batch either has a status, has
+ * failed, or is left out when the scanner does not know its status yet.
+ *
+ * @param <S> type of the scan status
+ */
+public class ScanStatusBatch<S> {
+
+    private final Map<String, S> statuses;
+    private final Map<String, ScannerException> failures = new HashMap<>();
+
+    public ScanStatusBatch() {
+        this(new HashMap<>());
+    }
+
+    /**
+     * Create a batch of the given statuses.
+     *
+     * @param statuses statuses by scan id
+     */
+    public ScanStatusBatch(Map<String, S> statuses) {
+        this.statuses = statuses;
+    }
+
+    public void addStatus(String scanId, S status) {
+        statuses.put(scanId, status);
+    }
+
+    /**
+     * Report that the status of a scan cannot be retrieved, after which the scan is no longer polled.
+     *
+     * @param scanId scanner scan id
+     * @param e      error occurred while retrieving the status
+     */
+    public void addFailure(String scanId, ScannerException e) {
+        failures.put(scanId, e);
+    }
+
+    public S getStatus(String scanId) {
+        return statuses.get(scanId);
+    }
+
+    public ScannerException getFailure(String scanId) {
+        return failures.get(scanId);
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.poller;
+
+import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
+
+/**
+ * Receives the status transitions of a scan registered in the {@link ScanStatusPoller}. The events of a scan are
+ * delivered one at a time and in order, off the polling thread.
+ *
+ * @param <S> type of the scan status
+ */
+public interface ScanStatusListener<S> {
+
+    /**
+     * Called when the status of the scan has changed.
+     *
+     * @param scanId         scanner scan id
+     * @param previousStatus status before the transition
+     * @param status         new status
+     */
+    void onStatusChange(String scanId, S previousStatus, S status);
+
+    /**
+     * Called when the status of the scan cannot be retrieved. The scan is no longer polled after this.
+     *
+     * @param scanId scanner scan id
+     * @param e      error occurred while retrieving the status
+     */
+    void onPollingFailure(String scanId, ScannerException e);
+}
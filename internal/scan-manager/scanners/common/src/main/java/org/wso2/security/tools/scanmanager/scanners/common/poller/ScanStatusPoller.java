@@ -0,0 +1,290 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.poller;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Polls the statuses of all the active scans of a scanner account from a single thread. The scans that are due are
+ * queried together in one batch, and the status transitions are published to the listeners of the scans.
+ * <p>
+ * The polling interval of a scan adapts to how close it is to the expected scan duration: a scan is polled rarely
+ * early on and often around the time it is expected to finish, so that a finished scan is noticed soon without
+ * polling a long running scan all the time. The expected duration starts from a given estimate and follows the
+ * durations of the scans that reached a terminal status.
+ * <p>
+ * A failure to query a batch is treated as transient: the poller backs off exponentially, up to the maximum interval,
+ * and then polls the scans again, without counting the failure against them. A scan that the source reports as
+ * failed is no longer polled. A scan that is left out of {@link #MAX_MISSED_POLLS} successful responses in a row is
+ * reported as failed, so that a scan unknown to the scanner is not polled forever.
+ *
+ * @param <S> type of the scan status
+ */
+public class ScanStatusPoller<S> {
+
+    private static final Logger log = LogManager.getLogger(ScanStatusPoller.class);
+
+    // The polling interval is this fraction of the time to, or past, the expected finish of the scan.
+    private static final int INTERVAL_DIVISOR = 4;
+
+    // Weight of the duration of the last finished scan in the expected scan duration.
+    private static final double DURATION_SMOOTHING_FACTOR = 0.3;
+
+    // Number of successful polls in a row without a status of a scan, after which the scan is no longer polled.
+    static final int MAX_MISSED_POLLS = 10;
+
+    private static final AtomicInteger eventThreadCount = new AtomicInteger();
+
+    // Event bus shared by all the pollers, which delivers the status transitions to the listeners.
+    private static final ExecutorService eventExecutor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ScanStatusEvent-" + eventThreadCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final String name;
+    private final ScanStatusSource<S> statusSource;
+    private final Predicate<S> terminalStatus;
+    private final long minInterval;
+    private final long maxInterval;
+    private final Map<String, PolledScan> polledScans = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService pollingScheduler;
+    private volatile long expectedDuration;
+
+    // Batch failures in a row and the time until which the polling is held back, accessed only by the polling thread.
+    private int failedBatches;
+    private long backoffEndTime;
+
+    /**
+     * Create a poller and start polling.
+     *
+     * @param name             name of the poller, used for the polling thread
+     * @param statusSource     source of the scan statuses
+     * @param terminalStatus   whether a status is final, after which the scan is no longer polled
+     * @param minInterval      minimum polling interval of a scan in milliseconds
+     * @param maxInterval      maximum polling interval of a scan in milliseconds
+     * @param expectedDuration initial estimate of the scan duration in milliseconds
+     */
+    public ScanStatusPoller(String name, ScanStatusSource<S> statusSource, Predicate<S> terminalStatus,
+                            long minInterval, long maxInterval, long expectedDuration) {
+        this.name = name;
+        this.statusSource = statusSource;
+        this.terminalStatus = terminalStatus;
+        this.minInterval = minInterval;
+        this.maxInterval = Math.max(minInterval, maxInterval);
+        this.expectedDuration = expectedDuration;
+        this.pollingScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // The poller wakes up at the minimum interval and only queries the scans that are due.
+        pollingScheduler.scheduleWithFixedDelay(this::poll, minInterval, minInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start polling the status of a scan.
+     *
+     * @param scanId        scanner scan id
+     * @param initialStatus status of the scan when it is registered
+     * @param listener      listener of the status transitions of the scan
+     */
+    public void register(String scanId, S initialStatus, ScanStatusListener<S> listener) {
+        PolledScan polledScan = new PolledScan(scanId, initialStatus, listener);
+        polledScans.put(scanId, polledScan);
+        log.info(name + " started polling the status of the scan " + scanId + ". Next poll in "
+                + TimeUnit.MILLISECONDS.toSeconds(polledScan.nextPollTime - polledScan.registeredTime) + " seconds");
+    }
+
+    /**
+     * Stop polling the status of a scan. The events already published for the scan are still delivered.
+     *
+     * @param scanId scanner scan id
+     */
+    public void unregister(String scanId) {
+        if (polledScans.remove(scanId) != null && log.isDebugEnabled()) {
+            log.debug(name + " stopped polling the status of the scan " + scanId);
+        }
+    }
+
+    public long getExpectedDuration() {
+        return expectedDuration;
+    }
+
+    /**
+     * Stop polling all the scans.
+     */
+    public void shutdown() {
+        pollingScheduler.shutdownNow();
+        polledScans.clear();
+    }
+
+    /**
+     * Query the statuses of the scans that are due and publish their transitions.
+     */
+    private void poll() {
+        long now = System.currentTimeMillis();
+        if (now < backoffEndTime) {
+            return;
+        }
+        List<PolledScan> dueScans = new ArrayList<>();
+        for (PolledScan polledScan : polledScans.values()) {
+            if (polledScan.nextPollTime <= now) {
+                dueScans.add(polledScan);
+            }
+        }
+        if (dueScans.isEmpty()) {
+            return;
+        }
+        List<String> scanIds = new ArrayList<>(dueScans.size());
+        dueScans.forEach(polledScan -> scanIds.add(polledScan.scanId));
+
+        ScanStatusBatch<S> statuses;
+        try {
+            statuses = statusSource.getStatuses(scanIds);
+        } catch (ScannerException | RuntimeException e) {
+
+            // Keep the poller alive. The scanner is likely unavailable, so the scans stay due and are polled again
+            // once the backoff is over.
+            failedBatches++;
+            long backoff = getBatchFailureBackoff(failedBatches);
+            backoffEndTime = now + backoff;
+            log.error(name + " failed to retrieve the statuses of the scans " + scanIds + ". Retrying in "
+                    + backoff + " ms", e);
+            return;
+        }
+        failedBatches = 0;
+
+        long pollTime = System.currentTimeMillis();
+        for (PolledScan polledScan : dueScans) {
+            ScannerException failure = statuses.getFailure(polledScan.scanId);
+            S status = statuses.getStatus(polledScan.scanId);
+            if (failure != null) {
+                polledScan.fail(failure);
+                continue;
+            } else if (status == null) {
+                polledScan.missPoll(pollTime);
+                continue;
+            }
+            polledScan.missedPolls = 0;
+            if (!status.equals(polledScan.status)) {
+                S previousStatus = polledScan.status;
+                polledScan.status = status;
+                if (terminalStatus.test(status) && polledScans.remove(polledScan.scanId, polledScan)) {
+                    updateExpectedDuration(pollTime - polledScan.registeredTime);
+                }
+                polledScan.publish(() -> polledScan.listener.onStatusChange(polledScan.scanId, previousStatus,
+                        status));
+            }
+            polledScan.scheduleNextPoll(pollTime);
+        }
+    }
+
+    /**
+     * Get the time to hold back the polling after a number of batch failures in a row.
+     *
+     * @param failedBatches number of batch failures in a row, starting from 1
+     * @return backoff in milliseconds, doubled for each failure and capped at the maximum interval
+     */
+    long getBatchFailureBackoff(int failedBatches) {
+        long backoff = minInterval;
+        for (int i = 1; i < failedBatches && backoff < maxInterval; i++) {
+            backoff *= 2;
+        }
+        return Math.min(maxInterval, backoff);
+    }
+
+    private void updateExpectedDuration(long scanDuration) {
+        expectedDuration = (long) ((1 - DURATION_SMOOTHING_FACTOR) * expectedDuration
+                + DURATION_SMOOTHING_FACTOR * scanDuration);
+    }
+
+    /**
+     * A scan being polled.
+     */
+    private final class PolledScan {
+
+        private final String scanId;
+        private final ScanStatusListener<S> listener;
+        private final long registeredTime = System.currentTimeMillis();
+        private volatile long nextPollTime;
+        private S status;
+        private int missedPolls;
+
+        // Last event published for the scan, which the next event waits for to keep the events in order.
+        private CompletableFuture<Void> lastEvent = CompletableFuture.completedFuture(null);
+
+        private PolledScan(String scanId, S status, ScanStatusListener<S> listener) {
+            this.scanId = scanId;
+            this.status = status;
+            this.listener = listener;
+            scheduleNextPoll(registeredTime);
+        }
+
+        private void scheduleNextPoll(long now) {
+            long timeToExpectedFinish = Math.abs(registeredTime + expectedDuration - now);
+            long interval = Math.min(maxInterval, Math.max(minInterval, timeToExpectedFinish / INTERVAL_DIVISOR));
+            nextPollTime = now + interval;
+        }
+
+        /**
+         * Poll the scan again later, or fail it when it has been left out of too many responses.
+         *
+         * @param now current time
+         */
+        private void missPoll(long now) {
+            if (++missedPolls < MAX_MISSED_POLLS) {
+                scheduleNextPoll(now);
+                return;
+            }
+            fail(new ScannerException("Status of the scan " + scanId + " was not retrieved for " + missedPolls
+                    + " polls"));
+        }
+
+        private void fail(ScannerException e) {
+            if (polledScans.remove(scanId, this)) {
+                publish(() -> listener.onPollingFailure(scanId, e));
+            }
+        }
+
+        private void publish(Runnable event) {
+            lastEvent = lastEvent.thenRunAsync(() -> {
+                try {
+                    event.run();
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while handling the status event of the scan " + scanId, e);
+                }
+            }, eventExecutor);
+        }
+    }
+}
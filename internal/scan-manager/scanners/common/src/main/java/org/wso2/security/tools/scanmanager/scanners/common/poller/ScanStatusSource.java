@@ -0,0 +1,39 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.poller;
+
+import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
+
+import java.util.Collection;
+
+/**
+ * Source of the statuses of the scans in a scanner account, queried by the {@link ScanStatusPoller}.
+ *
+ * @param <S> type of the scan status
+ */
+public interface ScanStatusSource<S> {
+
+    /**
+     * Get the current statuses of a batch of scans with as few requests to the scanner as possible.
+     *
+     * @param scanIds scanner scan ids
+     * @return statuses of the scans, with the scans whose status cannot be retrieved reported as failures
+     * @throws ScannerException when the batch cannot be queried, after which the scans are polled again later
+     */
+    ScanStatusBatch<S> getStatuses(Collection<String> scanIds) throws ScannerException;
+}
@@ -22,17 +22,21 @@ package org.wso2.security.tools.scanmanager.scanners.common.service;
 
 import org.wso2.security.tools.scanmanager.common.internal.model.ScannerScanRequest;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Interface for the scanner.
  */
 public interface Scanner {
 
     /**
-     * Run scan.
+     * Run scan. A scanner whose scans keep running in the scanner after this returns gives a completion that is
+     * completed once the scan reached a final status, so that the scan is counted as active until then.
      *
      * @param scanRequest Object that represent the required information for tha scanner operation
+     * @return completion of the scan
      */
-    public void startScan(ScannerScanRequest scanRequest);
+    public CompletableFuture<Void> startScan(ScannerScanRequest scanRequest);
 
     /**
      * Validate the start scan request.
@@ -56,4 +60,18 @@ public interface Scanner {
      * @return whether cancel scan request is a valid one
      */
     public boolean validateCancelScan(ScannerScanRequest scannerScanRequest);
+
+    /**
+     * Reset the scanner state so that the container can be reused for another scan.
+     *
+     * @return false if the scanner is still busy with the previous scan
+     */
+    public boolean resetScan();
+
+    /**
+     * Get the maximum number of scans the scanner can run concurrently in the container.
+     *
+     * @return maximum number of concurrent scans
+     */
+    public int getMaxConcurrentScans();
 }
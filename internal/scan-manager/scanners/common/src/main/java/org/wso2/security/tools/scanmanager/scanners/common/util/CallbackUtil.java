@@ -20,16 +20,26 @@ package org.wso2.security.tools.scanmanager.scanners.common.util;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
+import org.wso2.security.tools.scanmanager.common.internal.model.ScanLogRequest;
 import org.wso2.security.tools.scanmanager.common.model.HTTPRequest;
 import org.wso2.security.tools.scanmanager.common.model.LogType;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
+import org.wso2.security.tools.scanmanager.common.retry.RetryExecutor;
+import org.wso2.security.tools.scanmanager.common.retry.RetryPolicy;
+import org.wso2.security.tools.scanmanager.common.retry.RetryableException;
 import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
+import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
+import org.wso2.security.tools.scanmanager.scanners.common.logging.CallbackLogShipper;
 
+import java.net.URI;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -38,41 +48,49 @@ import java.util.concurrent.TimeUnit;
 public class CallbackUtil {
 
     private static final Logger log = LogManager.getLogger(CallbackUtil.class);
-    private static String scanManagerLogCallbackURL;
     private static String scanManagerStatusCallbackURL;
     private static Long retryTimeInterval = Long.valueOf(0);
 
-    public static void setCallbackUrls(String scanManagerLogCallbackURL, String scanManagerStatusCallbackURL,
-                                       Long retryTimeInterval) {
-        CallbackUtil.scanManagerLogCallbackURL = scanManagerLogCallbackURL;
+    private static final long STATUS_UPDATE_INITIAL_RETRY_DELAY = TimeUnit.SECONDS.toMillis(1);
+    private static final long STATUS_UPDATE_MAX_RETRY_DELAY = TimeUnit.MINUTES.toMillis(2);
+    private static final long STATUS_UPDATE_MAX_RETRY_TIME = TimeUnit.HOURS.toMillis(6);
+
+    // Pending status update of each job, so that the updates of a job are not reordered by the retries.
+    private static final Map<String, CompletableFuture<Void>> statusUpdatesByJob = new ConcurrentHashMap<>();
+
+    /**
+     * Set the scan manager endpoints the scanner calls back.
+     *
+     * @param scanManagerLogURL            URL of the scan manager endpoint that persists the scan logs
+     * @param isLogBatchEndpoint           true for the bulk log endpoint, false for the deprecated single log
+     *                                     callback endpoint
+     * @param scanManagerStatusCallbackURL URL of the scan manager endpoint that updates the scan status
+     * @param retryTimeInterval            initial interval to retry a failed callback
+     */
+    public static void setCallbackUrls(String scanManagerLogURL, boolean isLogBatchEndpoint,
+                                       String scanManagerStatusCallbackURL, Long retryTimeInterval) {
+        if (!isLogBatchEndpoint) {
+            log.warn(ScannerConstants.SCAN_MANAGER_CALLBACK_LOG + " is deprecated. Configure " +
+                    ScannerConstants.SCAN_MANAGER_LOG_ENDPOINT + " to ship the scan logs in batches");
+        }
+        CallbackLogShipper.getInstance().configure(scanManagerLogURL, isLogBatchEndpoint, retryTimeInterval);
         CallbackUtil.scanManagerStatusCallbackURL = scanManagerStatusCallbackURL;
         CallbackUtil.retryTimeInterval = retryTimeInterval;
     }
 
     /**
-     * Update the scan status in the scan manager.
+     * Update the scan status in the scan manager. The update is sent asynchronously and retried with an exponential,
+     * jittered backoff while the scan manager is not available. The updates of a job are sent in the order they are
+     * made.
      *
      * @param jobId         job id of the scan manager for the current scan
      * @param scanStatus    scan status enum
      * @param reportPath    scan report location
      * @param scannerScanId actual scan Id
+     * @return future that completes once the update is sent or given up
      */
-    public static void updateScanStatus(String jobId, ScanStatus scanStatus, String reportPath, String scannerScanId) {
-        updateScanStatus(jobId, scanStatus, reportPath, scannerScanId, Long.valueOf(0));
-    }
-
-    /**
-     * Update the scan status in the scan manager.
-     *
-     * @param jobId                         job id of the scan manager for the current scan
-     * @param scanStatus                    scan status enum
-     * @param reportPath                    scan report location
-     * @param scannerScanId                 actual scan Id
-     * @param statusUpdateRetryTimeInterval retrying time to callback for updating the status
-     */
-    public static void updateScanStatus(String jobId, ScanStatus scanStatus, String reportPath, String scannerScanId,
-                                        Long statusUpdateRetryTimeInterval) {
-        int responseCode = -1;
+    public static CompletableFuture<Void> updateScanStatus(String jobId, ScanStatus scanStatus, String reportPath,
+                                                           String scannerScanId) {
         Map<String, Object> requestParams = new HashMap<>();
         requestParams.put("jobId", jobId);
         requestParams.put("scanStatus", scanStatus.name());
@@ -82,36 +100,55 @@ public class CallbackUtil {
         if (scannerScanId != null && !scannerScanId.isEmpty()) {
             requestParams.put("scannerScanId", scannerScanId);
         }
+        HTTPRequest scanUpdateRequest = new HTTPRequest(scanManagerStatusCallbackURL, null, requestParams);
 
-        try {
-            HTTPRequest scanUpdateRequest = new HTTPRequest(scanManagerStatusCallbackURL, null, requestParams);
-            responseCode = HTTPUtil.sendPOST(scanUpdateRequest).getStatusCode().value();
-        } catch (RestClientException e) {
-            log.error(e);
-        }
+        CompletableFuture<Void> statusUpdate = statusUpdatesByJob.compute(jobId, (key, previousUpdate) ->
+                (previousUpdate == null ? CompletableFuture.<Void>completedFuture(null) : previousUpdate)
+                        .handle((result, e) -> null)
+                        .thenCompose(result -> sendStatusUpdate(scanUpdateRequest, scanStatus)));
+        statusUpdate.whenComplete((result, e) -> statusUpdatesByJob.remove(jobId, statusUpdate));
+        return statusUpdate;
+    }
+
+    /**
+     * Send a status update request to the scan manager through the retry executor.
+     *
+     * @param scanUpdateRequest status update request
+     * @param scanStatus        scan status enum
+     * @return future that completes once the update is sent or given up
+     */
+    private static CompletableFuture<Void> sendStatusUpdate(HTTPRequest scanUpdateRequest, ScanStatus scanStatus) {
+        long initialRetryDelay = retryTimeInterval > 0 ? TimeUnit.SECONDS.toMillis(retryTimeInterval) :
+                STATUS_UPDATE_INITIAL_RETRY_DELAY;
+        RetryPolicy retryPolicy = new RetryPolicy(initialRetryDelay, STATUS_UPDATE_MAX_RETRY_DELAY,
+                STATUS_UPDATE_MAX_RETRY_TIME);
+        URI statusCallbackURI = URI.create(scanUpdateRequest.getUrl());
+        String endpoint = statusCallbackURI.getScheme() + "://" + statusCallbackURI.getAuthority();
 
-        if (HttpStatus.OK.value() == responseCode) {
-            log.info("Callback status update is successfully completed. ");
-        } else if (HttpStatus.NOT_FOUND.value() == responseCode || HttpStatus.INTERNAL_SERVER_ERROR.value()
-                == responseCode || responseCode == -1) {
-            statusUpdateRetryTimeInterval += retryTimeInterval;
+        CompletableFuture<Void> statusUpdate = RetryExecutor.getInstance().execute(endpoint, retryPolicy, () -> {
             try {
-                log.info("Callback log endpoint is not currently available and will retry after " +
-                        statusUpdateRetryTimeInterval + " Seconds");
-                TimeUnit.SECONDS.sleep(statusUpdateRetryTimeInterval);
-            } catch (InterruptedException e) {
-                log.error(e);
+                HTTPUtil.sendPOST(scanUpdateRequest);
+                log.info("Callback status update is successfully completed. ");
+            } catch (HttpStatusCodeException e) {
+                if (RetryPolicy.isRetryableStatus(e.getRawStatusCode())) {
+                    throw new RetryableException("Response code " + e.getRawStatusCode(),
+                            RetryPolicy.parseRetryAfter(e.getResponseHeaders() == null ? null :
+                                    e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER)));
+                }
+                log.warn("Callback status update failed with the response code : " + e.getRawStatusCode());
+            } catch (RestClientException e) {
+                throw new RetryableException(e.getMessage(), e);
             }
-
-            // Retrying updating the scan status in scan manager.
-            updateScanStatus(jobId, scanStatus, reportPath, scannerScanId, statusUpdateRetryTimeInterval);
-        } else {
-            log.warn("Callback status update failed with the response code : " + responseCode);
-        }
+            return null;
+        });
+        return statusUpdate.exceptionally(e -> {
+            log.error("Unable to update the scan status to " + scanStatus + " in the scan manager", e);
+            return null;
+        });
     }
 
     /**
-     * Persist the log in the Scan Manager.
+     * Persist the log in the Scan Manager. The log is shipped asynchronously, in a batch with the other logs.
      *
      * @param jobId   id of the scan manager for the current scan
      * @param message log message
@@ -120,9 +157,7 @@ public class CallbackUtil {
     public static void persistScanLog(String jobId, String message, Level level) {
         LogType type;
         switch (level.toString()) {
-            case "INFO":
-                type = LogType.INFO;
-                break;
+            case "TRACE":
             case "DEBUG":
                 type = LogType.DEBUG;
                 break;
@@ -130,54 +165,13 @@ public class CallbackUtil {
                 type = LogType.WARN;
                 break;
             case "ERROR":
+            case "FATAL":
                 type = LogType.ERROR;
                 break;
             default:
-                type = null;
-        }
-        persistScanLog(jobId, message, type, Long.valueOf(0));
-    }
-
-    /**
-     * Persist the log in the Scan Manager.
-     *
-     * @param jobId                      id of the scan manager for the current scan
-     * @param message                    log message
-     * @param type                       log type
-     * @param logUpdateRetryTimeInterval retrying time to callback for updating the status
-     */
-    public static void persistScanLog(String jobId, String message, LogType type, Long logUpdateRetryTimeInterval) {
-        int responseCode = -1;
-        try {
-            Map<String, Object> requestParams = new HashMap<>();
-            requestParams.put("jobId", jobId);
-            requestParams.put("message", message);
-            requestParams.put("type", type);
-            requestParams.put("timestamp", System.currentTimeMillis());
-            HTTPRequest persistLogRequest = new HTTPRequest(scanManagerLogCallbackURL, null, requestParams);
-            ResponseEntity logResponse = HTTPUtil.sendPOST(persistLogRequest);
-            responseCode = logResponse.getStatusCode().value();
-        } catch (RestClientException e) {
-            log.error(e);
-        }
-
-        if (HttpStatus.OK.value() == responseCode) {
-            log.info("Callback log persistence is successfully completed. ");
-        } else if (HttpStatus.NOT_FOUND.value() == responseCode || HttpStatus.INTERNAL_SERVER_ERROR.value()
-                == responseCode || responseCode == -1) {
-            logUpdateRetryTimeInterval += retryTimeInterval;
-            try {
-                log.info("Callback log endpoint is not currently available and will retry after " + retryTimeInterval
-                        + " Seconds");
-
-                TimeUnit.SECONDS.sleep(retryTimeInterval);
-            } catch (InterruptedException e) {
-                log.error(e);
-            }
-            // Retrying updating the scan status in scan manager.
-            persistScanLog(jobId, message, type, logUpdateRetryTimeInterval);
-        } else {
-            log.warn("Callback log persistence failed with the response code : " + responseCode);
+                type = LogType.INFO;
         }
+        CallbackLogShipper.getInstance().ship(new ScanLogRequest(jobId, type, message,
+                new Timestamp(System.currentTimeMillis())));
     }
 }
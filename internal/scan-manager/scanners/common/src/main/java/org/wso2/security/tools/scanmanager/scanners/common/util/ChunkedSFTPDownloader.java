@@ -0,0 +1,282 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.util;
+
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
+import com.jcraft.jsch.SftpException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPChannel;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPSessionPool;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Downloads a file from an SFTP server in fixed size chunks that are fetched in parallel. Each chunk is read from its
+ * offset in the remote file over its own pooled SFTP channel and written to its position in the output file. The
+ * checksums of the completed chunks are recorded in a part file next to the output file, so that a failed download
+ * is resumed from the completed chunks instead of starting from zero.
+ */
+public class ChunkedSFTPDownloader {
+
+    private static final Logger log = LogManager.getLogger(ChunkedSFTPDownloader.class);
+
+    private static final long DEFAULT_CHUNK_SIZE = 32L * 1024 * 1024;
+    private static final int DEFAULT_PARALLELISM = 4;
+    private static final int MAX_CHUNK_ATTEMPTS = 5;
+    private static final long CHUNK_RETRY_BASE_DELAY = TimeUnit.SECONDS.toMillis(2);
+    private static final int READ_BUFFER_SIZE = 256 * 1024;
+    private static final String PART_FILE_SUFFIX = ".parts";
+    private static final String PART_FILE_SEPARATOR = ":";
+
+    private final String ftpHost;
+    private final int ftpPort;
+    private final String ftpUsername;
+    private final char[] ftpPassword;
+    private final long chunkSize;
+    private final int parallelism;
+
+    public ChunkedSFTPDownloader(String ftpHost, int ftpPort, String ftpUsername, char[] ftpPassword) {
+        this(ftpHost, ftpPort, ftpUsername, ftpPassword, DEFAULT_CHUNK_SIZE, DEFAULT_PARALLELISM);
+    }
+
+    public ChunkedSFTPDownloader(String ftpHost, int ftpPort, String ftpUsername, char[] ftpPassword, long chunkSize,
+                                 int parallelism) {
+        this.ftpHost = ftpHost;
+        this.ftpPort = ftpPort;
+        this.ftpUsername = ftpUsername;
+        this.ftpPassword = ftpPassword;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Download a file. A partially downloaded output file is resumed if its part file matches the remote file.
+     *
+     * @param remoteDirectory directory of the file in the SFTP server
+     * @param fileName        name of the file to download
+     * @param outputFile      output file
+     * @throws JSchException when unable to open a channel to the SFTP server
+     * @throws SftpException when unable to read the file from the SFTP server
+     * @throws IOException   when unable to write the output file
+     */
+    public void download(String remoteDirectory, String fileName, File outputFile)
+            throws JSchException, SftpException, IOException {
+        SftpATTRS fileAttributes;
+        try (SFTPChannel sftp = borrowChannel()) {
+            sftp.getChannel().cd(remoteDirectory);
+            fileAttributes = sftp.getChannel().stat(fileName);
+        }
+        long fileSize = fileAttributes.getSize();
+        String partFileHeader = fileSize + PART_FILE_SEPARATOR + chunkSize + PART_FILE_SEPARATOR +
+                fileAttributes.getMTime();
+        File partFile = new File(outputFile.getPath() + PART_FILE_SUFFIX);
+        Map<Integer, Long> completedChunks = readPartFile(partFile, partFileHeader, outputFile);
+        int chunkCount = (int) ((fileSize + chunkSize - 1) / chunkSize);
+        boolean isResumed = !completedChunks.isEmpty();
+
+        try (FileChannel outputChannel = FileChannel.open(outputFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Writer partFileWriter = Files.newBufferedWriter(partFile.toPath(), StandardCharsets.UTF_8,
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     isResumed ? StandardOpenOption.APPEND : StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (!isResumed) {
+                outputChannel.truncate(0);
+                partFileWriter.write(partFileHeader + System.lineSeparator());
+                partFileWriter.flush();
+            }
+            List<Integer> pendingChunks = new ArrayList<>();
+            for (int chunkIndex = 0; chunkIndex < chunkCount; chunkIndex++) {
+                Long checksum = completedChunks.get(chunkIndex);
+                if (checksum == null || checksum != checksumOf(outputChannel, chunkIndex, fileSize)) {
+                    pendingChunks.add(chunkIndex);
+                }
+            }
+            if (pendingChunks.size() < chunkCount) {
+                log.info("Resuming the download of " + fileName + " from " + (chunkCount - pendingChunks.size()) +
+                        " of " + chunkCount + " completed chunks");
+            }
+            downloadChunks(remoteDirectory, fileName, fileSize, pendingChunks, outputChannel, partFileWriter);
+            outputChannel.truncate(fileSize);
+            outputChannel.force(true);
+        }
+        Files.deleteIfExists(partFile.toPath());
+    }
+
+    private void downloadChunks(String remoteDirectory, String fileName, long fileSize, List<Integer> chunks,
+                                FileChannel outputChannel, Writer partFileWriter) throws IOException {
+        if (chunks.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks.size()), runnable -> {
+            Thread thread = new Thread(runnable, "SFTPChunkDownload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Void>> chunkDownloads = new ArrayList<>();
+            for (int chunkIndex : chunks) {
+                chunkDownloads.add(executor.submit(() -> {
+                    long checksum = downloadChunkWithRetry(remoteDirectory, fileName, fileSize, chunkIndex,
+                            outputChannel);
+                    synchronized (partFileWriter) {
+                        partFileWriter.write(chunkIndex + PART_FILE_SEPARATOR + checksum + System.lineSeparator());
+                        partFileWriter.flush();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> chunkDownload : chunkDownloads) {
+                chunkDownload.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + fileName);
+        } catch (ExecutionException e) {
+            throw new IOException("Error occurred while downloading " + fileName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long downloadChunkWithRetry(String remoteDirectory, String fileName, long fileSize, int chunkIndex,
+                                        FileChannel outputChannel) throws Exception {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return downloadChunk(remoteDirectory, fileName, fileSize, chunkIndex, outputChannel);
+            } catch (IOException | JSchException | SftpException e) {
+                if (attempt >= MAX_CHUNK_ATTEMPTS || Thread.currentThread().isInterrupted()) {
+                    throw e;
+                }
+                log.warn("Failed to download chunk " + chunkIndex + " of " + fileName + " (attempt " + attempt +
+                        "). Retrying.", e);
+                Thread.sleep(CHUNK_RETRY_BASE_DELAY << (attempt - 1));
+            }
+        }
+    }
+
+    private long downloadChunk(String remoteDirectory, String fileName, long fileSize, int chunkIndex,
+                               FileChannel outputChannel) throws IOException, JSchException, SftpException {
+        long position = chunkIndex * chunkSize;
+        long remaining = Math.min(chunkSize, fileSize - position);
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try (SFTPChannel sftp = borrowChannel()) {
+            sftp.getChannel().cd(remoteDirectory);
+            try (InputStream inputStream = sftp.getChannel().get(fileName, null, position)) {
+                while (remaining > 0) {
+                    int readCount = inputStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(),
+                            remaining));
+                    if (readCount < 0) {
+                        throw new EOFException("Unexpected end of " + fileName + " at " + position);
+                    }
+                    checksum.update(buffer.array(), 0, readCount);
+                    buffer.limit(readCount);
+                    while (buffer.hasRemaining()) {
+                        outputChannel.write(buffer, position + buffer.position());
+                    }
+                    buffer.clear();
+                    position += readCount;
+                    remaining -= readCount;
+                }
+            }
+        }
+        return checksum.getValue();
+    }
+
+    private long checksumOf(FileChannel outputChannel, int chunkIndex, long fileSize) throws IOException {
+        long position = chunkIndex * chunkSize;
+        long remaining = Math.min(chunkSize, fileSize - position);
+        CRC32 checksum = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        while (remaining > 0) {
+            buffer.limit((int) Math.min(buffer.capacity(), remaining));
+            int readCount = outputChannel.read(buffer, position);
+            if (readCount < 0) {
+                return -1;
+            }
+            checksum.update(buffer.array(), 0, readCount);
+            position += readCount;
+            remaining -= readCount;
+            buffer.clear();
+        }
+        return checksum.getValue();
+    }
+
+    /**
+     * Read the checksums of the completed chunks from the part file of a previous download. The part file is
+     * discarded if it belongs to a different remote file or chunk size.
+     *
+     * @param partFile       part file
+     * @param partFileHeader expected header of the part file
+     * @param outputFile     output file
+     * @return checksums of the completed chunks, keyed by the chunk index
+     * @throws IOException when unable to read the part file
+     */
+    private static Map<Integer, Long> readPartFile(File partFile, String partFileHeader, File outputFile)
+            throws IOException {
+        Map<Integer, Long> completedChunks = new HashMap<>();
+        if (!partFile.exists() || !outputFile.exists()) {
+            Files.deleteIfExists(partFile.toPath());
+            return completedChunks;
+        }
+        List<String> lines = Files.readAllLines(partFile.toPath(), StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !partFileHeader.equals(lines.get(0))) {
+            Files.delete(partFile.toPath());
+            return completedChunks;
+        }
+        for (String line : lines.subList(1, lines.size())) {
+            String[] chunk = line.split(PART_FILE_SEPARATOR);
+
+            // A line may have been partially written when the previous download was stopped.
+            if (chunk.length == 2) {
+                try {
+                    completedChunks.put(Integer.parseInt(chunk[0]), Long.parseLong(chunk[1]));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring an invalid entry in the part file " + partFile);
+                }
+            }
+        }
+        return completedChunks;
+    }
+
+    private SFTPChannel borrowChannel() throws JSchException {
+        return SFTPSessionPool.getInstance().borrow(ftpHost, ftpPort, ftpUsername, ftpPassword);
+    }
+}
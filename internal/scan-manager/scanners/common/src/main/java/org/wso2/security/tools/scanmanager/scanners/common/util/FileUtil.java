@@ -17,26 +17,27 @@
  */
 package org.wso2.security.tools.scanmanager.scanners.common.util;
 
-import com.jcraft.jsch.Channel;
-import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.commons.compress.archivers.ArchiveOutputStream;
 import org.apache.commons.compress.archivers.ArchiveStreamFactory;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.apache.tomcat.util.http.fileupload.IOUtils;
 import org.springframework.util.StringUtils;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPChannel;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPSessionPool;
 import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -49,13 +50,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.Enumeration;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 /**
  * Utility class for file handling.
@@ -65,66 +67,65 @@ public class FileUtil {
     private static final Logger log = Logger.getLogger(FileUtil.class);
 
     /**
-     * Extract a zip file and returns name of the extracted folder.
+     * Copy the files of a zip archive that match a file name filter into a new zip archive, in a single pass over the
+     * source archive. The matching files are written to the root of the new archive, and their compressed data is
+     * copied as is, without being inflated and deflated again.
      *
-     * @param sourceFile  ZIP file path to be extracted
-     * @param destination folder path of the destination
-     * @return Extracted archive file
-     * @throws IOException when the required source or destination files are not found
+     * @param sourceFile     zip file to be filtered
+     * @param destination    file of the created zip
+     * @param fileNameFilter filter of the file names, without their directory path, of the files to be copied
+     * @return number of files copied to the created zip
+     * @throws IOException when unable to read the source zip or to write the created zip
      */
-    public static String extractArchive(File sourceFile, String destination) throws IOException {
-        BufferedInputStream inputStream = null;
-        InputStream zipInputStream = null;
-        FileOutputStream outputStream = null;
-        String archive = null;
-
-        try (ZipFile zip = new ZipFile(sourceFile)) {
-            Enumeration zipFileEntries = zip.entries();
-            int index = 0;
-
-            // Process each entry
-            while (zipFileEntries.hasMoreElements()) {
-                ZipEntry entry = (ZipEntry) zipFileEntries.nextElement();
-                String currentEntry = entry.getName();
-                if (index == 0) {
-                    archive = destination + File.separator + currentEntry.substring(0, currentEntry.indexOf("/"));
-                    --index;
+    public static int filterArchive(File sourceFile, File destination, Predicate<String> fileNameFilter)
+            throws IOException {
+        Set<String> copiedFileNames = new HashSet<>();
+        try (
+            ZipFile zip = new ZipFile(sourceFile);
+            ZipArchiveOutputStream archive = new ZipArchiveOutputStream(destination)
+        ) {
+            Enumeration<ZipArchiveEntry> entries = zip.getEntriesInPhysicalOrder();
+            while (entries.hasMoreElements()) {
+                ZipArchiveEntry entry = entries.nextElement();
+                String fileName = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                if (entry.isDirectory() || !fileNameFilter.test(fileName)) {
+                    continue;
                 }
-
-                // Handing for the Zip Slip Vulnerability
-                File destinationFile = new File(destination, currentEntry);
-                String canonicalizedDestinationFilePath = destinationFile.getCanonicalPath();
-                if (canonicalizedDestinationFilePath.startsWith(new File(destination).getCanonicalPath())) {
-                    // if a valid zip file uploaded
-                } else {
-                    String errorMessage = "Attempt to upload invalid zip archive with file at " + currentEntry +
-                            ". File path is outside target directory";
-                    log.error(errorMessage);
+                if (!copiedFileNames.add(fileName)) {
+                    log.warn("Skipping " + entry.getName() + " as a file with the same name is already copied");
+                    continue;
                 }
 
-                if (entry.isDirectory()) {
-                    // If the entry is a directory.
-                    String destPath = destination + File.separator + entry.getName();
-                    File file = new File(destPath);
-                    boolean isDirectoryCreated = file.mkdirs();
-                    if (!isDirectoryCreated) {
-                        throw new IOException("Unable to create a directory in " + destPath);
+                ZipArchiveEntry copiedEntry = new ZipArchiveEntry(fileName);
+                copiedEntry.setTime(entry.getTime());
+                if (isRawCopySupported(entry)) {
+                    copiedEntry.setMethod(entry.getMethod());
+                    copiedEntry.setCrc(entry.getCrc());
+                    copiedEntry.setCompressedSize(entry.getCompressedSize());
+                    copiedEntry.setSize(entry.getSize());
+                    try (InputStream input = zip.getRawInputStream(entry)) {
+                        archive.addRawArchiveEntry(copiedEntry, input);
                     }
-                } else {
-                    zipInputStream = zip.getInputStream(entry);
-                    inputStream = new BufferedInputStream(zipInputStream);
-                    if (destinationFile.getParentFile().exists()) {
-                        outputStream = new FileOutputStream(destinationFile);
-                        IOUtils.copy(inputStream, outputStream);
+                } else if (zip.canReadEntryData(entry)) {
+                    archive.putArchiveEntry(copiedEntry);
+                    try (InputStream input = zip.getInputStream(entry)) {
+                        IOUtils.copy(input, archive);
+                    } finally {
+                        archive.closeArchiveEntry();
                     }
+                } else {
+                    throw new IOException("Unable to read " + entry.getName() + " in " + sourceFile);
                 }
             }
-            return archive;
-        } finally {
-            IOUtils.closeQuietly(zipInputStream);
-            IOUtils.closeQuietly(inputStream);
-            IOUtils.closeQuietly(outputStream);
+            archive.finish();
         }
+        return copiedFileNames.size();
+    }
+
+    private static boolean isRawCopySupported(ZipArchiveEntry entry) {
+        return (entry.getMethod() == ZipArchiveEntry.STORED || entry.getMethod() == ZipArchiveEntry.DEFLATED)
+                && !entry.getGeneralPurposeBit().usesEncryption() && entry.getCrc() != -1
+                && entry.getSize() != -1 && entry.getCompressedSize() != -1;
     }
 
     /**
@@ -163,7 +164,8 @@ public class FileUtil {
     }
 
     /**
-     * Download a file from a FTP location to a local location.
+     * Download a file from a FTP location to a local location. Large files are downloaded in chunks that are fetched
+     * in parallel, and a failed download is resumed from the completed chunks when it is retried.
      *
      * @param filePathInFtp path to download file in the FTP location
      * @param fileName      file to download
@@ -178,10 +180,32 @@ public class FileUtil {
      */
     public static void downloadFromFtp(String filePathInFtp, String fileName, File outputFile, String ftpUsername,
             char[] ftpPassword, String ftpHost, int ftpPort) throws JSchException, SftpException, IOException {
-        ChannelSftp sftp = openFtpLocation(filePathInFtp, ftpUsername, ftpPassword, ftpHost, ftpPort);
+        try {
+            new ChunkedSFTPDownloader(ftpHost, ftpPort, ftpUsername, ftpPassword)
+                    .download(filePathInFtp, fileName, outputFile);
+        } finally {
+            cleanPassword(ftpPassword);
+        }
+    }
 
-        downloadFromFtp(sftp.get(fileName), outputFile);
-        sftp.disconnect();
+    /**
+     * Get the attributes, e.g. the size and the modification time, of a file in a FTP location.
+     *
+     * @param filePathInFtp path of the file in the FTP location
+     * @param fileName      name of the file
+     * @param ftpUsername   username of the ftp location where file is located
+     * @param ftpPassword   password of the ftp location where file is located
+     * @param ftpHost       host of the ftp location where file is located
+     * @param ftpPort       port of the ftp location where file is located
+     * @return attributes of the file
+     * @throws JSchException when unable to create the session for connecting the FTP server
+     * @throws SftpException when unable to connect to the FTP server or the file does not exist
+     */
+    public static SftpATTRS getFtpFileAttributes(String filePathInFtp, String fileName, String ftpUsername,
+            char[] ftpPassword, String ftpHost, int ftpPort) throws JSchException, SftpException {
+        try (SFTPChannel sftp = openFtpLocation(filePathInFtp, ftpUsername, ftpPassword, ftpHost, ftpPort)) {
+            return sftp.getChannel().stat(fileName);
+        }
     }
 
     /**
@@ -201,8 +225,9 @@ public class FileUtil {
     public static void uploadReport(String ftpReportUploadPath, File fileToUpload, String ftpUsername,
             char[] ftpPassword, String ftpHost, int ftpPort)
             throws SftpException, JSchException, IOException, ScannerException {
-        ChannelSftp sftp = openFtpLocation(ftpReportUploadPath, ftpUsername, ftpPassword, ftpHost, ftpPort);
-        uploadFileToFtp(sftp, fileToUpload);
+        try (SFTPChannel sftp = openFtpLocation(ftpReportUploadPath, ftpUsername, ftpPassword, ftpHost, ftpPort)) {
+            uploadFileToFtp(sftp, fileToUpload);
+        }
     }
 
     /**
@@ -234,7 +259,8 @@ public class FileUtil {
     }
 
     /**
-     * Open the FTP location of the file and return the created channel.
+     * Open the FTP location of the file and return the created channel. The channel is borrowed from the shared SFTP
+     * session pool and must be closed after use.
      *
      * @param filePathInFtp path to the file
      * @param ftpUsername   username of the ftp location where file is located
@@ -245,47 +271,21 @@ public class FileUtil {
      * @throws JSchException when unable to create the session for connecting the FTP server
      * @throws SftpException when unable to connect to the FTP server
      */
-    private static ChannelSftp openFtpLocation(String filePathInFtp, String ftpUsername, char[] ftpPassword,
+    private static SFTPChannel openFtpLocation(String filePathInFtp, String ftpUsername, char[] ftpPassword,
             String ftpHost, int ftpPort) throws JSchException, SftpException {
-        JSch jsch = new JSch();
-        Session session;
-        Channel channel;
-        ChannelSftp sftp;
-
-        session = jsch.getSession(ftpUsername, ftpHost, ftpPort);
-        session.setConfig("StrictHostKeyChecking", "no");
-        session.setPassword(String.valueOf(ftpPassword));
-        session.connect();
-
-        channel = session.openChannel(ScannerConstants.SFTP);
-        sftp = (ChannelSftp) channel;
-        sftp.connect();
-        sftp.cd(filePathInFtp);
-
-        cleanPassword(ftpPassword);
-
-        return sftp;
-    }
-
-    /**
-     * Download a file from a FTP location to a local location.
-     *
-     * @param input      InputStream to the ftp file
-     * @param outputFile output will be written to this file
-     * @throws IOException when unable to download the file from the FTP server
-     */
-    private static void downloadFromFtp(InputStream input, File outputFile) throws IOException {
-        byte[] buffer = new byte[1024];
-        int readCount;
-
-        try (
-             BufferedInputStream sftpFileInputStream = new BufferedInputStream(input);
-             BufferedOutputStream downloadOutputStream = new BufferedOutputStream(new FileOutputStream(outputFile))
-        ) {
-            while ((readCount = sftpFileInputStream.read(buffer)) > 0) {
-                downloadOutputStream.write(buffer, 0, readCount);
-            }
+        SFTPChannel sftp;
+        try {
+            sftp = SFTPSessionPool.getInstance().borrow(ftpHost, ftpPort, ftpUsername, ftpPassword);
+        } finally {
+            cleanPassword(ftpPassword);
+        }
+        try {
+            sftp.getChannel().cd(filePathInFtp);
+        } catch (SftpException e) {
+            sftp.close();
+            throw e;
         }
+        return sftp;
     }
 
     /**
@@ -302,23 +302,22 @@ public class FileUtil {
     /**
      * Upload the scan report to from container to the FTP location.
      *
-     * @param sftp         Channel to connect to the FTP.
+     * @param sftp         channel to connect to the FTP
      * @param fileToUpload scan report file that upload
      * @throws IOException      when unable to crate stream using the upload file
      * @throws SftpException    when unable to copy the file to the ftp location
      * @throws ScannerException when the upload file is null
      */
-    private static void uploadFileToFtp(ChannelSftp sftp, File fileToUpload)
+    private static void uploadFileToFtp(SFTPChannel sftp, File fileToUpload)
             throws IOException, SftpException, ScannerException {
         if (fileToUpload != null) {
             File file = new File(String.valueOf(fileToUpload));
             try (InputStream inputStream = new FileInputStream(file)) {
-                sftp.put(inputStream, file.getName());
+                sftp.getChannel().put(inputStream, file.getName());
             }
         } else {
             throw new ScannerException("Upload file cannot be null.");
         }
-        sftp.disconnect();
     }
 
     /**
@@ -367,6 +366,9 @@ public class FileUtil {
                     fos.close();
                 }
             } else {
+
+                // Consume the response, so that its connection is returned to the pool.
+                EntityUtils.consumeQuietly(entity);
                 throw new ScannerException(
                         "Failed to retrieve file name of the report Since content Disposition is null");
             }
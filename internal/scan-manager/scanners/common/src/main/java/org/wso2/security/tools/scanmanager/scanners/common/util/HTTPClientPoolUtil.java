@@ -0,0 +1,58 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.util;
+
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
+import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Util class to configure the shared HTTP client pool of the scanner container.
+ */
+public class HTTPClientPoolUtil {
+
+    private HTTPClientPoolUtil() {
+    }
+
+    /**
+     * Configure the limits and the timeouts of the shared HTTP client pool from the scanner configuration. The pool
+     * defaults are kept for the values that are not configured. This must be called before the first request of the
+     * container, as the timeouts are not applied to a pool that is already in use.
+     *
+     * @param configs scanner configuration
+     */
+    public static void configure(Map<String, Object> configs) {
+        int maxConnections = getIntConfig(configs, ScannerConstants.HTTP_MAX_CONNECTIONS,
+                HTTPClientPool.DEFAULT_MAX_CONNECTIONS);
+        int maxConnectionsPerRoute = getIntConfig(configs, ScannerConstants.HTTP_MAX_CONNECTIONS_PER_ROUTE,
+                HTTPClientPool.DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+        long connectTimeout = getIntConfig(configs, ScannerConstants.HTTP_CONNECT_TIMEOUT_SECONDS,
+                (int) TimeUnit.MILLISECONDS.toSeconds(HTTPClientPool.DEFAULT_CONNECT_TIMEOUT));
+        long socketTimeout = getIntConfig(configs, ScannerConstants.HTTP_SOCKET_TIMEOUT_SECONDS,
+                (int) TimeUnit.MILLISECONDS.toSeconds(HTTPClientPool.DEFAULT_SOCKET_TIMEOUT));
+        HTTPClientPool.getInstance().configure(maxConnections, maxConnectionsPerRoute,
+                (int) TimeUnit.SECONDS.toMillis(connectTimeout), (int) TimeUnit.SECONDS.toMillis(socketTimeout));
+    }
+
+    private static int getIntConfig(Map<String, Object> configs, String key, int defaultValue) {
+        Object value = configs.get(key);
+        return value == null ? defaultValue : Integer.parseInt(String.valueOf(value));
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.logging;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.scanmanager.common.internal.model.ScanLogRequest;
+import org.wso2.security.tools.scanmanager.common.model.LogType;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the scan log shipper.
+ */
+public class CallbackLogShipperTest {
+
+    private static final String LOG_URL = "http://localhost:9090/scan-manager/logs";
+    private static final String JOB_ID = "testJobId";
+    private static final long SHIP_TIMEOUT_MILLIS = 10000;
+
+    @Test
+    public void testDropLogsWhenQueueIsFull() {
+        CallbackLogShipper callbackLogShipper = new CallbackLogShipper(new RecordingRestTemplate(), 2);
+        for (int i = 0; i < 5; i++) {
+            callbackLogShipper.enqueue(buildLog(i));
+        }
+        Assert.assertEquals(callbackLogShipper.getDroppedLogCount(), 3);
+        Assert.assertEquals(callbackLogShipper.getShippedLogCount(), 0);
+    }
+
+    @Test
+    public void testShipLogsInBatches() throws InterruptedException {
+        RecordingRestTemplate restTemplate = new RecordingRestTemplate();
+        CallbackLogShipper callbackLogShipper = new CallbackLogShipper(restTemplate, 1000);
+
+        // The endpoint is configured after all the logs are queued, so that the first batch is retried once the
+        // queue is filled.
+        for (int i = 0; i < 450; i++) {
+            callbackLogShipper.ship(buildLog(i));
+        }
+        callbackLogShipper.configure(LOG_URL, true, null);
+
+        awaitShippedLogs(callbackLogShipper, 450);
+        Assert.assertEquals(restTemplate.getRequestSizes(), Arrays.asList(200, 200, 50));
+        Assert.assertEquals(callbackLogShipper.getDroppedLogCount(), 0);
+    }
+
+    @Test
+    public void testShipLogsToSingleLogEndpoint() throws InterruptedException {
+        RecordingRestTemplate restTemplate = new RecordingRestTemplate();
+        CallbackLogShipper callbackLogShipper = new CallbackLogShipper(restTemplate, 1000);
+        callbackLogShipper.configure(LOG_URL, false, null);
+        for (int i = 0; i < 3; i++) {
+            callbackLogShipper.ship(buildLog(i));
+        }
+
+        awaitShippedLogs(callbackLogShipper, 3);
+        Assert.assertEquals(restTemplate.getRequestSizes(), Arrays.asList(1, 1, 1));
+    }
+
+    @Test
+    public void testBackoffIsCapped() {
+        long retryIntervalMillis = TimeUnit.SECONDS.toMillis(1);
+        long backoffMillis = CallbackLogShipper.getNextBackoffMillis(0, retryIntervalMillis);
+        Assert.assertEquals(backoffMillis, retryIntervalMillis);
+        for (int i = 0; i < 10; i++) {
+            long nextBackoffMillis = CallbackLogShipper.getNextBackoffMillis(backoffMillis, retryIntervalMillis);
+            Assert.assertEquals(nextBackoffMillis, Math.min(backoffMillis * 2, TimeUnit.MINUTES.toMillis(1)));
+            backoffMillis = nextBackoffMillis;
+        }
+        Assert.assertEquals(backoffMillis, TimeUnit.MINUTES.toMillis(1));
+        Assert.assertEquals(CallbackLogShipper.getNextBackoffMillis(0, TimeUnit.MINUTES.toMillis(2)),
+                TimeUnit.MINUTES.toMillis(1));
+    }
+
+    private static void awaitShippedLogs(CallbackLogShipper callbackLogShipper, long logCount)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SHIP_TIMEOUT_MILLIS;
+        while (callbackLogShipper.getShippedLogCount() < logCount && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        Assert.assertEquals(callbackLogShipper.getShippedLogCount(), logCount);
+    }
+
+    private static ScanLogRequest buildLog(int index) {
+        return new ScanLogRequest(JOB_ID, LogType.INFO, "Test log " + index,
+                new Timestamp(System.currentTimeMillis()));
+    }
+
+    /**
+     * Rest template that records the number of logs posted in each request.
+     */
+    private static class RecordingRestTemplate extends RestTemplate {
+
+        private final List<Integer> requestSizes = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public <T> ResponseEntity<T> postForEntity(String url, Object request, Class<T> responseType,
+                                                   Object... uriVariables) {
+            requestSizes.add(request instanceof List ? ((List<?>) request).size() : 1);
+            return null;
+        }
+
+        List<Integer> getRequestSizes() {
+            synchronized (requestSizes) {
+                return new ArrayList<>(requestSizes);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.common.poller;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Test class for the scan status poller.
+ */
+public class ScanStatusPollerTest {
+
+    private static final String SCAN_ID = "testScanId";
+    private static final String RUNNING = "RUNNING";
+    private static final String FINISHED = "FINISHED";
+    private static final long MIN_INTERVAL = 10;
+    private static final long MAX_INTERVAL = 100;
+    private static final long EVENT_TIMEOUT_SECONDS = 10;
+
+    @Test
+    public void testBatchFailureBacksOffWithoutFailingScans() throws InterruptedException {
+        AtomicInteger queryCount = new AtomicInteger();
+        AtomicReference<String> sourceStatus = new AtomicReference<>();
+        ScanStatusSource<String> statusSource = scanIds -> {
+            queryCount.incrementAndGet();
+            String status = sourceStatus.get();
+            if (status == null) {
+                throw new ScannerException("Scanner is not available");
+            }
+            return batchOf(scanIds, status);
+        };
+        RecordingListener listener = new RecordingListener();
+        ScanStatusPoller<String> poller = createPoller(statusSource);
+        try {
+            poller.register(SCAN_ID, RUNNING, listener);
+
+            // Without the backoff the scan would be polled every few milliseconds, and failed after
+            // MAX_MISSED_POLLS polls.
+            TimeUnit.SECONDS.sleep(1);
+            Assert.assertNull(listener.pollingFailure.get());
+            Assert.assertTrue(queryCount.get() > 1 && queryCount.get() < 20,
+                    "Queried the scanner " + queryCount.get() + " times");
+
+            sourceStatus.set(FINISHED);
+            Assert.assertTrue(listener.statusChange.await(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertEquals(listener.status.get(), FINISHED);
+            Assert.assertNull(listener.pollingFailure.get());
+        } finally {
+            poller.shutdown();
+        }
+    }
+
+    @Test
+    public void testScanLeftOutOfResponsesIsFailed() throws InterruptedException {
+        AtomicInteger queryCount = new AtomicInteger();
+        ScanStatusSource<String> statusSource = scanIds -> {
+            queryCount.incrementAndGet();
+            return new ScanStatusBatch<>();
+        };
+        RecordingListener listener = new RecordingListener();
+        ScanStatusPoller<String> poller = createPoller(statusSource);
+        try {
+            poller.register(SCAN_ID, RUNNING, listener);
+            Assert.assertTrue(listener.pollingFailed.await(EVENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            Assert.assertEquals(queryCount.get(), ScanStatusPoller.MAX_MISSED_POLLS);
+            Assert.assertEquals(listener.statusChange.getCount(), 1);
+        } finally {
+            poller.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchFailureBackoffIsCapped() {
+        ScanStatusPoller<String> poller = createPoller(scanIds -> new ScanStatusBatch<>());
+        try {
+            Assert.assertEquals(poller.getBatchFailureBackoff(1), MIN_INTERVAL);
+            Assert.assertEquals(poller.getBatchFailureBackoff(2), MIN_INTERVAL * 2);
+            Assert.assertEquals(poller.getBatchFailureBackoff(3), MIN_INTERVAL * 4);
+            Assert.assertEquals(poller.getBatchFailureBackoff(5), MAX_INTERVAL);
+            Assert.assertEquals(poller.getBatchFailureBackoff(Integer.MAX_VALUE), MAX_INTERVAL);
+        } finally {
+            poller.shutdown();
+        }
+    }
+
+    private static ScanStatusPoller<String> createPoller(ScanStatusSource<String> statusSource) {
+        return new ScanStatusPoller<>("TestScanStatusPoller", statusSource, FINISHED::equals, MIN_INTERVAL,
+                MAX_INTERVAL, 0);
+    }
+
+    private static ScanStatusBatch<String> batchOf(Collection<String> scanIds, String status) {
+        ScanStatusBatch<String> batch = new ScanStatusBatch<>();
+        scanIds.forEach(scanId -> batch.addStatus(scanId, status));
+        return batch;
+    }
+
+    /**
+     * Listener that records the events of a scan.
+     */
+    private static class RecordingListener implements ScanStatusListener<String> {
+
+        private final CountDownLatch statusChange = new CountDownLatch(1);
+        private final CountDownLatch pollingFailed = new CountDownLatch(1);
+        private final AtomicReference<String> status = new AtomicReference<>();
+        private final AtomicReference<ScannerException> pollingFailure = new AtomicReference<>();
+
+        @Override
+        public void onStatusChange(String scanId, String previousStatus, String status) {
+            this.status.set(status);
+            statusChange.countDown();
+        }
+
+        @Override
+        public void onPollingFailure(String scanId, ScannerException e) {
+            pollingFailure.set(e);
+            pollingFailed.countDown();
+        }
+    }
+}
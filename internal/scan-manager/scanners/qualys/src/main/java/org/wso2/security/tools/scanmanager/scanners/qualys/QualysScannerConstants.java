@@ -49,6 +49,7 @@ public class QualysScannerConstants {
     public static final String QUALYS_PURGE_SCAN_API = "/qps/rest/3.0/purge/was/webapp/";
     public static final String QUALYS_CANCEL_SCAN_API = "/qps/rest/3.0/cancel/was/wasscan/";
     public static final String QUALYS_GET_STATUS_API = "/qps/rest/3.0/status/was/wasscan/";
+    public static final String QUALYS_SEARCH_SCAN_API = "/qps/rest/3.0/search/was/wasscan";
     public static final String QUALYS_DELETE_AUTH_RECORD_API = "/qps/rest/3.0/delete/was/webappauthrecord/";
     public static final String QUALYS_ADD_AUTH_SCRIPT_API = "/qps/rest/3.0/create/was/webappauthrecord";
     public static final String QUALYS_WEB_UPDATE_API = "/qps/rest/3.0/update/was/webapp/";
@@ -117,6 +118,13 @@ public class QualysScannerConstants {
     public static final String URL_ENTRY_WITH_REGEX = "UrlEntry";
     public static final String CRAWLING_SELENIUM_SCRIPT = "SeleniumScript";
     public static final String NEWLINE_REGEX = "\\r?\\n";
+    public static final String FILTERS = "filters";
+    public static final String CRITERIA = "Criteria";
+    public static final String CRITERIA_FIELD = "field";
+    public static final String CRITERIA_OPERATOR = "operator";
+    public static final String IN_OPERATOR = "IN";
+    public static final String PREFERENCES = "preferences";
+    public static final String LIMIT_RESULTS = "limitResults";
 
     // Constants used to represents properties related to Qualys Crawling Script Configurations.
     public static final String STARTING_URL = "startingUrl";
@@ -170,6 +178,14 @@ public class QualysScannerConstants {
 
     // Non externally configurable constants.
     public static final long REPORT_STATUS_CHECK_DELAY = 30;
+    public static final long REPORT_STATUS_CHECK_INITIAL_DELAY = 5;
+    public static final int REPORT_HANDLER_THREAD_COUNT = 8;
+    public static final int SCAN_SEARCH_BATCH_SIZE = 100;
+    public static final long STATUS_POLLING_MIN_INTERVAL = 1;
+    public static final long EXPECTED_SCAN_DURATION = 120;
+
+    // Default number of concurrent scans of a container, as most of a Qualys scan is spent waiting on Qualys.
+    public static final int DEFAULT_MAX_CONCURRENT_SCANS = 10;
 
     // Tasks of Qualys Scanner.
     public static final String LAUNCH_SCAN = "launch scan";
@@ -181,6 +197,7 @@ public class QualysScannerConstants {
     public static final String UPDATE_WEB_APP_AUTH = "update web app with provided configuration";
     public static final String UPDATE_WEB_APP_CRAWLING_SCRIPT = "update web app with crawling script";
     public static final String GET_STATUS = "get scan status";
+    public static final String SEARCH_SCANS = "search scans";
     public static final String GET_REPORT_STATUS = "get report status";
     public static final String CLEANUP = "cleanup";
     public static final String DELETE_AUTH_RECORD = "delete authentication record";
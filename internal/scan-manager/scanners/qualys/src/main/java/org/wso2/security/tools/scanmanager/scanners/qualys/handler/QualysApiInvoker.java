@@ -28,6 +28,7 @@ import org.wso2.security.tools.scanmanager.scanners.qualys.QualysScannerConstant
 import org.wso2.security.tools.scanmanager.scanners.qualys.config.QualysScannerConfiguration;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * This class is responsible to invoke Qualys API.
@@ -44,6 +45,7 @@ public class QualysApiInvoker {
     private String purgeScanEndpoint;
     private String cancelScanEndpoint;
     private String getStatusEndpoint;
+    private String searchScanEndpoint;
     private String deleteAuthRecordEndpoint;
     private String addAuthScriptEndpoint;
     private String updateWebAppEndpoint;
@@ -69,6 +71,7 @@ public class QualysApiInvoker {
         this.downloadReportEndpoint = host.concat(QualysScannerConstants.QUALYS_REPORT_DOWNLOAD_API);
         this.startScanEndpoint = host.concat(QualysScannerConstants.QUALYS_START_SCAN_API);
         this.getStatusEndpoint = host.concat(QualysScannerConstants.QUALYS_GET_STATUS_API);
+        this.searchScanEndpoint = host.concat(QualysScannerConstants.QUALYS_SEARCH_SCAN_API);
         this.deleteAuthRecordEndpoint = host.concat(QualysScannerConstants.QUALYS_DELETE_AUTH_RECORD_API);
         this.getReportStatusEndpoint = host.concat(QualysScannerConstants.QUALYS_REPORT_STATUS_API);
     }
@@ -198,6 +201,20 @@ public class QualysApiInvoker {
         return HTTPUtil.sendGET(url, basicAuth, retryTimeInterval);
     }
 
+    /**
+     * Invoke Qualys API to search scans.
+     *
+     * @param searchScanRequestBody search scan request body
+     * @return returns http response if response code is 200
+     * @throws IOException            error occurred IO exception while calling the api
+     * @throws InterruptedException   error occurred IO exception while calling the api
+     * @throws RetryExceededException error occurred while retrying http get request
+     */
+    public HttpResponse invokeSearchScans(String searchScanRequestBody)
+            throws IOException, InterruptedException, RetryExceededException {
+        return HTTPUtil.sendPOST(searchScanEndpoint, searchScanRequestBody, basicAuth, retryTimeInterval);
+    }
+
     /**
      * Invoke Qualys API to delete authentication record.
      *
@@ -214,17 +231,13 @@ public class QualysApiInvoker {
     }
 
     /**
-     * Invoke Qualys API to get report status.
+     * Invoke Qualys API to get report status, without blocking the calling thread.
      *
-     * @param reportId authentication script id
-     * @return Http response
-     * @throws IOException            error occurred IO exception while calling the api
-     * @throws InterruptedException   error occurred IO exception while calling the api
-     * @throws RetryExceededException error occurred while retrying http get request
+     * @param reportId report id
+     * @return future of the Http response, completed exceptionally if the api call fails
      */
-    public HttpResponse invokeGetReportStatus(String reportId)
-            throws IOException, InterruptedException, RetryExceededException {
+    public CompletableFuture<HttpResponse> invokeGetReportStatus(String reportId) {
         String url = getReportStatusEndpoint.concat(reportId);
-        return HTTPUtil.sendGET(url, basicAuth, retryTimeInterval);
+        return HTTPUtil.sendGETAsync(url, basicAuth, retryTimeInterval);
     }
 }
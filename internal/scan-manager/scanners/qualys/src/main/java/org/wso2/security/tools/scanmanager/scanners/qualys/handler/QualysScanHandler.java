@@ -22,6 +22,8 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.wso2.security.scanmanager.common.exception.RetryExceededException;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
@@ -38,7 +40,13 @@ import org.wso2.security.tools.scanmanger.qualys.auth.WebAppAuthenticationRecord
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
 
@@ -370,6 +378,61 @@ public class QualysScanHandler {
         return retrieveStatusByType(scanId, QualysScannerConstants.STATUS_TAG);
     }
 
+    /**
+     * Retrieve the statuses of a set of scans, searching them in batches.
+     *
+     * @param scanIds scan ids
+     * @return scan statuses by scan id
+     * @throws ScannerException error occurred while retrieving the statuses
+     * @see <a href="https://www.qualys.com/docs/qualys-was-api-user-guide.pdf">Qualys User Quide</a>
+     */
+    public Map<String, String> retrieveScanStatuses(Collection<String> scanIds) throws ScannerException {
+        Map<String, String> scanStatuses = new HashMap<>();
+        List<String> scanIdList = new ArrayList<>(scanIds);
+        for (int i = 0; i < scanIdList.size(); i += QualysScannerConstants.SCAN_SEARCH_BATCH_SIZE) {
+            List<String> batch = scanIdList.subList(i,
+                    Math.min(i + QualysScannerConstants.SCAN_SEARCH_BATCH_SIZE, scanIdList.size()));
+            HttpResponse response;
+            try {
+                response = qualysApiInvoker.invokeSearchScans(RequestBodyBuilder.buildScanSearchRequest(batch));
+            } catch (ParserConfigurationException | TransformerException e) {
+                throw new ScannerException("Error occurred while building search scan request body : ", e);
+            } catch (IOException | InterruptedException | RetryExceededException e) {
+                throw new ScannerException("Error occurred while invoking Qualys search scan API : ", e);
+            }
+            NodeList serviceResponseNodeList = processServiceResponse(response, QualysScannerConstants.SEARCH_SCANS);
+            if (serviceResponseNodeList != null && serviceResponseNodeList.getLength() > 0) {
+                NodeList wasScans = ((Element) serviceResponseNodeList.item(0))
+                        .getElementsByTagName(QualysScannerConstants.WAS_SCAN);
+                for (int j = 0; j < wasScans.getLength(); j++) {
+                    Element wasScan = (Element) wasScans.item(j);
+                    String scanId = getChildValue(wasScan, QualysScannerConstants.ID_KEYWORD);
+                    String status = getChildValue(wasScan, QualysScannerConstants.STATUS_TAG);
+                    if (scanId != null && status != null) {
+                        scanStatuses.put(scanId, status);
+                    }
+                }
+            }
+        }
+        return scanStatuses;
+    }
+
+    /**
+     * Get the value of a direct child of an element, ignoring the elements with the same name deeper in the tree.
+     *
+     * @param element element
+     * @param tagName tag name of the child
+     * @return value of the child or null if there is no such child
+     */
+    private static String getChildValue(Element element, String tagName) {
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.ELEMENT_NODE && tagName.equals(child.getNodeName())) {
+                return child.getTextContent();
+            }
+        }
+        return null;
+    }
+
     /**
      * Retrieve auth status.
      *
@@ -395,25 +458,25 @@ public class QualysScanHandler {
     }
 
     /**
-     * Retrieve report status.
+     * Retrieve report status, without blocking the calling thread.
      *
      * @param reportId report ID
-     * @return status of the report
-     * @throws ScannerException       error occurred while retrieving the report status
-     * @throws IOException            error occurred while processing the http post request
-     * @throws InterruptedException   error occurred while processing the http post request
-     * @throws RetryExceededException error occurred while retrying http get request
+     * @return future of the status of the report, completed exceptionally if the status cannot be retrieved
      */
-    public String getReportStatus(String reportId)
-            throws IOException, InterruptedException, ScannerException, RetryExceededException {
-        HttpResponse response;
-        String status = null;
-        response = qualysApiInvoker.invokeGetReportStatus(reportId);
-        NodeList serviceResponseNodeList = processServiceResponse(response, QualysScannerConstants.GET_REPORT_STATUS);
-        if (serviceResponseNodeList != null) {
-            status = XMLUtil.getTagValue(serviceResponseNodeList, QualysScannerConstants.STATUS_TAG);
-        }
-        return status;
+    public CompletableFuture<String> getReportStatus(String reportId) {
+        return qualysApiInvoker.invokeGetReportStatus(reportId).thenApply(response -> {
+            NodeList serviceResponseNodeList;
+            try {
+                serviceResponseNodeList = processServiceResponse(response, QualysScannerConstants.GET_REPORT_STATUS);
+            } catch (ScannerException e) {
+                throw new CompletionException(e);
+            }
+            String status = null;
+            if (serviceResponseNodeList != null) {
+                status = XMLUtil.getTagValue(serviceResponseNodeList, QualysScannerConstants.STATUS_TAG);
+            }
+            return status;
+        });
     }
 
     /**
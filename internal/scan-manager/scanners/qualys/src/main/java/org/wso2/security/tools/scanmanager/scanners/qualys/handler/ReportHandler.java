@@ -20,10 +20,10 @@ package org.wso2.security.tools.scanmanager.scanners.qualys.handler;
 
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.SftpException;
-import org.apache.commons.compress.archivers.ArchiveException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.wso2.security.scanmanager.common.exception.RetryExceededException;
 import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
 import org.wso2.security.tools.scanmanager.scanners.common.model.CallbackLog;
@@ -35,14 +35,46 @@ import org.wso2.security.tools.scanmanager.scanners.qualys.model.ScanContext;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * This method handles the report generation task.
+ * This method handles the report generation task. The reports of all the types are created at once, their statuses
+ * are polled on a scheduler shared by the scans, and each report is downloaded and added to the report zip as soon as
+ * it is created. The scheduler only keeps the time, while the blocking calls to Qualys are made on a separate pool of
+ * workers, so that a slow download does not delay the status checks of the other scans.
  */
 public class ReportHandler {
 
     private static final Logger log = LogManager.getLogger(ReportHandler.class);
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final ScheduledExecutorService reportScheduler = Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+                Thread thread = new Thread(runnable, "QualysReportScheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    // The queue is not bounded since each scan has at most one task in flight per report type.
+    private static final ThreadPoolExecutor reportExecutor = new ThreadPoolExecutor(
+            QualysScannerConstants.REPORT_HANDLER_THREAD_COUNT, QualysScannerConstants.REPORT_HANDLER_THREAD_COUNT,
+            0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "QualysReportHandler-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
     private String[] reportTypes = { QualysScannerConstants.PDF_TYPE, QualysScannerConstants.XML_TYPE,
             QualysScannerConstants.HTML_BASE64_TYPE, QualysScannerConstants.CSV_V2_TYPE };
     private QualysScanHandler qualysScanHandler;
@@ -60,27 +92,53 @@ public class ReportHandler {
      */
     public boolean execute(ScanContext scanContext) throws ScannerException {
         boolean isReportUploaded = false;
+        // Reports of each job are downloaded to a folder of their own, since the container runs scans concurrently.
         String reportFolderPath = QualysScannerConfiguration.getInstance()
-                .getConfigProperty(QualysScannerConstants.QUALYS_REPORT_FOLDER_PATH);
+                .getConfigProperty(QualysScannerConstants.QUALYS_REPORT_FOLDER_PATH) + File.separator
+                + scanContext.getJobID();
         String scanScriptLocation = scanContext.getScriptFilesLocation();
+        try {
+            Files.createDirectories(Paths.get(reportFolderPath));
+        } catch (IOException e) {
+            throw new ScannerException("Error occurred while creating the report folder: " + reportFolderPath, e);
+        }
 
         // Generate report for defined report types.
+        BlockingQueue<ReportTask> completedReportTasks = new LinkedBlockingQueue<>();
+        List<ReportTask> reportTasks = new ArrayList<>();
         for (String type : reportTypes) {
-            String reportId = qualysScanHandler.createReport(scanContext.getWebAppId(), scanContext.getJobID(), type,
-                    scanContext.getReportTemplateId());
-            awaitReportCreation(scanContext.getJobID(), reportId, type);
-            String filepath = qualysScanHandler.downloadReport(scanContext.getJobID(), reportId, reportFolderPath);
-            String logMessage = "Scan report for the application: " + scanContext.getWebAppName() + " is downloaded."
-                    + " Scan Report Type : " + type + " Location : " + filepath;
-            log.info(new CallbackLog(scanContext.getJobID(), logMessage));
+            ReportTask reportTask = new ReportTask(scanContext, type, reportFolderPath, completedReportTasks);
+            reportTasks.add(reportTask);
+            reportExecutor.execute(reportTask::createReport);
         }
 
-        // Zip all downloaded reports.
-        try {
-            FileUtil.zipFiles(reportFolderPath, reportFolderPath + ScannerConstants.ZIP_FILE_EXTENSION);
+        // Zip the reports in the order they are downloaded.
+        try (ZipArchiveOutputStream reportZip = new ZipArchiveOutputStream(
+                new File(reportFolderPath + ScannerConstants.ZIP_FILE_EXTENSION))) {
+            for (int i = 0; i < reportTasks.size(); i++) {
+                ReportTask reportTask = completedReportTasks.take();
+                if (reportTask.failure != null) {
+                    throw reportTask.failure;
+                }
+                if (reportTask.filePath != null) {
+                    File reportFile = new File(reportTask.filePath);
+                    reportZip.putArchiveEntry(new ZipArchiveEntry(reportFile, reportFile.getName()));
+                    try {
+                        Files.copy(reportFile.toPath(), reportZip);
+                    } finally {
+                        reportZip.closeArchiveEntry();
+                    }
+                }
+            }
+            reportZip.finish();
             log.info(new CallbackLog(scanContext.getJobID(), "Zip file for downloaded report is created."));
-        } catch (ArchiveException | IOException e) {
-            throw new ScannerException("Error occurred while creating the zip files of generated report.");
+        } catch (IOException e) {
+            throw new ScannerException("Error occurred while creating the zip files of generated report.", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScannerException("Interrupted while waiting for the generated report.", e);
+        } finally {
+            reportTasks.forEach(ReportTask::cancel);
         }
 
         // Upload created zip file to provided ftp location.
@@ -124,6 +182,7 @@ public class ReportHandler {
             try {
                 TimeUnit.SECONDS.sleep(retryInterval);
             } catch (InterruptedException e1) {
+                Thread.currentThread().interrupt();
                 throw new ScannerException(" Failed to upload report to FTP location.", e1);
             }
             uploadReportToFtp(scanContext, scanReportFtpLocation, reportPath);
@@ -134,49 +193,113 @@ public class ReportHandler {
     }
 
     /**
-     * This method waits for report creation task completion.
-     *
-     * @param jobId      job ID
-     * @param reportId   report ID
-     * @param reportType report type
-     * @throws ScannerException Error occurred while getting the status of report creation
+     * Task that creates a report of a given type, waits for its creation and downloads it. The report status is
+     * checked with a delay that grows up to {@link QualysScannerConstants#REPORT_STATUS_CHECK_DELAY}, so that short
+     * reports are picked up quickly without polling long reports too often. The task is added to the given queue when
+     * it is completed.
      */
-    private void awaitReportCreation(String jobId, String reportId, String reportType) throws ScannerException {
-        String status = null;
-        boolean isReportCreationCompleted = false;
-        try {
-            status = qualysScanHandler.getReportStatus(reportId);
-        } catch (IOException | InterruptedException | RetryExceededException e) {
-            // If report type is XML throw the exception.
-            if (QualysScannerConstants.XML_TYPE.equalsIgnoreCase(reportType)) {
-                throw new ScannerException("Error occurred while XML type report. " + reportId, e);
+    private final class ReportTask {
+
+        private final ScanContext scanContext;
+        private final String reportType;
+        private final String reportFolderPath;
+        private final BlockingQueue<ReportTask> completedReportTasks;
+        private String reportId;
+        private long statusCheckDelay = QualysScannerConstants.REPORT_STATUS_CHECK_INITIAL_DELAY;
+        private volatile boolean isCancelled;
+        private volatile Future<?> nextStatusCheck;
+
+        // Results of the task, which are read after the task is taken from the queue.
+        private String filePath;
+        private ScannerException failure;
+
+        private ReportTask(ScanContext scanContext, String reportType, String reportFolderPath,
+                BlockingQueue<ReportTask> completedReportTasks) {
+            this.scanContext = scanContext;
+            this.reportType = reportType;
+            this.reportFolderPath = reportFolderPath;
+            this.completedReportTasks = completedReportTasks;
+        }
+
+        private void createReport() {
+            try {
+                reportId = qualysScanHandler.createReport(scanContext.getWebAppId(), scanContext.getJobID(),
+                        reportType, scanContext.getReportTemplateId());
+                scheduleStatusCheck();
+            } catch (ScannerException | RuntimeException e) {
+                complete(null, toScannerException(e));
             }
         }
-        if (status != null) {
-            switch (status) {
-            case QualysScannerConstants.COMPLETE:
-                isReportCreationCompleted = true;
-                break;
-            case QualysScannerConstants.ERROR:
-                if (QualysScannerConstants.XML_TYPE.equalsIgnoreCase(reportType)) {
-                    throw new ScannerException("Failed to create a XML type report. " + reportId);
-                }
-                break;
-            case QualysScannerConstants.RUNNING:
-                try {
-                    TimeUnit.SECONDS.sleep(QualysScannerConstants.REPORT_STATUS_CHECK_DELAY);
-                } catch (InterruptedException e) {
-                    throw new ScannerException("Error occurred while retrieving the report status. ", e);
-                }
-                awaitReportCreation(jobId, reportId, reportType);
-                break;
-            default:
-                break;
+
+        private void checkStatus() {
+            if (isCancelled) {
+                return;
+            }
+
+            // The report thread is not held while the status is requested. The response is handled on a report
+            // thread once it is received.
+            qualysScanHandler.getReportStatus(reportId).whenCompleteAsync(this::handleStatus, reportExecutor);
+        }
+
+        private void handleStatus(String status, Throwable e) {
+
+            // If report type is XML fail the task, as the scan reports cannot be processed without it.
+            if (e != null && QualysScannerConstants.XML_TYPE.equalsIgnoreCase(reportType)) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                complete(null, new ScannerException("Error occurred while XML type report. " + reportId, cause));
+                return;
+            }
+            if (QualysScannerConstants.RUNNING.equals(status)) {
+                statusCheckDelay = Math.min(statusCheckDelay * 2, QualysScannerConstants.REPORT_STATUS_CHECK_DELAY);
+                scheduleStatusCheck();
+            } else if (QualysScannerConstants.COMPLETE.equals(status)) {
+                downloadReport();
+            } else if (QualysScannerConstants.XML_TYPE.equalsIgnoreCase(reportType)) {
+                complete(null, new ScannerException("Failed to create a XML type report. " + reportId));
+            } else {
+                String logMessage = "Failed to create " + reportType + " Report ID : " + reportId;
+                log.error(new CallbackLog(scanContext.getJobID(), logMessage));
+                complete(null, null);
+            }
+        }
+
+        private void downloadReport() {
+            try {
+                String downloadedFilePath = qualysScanHandler.downloadReport(scanContext.getJobID(), reportId,
+                        reportFolderPath);
+                String logMessage = "Scan report for the application: " + scanContext.getWebAppName() +
+                        " is downloaded. Scan Report Type : " + reportType + " Location : " + downloadedFilePath;
+                log.info(new CallbackLog(scanContext.getJobID(), logMessage));
+                complete(downloadedFilePath, null);
+            } catch (ScannerException | RuntimeException e) {
+                complete(null, toScannerException(e));
+            }
+        }
+
+        private void scheduleStatusCheck() {
+            if (!isCancelled) {
+                nextStatusCheck = reportScheduler.schedule(() -> reportExecutor.execute(this::checkStatus),
+                        statusCheckDelay, TimeUnit.SECONDS);
+            }
+        }
+
+        private void complete(String filePath, ScannerException failure) {
+            this.filePath = filePath;
+            this.failure = failure;
+            completedReportTasks.add(this);
+        }
+
+        private void cancel() {
+            isCancelled = true;
+            Future<?> statusCheck = nextStatusCheck;
+            if (statusCheck != null) {
+                statusCheck.cancel(false);
             }
         }
-        if (!isReportCreationCompleted) {
-            String logMessage = "Failed to create " + reportType + " Report ID : " + reportId;
-            log.error(new CallbackLog(jobId, logMessage));
+
+        private ScannerException toScannerException(Exception e) {
+            return e instanceof ScannerException ? (ScannerException) e :
+                    new ScannerException("Error occurred while generating " + reportType + " report.", e);
         }
     }
 }
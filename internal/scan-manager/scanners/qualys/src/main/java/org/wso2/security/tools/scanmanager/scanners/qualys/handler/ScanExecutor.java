@@ -81,9 +81,9 @@ public class ScanExecutor implements Runnable {
             scannerScanId = qualysScanHandler.launchScan(scanContext);
             scanContext.setScannerScanId(scannerScanId);
 
-            // Initiate ScheduledExecutorService to update scan status.
+            // Register the scan in the status poller to update scan status.
             StatusHandler statusChecker = new StatusHandler(qualysScanHandler, scanContext,
-                    scanContext.getSchedulerDelay(), scanContext.getSchedulerDelay());
+                    scanContext.getSchedulerDelay());
             statusChecker.activateStatusHandler();
         } catch (ScannerException e) {
             String message = "Failed to start scan " + scanContext.getJobID() + ". " + ErrorProcessingUtil
@@ -104,6 +104,7 @@ public class ScanExecutor implements Runnable {
                 log.error(new CallbackLog(scanContext.getJobID(), message));
                 CallbackUtil.updateScanStatus(scanContext.getJobID(), ScanStatus.ERROR, null, null);
             }
+            scanContext.getScanCompletion().complete(null);
         }
     }
 }
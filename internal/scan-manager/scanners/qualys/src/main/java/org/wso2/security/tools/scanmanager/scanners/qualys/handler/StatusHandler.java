@@ -24,26 +24,28 @@ import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
 import org.wso2.security.tools.scanmanager.scanners.common.model.CallbackLog;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusBatch;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusListener;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusPoller;
 import org.wso2.security.tools.scanmanager.scanners.common.util.CallbackUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.ErrorProcessingUtil;
 import org.wso2.security.tools.scanmanager.scanners.qualys.QualysScannerConstants;
-import org.wso2.security.tools.scanmanager.scanners.qualys.config.QualysScannerConfiguration;
 import org.wso2.security.tools.scanmanager.scanners.qualys.model.ScanContext;
 
 import java.io.File;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Responsible to check the scan status.
+ * Responsible to check the scan status. The statuses of all the scans are polled by a single poller of the Qualys
+ * account, which reports the status transitions of each scan to its status handler.
  */
 public class StatusHandler {
 
     private static final Logger log = LogManager.getLogger(StatusHandler.class);
-    private static final int NUM_THREADS = 1;
-    private ScheduledExecutorService scheduler;
-    private final long initialDelay;
+
+    // Poller of the statuses of the scans running on the Qualys account, shared by the scans.
+    private static ScanStatusPoller<String> statusPoller;
+
     private final long delayBetweenRuns;
 
     // Current status in Scan Manager perspective.
@@ -54,13 +56,10 @@ public class StatusHandler {
     private QualysScanHandler qualysScanHandler;
     private ScanContext scanContext;
 
-    public StatusHandler(QualysScanHandler qualysScanHandler, ScanContext scanContext, long initialDelay,
-            long delayBetweenRuns) {
+    public StatusHandler(QualysScanHandler qualysScanHandler, ScanContext scanContext, long delayBetweenRuns) {
         this.qualysScanHandler = qualysScanHandler;
         this.scanContext = scanContext;
-        this.initialDelay = initialDelay;
         this.delayBetweenRuns = delayBetweenRuns;
-        this.scheduler = Executors.newScheduledThreadPool(NUM_THREADS);
         currentScannerStatus = QualysScannerConstants.SUBMITTED;
         currentStatus = ScanStatus.SUBMITTED;
     }
@@ -69,50 +68,109 @@ public class StatusHandler {
      * Activate status checker when Qualys scan id is generated.
      */
     public void activateStatusHandler() {
-        Runnable checkStatusTask = new CheckStatusTask();
-        scheduler.scheduleWithFixedDelay(checkStatusTask, initialDelay, delayBetweenRuns, TimeUnit.MINUTES);
-        String message = "Status Checker scheduler service is activated";
+        getStatusPoller(qualysScanHandler, delayBetweenRuns).register(scanContext.getScannerScanId(),
+                QualysScannerConstants.SUBMITTED, new CheckStatusTask());
+        String message = "Status Checker is activated for the scan " + scanContext.getScannerScanId();
         log.info(new CallbackLog(scanContext.getJobID(), message));
     }
 
     /**
-     * Runnable class to check status task.
+     * Stop checking the status of the current scan.
      */
-    private final class CheckStatusTask implements Runnable {
+    private void deactivateStatusHandler() {
+        statusPoller.unregister(scanContext.getScannerScanId());
+    }
 
-        @Override public void run() {
+    /**
+     * Stop checking the status of the current scan once it reached a final status, and release the scan job.
+     */
+    private void finishScan() {
+        deactivateStatusHandler();
+        scanContext.getScanCompletion().complete(null);
+    }
+
+    /**
+     * Get the poller of the scan statuses of the Qualys account.
+     *
+     * @param qualysScanHandler qualys scan handler used to search the scans
+     * @param maxPollingDelay   maximum delay between two status checks of a scan in minutes
+     * @return status poller
+     */
+    private static synchronized ScanStatusPoller<String> getStatusPoller(QualysScanHandler qualysScanHandler,
+                                                                         long maxPollingDelay) {
+        if (statusPoller == null) {
+            statusPoller = new ScanStatusPoller<>("QualysStatusPoller",
+                    scanIds -> new ScanStatusBatch<>(qualysScanHandler.retrieveScanStatuses(scanIds)),
+                    StatusHandler::isFinalScannerStatus,
+                    TimeUnit.MINUTES.toMillis(QualysScannerConstants.STATUS_POLLING_MIN_INTERVAL),
+                    TimeUnit.MINUTES.toMillis(maxPollingDelay),
+                    TimeUnit.MINUTES.toMillis(QualysScannerConstants.EXPECTED_SCAN_DURATION));
+        }
+        return statusPoller;
+    }
+
+    /**
+     * Check whether a Qualys scan status is final, after which the status of the scan does not change.
+     *
+     * @param status Qualys Scanner Status
+     * @return true if the status is final
+     */
+    private static boolean isFinalScannerStatus(String status) {
+        switch (status) {
+        case QualysScannerConstants.FINISHED:
+        case QualysScannerConstants.ERROR:
+        case QualysScannerConstants.CANCELLED:
+        case QualysScannerConstants.TIME_LIMIT_EXCEEDED:
+        case QualysScannerConstants.SCANNER_NOT_AVAILABLE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    /**
+     * Listener of the status transitions of the current scan.
+     */
+    private final class CheckStatusTask implements ScanStatusListener<String> {
+
+        @Override public void onStatusChange(String scanId, String previousStatus, String status) {
             if (log.isDebugEnabled()) {
-                String message = " Scheduled Executor Service is started to check scan status periodically";
+                String message = "Qualys scan status is changed from " + previousStatus + " to " + status;
                 log.debug(new CallbackLog(scanContext.getJobID(), message));
             }
-            String status;
             try {
-                // Retrieve Qualys Scan status from Qualys Scanner.
-                status = qualysScanHandler.retrieveScanStatus(scanContext.getScannerScanId());
                 if (!currentScannerStatus.equalsIgnoreCase(status)) {
                     currentScannerStatus = status;
 
                     // Map qualys scanner status with scan manager status.
                     ScanStatus tempScanManagerStatus = mapStatus(status);
-                    if (currentStatus != tempScanManagerStatus) {
+                    if (tempScanManagerStatus != null && currentStatus != tempScanManagerStatus) {
                         currentStatus = tempScanManagerStatus;
                         updateStatus(currentStatus);
                     }
                 }
             } catch (ScannerException e) {
-                try {
-                    // Delete added authentication record before updating the status.
-                    qualysScanHandler.doCleanUp(scanContext.getAuthId(), scanContext.getJobID());
-                    log.error(new CallbackLog(scanContext.getJobID(), ErrorProcessingUtil.getFullErrorMessage(e)));
-                    CallbackUtil.updateScanStatus(scanContext.getJobID(), ScanStatus.ERROR, null,
-                            scanContext.getScannerScanId());
-                } catch (ScannerException e1) {
-                    String message = "Error occurred while doing the cleanup task. " + scanContext.getJobID()
-                            + ErrorProcessingUtil.getFullErrorMessage(e);
-                    log.error(new CallbackLog(scanContext.getJobID(), message));
-                }
-                scheduler.shutdown();
+                handleStatusCheckFailure(e);
+            }
+        }
+
+        @Override public void onPollingFailure(String scanId, ScannerException e) {
+            handleStatusCheckFailure(e);
+        }
+
+        private void handleStatusCheckFailure(ScannerException e) {
+            try {
+                // Delete added authentication record before updating the status.
+                qualysScanHandler.doCleanUp(scanContext.getAuthId(), scanContext.getJobID());
+                log.error(new CallbackLog(scanContext.getJobID(), ErrorProcessingUtil.getFullErrorMessage(e)));
+                CallbackUtil.updateScanStatus(scanContext.getJobID(), ScanStatus.ERROR, null,
+                        scanContext.getScannerScanId());
+            } catch (ScannerException e1) {
+                String message = "Error occurred while doing the cleanup task. " + scanContext.getJobID()
+                        + ErrorProcessingUtil.getFullErrorMessage(e);
+                log.error(new CallbackLog(scanContext.getJobID(), message));
             }
+            finishScan();
         }
 
         /**
@@ -137,14 +195,12 @@ public class StatusHandler {
                 scanRelauncher = new ScanReLauncher();
                 scanRelauncher.run();
                 log.info(new CallbackLog(scanContext.getJobID(), "Scan is relaunched due to TIME LIMIT EXCEED"));
-                scheduler.shutdown();
                 break;
             case QualysScannerConstants.SCANNER_NOT_AVAILABLE:
                 log.info(new CallbackLog(scanContext.getJobID(),
                         "Scan is relaunched due to Scanner" + " is not available"));
                 scanRelauncher = new ScanReLauncher();
                 scanRelauncher.run();
-                scheduler.shutdown();
                 break;
             case QualysScannerConstants.CANCELLED:
                 tempScanStatus = ScanStatus.CANCELED;
@@ -152,7 +208,11 @@ public class StatusHandler {
             case QualysScannerConstants.FINISHED:
                 String authStatus = qualysScanHandler.retrieveAuthStatus(scanContext.getScannerScanId());
                 String resultsStatus = qualysScanHandler.retrieveResultStatus(scanContext.getScannerScanId());
-                if ((isScanAuthenticationSucceeded(authStatus)) && (isResultSucceeded(resultsStatus))) {
+                if (QualysScannerConstants.TIME_LIMIT_EXCEEDED.equals(resultsStatus)) {
+                    log.error(new CallbackLog(scanContext.getJobID(), "Scan is relaunched due to TIME LIMIT EXCEED"));
+                    scanRelauncher = new ScanReLauncher();
+                    scanRelauncher.run();
+                } else if ((isScanAuthenticationSucceeded(authStatus)) && (isResultSucceeded(resultsStatus))) {
                     String logMessage =
                             "Scan is finished. Authentication status : " + authStatus + " and result status : "
                                     + resultsStatus;
@@ -191,12 +251,10 @@ public class StatusHandler {
                     // Delete added authentication script before updating the scan status.
                     qualysScanHandler.doCleanUp(scanContext.getAuthId(), scanContext.getJobID());
                     CallbackUtil.updateScanStatus(scanContext.getJobID(), ScanStatus.COMPLETED,
-                            scanContext.getScriptFilesLocation() + File.separator +
-                                    QualysScannerConfiguration.getInstance()
-                                    .getConfigProperty(QualysScannerConstants.QUALYS_REPORT_FOLDER_PATH)  +
+                            scanContext.getScriptFilesLocation() + File.separator + scanContext.getJobID() +
                                     ScannerConstants.ZIP_FILE_EXTENSION, scanContext.getScannerScanId());
                 }
-                scheduler.shutdown();
+                finishScan();
                 break;
             case RUNNING:
             case SUBMITTED:
@@ -217,7 +275,7 @@ public class StatusHandler {
                 // Delete added authentication record before updating the status.
                 qualysScanHandler.doCleanUp(scanContext.getAuthId(), scanContext.getJobID());
                 CallbackUtil.updateScanStatus(scanContext.getJobID(), scanStatus, null, scanContext.getScannerScanId());
-                scheduler.shutdown();
+                finishScan();
                 break;
             default:
                 break;
@@ -276,12 +334,6 @@ public class StatusHandler {
                         "Scan is finished but scan result is invalid. " + "Please check qualys "
                                 + "documentation for more information"));
                 break;
-            case QualysScannerConstants.TIME_LIMIT_EXCEEDED:
-                log.error(new CallbackLog(scanContext.getJobID(), "Scan is relaunched due to TIME LIMIT EXCEED"));
-                Runnable scanRelauncher = new ScanReLauncher();
-                scanRelauncher.run();
-                scheduler.shutdown();
-                break;
             case QualysScannerConstants.SERVICE_ERROR:
                 log.error(new CallbackLog(scanContext.getJobID(), "Scan is failed due to service error. "
                         + "Please check qualys documentation for more information"));
@@ -303,12 +355,15 @@ public class StatusHandler {
     }
 
     /**
-     * ReLaunch Scan.
+     * ReLaunch Scan and check the status of the relaunched scan.
      */
     private final class ScanReLauncher implements Runnable {
         @Override public void run() {
             try {
-                qualysScanHandler.launchScan(scanContext);
+                deactivateStatusHandler();
+                scanContext.setScannerScanId(qualysScanHandler.launchScan(scanContext));
+                currentScannerStatus = QualysScannerConstants.SUBMITTED;
+                activateStatusHandler();
             } catch (ScannerException e) {
                 try {
                     log.error(new CallbackLog(scanContext.getJobID(),
@@ -321,6 +376,7 @@ public class StatusHandler {
                 }
                 CallbackUtil.updateScanStatus(scanContext.getJobID(), ScanStatus.ERROR, null,
                         scanContext.getScannerScanId());
+                finishScan();
             }
         }
     }
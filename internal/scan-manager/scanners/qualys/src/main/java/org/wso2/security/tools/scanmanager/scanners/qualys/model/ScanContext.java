@@ -23,6 +23,7 @@ import org.wso2.security.tools.scanmanger.qualys.auth.WebAppAuthenticationRecord
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Qualys Scan Context
@@ -86,6 +87,13 @@ public class ScanContext {
     // Crawling scope for scan.
     private String crawlingScope;
 
+    // Completed once the scan reached a final status in Scan Manager perspective.
+    private final CompletableFuture<Void> scanCompletion = new CompletableFuture<>();
+
+    public CompletableFuture<Void> getScanCompletion() {
+        return scanCompletion;
+    }
+
     public List<CrawlingScript> getListOfCrawlingScripts() {
         return listOfCrawlingScripts;
     }
@@ -36,6 +36,7 @@ import org.wso2.security.tools.scanmanager.scanners.common.service.Scanner;
 import org.wso2.security.tools.scanmanager.scanners.common.util.CallbackUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.ErrorProcessingUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.FileUtil;
+import org.wso2.security.tools.scanmanager.scanners.common.util.HTTPClientPoolUtil;
 import org.wso2.security.tools.scanmanager.scanners.qualys.QualysScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.qualys.config.QualysScannerConfiguration;
 import org.wso2.security.tools.scanmanager.scanners.qualys.handler.QualysApiInvoker;
@@ -54,6 +55,8 @@ import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class is responsible to initiate the generic use cases of Qualys scanner
@@ -64,33 +67,43 @@ public class QualysScanner implements Scanner {
 
     private static final Logger log = LogManager.getLogger(QualysScanner.class);
     private QualysScanHandler qualysScanHandler;
-    private ScanContext scanContext;
 
-    // Scan executor thread.
-    Thread scanExecutorThread;
+    // Scan contexts of the scans submitted to the container, by job id.
+    private final Map<String, ScanContext> scanContexts = new ConcurrentHashMap<>();
 
     public QualysScanner() throws IOException, ScannerException {
         loadConfiguration();
+        HTTPClientPoolUtil.configure(QualysScannerConfiguration.getInstance().getConfigs());
         QualysApiInvoker qualysApiInvoker = new QualysApiInvoker();
         qualysApiInvoker.setBasicAuth(setCredentials());
         this.qualysScanHandler = new QualysScanHandler(qualysApiInvoker);
-        this.scanContext = new ScanContext();
 
         // Setting callbackUrls.
-        String callbackUrl =
+        String scanManagerUrl =
                 ScannerConstants.HTTP_PROTOCOL + System.getenv(ScannerConstants.SCAN_MANAGER_HOST) + ":" + System
-                        .getenv(ScannerConstants.SCAN_MANAGER_PORT) + QualysScannerConfiguration.getInstance()
-                        .getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_URL_ENDPOINT);
-        String logCallbackUrl = callbackUrl + QualysScannerConfiguration.getInstance()
-                .getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_LOG);
+                        .getenv(ScannerConstants.SCAN_MANAGER_PORT);
+        String callbackUrl = scanManagerUrl + QualysScannerConfiguration.getInstance()
+                .getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_URL_ENDPOINT);
+
+        // Configurations that predate the bulk log endpoint only have the single log callback endpoint.
+        Object logEndpoint = QualysScannerConfiguration.getInstance().getConfigs()
+                .get(ScannerConstants.SCAN_MANAGER_LOG_ENDPOINT);
+        boolean isLogBatchEndpoint = logEndpoint != null;
+        String logCallbackUrl = isLogBatchEndpoint ? scanManagerUrl + logEndpoint : callbackUrl +
+                QualysScannerConfiguration.getInstance().getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_LOG);
         String statusCallbackUrl = callbackUrl + QualysScannerConfiguration.getInstance()
                 .getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_STATUS);
         Long callbackRetryInterval = Long.parseLong(QualysScannerConfiguration.getInstance()
                 .getConfigProperty(ScannerConstants.CALLBACK_RETRY_INCREASE_SECONDS));
-        CallbackUtil.setCallbackUrls(logCallbackUrl, statusCallbackUrl, callbackRetryInterval);
+        CallbackUtil.setCallbackUrls(logCallbackUrl, isLogBatchEndpoint, statusCallbackUrl, callbackRetryInterval);
     }
 
-    @Override public void startScan(ScannerScanRequest scanRequest) {
+    @Override public CompletableFuture<Void> startScan(ScannerScanRequest scanRequest) {
+        ScanContext scanContext = scanContexts.get(scanRequest.getJobId());
+
+        // The scan keeps running in Qualys after it is launched, until the status handler finds a final status.
+        scanContext.getScanCompletion().whenComplete((result, e) -> scanContexts.remove(scanRequest.getJobId(),
+                scanContext));
         scanContext.setWebAppName(scanRequest.getPropertyMap().get(QualysScannerConstants.
                 QUALYS_WEBAPP_KEYWORD).get(0));
         scanContext.setApplicationUrl(scanRequest.getPropertyMap().get(QualysScannerConstants.SCAN_URL).get(0));
@@ -98,30 +111,45 @@ public class QualysScanner implements Scanner {
         if (Thread.currentThread().isInterrupted()) {
             String message = "Current thread is interrupted. ";
             log.error(new CallbackLog(scanContext.getJobID(), message));
+            scanContext.getScanCompletion().complete(null);
         } else {
-            // Spawn thread to start the scan.
-            startQualysScan(scanRequest.getFileMap());
             String logMessage = "Given parameters are validated and submitted for scanning.";
             log.info(new CallbackLog(scanContext.getJobID(), logMessage));
+
+            // The scan is started on the start scan thread of the job, which is managed by the scanner controller.
+            new ScanExecutor(scanContext, scanRequest.getFileMap(), qualysScanHandler).run();
         }
+        return scanContext.getScanCompletion();
     }
 
     @Override public boolean validateStartScan(ScannerScanRequest scannerScanRequest) {
         boolean isValidParameters = false;
+        ScanContext scanContext = new ScanContext();
         try {
-            isValidParameters = isValidParameters(scannerScanRequest);
+            isValidParameters = isValidParameters(scannerScanRequest, scanContext);
         } catch (InvalidRequestException | ScannerException e) {
-            callbackErrorReport(ErrorProcessingUtil.getFullErrorMessage(e));
+            callbackErrorReport(scanContext, ErrorProcessingUtil.getFullErrorMessage(e));
+        }
+        if (isValidParameters) {
+            scanContexts.put(scannerScanRequest.getJobId(), scanContext);
         }
         return isValidParameters;
     }
 
     @Override public void cancelScan(ScannerScanRequest scanRequest) {
+        ScanContext scanContext = scanContexts.remove(scanRequest.getJobId());
+        if (scanContext == null) {
+            String message = "There is no scan submitted to the container for the job.";
+            log.error(new CallbackLog(scanRequest.getJobId(), message));
+            CallbackUtil.updateScanStatus(scanRequest.getJobId(), ScanStatus.ERROR, null, null);
+            return;
+        }
         try {
             qualysScanHandler.cancelScan(scanContext);
         } catch (ScannerException e) {
             String message = "Error occurred while cancelling scan.";
-            callbackErrorReport(message);
+            callbackErrorReport(scanContext, message);
+            scanContext.getScanCompletion().complete(null);
         }
     }
 
@@ -129,14 +157,18 @@ public class QualysScanner implements Scanner {
         return true;
     }
 
-    /**
-     * This method is responsible to spawn a new thread to execute qualys scanning process.
-     */
-    private void startQualysScan(Map<String, List<String>> fileMap) {
-        ScanExecutor scanExecutor = new ScanExecutor(scanContext, fileMap, qualysScanHandler);
-        scanExecutorThread = new Thread(scanExecutor);
-        scanExecutorThread.setName("Scan Executor Thread for Qualys");
-        scanExecutorThread.start();
+    @Override public boolean resetScan() {
+
+        // The scans are tracked by the scanner controller until they reach a final status, so none is running here.
+        scanContexts.clear();
+        return true;
+    }
+
+    @Override public int getMaxConcurrentScans() {
+        Object maxConcurrentScans = QualysScannerConfiguration.getInstance().getConfigs()
+                .get(ScannerConstants.MAX_CONCURRENT_SCANS);
+        return maxConcurrentScans == null ? QualysScannerConstants.DEFAULT_MAX_CONCURRENT_SCANS :
+                Integer.parseInt(String.valueOf(maxConcurrentScans));
     }
 
     /**
@@ -147,10 +179,11 @@ public class QualysScanner implements Scanner {
      * Therefore it's enough to check whether parameter value is in request or not.
      *
      * @param scannerScanRequest Scanner Request
+     * @param scanContext        scan context of the job, which is populated with the validated parameters
      * @return True if all parameters are valid
      * @throws InvalidRequestException throws if any of the parameter in not valid.
      */
-    private Boolean isValidParameters(ScannerScanRequest scannerScanRequest)
+    private Boolean isValidParameters(ScannerScanRequest scannerScanRequest, ScanContext scanContext)
             throws InvalidRequestException, ScannerException {
         String errorMessage;
         scanContext.setJobID(scannerScanRequest.getJobId());
@@ -347,9 +380,10 @@ public class QualysScanner implements Scanner {
     /**
      * Update the call back endpoint when error happens at the service layer.
      *
-     * @param message error message
+     * @param scanContext scan context of the job
+     * @param message     error message
      */
-    private void callbackErrorReport(String message) {
+    private void callbackErrorReport(ScanContext scanContext, String message) {
         log.error(new CallbackLog(scanContext.getJobID(), message));
         if (scanContext.getAuthId() != null) {
             try {
@@ -31,6 +31,7 @@ import org.wso2.security.tools.scanmanager.scanners.qualys.model.ScanContext;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.text.SimpleDateFormat;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import javax.xml.parsers.DocumentBuilder;
@@ -275,6 +276,42 @@ public class RequestBodyBuilder {
         return launchScanRequestBody;
     }
 
+    /**
+     * Build request body to search the scans with the given ids.
+     *
+     * @param scanIds scan ids
+     * @return request body in XML format
+     * @throws ParserConfigurationException error occurred while parsing
+     * @throws TransformerException         error occurred while building secure string writer
+     */
+    public static String buildScanSearchRequest(Collection<String> scanIds)
+            throws ParserConfigurationException, TransformerException {
+        DocumentBuilderFactory dbf = XMLUtil.getSecuredDocumentBuilderFactory();
+        DocumentBuilder builder = dbf.newDocumentBuilder();
+        Document doc = builder.newDocument();
+        Element root = doc.createElement(QualysScannerConstants.SERVICE_REQUEST);
+        doc.appendChild(root);
+
+        Element filters = doc.createElement(QualysScannerConstants.FILTERS);
+        root.appendChild(filters);
+
+        Element criteria = doc.createElement(QualysScannerConstants.CRITERIA);
+        criteria.setAttribute(QualysScannerConstants.CRITERIA_FIELD, QualysScannerConstants.ID_KEYWORD);
+        criteria.setAttribute(QualysScannerConstants.CRITERIA_OPERATOR, QualysScannerConstants.IN_OPERATOR);
+        criteria.appendChild(doc.createTextNode(String.join(",", scanIds)));
+        filters.appendChild(criteria);
+
+        Element preferences = doc.createElement(QualysScannerConstants.PREFERENCES);
+        root.appendChild(preferences);
+
+        Element limitResults = doc.createElement(QualysScannerConstants.LIMIT_RESULTS);
+        limitResults.appendChild(doc.createTextNode(String.valueOf(scanIds.size())));
+        preferences.appendChild(limitResults);
+
+        StringWriter stringWriter = XMLUtil.buildSecureStringWriter(doc);
+        return stringWriter.getBuffer().toString();
+    }
+
     /**
      * Build request body to add crawling scripts and relevant configuration for an application in qualys.
      *
@@ -47,6 +47,9 @@ public final class VeracodeScannerConstants {
     public static final String SUMMARY = "_summary";
     public static final String THIRD_PARTY = "_third_party";
 
+    // Default number of concurrent scans of a container, bounded by the disk and memory used to build the artifacts.
+    public static final int DEFAULT_MAX_CONCURRENT_SCANS = 4;
+
     // Veracode Scanner Status
     public static final String INCOMPLETE = "Incomplete";
     public static final String NOT_SUBMITTED_TO_ENGINE = "Not Submitted to Engine";
@@ -18,48 +18,44 @@
 package org.wso2.security.tools.scanmanager.scanners.veracode.handler;
 
 import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
 import com.veracode.apiwrapper.wrappers.ResultsAPIWrapper;
 import com.veracode.apiwrapper.wrappers.UploadAPIWrapper;
 import org.apache.commons.compress.archivers.ArchiveException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.wso2.security.tools.scanmanager.common.model.ScanStatus;
 import org.wso2.security.tools.scanmanager.scanners.common.ScannerConstants;
+import org.wso2.security.tools.scanmanager.scanners.common.cache.ArtifactCache;
 import org.wso2.security.tools.scanmanager.scanners.common.exception.ScannerException;
 import org.wso2.security.tools.scanmanager.scanners.common.model.CallbackLog;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusBatch;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusListener;
+import org.wso2.security.tools.scanmanager.scanners.common.poller.ScanStatusPoller;
 import org.wso2.security.tools.scanmanager.scanners.common.util.CallbackUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.ErrorProcessingUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.FileUtil;
-import org.wso2.security.tools.scanmanager.scanners.common.util.XMLUtil;
 import org.wso2.security.tools.scanmanager.scanners.veracode.VeracodeScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.veracode.config.VeracodeScannerConfiguration;
 import org.wso2.security.tools.scanmanager.scanners.veracode.model.ScanContext;
+import org.wso2.security.tools.scanmanager.scanners.veracode.util.JarFilter;
 import org.wso2.security.tools.scanmanager.scanners.veracode.util.VeracodeAPIUtil;
 import org.xml.sax.SAXException;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.InterruptedIOException;
-import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.IntStream;
-import java.util.stream.Stream;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
 
-import static org.wso2.security.tools.scanmanager.scanners.veracode.VeracodeScannerConstants.JAR_FILTER_FILE;
-
 /**
  * Represents the scan handling tasks.
  */
@@ -70,8 +66,18 @@ public class ScanTask {
     // Scan request coming to the scan micro-service API.
     private ScanContext scanContext;
 
-    // Directory used for preparation of the scan artifacts.
-    private File workingDirectory = null;
+    // Zip file of the scan artifacts uploaded to Veracode.
+    private File scanArtifactZip = null;
+
+    // Host level cache of the product packs and the filtered scan artifacts, shared by the scans.
+    private static ArtifactCache artifactCache;
+
+    // Poller of the statuses of the scans running on the Veracode account, shared by the scans.
+    private static ScanStatusPoller<ScanStatus> statusPoller;
+
+    private static final long STATUS_POLLING_MIN_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static final long DEFAULT_STATUS_POLLING_MAX_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+    private static final long DEFAULT_EXPECTED_SCAN_DURATION = TimeUnit.HOURS.toMillis(2);
 
     public ScanTask(ScanContext scanContext) {
         if (log.isDebugEnabled()) {
@@ -235,21 +241,24 @@ public class ScanTask {
     }
 
     /**
-     * Create the scan artifact zip to upload to Veracode.
+     * Create the scan artifact zip to upload to Veracode, by copying the jar files that match the jar filter from the
+     * product pack in a single pass. When the host level artifact cache is configured, the scan artifact zip of a
+     * product pack that was already scanned is reused, and a product pack that was already downloaded is read from
+     * the cache instead of being downloaded again.
      *
      * @return is scan zip artifact creation success
      */
     private boolean creatingScanArtifactZip() {
         boolean isZipCreated = false;
-        String extractedFilePath;
 
         String scanArtifact = scanContext.getArtifactLocation();
         String productPackName = scanArtifact.substring(scanArtifact.lastIndexOf(File.separator) + 1,
                 scanArtifact.length());
         String productPath = scanArtifact.substring(0, scanArtifact.lastIndexOf(File.separator));
 
+        // Each job downloads its product pack into a directory of its own.
         File productFile = new File(VeracodeScannerConfiguration.getInstance().getConfigProperty(
-                ScannerConstants.DEFAULT_FTP_PRODUCT_PATH) + productPackName);
+                ScannerConstants.DEFAULT_FTP_PRODUCT_PATH) + scanContext.getJobId(), productPackName);
 
         String ftpUsername = VeracodeScannerConfiguration.getInstance().getConfigProperty(ScannerConstants
                 .FTP_USERNAME);
@@ -264,42 +273,86 @@ public class ScanTask {
             log.error(new CallbackLog(scanContext.getJobId(), logMessage));
         } else {
             try {
-                String logMessage = "Product pack is downloading for the application: " + scanContext.getAppId();
-                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
-
-                FileUtil.downloadFromFtp(productPath, productPackName, productFile, ftpUsername, ftpPassword, ftpHost,
-                        ftpPort);
-                FileUtil.cleanPassword(ftpPassword);
+                JarFilter jarFilter = JarFilter.getInstance();
+                ArtifactCache artifactCache = getArtifactCache();
+                String artifactSourceKey = null;
+                String artifactDigest = null;
+                File productSource = null;
+                if (artifactCache != null) {
+                    SftpATTRS productFileAttributes = FileUtil.getFtpFileAttributes(productPath, productPackName,
+                            ftpUsername, ftpPassword.clone(), ftpHost, ftpPort);
+                    artifactSourceKey = ftpHost + ":" + ftpPort + ":" + scanArtifact + ":" +
+                            productFileAttributes.getSize() + ":" + productFileAttributes.getMTime();
+                    artifactDigest = artifactCache.getDigest(artifactSourceKey);
+                    if (artifactDigest != null) {
+                        String scanArtifactDigest = artifactCache.getDigest(artifactDigest + ":" +
+                                jarFilter.getDigest());
+                        if (scanArtifactDigest != null) {
+                            scanArtifactZip = artifactCache.getArtifact(scanArtifactDigest);
+                        }
+                        if (scanArtifactZip != null) {
+                            String logMessage = "Reusing the cached zip artifact for the scan for the application: " +
+                                    scanContext.getAppId() + " from " + scanArtifactZip;
+                            log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+                            return true;
+                        }
+                        productSource = artifactCache.getArtifact(artifactDigest);
+                    }
+                }
 
-                logMessage = "Product downloading completed for the application: " + scanContext.getAppId() + " into "
-                        + productFile;
-                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+                String logMessage;
+                if (productSource != null) {
+                    logMessage = "Product pack is found in the artifact cache for the application: " +
+                            scanContext.getAppId();
+                    log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+                } else {
+                    logMessage = "Product pack is downloading for the application: " + scanContext.getAppId();
+                    log.info(new CallbackLog(scanContext.getJobId(), logMessage));
 
-                extractedFilePath = FileUtil.extractArchive(productFile, productFile.getParent());
-                workingDirectory = new File(extractedFilePath + VeracodeScannerConstants.WORK_DIRECTORY_SUFIX);
+                    Files.createDirectories(productFile.getAbsoluteFile().getParentFile().toPath());
+                    FileUtil.downloadFromFtp(productPath, productPackName, productFile, ftpUsername, ftpPassword,
+                            ftpHost, ftpPort);
+                    FileUtil.cleanPassword(ftpPassword);
 
-                if (workingDirectory.mkdirs()) {
-                    logMessage = "Filtering the artifacts for the scan for the application: " + scanContext.getAppId() +
-                            " into " + workingDirectory;
+                    logMessage = "Product downloading completed for the application: " + scanContext.getAppId() +
+                            " into " + productFile;
                     log.info(new CallbackLog(scanContext.getJobId(), logMessage));
 
-                    copyRequiredScanArtifact(extractedFilePath);
-                    FileUtil.zipFiles(workingDirectory.getAbsolutePath(), workingDirectory.getAbsolutePath()
-                            + ScannerConstants.ZIP_FILE_EXTENSION);
-                    isZipCreated = true;
+                    productSource = productFile;
+                    if (artifactCache != null) {
+                        artifactDigest = addToArtifactCache(artifactCache, artifactSourceKey, productFile);
+                    }
+                }
 
-                    logMessage = "Created the zip artifact for the scan for the application: " + scanContext.getAppId()
-                            + " as " + workingDirectory + ScannerConstants.ZIP_FILE_EXTENSION;
-                    log.info(new CallbackLog(scanContext.getJobId(), logMessage));
-                } else {
-                    logMessage = "Error occured while creating the working directory for application : " + scanContext
-                            .getAppId();
-                    log.error(new CallbackLog(scanContext.getJobId(), logMessage));
+                String scanArtifactName = productPackName.endsWith(ScannerConstants.ZIP_FILE_EXTENSION) ?
+                        productPackName.substring(0, productPackName.length() -
+                                ScannerConstants.ZIP_FILE_EXTENSION.length()) : productPackName;
+                scanArtifactZip = new File(productFile.getAbsoluteFile().getParent(), scanArtifactName +
+                        VeracodeScannerConstants.WORK_DIRECTORY_SUFIX + ScannerConstants.ZIP_FILE_EXTENSION);
 
-                    CallbackUtil.updateScanStatus(scanContext.getJobId(), ScanStatus.ERROR, null, null);
+                // Remove a zip of a previous scan first, since it may be linked to a file in the artifact cache.
+                Files.deleteIfExists(scanArtifactZip.toPath());
+
+                logMessage = "Filtering the artifacts for the scan for the application: " + scanContext.getAppId() +
+                        " into " + scanArtifactZip;
+                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+
+                int scanArtifactCount = FileUtil.filterArchive(productSource, scanArtifactZip, jarFilter);
+                isZipCreated = true;
+
+                logMessage = "Created the zip artifact with " + scanArtifactCount + " files for the scan for the " +
+                        "application: " + scanContext.getAppId() + " as " + scanArtifactZip;
+                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+
+                if (artifactDigest != null) {
+                    addToArtifactCache(artifactCache, artifactDigest + ":" + jarFilter.getDigest(), scanArtifactZip);
+                    if (productSource == productFile) {
+
+                        // The cached product pack is linked to the downloaded file, which must not be modified later.
+                        Files.deleteIfExists(productFile.toPath());
+                    }
                 }
-            } catch (IOException | JSchException | SftpException | SAXException | ScannerException | ArchiveException |
-                    ParserConfigurationException e) {
+            } catch (IOException | JSchException | SftpException | SAXException | ParserConfigurationException e) {
                 String logMessage = "Error occured while creating the scan zip artifact for application : " +
                         scanContext.getAppId() + "\n" + ErrorProcessingUtil.getFullErrorMessage(e);
                 log.error(new CallbackLog(scanContext.getJobId(), logMessage));
@@ -309,11 +362,52 @@ public class ScanTask {
                 } else {
                     CallbackUtil.updateScanStatus(scanContext.getJobId(), ScanStatus.ERROR, null, null);
                 }
+            } finally {
+                FileUtil.cleanPassword(ftpPassword);
             }
         }
         return isZipCreated;
     }
 
+    /**
+     * Add a file to the artifact cache. Failures are logged, since the scan can proceed without the cache.
+     *
+     * @param artifactCache artifact cache
+     * @param sourceKey     key of the source of the file
+     * @param file          file to be cached
+     * @return digest of the file or null if it could not be cached
+     */
+    private String addToArtifactCache(ArtifactCache artifactCache, String sourceKey, File file) {
+        try {
+            return artifactCache.putArtifact(sourceKey, file);
+        } catch (IOException e) {
+            String logMessage = "Unable to add " + file + " to the artifact cache. " +
+                    ErrorProcessingUtil.getFullErrorMessage(e);
+            log.warn(new CallbackLog(scanContext.getJobId(), logMessage));
+            return null;
+        }
+    }
+
+    /**
+     * Get the host level artifact cache.
+     *
+     * @return artifact cache or null if the artifact cache is not configured
+     * @throws IOException when unable to create the artifact cache directories
+     */
+    private static synchronized ArtifactCache getArtifactCache() throws IOException {
+        if (artifactCache == null) {
+            Map configs = VeracodeScannerConfiguration.getInstance().getConfigs();
+            Object cachePath = configs.get(ScannerConstants.ARTIFACT_CACHE_PATH);
+            Object maxSize = configs.get(ScannerConstants.ARTIFACT_CACHE_MAX_SIZE_MB);
+            if (cachePath == null || maxSize == null) {
+                return null;
+            }
+            artifactCache = new ArtifactCache(Paths.get(String.valueOf(cachePath)),
+                    Long.parseLong(String.valueOf(maxSize)) * 1024 * 1024);
+        }
+        return artifactCache;
+    }
+
     /**
      * Upload scan pack to the Veracode.
      *
@@ -329,8 +423,8 @@ public class ScanTask {
         } else {
             try {
                 UploadAPIWrapper uploadAPIWrapper = VeracodeAPIUtil.getUploadAPIWrapper();
-                String result = uploadAPIWrapper.uploadFile(scanContext.getAppId(), workingDirectory
-                        + ScannerConstants.ZIP_FILE_EXTENSION);
+                String result = uploadAPIWrapper.uploadFile(scanContext.getAppId(),
+                        scanArtifactZip.getAbsolutePath());
                 isUploadSuccess = VeracodeResultProcessor.isOperationProceedWithoutError(result);
                 if (isUploadSuccess) {
                     result = uploadAPIWrapper.getBuildInfo(scanContext.getAppId());
@@ -358,113 +452,6 @@ public class ScanTask {
         return isUploadSuccess;
     }
 
-    /**
-     * Filter the file list that matches with the pattern in a file.
-     *
-     * @param filePath Directory path that contains the jar list, which needs to check the matching patterns
-     * @throws IOException
-     * @throws SAXException
-     * @throws ParserConfigurationException
-     */
-    private void copyRequiredScanArtifact(String filePath) throws IOException, SAXException,
-            ParserConfigurationException {
-        File dir = new File(filePath);
-        File[] files = dir.listFiles();
-        File patternXmlFile = new File(JAR_FILTER_FILE);
-
-        if (Thread.currentThread().isInterrupted()) {
-            String logMessage = "Current thread is interrupted for application : " + scanContext.getAppId();
-            log.error(new CallbackLog(scanContext.getJobId(), logMessage));
-        } else {
-            try (InputStream input = VeracodeScannerConfiguration.class.getClassLoader()
-                    .getResourceAsStream(JAR_FILTER_FILE);
-                 OutputStream out = new FileOutputStream(patternXmlFile)) {
-                int read;
-                byte[] bytes = new byte[1024];
-
-                while ((read = input.read(bytes)) != -1) {
-                    out.write(bytes, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IOException("Error occurred while processing " + JAR_FILTER_FILE, e);
-            }
-            NodeList nodeList = getScanArtifactPatternList(patternXmlFile);
-
-            for (File file : files) {
-                Stream<Node> nodeStream = IntStream.range(0, nodeList.getLength()).mapToObj(nodeList::item);
-                if (file.isFile()) {
-                    nodeStream.forEach(node -> {
-                        Element element = (Element) node;
-                        try {
-                            checkFileNamePattern(element, file);
-                        } catch (IOException e) {
-                            throw new RuntimeException(e);
-                        }
-                    });
-                } else {
-                    copyRequiredScanArtifact(file.getAbsolutePath());
-                }
-            }
-        }
-    }
-
-    /**
-     * Convert the given xmlFile to a XML Document.
-     *
-     * @param xmlFile file need to be converted
-     * @return Converted Node list from the XML file
-     * @throws ParserConfigurationException
-     * @throws SAXException
-     * @throws IOException
-     */
-    private NodeList getScanArtifactPatternList(File xmlFile) throws ParserConfigurationException, SAXException,
-            IOException {
-        DocumentBuilder dBuilder;
-        Document doc;
-        DocumentBuilderFactory dbFactory = XMLUtil.getSecuredDocumentBuilderFactory();
-
-        dBuilder = dbFactory.newDocumentBuilder();
-        doc = dBuilder.parse(xmlFile);
-        doc.getDocumentElement().normalize();
-
-        return doc.getElementsByTagName("format");
-    }
-
-    /**
-     * Check whether the file matches with the given prefix and suffix and copy to a specific location.
-     *
-     * @param element XML element contains the prefix and suffix values
-     * @param file    needs to check for the pattern
-     * @throws IOException
-     */
-    private void checkFileNamePattern(Element element, File file) throws IOException {
-        String prefix = "";
-        String suffix = "";
-
-        if (element.getElementsByTagName(VeracodeScannerConstants.PREFIX).item(0) != null) {
-            prefix = String.valueOf(element.getElementsByTagName(VeracodeScannerConstants.PREFIX).item(0)
-                    .getChildNodes().item(0).getTextContent());
-        }
-        if (element.getElementsByTagName(VeracodeScannerConstants.SUFFIX).item(0) != null) {
-            suffix = String.valueOf(element.getElementsByTagName(VeracodeScannerConstants.SUFFIX).item(0)
-                    .getChildNodes().item(0).getTextContent());
-        }
-        if (file.getName().endsWith(suffix) && file.getName().startsWith(prefix)) {
-            try {
-                File destFile = new File(workingDirectory + File.separator + file.getName());
-                Files.copy(file.getAbsoluteFile().toPath(), destFile.toPath());
-            } catch (IOException e) {
-                if ((e).toString().startsWith("java.nio.file.FileAlreadyExistsException")) {
-                    String logMessage = "Error occured while copying file. \nWarning Message : " +
-                            ErrorProcessingUtil.getFullErrorMessage(e);
-                    log.warn(new CallbackLog(scanContext.getJobId(), logMessage));
-                } else {
-                    throw e;
-                }
-            }
-        }
-    }
-
     /**
      * Begin pre scan in Veracode before submit to the Scan.
      *
@@ -563,24 +550,7 @@ public class ScanTask {
         }
 
         try {
-            scanStatus = getScanStatus();
-            while (!scanStatus.equals(ScanStatus.COMPLETED) && !Thread.currentThread().isInterrupted()) {
-                if (scanStatus.equals(ScanStatus.ERROR)) {
-                    break;
-                }
-                String waitingTime = VeracodeScannerConfiguration.getInstance().getConfigProperty(
-                        VeracodeScannerConstants.SCAN_RESULT_RETRY_MINS);
-                String logMessage = "Waiting for " + waitingTime + " minutes until the scan is completed" +
-                        " for the application: " + scanContext.getAppId();
-                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
-
-                TimeUnit.MINUTES.sleep(Integer.parseInt(waitingTime));
-                scanStatus = getScanStatus();
-
-                logMessage = "Scan result status is : " + scanStatus + " for the application:"
-                        + scanContext.getAppId();
-                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
-            }
+            scanStatus = awaitScanCompletion();
 
             if (Thread.currentThread().isInterrupted()) {
                 String logMessage = "Current thread is interrupted for application : " + scanContext.getAppId();
@@ -590,8 +560,7 @@ public class ScanTask {
                     String logMessage = "Scan results are ready for the application: " + scanContext.getAppId();
                     log.info(new CallbackLog(scanContext.getJobId(), logMessage));
 
-                    String reportPath = VeracodeScannerConfiguration.getInstance().getConfigProperty(
-                            VeracodeScannerConstants.VERACODE_OUTPUT_FOLDER_PATH);
+                    String reportPath = getReportFolderPath();
 
                     String scanArtifact = scanContext.getArtifactLocation();
                     boolean isReportDownloaded = getReports();
@@ -612,8 +581,7 @@ public class ScanTask {
                     log.error(new CallbackLog(scanContext.getJobId(), logMessage));
                 }
             }
-        } catch (XPathExpressionException | ParserConfigurationException | SAXException | IOException |
-                ArchiveException | ScannerException e) {
+        } catch (IOException | ArchiveException | ScannerException e) {
             String logMessage;
             if (e.getClass().isInstance(ScannerException.class)) {
                 logMessage = "Extracting scan report zip is failed for the application: " + scanContext.getAppId()
@@ -687,22 +655,109 @@ public class ScanTask {
     }
 
     /**
-     * Give the status of the scan of the current application.
+     * Wait until the scan of the current application reaches a final status. The status is polled by the shared
+     * Veracode status poller, together with the other scans running on this host.
+     *
+     * @return final status of the scan
+     * @throws ScannerException     when unable to retrieve the scan status
+     * @throws InterruptedException when the current thread is interrupted while waiting
+     */
+    private ScanStatus awaitScanCompletion() throws ScannerException, InterruptedException {
+        CompletableFuture<ScanStatus> scanCompletion = new CompletableFuture<>();
+        ScanStatusPoller<ScanStatus> statusPoller = getStatusPoller();
+        statusPoller.register(scanContext.getAppId(), ScanStatus.SUBMITTED, new ScanStatusListener<ScanStatus>() {
+            @Override
+            public void onStatusChange(String appId, ScanStatus previousStatus, ScanStatus status) {
+                String logMessage = "Scan result status is : " + status + " for the application:" + appId;
+                log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+                if (isFinalStatus(status)) {
+                    scanCompletion.complete(status);
+                }
+            }
+
+            @Override
+            public void onPollingFailure(String appId, ScannerException e) {
+                scanCompletion.completeExceptionally(e);
+            }
+        });
+        String logMessage = "Waiting until the scan is completed for the application: " + scanContext.getAppId()
+                + ". Expected scan duration is " + TimeUnit.MILLISECONDS.toMinutes(statusPoller.getExpectedDuration())
+                + " minutes";
+        log.info(new CallbackLog(scanContext.getJobId(), logMessage));
+        try {
+            return scanCompletion.get();
+        } catch (ExecutionException e) {
+            throw new ScannerException("Unable to retrieve the scan status for the application: "
+                    + scanContext.getAppId(), e.getCause());
+        } finally {
+            statusPoller.unregister(scanContext.getAppId());
+        }
+    }
+
+    /**
+     * Get the folder to download the scan reports of the current job into.
+     *
+     * @return report folder path
+     */
+    private String getReportFolderPath() {
+        return VeracodeScannerConfiguration.getInstance().getConfigProperty(
+                VeracodeScannerConstants.VERACODE_OUTPUT_FOLDER_PATH) + File.separator + scanContext.getJobId();
+    }
+
+    /**
+     * Give the status of the scan of an application.
      *
+     * @param appId application id
      * @return the Scan Status in the actual cloud Veracode scanner
      * @throws IOException                  when unable to retrieve scan status due to IO errors
      * @throws XPathExpressionException     when the given expression is malformed or wrong
      * @throws SAXException                 when unable to parse the XML to get status
      * @throws ParserConfigurationException when unable to create a document builder
      */
-    public ScanStatus getScanStatus() throws IOException, XPathExpressionException, SAXException,
-            ParserConfigurationException {
+    private static ScanStatus getScanStatus(String appId) throws IOException, XPathExpressionException,
+            SAXException, ParserConfigurationException {
         UploadAPIWrapper uploadAPIWrapper = VeracodeAPIUtil.getUploadAPIWrapper();
-        String result = uploadAPIWrapper.getBuildInfo(scanContext.getAppId());
+        String result = uploadAPIWrapper.getBuildInfo(appId);
 
         return VeracodeResultProcessor.getScanStatus(result);
     }
 
+    private static boolean isFinalStatus(ScanStatus scanStatus) {
+        return ScanStatus.COMPLETED.equals(scanStatus) || ScanStatus.ERROR.equals(scanStatus)
+                || ScanStatus.CANCELED.equals(scanStatus);
+    }
+
+    /**
+     * Get the poller of the scan statuses of the Veracode account. The Veracode API gives the build information of a
+     * single application per request, so a batch is queried application by application from the polling thread.
+     *
+     * @return status poller
+     */
+    private static synchronized ScanStatusPoller<ScanStatus> getStatusPoller() {
+        if (statusPoller == null) {
+            Map configs = VeracodeScannerConfiguration.getInstance().getConfigs();
+            Object retryInterval = configs.get(VeracodeScannerConstants.SCAN_RESULT_RETRY_MINS);
+            Object expectedDuration = configs.get(VeracodeScannerConstants.SCAN_RESULT_WAITING_HOURS);
+            long maxInterval = retryInterval == null ? DEFAULT_STATUS_POLLING_MAX_INTERVAL :
+                    TimeUnit.MINUTES.toMillis(Long.parseLong(String.valueOf(retryInterval)));
+            statusPoller = new ScanStatusPoller<>("VeracodeStatusPoller", appIds -> {
+                ScanStatusBatch<ScanStatus> scanStatuses = new ScanStatusBatch<>();
+                for (String appId : appIds) {
+                    try {
+                        scanStatuses.addStatus(appId, getScanStatus(appId));
+                    } catch (IOException | XPathExpressionException | SAXException | ParserConfigurationException e) {
+                        scanStatuses.addFailure(appId, new ScannerException(
+                                "Unable to retrieve the scan status for the application: " + appId, e));
+                    }
+                }
+                return scanStatuses;
+            }, ScanTask::isFinalStatus, STATUS_POLLING_MIN_INTERVAL, maxInterval, expectedDuration == null ?
+                    DEFAULT_EXPECTED_SCAN_DURATION :
+                    TimeUnit.HOURS.toMillis(Long.parseLong(String.valueOf(expectedDuration))));
+        }
+        return statusPoller;
+    }
+
     /**
      * Download and return the status for the current product application.
      *
@@ -724,8 +779,9 @@ public class ScanTask {
                 String resultXMLSummary = resultsAPIWrapper.summaryReport(buildId);
                 byte[] resultXMLThirdParty = resultsAPIWrapper.thirdPartyReportPdf(buildId);
 
-                String filePath = VeracodeScannerConfiguration.getInstance().getConfigProperty(
-                        VeracodeScannerConstants.VERACODE_OUTPUT_FOLDER_PATH) + File.separator + scanContext.getAppId();
+                String reportFolderPath = getReportFolderPath();
+                Files.createDirectories(Paths.get(reportFolderPath));
+                String filePath = reportFolderPath + File.separator + scanContext.getAppId();
 
                 String pdfDetailReport = filePath + ScannerConstants.PDF_FILE_EXTENSION;
                 String xmlDetailReport = filePath + ScannerConstants.XML_FILE_EXTENSION;
@@ -744,8 +800,7 @@ public class ScanTask {
 
                 isReportPrinted = true;
                 String logMessage = "Scan reports are completed and downloaded to the location : " +
-                        VeracodeScannerConfiguration.getInstance().getConfigProperty(VeracodeScannerConstants.
-                                VERACODE_OUTPUT_FOLDER_PATH) + " for the application " + scanContext.getAppId();
+                        reportFolderPath + " for the application " + scanContext.getAppId();
                 log.info(new CallbackLog(scanContext.getJobId(), logMessage));
             } catch (IOException | ParserConfigurationException | SAXException | XPathExpressionException |
                     ScannerException e) {
@@ -32,6 +32,7 @@ import org.wso2.security.tools.scanmanager.scanners.common.model.CallbackLog;
 import org.wso2.security.tools.scanmanager.scanners.common.service.Scanner;
 import org.wso2.security.tools.scanmanager.scanners.common.util.CallbackUtil;
 import org.wso2.security.tools.scanmanager.scanners.common.util.ErrorProcessingUtil;
+import org.wso2.security.tools.scanmanager.scanners.common.util.HTTPClientPoolUtil;
 import org.wso2.security.tools.scanmanager.scanners.veracode.VeracodeScannerConstants;
 import org.wso2.security.tools.scanmanager.scanners.veracode.config.VeracodeScannerConfiguration;
 import org.wso2.security.tools.scanmanager.scanners.veracode.handler.ScanTask;
@@ -41,6 +42,9 @@ import org.wso2.security.tools.scanmanager.scanners.veracode.util.VeracodeAPIUti
 import org.xml.sax.SAXException;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.xpath.XPathExpressionException;
 
@@ -53,8 +57,8 @@ public class VeracodeScanner implements Scanner {
 
     private static final Logger log = LogManager.getLogger(VeracodeScanner.class);
 
-    // Scan context object for a particular container.
-    private ScanContext scanContext;
+    // Scan contexts of the scans running in the container, by job id.
+    private final Map<String, ScanContext> scanContexts = new ConcurrentHashMap<>();
 
     /**
      * Initialising the Veracode Wrapper options.
@@ -63,8 +67,8 @@ public class VeracodeScanner implements Scanner {
      */
     public VeracodeScanner() throws IOException {
         loadConfiguration();
+        HTTPClientPoolUtil.configure(VeracodeScannerConfiguration.getInstance().getConfigs());
         VeracodeCommand.Options options;
-        scanContext = new ScanContext();
 
         options = new VeracodeCommand.Options();
         options._output_folderpath = VeracodeScannerConfiguration.getInstance().getConfigProperty(
@@ -78,17 +82,24 @@ public class VeracodeScanner implements Scanner {
 
         VeracodeAPIUtil.setCredentials(options);
 
-        String callbackUrl = ScannerConstants.HTTP_PROTOCOL + System.getenv(ScannerConstants.SCAN_MANAGER_HOST) + ":"
-                + System.getenv(ScannerConstants.SCAN_MANAGER_PORT) + VeracodeScannerConfiguration.getInstance()
+        String scanManagerUrl = ScannerConstants.HTTP_PROTOCOL + System.getenv(ScannerConstants.SCAN_MANAGER_HOST)
+                + ":" + System.getenv(ScannerConstants.SCAN_MANAGER_PORT);
+        String callbackUrl = scanManagerUrl + VeracodeScannerConfiguration.getInstance()
                 .getConfigProperty(ScannerConstants.SCAN_MANAGER_CALLBACK_URL_ENDPOINT);
-        String logCallbackUrl = callbackUrl + VeracodeScannerConfiguration.getInstance().getConfigProperty(
-                ScannerConstants.SCAN_MANAGER_CALLBACK_LOG);
+
+        // Configurations that predate the bulk log endpoint only have the single log callback endpoint.
+        Object logEndpoint = VeracodeScannerConfiguration.getInstance().getConfigs()
+                .get(ScannerConstants.SCAN_MANAGER_LOG_ENDPOINT);
+        boolean isLogBatchEndpoint = logEndpoint != null;
+        String logCallbackUrl = isLogBatchEndpoint ? scanManagerUrl + logEndpoint : callbackUrl +
+                VeracodeScannerConfiguration.getInstance().getConfigProperty(
+                        ScannerConstants.SCAN_MANAGER_CALLBACK_LOG);
         String statusCallbackUrl = callbackUrl + VeracodeScannerConfiguration.getInstance().getConfigProperty(
                 ScannerConstants.SCAN_MANAGER_CALLBACK_STATUS);
         Long callbackRetryInterval = Long.parseLong(VeracodeScannerConfiguration.getInstance().getConfigProperty(
                 ScannerConstants.CALLBACK_RETRY_INCREASE_SECONDS));
 
-        CallbackUtil.setCallbackUrls(logCallbackUrl, statusCallbackUrl, callbackRetryInterval);
+        CallbackUtil.setCallbackUrls(logCallbackUrl, isLogBatchEndpoint, statusCallbackUrl, callbackRetryInterval);
     }
 
     /**
@@ -106,9 +117,11 @@ public class VeracodeScanner implements Scanner {
      * Run the scan using product zip file.
      *
      * @param scanRequest Object that represent the required information for the scanner operation
+     * @return completion of the scan, which is already completed since the scan is run on the calling thread
      */
     @Override
-    public void startScan(ScannerScanRequest scanRequest) {
+    public CompletableFuture<Void> startScan(ScannerScanRequest scanRequest) {
+        ScanContext scanContext = new ScanContext();
         scanContext.setJobId(scanRequest.getJobId());
         scanContext.setAppId(scanRequest.getAppId());
         scanContext.setArtifactLocation(scanRequest.getFileMap().get(VeracodeScannerConstants.SCAN_ARTIFACT).get(0));
@@ -117,21 +130,27 @@ public class VeracodeScanner implements Scanner {
             if (StringUtils.isEmpty(scanContext.getAppId())) {
                 String message = "Error occured while submitting the start scan request since the application " +
                         "is empty in the request. ";
-                callbackErrorReport(message);
+                callbackErrorReport(scanContext.getJobId(), message);
             } else {
                 if (Thread.currentThread().isInterrupted()) {
                     String message = "Current thread is interrupted. ";
                     log.error(new CallbackLog(scanContext.getJobId(), message));
                 } else {
-                    ScanTask scanTask = new ScanTask(scanContext);
-                    scanTask.run();
+                    scanContexts.put(scanContext.getJobId(), scanContext);
+                    try {
+                        ScanTask scanTask = new ScanTask(scanContext);
+                        scanTask.run();
+                    } finally {
+                        scanContexts.remove(scanContext.getJobId(), scanContext);
+                    }
                 }
             }
         } else {
             String message = "Error occured while submitting the start scan request since the scan artifacts " +
                     "are empty in the request. ";
-            callbackErrorReport(message);
+            callbackErrorReport(scanContext.getJobId(), message);
         }
+        return CompletableFuture.completedFuture(null);
     }
 
     @Override
@@ -155,33 +174,38 @@ public class VeracodeScanner implements Scanner {
         String deleteApiResult;
         ScanStatus currentScanStatus;
 
+        // The scan of the job may have already finished in this container, so fall back to the request.
+        ScanContext scanContext = scanContexts.get(scanRequest.getJobId());
+        String appId = scanContext != null ? scanContext.getAppId() : scanRequest.getAppId();
+        String jobId = scanRequest.getJobId();
+
         try {
             UploadAPIWrapper uploadAPIWrapper = VeracodeAPIUtil.getUploadAPIWrapper();
-            scanInfoResult = uploadAPIWrapper.getBuildInfo(scanContext.getAppId());
+            scanInfoResult = uploadAPIWrapper.getBuildInfo(appId);
             currentScanStatus = VeracodeResultProcessor.getScanStatus(scanInfoResult);
 
             if (ScanStatus.RUNNING.equals(currentScanStatus) || ScanStatus.SUBMITTED.equals(currentScanStatus)) {
-                deleteApiResult = uploadAPIWrapper.deleteBuild(scanContext.getAppId());
+                deleteApiResult = uploadAPIWrapper.deleteBuild(appId);
                 if (VeracodeResultProcessor.isOperationProceedWithoutError(deleteApiResult)) {
                     String message = "Successfully cancelled the scan of the application : " + scanRequest.getAppId();
                     log.info(new CallbackLog(scanRequest.getJobId(), message));
 
-                    CallbackUtil.updateScanStatus(scanContext.getJobId(), ScanStatus.CANCELED, null, null);
+                    CallbackUtil.updateScanStatus(jobId, ScanStatus.CANCELED, null, null);
                 } else {
                     String message = "Error occured while deleting the last scan of the application : "
                             + scanRequest.getAppId();
-                    callbackErrorReport(message);
+                    callbackErrorReport(jobId, message);
                 }
             } else {
                 String message = "Successfully cancelled the scan of the application : " + scanRequest.getAppId();
-                log.info(new CallbackLog(scanContext.getJobId(), message));
+                log.info(new CallbackLog(jobId, message));
 
-                CallbackUtil.updateScanStatus(scanContext.getJobId(), ScanStatus.CANCELED, null, null);
+                CallbackUtil.updateScanStatus(jobId, ScanStatus.CANCELED, null, null);
             }
         } catch (IOException | ParserConfigurationException | XPathExpressionException | SAXException e) {
             String message = "Error occured while deleting the last scan of the application : "
                     + scanRequest.getAppId() + " " + ErrorProcessingUtil.getFullErrorMessage(e);
-            callbackErrorReport(message);
+            callbackErrorReport(jobId, message);
         }
     }
 
@@ -190,15 +214,30 @@ public class VeracodeScanner implements Scanner {
         return true;
     }
 
+    @Override
+    public boolean resetScan() {
+
+        // The Veracode scans run on the start scan threads, which are checked by the scanner controller.
+        return scanContexts.isEmpty();
+    }
+
+    @Override
+    public int getMaxConcurrentScans() {
+        Object maxConcurrentScans = VeracodeScannerConfiguration.getInstance().getConfigs()
+                .get(ScannerConstants.MAX_CONCURRENT_SCANS);
+        return maxConcurrentScans == null ? VeracodeScannerConstants.DEFAULT_MAX_CONCURRENT_SCANS :
+                Integer.parseInt(String.valueOf(maxConcurrentScans));
+    }
+
     /**
      * Update the call back endpoint when error happens at the service layer.
      *
+     * @param jobId   job id of the scan
      * @param message error message
-     * @return ResponseEntity with status of the updating the call back endpoint
      */
-    private void callbackErrorReport(String message) {
-        log.error(new CallbackLog(scanContext.getJobId(), message));
+    private void callbackErrorReport(String jobId, String message) {
+        log.error(new CallbackLog(jobId, message));
 
-        CallbackUtil.updateScanStatus(scanContext.getJobId(), ScanStatus.ERROR, null, null);
+        CallbackUtil.updateScanStatus(jobId, ScanStatus.ERROR, null, null);
     }
 }
@@ -0,0 +1,136 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc., WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.wso2.security.tools.scanmanager.scanners.veracode.util;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.wso2.security.tools.scanmanager.scanners.common.cache.ArtifactCache;
+import org.wso2.security.tools.scanmanager.scanners.common.util.XMLUtil;
+import org.wso2.security.tools.scanmanager.scanners.veracode.VeracodeScannerConstants;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import javax.xml.parsers.ParserConfigurationException;
+
+import static org.wso2.security.tools.scanmanager.scanners.veracode.VeracodeScannerConstants.JAR_FILTER_FILE;
+
+/**
+ * Filter of the jar files that are scanned from a product pack. The prefix and suffix patterns of the jar filter
+ * file are parsed once, and the file names are matched against them without touching the XML document again.
+ */
+public class JarFilter implements Predicate<String> {
+
+    private static volatile JarFilter instance;
+
+    private final String[] prefixes;
+    private final String[] suffixes;
+    private final String digest;
+
+    private JarFilter(String[] prefixes, String[] suffixes, String digest) {
+        this.prefixes = prefixes;
+        this.suffixes = suffixes;
+        this.digest = digest;
+    }
+
+    /**
+     * Get the jar filter built from the jar filter file in the class path.
+     *
+     * @return jar filter
+     * @throws IOException                  when unable to read the jar filter file
+     * @throws SAXException                 when unable to parse the jar filter file
+     * @throws ParserConfigurationException when unable to create the XML parser
+     */
+    public static JarFilter getInstance() throws IOException, SAXException, ParserConfigurationException {
+        if (instance == null) {
+            synchronized (JarFilter.class) {
+                if (instance == null) {
+                    instance = load();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Check whether a file name matches any of the prefix and suffix patterns.
+     *
+     * @param fileName file name
+     * @return whether the file name matches
+     */
+    @Override
+    public boolean test(String fileName) {
+        for (int i = 0; i < prefixes.length; i++) {
+            if (fileName.startsWith(prefixes[i]) && fileName.endsWith(suffixes[i])) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get the SHA-256 digest of the jar filter file, which changes whenever the patterns change.
+     *
+     * @return hex encoded digest of the jar filter file
+     */
+    public String getDigest() {
+        return digest;
+    }
+
+    private static JarFilter load() throws IOException, SAXException, ParserConfigurationException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (InputStream input = JarFilter.class.getClassLoader().getResourceAsStream(JAR_FILTER_FILE)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + JAR_FILTER_FILE + " in the class path");
+            }
+            byte[] buffer = new byte[1024];
+            int readCount;
+            while ((readCount = input.read(buffer)) != -1) {
+                output.write(buffer, 0, readCount);
+            }
+        }
+        byte[] filterContent = output.toByteArray();
+
+        Document document = XMLUtil.getSecuredDocumentBuilderFactory().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(filterContent));
+        document.getDocumentElement().normalize();
+        NodeList formats = document.getElementsByTagName("format");
+
+        List<String> prefixes = new ArrayList<>();
+        List<String> suffixes = new ArrayList<>();
+        for (int i = 0; i < formats.getLength(); i++) {
+            Element format = (Element) formats.item(i);
+            prefixes.add(getTextContent(format, VeracodeScannerConstants.PREFIX));
+            suffixes.add(getTextContent(format, VeracodeScannerConstants.SUFFIX));
+        }
+        return new JarFilter(prefixes.toArray(new String[0]), suffixes.toArray(new String[0]),
+                ArtifactCache.digestOf(new ByteArrayInputStream(filterContent)));
+    }
+
+    private static String getTextContent(Element format, String tagName) {
+        Node node = format.getElementsByTagName(tagName).item(0);
+        return node == null ? "" : node.getTextContent();
+    }
+}
@@ -28,6 +28,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import static org.wso2.security.tools.scanmanager.webapp.util.Constants.DEFAULT_HTTP_CONNECT_TIMEOUT;
+import static org.wso2.security.tools.scanmanager.webapp.util.Constants.DEFAULT_HTTP_MAX_CONNECTIONS;
+import static org.wso2.security.tools.scanmanager.webapp.util.Constants.DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+import static org.wso2.security.tools.scanmanager.webapp.util.Constants.DEFAULT_HTTP_SOCKET_TIMEOUT;
+import static org.wso2.security.tools.scanmanager.webapp.util.Constants.DEFAULT_MAX_CONCURRENT_UPLOADS;
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.LOGS_URI;
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.SCANNERS_URI;
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.SCANS_URI;
@@ -46,6 +51,11 @@ public class ScanManagerWebappConfiguration {
     private String ftpUsername;
     private char[] ftpPassword;
     private String ftpBasePath;
+    private Integer maxConcurrentUploads;
+    private Integer httpMaxConnections;
+    private Integer httpMaxConnectionsPerRoute;
+    private Integer httpConnectTimeout;
+    private Integer httpSocketTimeout;
 
     private static final String SCAN_MANAGER_HOST_KEY = "scanManagerHost";
     private static final String SCAN_MANAGER_PORT_KEY = "scanManagerPort";
@@ -55,6 +65,11 @@ public class ScanManagerWebappConfiguration {
     private static final String FTP_USERNAME_KEY = "ftpUsername";
     private static final String FTP_PASSWORD_KEY = "ftpPassword";
     private static final String FTP_BASE_PATH = "ftpBasePath";
+    private static final String MAX_CONCURRENT_UPLOADS_KEY = "maxConcurrentUploads";
+    private static final String HTTP_MAX_CONNECTIONS_KEY = "httpMaxConnections";
+    private static final String HTTP_MAX_CONNECTIONS_PER_ROUTE_KEY = "httpMaxConnectionsPerRoute";
+    private static final String HTTP_CONNECT_TIMEOUT_KEY = "httpConnectTimeout";
+    private static final String HTTP_SOCKET_TIMEOUT_KEY = "httpSocketTimeout";
 
     private static final ScanManagerWebappConfiguration scanManagerWebappConfiguration =
             new ScanManagerWebappConfiguration();
@@ -70,6 +85,11 @@ public class ScanManagerWebappConfiguration {
         Integer ftpPort = (Integer) configObjectMap.get(FTP_PORT_KEY);
         String ftpUsername = (String) configObjectMap.get(FTP_USERNAME_KEY);
         String ftpBasePath = (String) configObjectMap.get(FTP_BASE_PATH);
+        Integer maxConcurrentUploads = (Integer) configObjectMap.get(MAX_CONCURRENT_UPLOADS_KEY);
+        Integer httpMaxConnections = (Integer) configObjectMap.get(HTTP_MAX_CONNECTIONS_KEY);
+        Integer httpMaxConnectionsPerRoute = (Integer) configObjectMap.get(HTTP_MAX_CONNECTIONS_PER_ROUTE_KEY);
+        Integer httpConnectTimeout = (Integer) configObjectMap.get(HTTP_CONNECT_TIMEOUT_KEY);
+        Integer httpSocketTimeout = (Integer) configObjectMap.get(HTTP_SOCKET_TIMEOUT_KEY);
 
         if (scanManagerHost != null) {
             this.scanManagerHost = scanManagerHost;
@@ -111,6 +131,16 @@ public class ScanManagerWebappConfiguration {
         } else {
             throw new ScanManagerWebappException("Unable to get the FTP server base path configuration");
         }
+        if (maxConcurrentUploads != null) {
+            this.maxConcurrentUploads = maxConcurrentUploads;
+        } else {
+            this.maxConcurrentUploads = DEFAULT_MAX_CONCURRENT_UPLOADS;
+        }
+        this.httpMaxConnections = httpMaxConnections != null ? httpMaxConnections : DEFAULT_HTTP_MAX_CONNECTIONS;
+        this.httpMaxConnectionsPerRoute = httpMaxConnectionsPerRoute != null ? httpMaxConnectionsPerRoute :
+                DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE;
+        this.httpConnectTimeout = httpConnectTimeout != null ? httpConnectTimeout : DEFAULT_HTTP_CONNECT_TIMEOUT;
+        this.httpSocketTimeout = httpSocketTimeout != null ? httpSocketTimeout : DEFAULT_HTTP_SOCKET_TIMEOUT;
     }
 
     public static ScanManagerWebappConfiguration getInstance() {
@@ -145,6 +175,26 @@ public class ScanManagerWebappConfiguration {
         return ftpBasePath;
     }
 
+    public Integer getMaxConcurrentUploads() {
+        return maxConcurrentUploads;
+    }
+
+    public Integer getHttpMaxConnections() {
+        return httpMaxConnections;
+    }
+
+    public Integer getHttpMaxConnectionsPerRoute() {
+        return httpMaxConnectionsPerRoute;
+    }
+
+    public Integer getHttpConnectTimeout() {
+        return httpConnectTimeout;
+    }
+
+    public Integer getHttpSocketTimeout() {
+        return httpSocketTimeout;
+    }
+
     /**
      * Building the URL to get the scans from scan manager API.
      *
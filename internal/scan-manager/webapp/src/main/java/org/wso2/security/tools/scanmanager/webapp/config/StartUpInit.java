@@ -22,10 +22,14 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.wso2.security.tools.scanmanager.common.config.ConfigurationReader;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPSessionPool;
 import org.wso2.security.tools.scanmanager.webapp.exception.ScanManagerWebappException;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * This class defines start up methods of the application.
@@ -45,8 +49,19 @@ public class StartUpInit {
         try {
             configurationReader.loadConfiguration(SCAN_MANAGER_CONFIG_FILE);
             ScanManagerWebappConfiguration.getInstance().init(configurationReader.getConfigs());
+            ScanManagerWebappConfiguration configuration = ScanManagerWebappConfiguration.getInstance();
+            HTTPClientPool.getInstance().configure(configuration.getHttpMaxConnections(),
+                    configuration.getHttpMaxConnectionsPerRoute(),
+                    (int) TimeUnit.SECONDS.toMillis(configuration.getHttpConnectTimeout()),
+                    (int) TimeUnit.SECONDS.toMillis(configuration.getHttpSocketTimeout()));
         } catch (ScanManagerWebappException | IOException e) {
             logger.error("Error occurred while initializing", e);
         }
     }
+
+    @PreDestroy
+    public void destroy() {
+        SFTPSessionPool.getInstance().shutdown();
+        HTTPClientPool.getInstance().shutdown();
+    }
 }
@@ -0,0 +1,46 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.webapp.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.wso2.security.tools.scanmanager.common.http.HTTPClientPool;
+import org.wso2.security.tools.scanmanager.common.model.ConnectionPoolStats;
+
+/**
+ * Controller class for monitoring the scan manager webapp.
+ */
+@Controller
+@RequestMapping("scan-manager")
+public class MetricsController {
+
+    /**
+     * Get the usage of the HTTP connection pool used for the requests to the scan manager.
+     *
+     * @return number of leased, pending and available connections of the pool
+     */
+    @GetMapping(value = "metrics/http-pool")
+    @ResponseBody
+    public ResponseEntity<ConnectionPoolStats> getHTTPPoolStats() {
+        return new ResponseEntity<>(HTTPClientPool.getInstance().getStats(), HttpStatus.OK);
+    }
+}
@@ -42,14 +42,19 @@ import org.wso2.security.tools.scanmanager.common.util.HTTPUtil;
 import org.wso2.security.tools.scanmanager.webapp.config.ScanManagerWebappConfiguration;
 import org.wso2.security.tools.scanmanager.webapp.exception.ScanManagerWebappException;
 import org.wso2.security.tools.scanmanager.webapp.util.FTPUtil;
+import org.wso2.security.tools.scanmanager.webapp.util.TransferProgress;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
 import java.net.URL;
-import java.nio.file.Files;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -59,6 +64,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.FILES_BY_URL_POSTFIX;
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.FILES_BY_URL_SEPARATOR;
@@ -87,9 +93,15 @@ public class ScanServiceImpl implements ScanService {
     private static final Integer ARTIFACT_DOWNLOAD_CONNECTION_TIMEOUT = 10000;
     private static final Integer ARTIFACT_DOWNLOAD_READ_TIMEOUT = 10000;
 
+    private static final long FILE_TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+    private static final int TRANSFER_PROGRESS_LOG_STEP = 10;
+
     // Temporary hold the scans till the pre-scan tasks are completed.
     private Map<String, Scan> preparingScans = new ConcurrentHashMap<>();
 
+    // Limits the number of scan file uploads that are written to the disk or to the FTP server at once.
+    private volatile Semaphore uploadPermits;
+
     @Autowired
     public ScanServiceImpl(LogService logService) {
         this.logService = logService;
@@ -112,15 +124,25 @@ public class ScanServiceImpl implements ScanService {
                 throw new ScanManagerWebappException("Error occurred while creating the scan directory");
             }
 
-            // Store the uploaded files in a temp scan directory.
-            for (Map.Entry<String, MultipartFile> entry : fileMap.entrySet()) {
-                if (!entry.getValue().isEmpty()) {
-                    String unifiedFileName = entry.getKey() + "." +
-                            FilenameUtils.getExtension(entry.getValue().getOriginalFilename());
-                    Path unifiedFilePath = Paths.get(scanDirectoryLocation.toPath().toString(), unifiedFileName);
-                    writeToFile(entry.getValue(), unifiedFilePath);
-                    storedFileMap.put(entry.getKey(), unifiedFilePath.toString());
+            // Store the uploaded files in a temp scan directory. The files are streamed to the disk, so that the
+            // memory used by an upload does not depend on the size of the files.
+            long totalFileSize = fileMap.values().stream().mapToLong(MultipartFile::getSize).sum();
+            TransferProgress writeProgress = new TransferProgress(totalFileSize, TRANSFER_PROGRESS_LOG_STEP,
+                    percentage -> logService.insert(preparingScan, LogType.INFO, "Storing the uploaded scan " +
+                            "files: " + percentage + "%"));
+            Semaphore permits = acquireUploadPermit();
+            try {
+                for (Map.Entry<String, MultipartFile> entry : fileMap.entrySet()) {
+                    if (!entry.getValue().isEmpty()) {
+                        String unifiedFileName = entry.getKey() + "." +
+                                FilenameUtils.getExtension(entry.getValue().getOriginalFilename());
+                        Path unifiedFilePath = Paths.get(scanDirectoryLocation.toPath().toString(), unifiedFileName);
+                        writeToFile(entry.getValue(), unifiedFilePath, writeProgress);
+                        storedFileMap.put(entry.getKey(), unifiedFilePath.toString());
+                    }
                 }
+            } finally {
+                permits.release();
             }
 
             Iterator<Map.Entry<String, String>> iter = parameterMap.entrySet().iterator();
@@ -258,14 +280,63 @@ public class ScanServiceImpl implements ScanService {
         }
     }
 
-    private void writeToFile(MultipartFile file, Path filepath) throws ScanManagerWebappException {
-        try (OutputStream destinationOutputStream = Files.newOutputStream(filepath)) {
-            destinationOutputStream.write(file.getBytes());
+    /**
+     * Write an uploaded file to the disk. The file is transferred between channels in chunks, so that it is never
+     * fully loaded into the memory.
+     *
+     * @param file     uploaded file
+     * @param filepath destination file path
+     * @param progress progress of the upload
+     * @throws ScanManagerWebappException when an error occurs while writing the file
+     */
+    private void writeToFile(MultipartFile file, Path filepath, TransferProgress progress)
+            throws ScanManagerWebappException {
+        try (InputStream sourceInputStream = file.getInputStream();
+             ReadableByteChannel sourceChannel = toChannel(sourceInputStream);
+             FileChannel destinationChannel = FileChannel.open(filepath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long position = 0;
+            long transferredCount;
+            while ((transferredCount = destinationChannel.transferFrom(sourceChannel, position,
+                    FILE_TRANSFER_CHUNK_SIZE)) > 0) {
+                position += transferredCount;
+                progress.update(transferredCount);
+            }
         } catch (IOException e) {
             throw new ScanManagerWebappException("IO Exception occurred while writing files to the disk", e);
         }
     }
 
+    private static ReadableByteChannel toChannel(InputStream inputStream) {
+
+        // Multipart files stored on the disk by the servlet container can be copied without going through the heap.
+        if (inputStream instanceof FileInputStream) {
+            return ((FileInputStream) inputStream).getChannel();
+        }
+        return Channels.newChannel(inputStream);
+    }
+
+    private Semaphore acquireUploadPermit() throws ScanManagerWebappException {
+        Semaphore permits = uploadPermits;
+        if (permits == null) {
+            synchronized (this) {
+                permits = uploadPermits;
+                if (permits == null) {
+                    permits = new Semaphore(ScanManagerWebappConfiguration.getInstance().getMaxConcurrentUploads(),
+                            true);
+                    uploadPermits = permits;
+                }
+            }
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ScanManagerWebappException("Interrupted while waiting to upload the scan files", e);
+        }
+        return permits;
+    }
+
     private Scan addScanToPreparing(Map<String, String> parameterMap) {
         String preJobId = PRE_JOB_ID_PREFIX + UUID.randomUUID().toString();
         Scan preparingScan = new Scan(preJobId);
@@ -316,9 +387,18 @@ public class ScanServiceImpl implements ScanService {
             // Upload the submitted files into the FTP server by creating a directory with the scan id and include the
             // file name and the location for each file in a separate map.
             if (!storedFileMap.isEmpty()) {
-                logService.insert(scan, LogType.INFO, "Uploading scan files to FTP.");
-                uploadedFileMap = FTPUtil.uploadFilesToFTP(scan.getJobId(), storedFileMap);
-                logService.insert(scan, LogType.INFO, "Uploading scan files to FTP is completed.");
+                long totalFileSize = storedFileMap.values().stream().mapToLong(path -> new File(path).length()).sum();
+                TransferProgress uploadProgress = new TransferProgress(totalFileSize, TRANSFER_PROGRESS_LOG_STEP,
+                        percentage -> logService.insert(scan, LogType.INFO, "Uploading scan files to FTP: " +
+                                percentage + "%"));
+                Semaphore permits = acquireUploadPermit();
+                try {
+                    logService.insert(scan, LogType.INFO, "Uploading scan files to FTP.");
+                    uploadedFileMap = FTPUtil.uploadFilesToFTP(scan.getJobId(), storedFileMap, uploadProgress);
+                    logService.insert(scan, LogType.INFO, "Uploading scan files to FTP is completed.");
+                } finally {
+                    permits.release();
+                }
             }
 
             // Send scan submit request to scan manager API.
@@ -51,6 +51,11 @@ public class Constants {
     public static final String FILES_BY_URL_POSTFIX = "byURL";
 
     public static final String MAX_FILE_SIZE_PROPERTY_KEY = "spring.http.multipart.maxFileSize";
+    public static final Integer DEFAULT_MAX_CONCURRENT_UPLOADS = 4;
+    public static final Integer DEFAULT_HTTP_MAX_CONNECTIONS = 100;
+    public static final Integer DEFAULT_HTTP_MAX_CONNECTIONS_PER_ROUTE = 20;
+    public static final Integer DEFAULT_HTTP_CONNECT_TIMEOUT = 30;
+    public static final Integer DEFAULT_HTTP_SOCKET_TIMEOUT = 300;
 
     public static final String ERROR_PAGE = "errorPage";
     public static final String USERNAME = "username";
@@ -17,44 +17,28 @@
  */
 package org.wso2.security.tools.scanmanager.webapp.util;
 
-import com.jcraft.jsch.Channel;
 import com.jcraft.jsch.ChannelSftp;
-import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
-import com.jcraft.jsch.Session;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
 import org.apache.commons.io.FilenameUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPChannel;
+import org.wso2.security.tools.scanmanager.common.sftp.SFTPSessionPool;
 import org.wso2.security.tools.scanmanager.webapp.config.ScanManagerWebappConfiguration;
 import org.wso2.security.tools.scanmanager.webapp.exception.ScanManagerWebappException;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.OutputStream;
-import java.nio.ByteBuffer;
-import java.nio.CharBuffer;
-import java.nio.charset.Charset;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import static org.wso2.security.tools.scanmanager.webapp.util.Constants.FTP_SCAN_DATA_DIRECTORY_NAME;
 
 /**
- * Utility class for scan manager webapp.
+ * Utility class for scan manager webapp. The SFTP channels are borrowed from the shared session pool, so that the
+ * transfers do not open a new SSH session per call.
  */
 public class FTPUtil {
 
-    private static final Logger logger = LoggerFactory.getLogger(FTPUtil.class);
-
-    private static final String STRICT_HOST_KEY_CHECKING_CONFIG_NAME = "StrictHostKeyChecking";
-    private static final String PREFERRED_AUTHENTICATIONS_CONFIG_NAME = "PreferredAuthentications";
-
     private FTPUtil() {
     }
 
@@ -67,53 +51,14 @@ public class FTPUtil {
      */
     public static void downloadFromFTP(String remoteFileLocation, String outputLocation)
             throws ScanManagerWebappException {
-        ChannelSftp channelSftp = null;
-        Channel channel;
-        Session session = null;
-        BufferedInputStream destFileBufferedInputStream = null;
-        char[] ftpPassword = null;
-        File file = new File(outputLocation);
-        File remoteFile = new File(remoteFileLocation);
-        JSch jsch = new JSch();
-
-        byte[] buffer = new byte[1024];
-        int readCount;
-        try (OutputStream destFileOutputStream = new FileOutputStream(file);
-             BufferedOutputStream destFileBufferedOutputStream = new BufferedOutputStream(destFileOutputStream)) {
-            String ftpHost = ScanManagerWebappConfiguration.getInstance().getFtpHost();
-            String ftpUsername = ScanManagerWebappConfiguration.getInstance().getFtpUsername();
-            ftpPassword = ScanManagerWebappConfiguration.getInstance().getFtpPassword();
-            int ftpPort = ScanManagerWebappConfiguration.getInstance().getFtpPort();
-            session = jsch.getSession(ftpUsername, ftpHost, ftpPort);
-            session.setConfig(STRICT_HOST_KEY_CHECKING_CONFIG_NAME, "no");
-            session.setConfig(PREFERRED_AUTHENTICATIONS_CONFIG_NAME, "password");
-            session.setPassword(toBytes(ftpPassword));
-            session.connect();
-
-            channel = session.openChannel("sftp");
-            channelSftp = (ChannelSftp) channel;
-            channelSftp.connect();
-            channelSftp.cd(remoteFile.getParent());
-            destFileBufferedInputStream = new BufferedInputStream(channelSftp.get(remoteFileLocation));
-            while ((readCount = destFileBufferedInputStream.read(buffer)) > 0) {
-                destFileBufferedOutputStream.write(buffer, 0, readCount);
-            }
-        } catch (IOException | JSchException | SftpException e) {
+        char[] ftpPassword = ScanManagerWebappConfiguration.getInstance().getFtpPassword();
+        try (SFTPChannel sftpChannel = borrowChannel(ftpPassword)) {
+            ChannelSftp channelSftp = sftpChannel.getChannel();
+            channelSftp.cd(new File(remoteFileLocation).getParent());
+            channelSftp.get(remoteFileLocation, outputLocation);
+        } catch (JSchException | SftpException e) {
             throw new ScanManagerWebappException("Error occurred while downloading from FTP.", e);
         } finally {
-            if (channelSftp != null) {
-                channelSftp.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
-            try {
-                if (destFileBufferedInputStream != null) {
-                    destFileBufferedInputStream.close();
-                }
-            } catch (IOException e) {
-                logger.error("Error occurred while closing the buffered output stream from FTP", e);
-            }
             cleanCharArrays(ftpPassword);
         }
     }
@@ -128,55 +73,59 @@ public class FTPUtil {
      */
     public static Map<String, String> uploadFilesToFTP(String remoteScanDirectory, Map<String, String> storedFileMap)
             throws ScanManagerWebappException {
-        ChannelSftp channelSftp = null;
-        Channel channel;
-        Session session = null;
-        char[] ftpPassword = null;
+        return uploadFilesToFTP(remoteScanDirectory, storedFileMap, null);
+    }
+
+    /**
+     * Upload files to FTP server. The files are streamed from the disk in parallel, so the memory used does not
+     * depend on the size of the files.
+     *
+     * @param remoteScanDirectory destination file directory
+     * @param storedFileMap       file map
+     * @param progressMonitor     monitor notified of the uploaded bytes, or null
+     * @return a map containing the paths of the uploaded files
+     * @throws ScanManagerWebappException when an error occurs when uploading files to FTP server
+     */
+    public static Map<String, String> uploadFilesToFTP(String remoteScanDirectory, Map<String, String> storedFileMap,
+                                                       SftpProgressMonitor progressMonitor)
+            throws ScanManagerWebappException {
+        ScanManagerWebappConfiguration configuration = ScanManagerWebappConfiguration.getInstance();
+        String remoteScanDirectoryPath = configuration.getFtpBasePath() + File.separator +
+                FTP_SCAN_DATA_DIRECTORY_NAME + File.separator + remoteScanDirectory;
+        Map<String, String> filesToUpload = new HashMap<>();
         Map<String, String> uploadedFileMetaData = new HashMap<>();
-        JSch jsch = new JSch();
+        char[] ftpPassword = configuration.getFtpPassword();
 
         try {
-            String ftpHost = ScanManagerWebappConfiguration.getInstance().getFtpHost();
-            String ftpUsername = ScanManagerWebappConfiguration.getInstance().getFtpUsername();
-            ftpPassword = ScanManagerWebappConfiguration.getInstance().getFtpPassword();
-            int ftpPort = ScanManagerWebappConfiguration.getInstance().getFtpPort();
-            session = jsch.getSession(ftpUsername, ftpHost, ftpPort);
-            session.setConfig(STRICT_HOST_KEY_CHECKING_CONFIG_NAME, "no");
-            session.setConfig(PREFERRED_AUTHENTICATIONS_CONFIG_NAME, "password");
-            session.setPassword(toBytes(ftpPassword));
-            session.connect();
-
-            channel = session.openChannel("sftp");
-            channelSftp = (ChannelSftp) channel;
-            channelSftp.connect();
-            channelSftp.cd(ScanManagerWebappConfiguration.getInstance().getFtpBasePath() + File.separator +
-                    FTP_SCAN_DATA_DIRECTORY_NAME);
-            channelSftp.mkdir(remoteScanDirectory);
-            channelSftp.cd(remoteScanDirectory);
-
+            try (SFTPChannel sftpChannel = borrowChannel(ftpPassword)) {
+                ChannelSftp channelSftp = sftpChannel.getChannel();
+                channelSftp.cd(configuration.getFtpBasePath() + File.separator + FTP_SCAN_DATA_DIRECTORY_NAME);
+                channelSftp.mkdir(remoteScanDirectory);
+            }
             for (Map.Entry<String, String> fileEntry : storedFileMap.entrySet()) {
                 String unifiedFileName = fileEntry.getKey() + "." +
                         FilenameUtils.getExtension(fileEntry.getValue());
-                channelSftp.put(new FileInputStream(fileEntry.getValue()), unifiedFileName);
+                filesToUpload.put(unifiedFileName, fileEntry.getValue());
                 uploadedFileMetaData.put(fileEntry.getKey(),
-                        ScanManagerWebappConfiguration.getInstance().getFtpBasePath() + File.separator +
-                                FTP_SCAN_DATA_DIRECTORY_NAME + File.separator + remoteScanDirectory + File.separator +
-                                unifiedFileName);
+                        remoteScanDirectoryPath + File.separator + unifiedFileName);
             }
-        } catch (IOException | JSchException | SftpException e) {
+            SFTPSessionPool.getInstance().uploadFiles(configuration.getFtpHost(), configuration.getFtpPort(),
+                    configuration.getFtpUsername(), ftpPassword, remoteScanDirectoryPath, filesToUpload,
+                    progressMonitor);
+        } catch (JSchException | SftpException e) {
             throw new ScanManagerWebappException("Error occurred while uploading files to FTP.", e);
         } finally {
-            if (channelSftp != null) {
-                channelSftp.disconnect();
-            }
-            if (session != null) {
-                session.disconnect();
-            }
             cleanCharArrays(ftpPassword);
         }
         return uploadedFileMetaData;
     }
 
+    private static SFTPChannel borrowChannel(char[] ftpPassword) throws JSchException {
+        ScanManagerWebappConfiguration configuration = ScanManagerWebappConfiguration.getInstance();
+        return SFTPSessionPool.getInstance().borrow(configuration.getFtpHost(), configuration.getFtpPort(),
+                configuration.getFtpUsername(), ftpPassword);
+    }
+
     /**
      * Flush char arrays that stores sensitive information.
      *
@@ -189,13 +138,4 @@ public class FTPUtil {
             }
         }
     }
-
-    private static byte[] toBytes(char[] chars) {
-        CharBuffer charBuffer = CharBuffer.wrap(chars);
-        ByteBuffer byteBuffer = Charset.forName("UTF-8").encode(charBuffer);
-        byte[] bytes = Arrays.copyOfRange(byteBuffer.array(),
-                byteBuffer.position(), byteBuffer.limit());
-        Arrays.fill(byteBuffer.array(), (byte) 0); // clear sensitive data
-        return bytes;
-    }
 }
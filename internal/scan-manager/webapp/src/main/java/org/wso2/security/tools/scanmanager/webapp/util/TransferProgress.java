@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.security.tools.scanmanager.webapp.util;
+
+import com.jcraft.jsch.SftpProgressMonitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+/**
+ * Tracks the progress of a file transfer, i.e. writing an uploaded file to the disk or uploading it to the FTP
+ * server. The given listener is notified each time the transfer crosses a step of the given percentage.
+ */
+public class TransferProgress implements SftpProgressMonitor {
+
+    private final long totalBytes;
+    private final int percentageStep;
+    private final IntConsumer percentageListener;
+    private final AtomicLong transferredBytes = new AtomicLong();
+    private int lastNotifiedPercentage;
+
+    public TransferProgress(long totalBytes, int percentageStep, IntConsumer percentageListener) {
+        this.totalBytes = totalBytes;
+        this.percentageStep = percentageStep;
+        this.percentageListener = percentageListener;
+    }
+
+    /**
+     * Record a number of transferred bytes.
+     *
+     * @param byteCount number of bytes transferred since the last call
+     */
+    public void update(long byteCount) {
+        long transferred = transferredBytes.addAndGet(byteCount);
+        if (totalBytes <= 0) {
+            return;
+        }
+        int percentage = (int) Math.min(100, transferred * 100 / totalBytes);
+        int notifiedPercentage = percentage - percentage % percentageStep;
+        synchronized (this) {
+            if (notifiedPercentage <= lastNotifiedPercentage) {
+                return;
+            }
+            lastNotifiedPercentage = notifiedPercentage;
+        }
+        percentageListener.accept(notifiedPercentage);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getTransferredBytes() {
+        return transferredBytes.get();
+    }
+
+    @Override
+    public void init(int op, String src, String dest, long max) {
+        // The total is known before the transfer begins, as several files may be tracked together.
+    }
+
+    @Override
+    public boolean count(long count) {
+        update(count);
+        return true;
+    }
+
+    @Override
+    public void end() {
+        // Nothing to release.
+    }
+}